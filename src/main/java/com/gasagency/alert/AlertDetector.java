@@ -15,6 +15,11 @@ public interface AlertDetector {
     /**
      * Detect and create alerts based on current system state
      * Should be idempotent - safe to call multiple times
+     * Failures are thrown, not logged: AlertDetectionService records them per
+     * detector. Runs on the detector pool in a transaction whose timeout is the
+     * detector's time budget.
+     *
+     * @return number of alerts created or refreshed
      */
-    void detectAndCreateAlerts();
+    int detectAndCreateAlerts();
 }
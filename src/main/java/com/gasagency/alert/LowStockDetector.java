@@ -1,6 +1,7 @@
 package com.gasagency.alert;
 
 import com.gasagency.dto.InventoryStockDTO;
+import com.gasagency.entity.AlertNotification;
 import com.gasagency.service.AlertConfigurationService;
 import com.gasagency.service.AlertNotificationService;
 import com.gasagency.service.InventoryStockService;
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,67 +42,63 @@ public class LowStockDetector implements AlertDetector {
     }
 
     @Override
-    public void detectAndCreateAlerts() {
-        try {
-            // Get alert configuration
-            Optional<AlertConfiguration> configOpt = configService.getConfigOptional(ALERT_TYPE);
+    public int detectAndCreateAlerts() {
+        // Get alert configuration
+        Optional<AlertConfiguration> configOpt = configService.getConfigOptional(ALERT_TYPE);
 
-            if (configOpt.isEmpty() || !configOpt.get().getEnabled()) {
-                return; // Alert disabled
+        if (configOpt.isEmpty() || !configOpt.get().getEnabled()) {
+            return 0; // Alert disabled
+        }
+
+        AlertConfiguration config = configOpt.get();
+        int filledThreshold = config.getFilledCylinderThreshold() != null ? config.getFilledCylinderThreshold()
+                : 50;
+        int emptyThreshold = config.getEmptyCylinderThreshold() != null ? config.getEmptyCylinderThreshold() : 50;
+
+        // Get all warehouse inventory
+        List<InventoryStockDTO> allStock = inventoryStockService.getAllStock();
+        List<AlertNotification> candidates = new ArrayList<>();
+
+        for (InventoryStockDTO stock : allStock) {
+            if (stock.getWarehouseId() == null)
+                continue;
+
+            Long warehouseId = stock.getWarehouseId();
+            String warehouseName = stock.getWarehouseName() != null ? stock.getWarehouseName()
+                    : "Warehouse " + warehouseId;
+
+            // Check filled cylinders
+            long filledQty = stock.getFilledQty() != null ? stock.getFilledQty() : 0;
+            if (filledQty < filledThreshold) {
+                candidates.add(candidate("LOW_STOCK_FILLED_WH_" + warehouseId, warehouseId,
+                        warehouseName + ": Only " + filledQty +
+                                " filled cylinders (threshold: " + filledThreshold + ")"));
             }
 
-            AlertConfiguration config = configOpt.get();
-            int filledThreshold = config.getFilledCylinderThreshold() != null ? config.getFilledCylinderThreshold()
-                    : 50;
-            int emptyThreshold = config.getEmptyCylinderThreshold() != null ? config.getEmptyCylinderThreshold() : 50;
-
-            // Get all warehouse inventory
-            List<InventoryStockDTO> allStock = inventoryStockService.getAllStock();
-
-            for (InventoryStockDTO stock : allStock) {
-                if (stock.getWarehouseId() == null)
-                    continue;
-
-                Long warehouseId = stock.getWarehouseId();
-                String warehouseName = stock.getWarehouseName() != null ? stock.getWarehouseName()
-                        : "Warehouse " + warehouseId;
-
-                // Check filled cylinders
-                long filledQty = stock.getFilledQty() != null ? stock.getFilledQty() : 0;
-                if (filledQty < filledThreshold) {
-                    String alertKey = "LOW_STOCK_FILLED_WH_" + warehouseId;
-                    String message = warehouseName + ": Only " + filledQty +
-                            " filled cylinders (threshold: " + filledThreshold + ")";
-
-                    notificationService.createOrUpdateAlert(
-                            ALERT_TYPE,
-                            alertKey,
-                            warehouseId,
-                            null,
-                            message,
-                            "warning");
-                    logger.info("Low filled stock alert created for {}", warehouseName);
-                }
-
-                // Check empty cylinders
-                long emptyQty = stock.getEmptyQty() != null ? stock.getEmptyQty() : 0;
-                if (emptyQty < emptyThreshold) {
-                    String alertKey = "LOW_STOCK_EMPTY_WH_" + warehouseId;
-                    String message = warehouseName + ": Only " + emptyQty +
-                            " empty cylinders (threshold: " + emptyThreshold + ")";
-
-                    notificationService.createOrUpdateAlert(
-                            ALERT_TYPE,
-                            alertKey,
-                            warehouseId,
-                            null,
-                            message,
-                            "warning");
-                    logger.info("Low empty stock alert created for {}", warehouseName);
-                }
+            // Check empty cylinders
+            long emptyQty = stock.getEmptyQty() != null ? stock.getEmptyQty() : 0;
+            if (emptyQty < emptyThreshold) {
+                candidates.add(candidate("LOW_STOCK_EMPTY_WH_" + warehouseId, warehouseId,
+                        warehouseName + ": Only " + emptyQty +
+                                " empty cylinders (threshold: " + emptyThreshold + ")"));
             }
-        } catch (Exception e) {
-            logger.error("Error detecting low stock alerts", e);
         }
+
+        // Existing alerts are looked up and new ones written in one batch
+        int created = notificationService.createOrUpdateAlerts(candidates).size();
+        if (created > 0) {
+            logger.info("Low stock check: {} alerts created", created);
+        }
+        return created;
+    }
+
+    private static AlertNotification candidate(String alertKey, Long warehouseId, String message) {
+        AlertNotification alert = new AlertNotification();
+        alert.setAlertType(ALERT_TYPE);
+        alert.setAlertKey(alertKey);
+        alert.setWarehouseId(warehouseId);
+        alert.setMessage(message);
+        alert.setSeverity("warning");
+        return alert;
     }
 }
@@ -1,21 +1,26 @@
 package com.gasagency.alert;
 
-import com.gasagency.entity.Customer;
-import com.gasagency.repository.CustomerRepository;
+import com.gasagency.entity.AlertNotification;
+import com.gasagency.repository.CustomerCylinderLedgerRepository;
+import com.gasagency.repository.PendingReturnView;
 import com.gasagency.service.AlertConfigurationService;
 import com.gasagency.service.AlertNotificationService;
-import com.gasagency.service.CustomerCylinderLedgerService;
 import com.gasagency.entity.AlertConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Alert detector for PENDING RETURN CYLINDERS
  * Monitors cylinders pending return from customers
+ *
+ * A run costs the same few round trips however many customers there are: one
+ * grouped ledger query for the customers at or over the threshold, one IN
+ * query for their existing alerts and batched writes for new or refreshed ones.
  */
 @Component
 public class PendingReturnDetector implements AlertDetector {
@@ -23,17 +28,14 @@ public class PendingReturnDetector implements AlertDetector {
     private static final Logger logger = LoggerFactory.getLogger(PendingReturnDetector.class);
     private static final String ALERT_TYPE = "PENDING_RETURN_CYLINDERS";
 
-    private final CustomerRepository customerRepository;
-    private final CustomerCylinderLedgerService ledgerService;
+    private final CustomerCylinderLedgerRepository ledgerRepository;
     private final AlertConfigurationService configService;
     private final AlertNotificationService notificationService;
 
-    public PendingReturnDetector(CustomerRepository customerRepository,
-            CustomerCylinderLedgerService ledgerService,
+    public PendingReturnDetector(CustomerCylinderLedgerRepository ledgerRepository,
             AlertConfigurationService configService,
             AlertNotificationService notificationService) {
-        this.customerRepository = customerRepository;
-        this.ledgerService = ledgerService;
+        this.ledgerRepository = ledgerRepository;
         this.configService = configService;
         this.notificationService = notificationService;
     }
@@ -44,46 +46,39 @@ public class PendingReturnDetector implements AlertDetector {
     }
 
     @Override
-    public void detectAndCreateAlerts() {
-        try {
-            // Get alert configuration
-            Optional<AlertConfiguration> configOpt = configService.getConfigOptional(ALERT_TYPE);
+    public int detectAndCreateAlerts() {
+        // Get alert configuration
+        Optional<AlertConfiguration> configOpt = configService.getConfigOptional(ALERT_TYPE);
 
-            if (configOpt.isEmpty() || !configOpt.get().getEnabled()) {
-                return; // Alert disabled
-            }
-
-            AlertConfiguration config = configOpt.get();
-            int pendingThreshold = config.getPendingReturnThreshold() != null ? config.getPendingReturnThreshold() : 10;
-
-            // Get all customers
-            List<Customer> allCustomers = customerRepository.findAll();
+        if (configOpt.isEmpty() || !configOpt.get().getEnabled()) {
+            return 0; // Alert disabled
+        }
 
-            for (Customer customer : allCustomers) {
-                try {
-                    // Get count of pending return cylinders for this customer
-                    long pendingCount = ledgerService.getPendingReturnCountForCustomer(customer.getId());
+        AlertConfiguration config = configOpt.get();
+        int pendingThreshold = config.getPendingReturnThreshold() != null ? config.getPendingReturnThreshold() : 10;
 
-                    if (pendingCount >= pendingThreshold) {
-                        String alertKey = "PENDING_RETURN_CUST_" + customer.getId();
-                        String message = customer.getName() +
-                                ": " + pendingCount + " cylinders pending return (threshold: " + pendingThreshold + ")";
+        // Only customers at or over the threshold come back
+        List<PendingReturnView> pending = ledgerRepository.findCustomersWithPendingReturnsAtLeast(pendingThreshold);
+        if (pending.isEmpty()) {
+            return 0;
+        }
 
-                        notificationService.createOrUpdateAlert(
-                                ALERT_TYPE,
-                                alertKey,
-                                null,
-                                customer.getId(),
-                                message,
-                                "warning");
-                        logger.info("Pending return alert created for customer: {}", customer.getName());
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error checking pending returns for customer {}: {}", customer.getId(), e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error detecting pending return alerts", e);
+        List<AlertNotification> candidates = new ArrayList<>(pending.size());
+        for (PendingReturnView customer : pending) {
+            AlertNotification alert = new AlertNotification();
+            alert.setAlertType(ALERT_TYPE);
+            alert.setAlertKey("PENDING_RETURN_CUST_" + customer.getCustomerId());
+            alert.setCustomerId(customer.getCustomerId());
+            alert.setMessage(customer.getCustomerName() +
+                    ": " + customer.getPendingCount() + " cylinders pending return (threshold: "
+                    + pendingThreshold + ")");
+            alert.setSeverity("warning");
+            candidates.add(alert);
         }
+
+        int created = notificationService.createOrUpdateAlerts(candidates).size();
+        logger.info("Pending return check: {} customers at or over threshold {}, {} alerts created",
+                pending.size(), pendingThreshold, created);
+        return created;
     }
 }
@@ -1,141 +1,75 @@
 package com.gasagency.config;
 
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
-import java.util.concurrent.TimeUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Performance Optimization Configuration: Caching
- * 
- * Implements multi-level caching strategy for high-concurrency environments:
- * - Caffeine in-memory cache for dashboard, reports, and reference data
- * - Query result caching to prevent redundant database hits
- * - Entity-level caching for frequently accessed reference data
- * 
- * Configured for 10-15 concurrent users with fast response times
+ *
+ * One Caffeine cache manager; every cache has its own size/TTL/refresh policy
+ * from app.cache.policies.<cacheName>, written as a Caffeine spec, e.g.
+ * maximumSize=100,expireAfterWrite=2m,refreshAfterWrite=30s
+ *
+ * The set of caches is fixed by that configuration: a cache name without a
+ * policy gets no default cache (CachePolicyTest fails the build on one).
+ * Statistics are recorded for every cache and reported on
+ * /actuator/cachestats and as cache.* meters.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
-    /**
-     * Caffeine Cache Manager with optimized settings for concurrency
-     * 
-     * Cache Sizes:
-     * - Reference data (variants, suppliers, etc): 1000 entries
-     * - Dashboard/Reports: 100 entries
-     * - Customer data: 500 entries
-     * 
-     * Expiration Policies:
-     * - Reference data: 30 minutes (cache warm data that changes infrequently)
-     * - Reports: 5 minutes (balance between freshness and performance)
-     * - Dashboard: 2 minutes (real-time dashboard updates)
-     */
-    @Bean
-    @org.springframework.context.annotation.Primary
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "referenceData", // Cylinder variants, suppliers, payment modes, etc
-                "dashboardCache", // Dashboard summary and metrics
-                "reportCache", // Customer due payments, sales reports
-                "customerCache", // Customer details and summaries
-                "inventoryCache", // Warehouse and inventory levels
-                "priceCache" // Monthly prices
-        );
-
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(2000) // Maximum total cache size
-                .expireAfterWrite(10, TimeUnit.MINUTES) // Default expiration
-                .recordStats()); // Enable cache statistics for monitoring
+    public static final String POLICIES_PREFIX = "app.cache.policies";
 
-        return cacheManager;
-    }
-
-    /**
-     * Reference data cache - 30 minute TTL
-     * Used for: CylinderVariant, Supplier, PaymentMode, ExpenseCategory
-     */
     @Bean
-    public CaffeineCacheManager referenceDataCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("referenceData");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
-    }
+    @Primary
+    public CacheManager cacheManager(Environment environment) {
+        Map<String, String> policies = cachePolicies(environment);
+        List<CaffeineCache> caches = new ArrayList<>(policies.size());
+        policies.forEach((name, spec) -> caches.add(buildCache(name, spec)));
 
-    /**
-     * Dashboard cache - 2 minute TTL
-     * For real-time metrics and summary data
-     */
-    @Bean
-    public CaffeineCacheManager dashboardCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("dashboardCache");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(100)
-                .expireAfterWrite(2, TimeUnit.MINUTES)
-                .recordStats());
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
         return cacheManager;
     }
 
     /**
-     * Report cache - 5 minute TTL
-     * For due payment reports, sales summaries, expense reports
+     * Configured policies by cache name, in name order.
      */
-    @Bean
-    public CaffeineCacheManager reportCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("reportCache");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(100)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
+    public static Map<String, String> cachePolicies(Environment environment) {
+        Map<String, String> policies = Binder.get(environment)
+                .bind(POLICIES_PREFIX, Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+        return new TreeMap<>(policies);
     }
 
-    /**
-     * Customer cache - 15 minute TTL
-     * For customer details and customer-specific summaries
-     */
-    @Bean
-    public CaffeineCacheManager customerCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("customerCache");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(500)
-                .expireAfterWrite(15, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
-    }
-
-    /**
-     * Inventory cache - 10 minute TTL
-     * For warehouse and stock information
-     */
-    @Bean
-    public CaffeineCacheManager inventoryCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("inventoryCache");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(200)
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
-    }
-
-    /**
-     * Price cache - 60 minute TTL
-     * Monthly prices change infrequently, so longer TTL is safe
-     */
-    @Bean
-    public CaffeineCacheManager priceCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("priceCache");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(200)
-                .expireAfterWrite(60, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
+    private static CaffeineCache buildCache(String name, String spec) {
+        CaffeineSpec caffeineSpec;
+        try {
+            caffeineSpec = CaffeineSpec.parse(spec);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + POLICIES_PREFIX + "." + name + ": " + e.getMessage(), e);
+        }
+        Caffeine<Object, Object> builder = Caffeine.from(caffeineSpec).recordStats();
+        if (spec.contains("refreshAfterWrite")) {
+            return RefreshAheadCaffeineCache.create(name, builder);
+        }
+        return new CaffeineCache(name, builder.build());
     }
 }
@@ -0,0 +1,68 @@
+package com.gasagency.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint /actuator/cachestats
+ *
+ * Per cache: configured policy, current size, hit rate, hits/misses, evictions
+ * and load time. Counts are cumulative since startup; the same numbers are
+ * exported as cache.gets / cache.evictions / cache.puts meters.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatisticsEndpoint {
+
+    private final CacheManager cacheManager;
+    private final Map<String, String> policies;
+
+    public CacheStatisticsEndpoint(CacheManager cacheManager, Environment environment) {
+        this.cacheManager = cacheManager;
+        this.policies = CacheConfig.cachePolicies(environment);
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> caches = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                caches.put(name, statistics(name, caffeineCache.getNativeCache()));
+            }
+        }
+        return caches;
+    }
+
+    private Map<String, Object> statistics(String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache) {
+        CacheStats stats = nativeCache.stats();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("policy", policies.get(name));
+        row.put("size", nativeCache.estimatedSize());
+        row.put("requests", stats.requestCount());
+        row.put("hits", stats.hitCount());
+        row.put("misses", stats.missCount());
+        row.put("hitRate", round(stats.hitRate()));
+        row.put("evictions", stats.evictionCount());
+        row.put("loads", stats.loadCount());
+        row.put("loadFailures", stats.loadFailureCount());
+        row.put("averageLoadMs", round(stats.averageLoadPenalty() / 1_000_000.0));
+        row.put("totalLoadMs", round(stats.totalLoadTime() / 1_000_000.0));
+        return row;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
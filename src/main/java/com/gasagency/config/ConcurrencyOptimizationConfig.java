@@ -1,5 +1,6 @@
 package com.gasagency.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -26,13 +27,15 @@ public class ConcurrencyOptimizationConfig {
      * Configure transaction manager with optimized settings.
      * - Global rollback on participation failure
      * - 5 minute timeout per transaction
+     * - Duration/outcome meters per transaction (TransactionMetricsListener)
      */
     @Bean
-    public JpaTransactionManager transactionManager(EntityManagerFactory emf) {
+    public JpaTransactionManager transactionManager(EntityManagerFactory emf, MeterRegistry meterRegistry) {
         JpaTransactionManager txnManager = new JpaTransactionManager();
         txnManager.setEntityManagerFactory(emf);
         txnManager.setGlobalRollbackOnParticipationFailure(true);
         txnManager.setDefaultTimeout(300); // 5 minute timeout per transaction
+        txnManager.addListener(new TransactionMetricsListener(meterRegistry));
         return txnManager;
     }
 }
@@ -0,0 +1,112 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint /actuator/dbtelemetry
+ *
+ * One JSON snapshot of the database meters for dashboards and the load
+ * harness (diff two snapshots taken before and after a run):
+ * - pools: Hikari active/idle/pending/total/max and connection acquire time
+ * per pool (hikaricp.*)
+ * - transactions: transaction.duration per starting method and outcome,
+ * sorted by total time
+ * - lockWaits: db.lock.wait per locking repository method
+ *
+ * Times are in milliseconds; counts and totals are cumulative since startup.
+ */
+@Component
+@Endpoint(id = "dbtelemetry")
+public class DatabaseTelemetryEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    public DatabaseTelemetryEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pools", pools());
+        snapshot.put("activeTransactions", gaugeValue("transaction.active", null, null));
+        snapshot.put("transactions", timers("transaction.duration", "name", "read_only", "outcome"));
+        snapshot.put("lockWaits", timers("db.lock.wait", "method", "mode", "outcome"));
+        return snapshot;
+    }
+
+    private Map<String, Object> pools() {
+        Map<String, Object> pools = new TreeMap<>();
+        for (Gauge gauge : meterRegistry.find("hikaricp.connections.max").gauges()) {
+            String pool = gauge.getId().getTag("pool");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", gaugeValue("hikaricp.connections.active", "pool", pool));
+            stats.put("idle", gaugeValue("hikaricp.connections.idle", "pool", pool));
+            stats.put("pending", gaugeValue("hikaricp.connections.pending", "pool", pool));
+            stats.put("total", gaugeValue("hikaricp.connections", "pool", pool));
+            stats.put("max", gauge.value());
+            Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+            if (acquire != null) {
+                stats.put("acquire", timerStats(acquire));
+            }
+            Timer usage = meterRegistry.find("hikaricp.connections.usage").tag("pool", pool).timer();
+            if (usage != null) {
+                stats.put("usage", timerStats(usage));
+            }
+            stats.put("timeouts", meterRegistry.find("hikaricp.connections.timeout").tag("pool", pool)
+                    .counters().stream().mapToDouble(c -> c.count()).sum());
+            pools.put(pool, stats);
+        }
+        return pools;
+    }
+
+    private List<Map<String, Object>> timers(String name, String... tagKeys) {
+        List<Timer> timers = new ArrayList<>(meterRegistry.find(name).timers());
+        timers.sort(Comparator.comparingDouble((Timer t) -> t.totalTime(TimeUnit.MILLISECONDS)).reversed());
+        List<Map<String, Object>> rows = new ArrayList<>(timers.size());
+        for (Timer timer : timers) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String tagKey : tagKeys) {
+                row.put(tagKey, timer.getId().getTag(tagKey));
+            }
+            row.putAll(timerStats(timer));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Map<String, Object> timerStats(Timer timer) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", timer.count());
+        stats.put("totalMs", round(timer.totalTime(TimeUnit.MILLISECONDS)));
+        stats.put("meanMs", round(timer.mean(TimeUnit.MILLISECONDS)));
+        stats.put("maxMs", round(timer.max(TimeUnit.MILLISECONDS)));
+        return stats;
+    }
+
+    private Double gaugeValue(String name, String tagKey, String tagValue) {
+        var search = meterRegistry.find(name);
+        if (tagKey != null) {
+            search = search.tag(tagKey, tagValue);
+        }
+        Gauge gauge = search.gauge();
+        return gauge != null ? gauge.value() : null;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
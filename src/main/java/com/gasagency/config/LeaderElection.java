@@ -0,0 +1,113 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide leader election on a database lease (scheduler_lease row).
+ *
+ * Every node tries to take or renew the lease every ttl/3 with one conditional
+ * UPDATE: it succeeds when the node already owns the lease or the lease has
+ * expired. Expiry is compared with the database clock, so node clocks do not
+ * matter. Locally the node only considers itself leader until
+ * (start of last successful renewal + ttl - one renewal interval), so it stops
+ * acting before another node can take over even if renewals stall.
+ *
+ * The lease is released on shutdown so the other node takes over at its next
+ * attempt instead of after a full ttl.
+ */
+public class LeaderElection {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElection.class);
+
+    private static final String ACQUIRE_SQL = "UPDATE scheduler_lease SET owner = ?, "
+            + "expires_at = CURRENT_TIMESTAMP + CAST(? AS INTEGER) * INTERVAL '1' SECOND "
+            + "WHERE name = ? AND (owner = ? OR expires_at < CURRENT_TIMESTAMP)";
+    private static final String RELEASE_SQL = "UPDATE scheduler_lease SET owner = NULL, "
+            + "expires_at = CURRENT_TIMESTAMP WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String leaseName;
+    private final String nodeId;
+    private final long ttlSeconds;
+    private final long renewIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long leaderUntilNanos;
+    private volatile boolean leader;
+
+    public LeaderElection(JdbcTemplate jdbcTemplate, String leaseName, Duration ttl, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseName = leaseName;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/"
+                + UUID.randomUUID().toString().substring(0, 8);
+        this.ttlSeconds = Math.max(3, ttl.toSeconds());
+        this.renewIntervalMillis = ttlSeconds * 1000 / 3;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-election");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("scheduler.leader", this, election -> election.isLeader() ? 1 : 0)
+                .description("1 on the node that runs cluster-wide scheduled jobs")
+                .tag("lease", leaseName)
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::renew, 0, renewIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        if (leader) {
+            leader = false;
+            try {
+                jdbcTemplate.update(RELEASE_SQL, leaseName, nodeId);
+                logger.info("LEADER_RELEASED | lease={} | node={}", leaseName, nodeId);
+            } catch (Exception e) {
+                logger.warn("Could not release lease {}: {}", leaseName, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isLeader() {
+        return leader && System.nanoTime() < leaderUntilNanos;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    void renew() {
+        long attemptStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = jdbcTemplate.update(ACQUIRE_SQL, nodeId, ttlSeconds, leaseName, nodeId) == 1;
+        } catch (Exception e) {
+            logger.warn("Lease {} renewal failed: {}", leaseName, e.getMessage());
+            acquired = false;
+        }
+        boolean wasLeader = isLeader();
+        if (acquired) {
+            leaderUntilNanos = attemptStart + TimeUnit.SECONDS.toNanos(ttlSeconds)
+                    - TimeUnit.MILLISECONDS.toNanos(renewIntervalMillis);
+        }
+        leader = acquired;
+        if (acquired && !wasLeader) {
+            logger.info("LEADER_ACQUIRED | lease={} | node={} | ttl={}s", leaseName, nodeId, ttlSeconds);
+        } else if (!acquired && wasLeader) {
+            logger.warn("LEADER_LOST | lease={} | node={}", leaseName, nodeId);
+        }
+    }
+}
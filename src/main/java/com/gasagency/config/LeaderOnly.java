@@ -0,0 +1,21 @@
+package com.gasagency.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a scheduled job that must run on one node of the cluster only.
+ *
+ * The call is skipped (returns without running) unless this node currently
+ * holds the scheduler lease; see {@link LeaderElection}. Only applies to calls
+ * through the Spring proxy, so a manual trigger that calls the method from
+ * inside its own class still runs locally.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeaderOnly {
+}
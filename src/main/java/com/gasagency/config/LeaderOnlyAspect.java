@@ -0,0 +1,34 @@
+package com.gasagency.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Skips {@link LeaderOnly} methods on nodes that do not hold the scheduler
+ * lease. The methods are void scheduled jobs, so skipping returns null.
+ */
+@Aspect
+@Component
+public class LeaderOnlyAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderOnlyAspect.class);
+
+    private final LeaderElection leaderElection;
+
+    public LeaderOnlyAspect(LeaderElection leaderElection) {
+        this.leaderElection = leaderElection;
+    }
+
+    @Around("@annotation(com.gasagency.config.LeaderOnly)")
+    public Object runOnLeader(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!leaderElection.isLeader()) {
+            logger.debug("Skipping {} - not the scheduler leader", joinPoint.getSignature().toShortString());
+            return null;
+        }
+        return joinPoint.proceed();
+    }
+}
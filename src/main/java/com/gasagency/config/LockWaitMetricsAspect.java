@@ -0,0 +1,55 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AOP Aspect timing the locking repository queries (@Lock, e.g.
+ * PESSIMISTIC_WRITE on inventory stock and ledger rows).
+ *
+ * The locking SELECT ... FOR UPDATE returns once the row lock is granted, so
+ * its duration is dominated by the time spent waiting for the holder's
+ * transaction to finish.
+ *
+ * Meter: db.lock.wait{method, mode, outcome=acquired|timeout}
+ */
+@Aspect
+@Component
+public class LockWaitMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public LockWaitMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.gasagency.repository.*.*(..)) && @annotation(lock)")
+    public Object timeLock(ProceedingJoinPoint joinPoint, Lock lock) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = "acquired";
+        try {
+            return joinPoint.proceed();
+        } catch (PessimisticLockingFailureException | jakarta.persistence.PessimisticLockException
+                | jakarta.persistence.LockTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } finally {
+            Timer.builder("db.lock.wait")
+                    .description("Time to acquire row locks in @Lock repository queries")
+                    .tag("method", joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                            + joinPoint.getSignature().getName())
+                    .tag("mode", lock.value().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.gasagency.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum JDBC executions (statements plus batches) one request to the
+ * annotated endpoint should need. Requests over budget are logged and counted
+ * by {@link QueryBudgetFilter}; unannotated endpoints use
+ * app.query-budget.default-max.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+    int value();
+}
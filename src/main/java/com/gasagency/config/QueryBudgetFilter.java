@@ -0,0 +1,122 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Query Budget Filter
+ * Counts the SQL executed while serving each request (see {@link QueryCounter})
+ *
+ * - request.db.statements{uri}: JDBC executions per request, by route template
+ * - QUERY_BUDGET_EXCEEDED warning and request.db.budget.exceeded{uri} when a
+ * request needs more than its {@link QueryBudget} (or
+ * app.query-budget.default-max)
+ * - POSSIBLE_N_PLUS_ONE warning when one statement text is prepared
+ * app.query-budget.repeat-threshold times or more in a request
+ * - the Server-Timing header is added by {@link ServerTimingResponseAdvice}
+ *
+ * Disabled with app.query-budget.enabled=false.
+ */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+    private static final int SQL_LOG_LENGTH = 200;
+
+    private final boolean enabled;
+    private final int defaultMax;
+    private final int repeatThreshold;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetFilter(
+            @Value("${app.query-budget.enabled:true}") boolean enabled,
+            @Value("${app.query-budget.default-max:25}") int defaultMax,
+            @Value("${app.query-budget.repeat-threshold:10}") int repeatThreshold,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultMax = defaultMax;
+        this.repeatThreshold = repeatThreshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.Counts counts = QueryCounter.stop();
+            // Streaming bodies run their queries on another thread; only the dispatch is counted
+            if (!request.isAsyncStarted()) {
+                check(request, counts);
+            }
+        }
+    }
+
+    private void check(HttpServletRequest request, QueryCounter.Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+        int total = counts.getTotal();
+        DistributionSummary.builder("request.db.statements")
+                .description("JDBC executions (statements and batches) per request")
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(total);
+
+        int budget = budgetFor(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        Map.Entry<String, Integer> repeated = counts.getMostRepeated();
+        if (total > budget) {
+            Counter.builder("request.db.budget.exceeded")
+                    .description("Requests that ran more SQL than their query budget")
+                    .tag("uri", route)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("QUERY_BUDGET_EXCEEDED | method={} | route={} | statements={} | batches={} | budget={} "
+                    + "| dbTime={}ms | mostRepeated={}x {}",
+                    request.getMethod(), route, counts.getStatements(), counts.getBatches(), budget,
+                    Math.round(counts.getDbMillis()), repeated != null ? repeated.getValue() : 0,
+                    repeated != null ? abbreviate(repeated.getKey()) : "");
+        } else if (repeated != null && repeated.getValue() >= repeatThreshold) {
+            logger.warn("POSSIBLE_N_PLUS_ONE | method={} | route={} | repeats={} | sql={}",
+                    request.getMethod(), route, repeated.getValue(), abbreviate(repeated.getKey()));
+        }
+    }
+
+    private int budgetFor(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+            if (budget == null) {
+                budget = handlerMethod.getBeanType().getAnnotation(QueryBudget.class);
+            }
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return defaultMax;
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= SQL_LOG_LENGTH ? sql : sql.substring(0, SQL_LOG_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,123 @@
+package com.gasagency.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-thread count of the SQL statements executed and the time spent in JDBC.
+ *
+ * Fed by {@link QueryCountingSessionListener} (execution count and time) and
+ * {@link QueryCountingStatementInspector} (statement text, for repeated-query
+ * detection). {@link QueryBudgetFilter} opens a scope per HTTP request;
+ * anything else (a test, a scheduled job) can do the same:
+ *
+ * <pre>
+ * QueryCounter.start();
+ * try {
+ *     service.call();
+ * } finally {
+ *     QueryCounter.Counts counts = QueryCounter.stop();
+ * }
+ * </pre>
+ *
+ * Outside a scope recording is a no-op.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * @return the counts of the open scope, or null
+     */
+    public static Counts current() {
+        return CURRENT.get();
+    }
+
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        CURRENT.remove();
+        return counts;
+    }
+
+    static void recordExecution(long nanos, boolean batch) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            if (batch) {
+                counts.batches++;
+            } else {
+                counts.statements++;
+            }
+            counts.nanos += nanos;
+        }
+    }
+
+    static void recordSql(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.bySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public static final class Counts {
+        private int statements;
+        private int batches;
+        private long nanos;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        /**
+         * Statements executed one at a time (queries, unbatched DML)
+         */
+        public int getStatements() {
+            return statements;
+        }
+
+        /**
+         * JDBC batch executions (each may carry many rows)
+         */
+        public int getBatches() {
+            return batches;
+        }
+
+        public int getTotal() {
+            return statements + batches;
+        }
+
+        public double getDbMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /**
+         * How often statements starting with the given text (say "insert into
+         * sale_item") were prepared in this scope; a batch is prepared once.
+         */
+        public int getPrepared(String sqlPrefix) {
+            return bySql.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(sqlPrefix))
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+        }
+
+        /**
+         * The statement text prepared most often in this scope and how often;
+         * a high count for a by-id select is the signature of an N+1 loop.
+         */
+        public Map.Entry<String, Integer> getMostRepeated() {
+            Map.Entry<String, Integer> top = null;
+            for (Map.Entry<String, Integer> entry : bySql.entrySet()) {
+                if (top == null || entry.getValue() > top.getValue()) {
+                    top = entry;
+                }
+            }
+            return top;
+        }
+    }
+}
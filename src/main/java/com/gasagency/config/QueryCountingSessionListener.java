@@ -0,0 +1,61 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.SessionEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Registered as hibernate.session.events.auto, so Hibernate creates one per
+ * session (one per transaction here, open-in-view is off).
+ *
+ * Times each JDBC execution into the thread's {@link QueryCounter} scope and,
+ * when the session ends, records how many statements the session ran as
+ * transaction.statements{name}, named after the transaction that ran them.
+ * Not a Spring bean, so it publishes through the global registry Boot binds
+ * its registry to.
+ */
+public class QueryCountingSessionListener implements SessionEventListener {
+
+    private long executionStart;
+    private int executions;
+    private String transactionName;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed(false);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed(true);
+    }
+
+    @Override
+    public void end() {
+        if (executions > 0) {
+            DistributionSummary.builder("transaction.statements")
+                    .description("JDBC executions (statements and batches) per transaction")
+                    .tag("name", TransactionMetricsListener.shortName(transactionName))
+                    .register(Metrics.globalRegistry)
+                    .record(executions);
+        }
+    }
+
+    private void executed(boolean batch) {
+        QueryCounter.recordExecution(System.nanoTime() - executionStart, batch);
+        if (executions++ == 0) {
+            transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.gasagency.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registered as hibernate.session_factory.statement_inspector; hands every
+ * statement Hibernate prepares to {@link QueryCounter} unchanged.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.recordSql(sql);
+        return sql;
+    }
+}
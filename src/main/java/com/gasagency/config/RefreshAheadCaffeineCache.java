@@ -0,0 +1,54 @@
+package com.gasagency.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caffeine cache for policies with refreshAfterWrite.
+ *
+ * Caffeine refreshes through a CacheLoader keyed only by the cache key, but
+ * Spring callers pass the loader per call (Cache.get(key, valueLoader), used by
+ * PageCountService and @Cacheable(sync = true)). The last value loader for each
+ * key is kept until the entry leaves the cache, and the refresh re-runs it in
+ * the background while readers keep getting the current value.
+ *
+ * Entries written with put() (plain @Cacheable) have no loader; they are
+ * dropped at refresh time, which makes refreshAfterWrite act as their TTL.
+ */
+public class RefreshAheadCaffeineCache extends CaffeineCache {
+
+    private final Map<Object, Callable<?>> valueLoaders;
+
+    private RefreshAheadCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+            Map<Object, Callable<?>> valueLoaders) {
+        super(name, cache, true);
+        this.valueLoaders = valueLoaders;
+    }
+
+    public static RefreshAheadCaffeineCache create(String name, Caffeine<Object, Object> builder) {
+        Map<Object, Callable<?>> valueLoaders = new ConcurrentHashMap<>();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = builder
+                .removalListener((key, value, cause) -> {
+                    if (key != null && cause != RemovalCause.REPLACED) {
+                        valueLoaders.remove(key);
+                    }
+                })
+                .build(key -> {
+                    // Returning null removes the entry
+                    Callable<?> valueLoader = valueLoaders.get(key);
+                    return valueLoader != null ? valueLoader.call() : null;
+                });
+        return new RefreshAheadCaffeineCache(name, cache, valueLoaders);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        valueLoaders.put(key, valueLoader);
+        return super.get(key, valueLoader);
+    }
+}
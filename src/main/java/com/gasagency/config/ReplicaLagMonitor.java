@@ -0,0 +1,99 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the read replica's replication lag on a single background thread.
+ *
+ * The replica is only considered usable after a successful check that reported
+ * a lag at or below the configured maximum; a failed check or an overdue one
+ * (the last success is older than three intervals) sends reads back to the
+ * primary until the next good check.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile double lagSeconds = -1;
+    private volatile boolean withinMaxLag;
+    private volatile long lastSuccessNanos;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval,
+            MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("datasource.replica.lag", this, m -> m.lagSeconds)
+                .description("Last measured replication lag in seconds (-1 when unknown)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, m -> m.isReplicaUsable() ? 1 : 0)
+                .description("1 when read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isReplicaUsable() {
+        long maxAge = checkInterval.toNanos() * 3;
+        return withinMaxLag && System.nanoTime() - lastSuccessNanos <= maxAge;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    void check() {
+        try (Connection connection = replica.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(lagQuery)) {
+            double lag = rs.next() ? rs.getDouble(1) : 0;
+            boolean wasUsable = isReplicaUsable();
+            lagSeconds = lag;
+            withinMaxLag = lag * 1000 <= maxLag.toMillis();
+            lastSuccessNanos = System.nanoTime();
+            if (wasUsable && !withinMaxLag) {
+                logger.warn("Replica lag {}s exceeds {}s; routing reads to primary", lag, maxLag.toSeconds());
+            } else if (!wasUsable && withinMaxLag) {
+                logger.info("Replica lag {}s within {}s; routing read-only transactions to replica", lag,
+                        maxLag.toSeconds());
+            }
+        } catch (Exception e) {
+            if (withinMaxLag) {
+                logger.warn("Replica lag check failed; routing reads to primary: {}", e.getMessage());
+            }
+            lagSeconds = -1;
+            withinMaxLag = false;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes each physical connection to the primary or the read replica.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager
+ * opens the connection before the read-only flag is bound to the thread, the
+ * proxy defers the real lookup to the first statement.
+ *
+ * Routing rules, in order:
+ * - no transaction (auto-commit, Flyway, startup) -> primary
+ * - read-write transaction -> primary, and pins the rest of the request to the
+ * primary (read-your-writes); off a request (scheduler, outbox, detector
+ * threads) the pin ends with the transaction
+ * - read-only transaction after a write in the same request -> primary
+ * - read-only transaction while the replica lags or is unreachable -> primary
+ * - any other read-only transaction -> replica
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Map<Target, Map<String, Counter>> routed = new EnumMap<>(Target.class);
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        register(meterRegistry, Target.PRIMARY, "no_transaction", "write", "pinned", "replica_unavailable");
+        register(meterRegistry, Target.REPLICA, "read_only");
+    }
+
+    /**
+     * Keeps the current thread on the primary until the request ends (the
+     * reset filter calls {@link #clearPin()}) or, on a thread without a
+     * request, until the current transaction completes.
+     */
+    public static void pinToPrimary() {
+        if (Boolean.TRUE.equals(PINNED_TO_PRIMARY.get())) {
+            return;
+        }
+        if (RequestContextHolder.getRequestAttributes() != null) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clearPin();
+                }
+            });
+        }
+    }
+
+    public static void clearPin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return route(Target.PRIMARY, "no_transaction");
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinToPrimary();
+            return route(Target.PRIMARY, "write");
+        }
+        if (Boolean.TRUE.equals(PINNED_TO_PRIMARY.get())) {
+            return route(Target.PRIMARY, "pinned");
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            return route(Target.PRIMARY, "replica_unavailable");
+        }
+        return route(Target.REPLICA, "read_only");
+    }
+
+    private Target route(Target target, String reason) {
+        routed.get(target).get(reason).increment();
+        return target;
+    }
+
+    private void register(MeterRegistry meterRegistry, Target target, String... reasons) {
+        Map<String, Counter> counters = new HashMap<>();
+        for (String reason : reasons) {
+            counters.put(reason, Counter.builder("datasource.routing")
+                    .description("Physical connections handed out per target pool")
+                    .tag("target", target.name().toLowerCase())
+                    .tag("reason", reason)
+                    .register(meterRegistry));
+        }
+        routed.put(target, counters);
+    }
+}
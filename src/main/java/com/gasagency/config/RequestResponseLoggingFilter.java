@@ -2,90 +2,73 @@ package com.gasagency.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Request/Response Logging Filter
- * Logs all HTTP requests and responses with performance metrics
- * Provides visibility into API usage and performance issues
+ * Logs sampled HTTP requests and every slow request
+ *
+ * OPTIMIZED: latency per endpoint comes from the http.server.requests timers
+ * (route template, method, status, outcome; SLO buckets on
+ * /actuator/prometheus), so per-request INFO lines are opt-in:
+ * - app.request-logging.sample-rate: fraction of requests logged at INFO
+ * (default 0)
+ * - app.request-logging.slow-threshold: requests at or above it are always
+ * logged at WARN (default 1s)
  */
 @Component
 public class RequestResponseLoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestResponseLoggingFilter.class);
-    private static final Logger performanceLogger = LoggerFactory.getLogger("com.gasagency.performance");
 
-    private static final long SLOW_REQUEST_THRESHOLD = 1000; // milliseconds
-    private static final long MEDIUM_REQUEST_THRESHOLD = 500; // milliseconds
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public RequestResponseLoggingFilter(
+            @Value("${app.request-logging.sample-rate:0.0}") double sampleRate,
+            @Value("${app.request-logging.slow-threshold:1s}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        long startTime = System.currentTimeMillis();
-        String requestId = MDC.get("requestId");
-
-        // Log incoming request
-        logger.info("HTTP_REQUEST | method={} | path={} | contentType={}",
-                request.getMethod(),
-                request.getRequestURI(),
-                request.getContentType() != null ? request.getContentType() : "N/A");
-
+        long startTime = System.nanoTime();
         try {
             filterChain.doFilter(request, response);
         } finally {
-            long duration = System.currentTimeMillis() - startTime;
-            int status = response.getStatus();
-
-            // Determine performance category
-            String performanceCategory = getPerformanceCategory(duration);
-
-            // Log response with performance data
-            logger.info("HTTP_RESPONSE | method={} | path={} | status={} | duration={}ms | category={}",
-                    request.getMethod(),
-                    request.getRequestURI(),
-                    status,
-                    duration,
-                    performanceCategory);
-
-            // Log performance metrics in structured format
-            performanceLogger.debug("{}|method={}|path={}|status={}|duration={}ms|category={}",
-                    requestId,
-                    request.getMethod(),
-                    request.getRequestURI(),
-                    status,
-                    duration,
-                    performanceCategory);
-
-            // Alert on slow requests
-            if (duration > SLOW_REQUEST_THRESHOLD) {
-                logger.warn("SLOW_REQUEST | method={} | path={} | status={} | duration={}ms",
-                        request.getMethod(),
-                        request.getRequestURI(),
-                        status,
-                        duration);
+            long elapsed = System.nanoTime() - startTime;
+            boolean slow = elapsed >= slowThresholdNanos;
+            boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+            if (slow || sampled) {
+                logResponse(request, response, elapsed, slow);
             }
         }
     }
 
-    /**
-     * Categorize request performance
-     */
-    private String getPerformanceCategory(long durationMs) {
-        if (durationMs > SLOW_REQUEST_THRESHOLD) {
-            return "SLOW";
-        } else if (durationMs > MEDIUM_REQUEST_THRESHOLD) {
-            return "MEDIUM";
-        } else {
-            return "FAST";
+    private void logResponse(HttpServletRequest request, HttpServletResponse response, long elapsedNanos,
+            boolean slow) {
+        // Set by Spring MVC once a handler matched; null for 404s and static resources
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long durationMs = elapsedNanos / 1_000_000;
+        if (slow) {
+            logger.warn("SLOW_REQUEST | method={} | route={} | path={} | status={} | duration={}ms",
+                    request.getMethod(), route, request.getRequestURI(), response.getStatus(), durationMs);
+        } else if (logger.isInfoEnabled()) {
+            logger.info("HTTP_RESPONSE | method={} | route={} | path={} | status={} | duration={}ms",
+                    request.getMethod(), route, request.getRequestURI(), response.getStatus(), durationMs);
         }
     }
-
 }
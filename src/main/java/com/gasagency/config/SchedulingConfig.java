@@ -0,0 +1,32 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+
+/**
+ * Scheduling Configuration
+ *
+ * Enables the @Scheduled jobs (alert and outbox cleanup). With several app
+ * instances behind the load balancer these are cluster-wide jobs: each is
+ * marked {@link LeaderOnly} (alert detection, which has its own scheduler,
+ * checks {@link LeaderElection#isLeader()}) and runs only on the node holding
+ * the "scheduler" lease (app.scheduler.lease-ttl, default 30s; a crashed
+ * leader is replaced within one ttl).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LeaderElection leaderElection(JdbcTemplate jdbcTemplate,
+            @Value("${app.scheduler.lease-ttl:30s}") Duration leaseTtl,
+            MeterRegistry meterRegistry) {
+        return new LeaderElection(jdbcTemplate, "scheduler", leaseTtl, meterRegistry);
+    }
+}
@@ -3,9 +3,11 @@ package com.gasagency.config;
 import com.gasagency.security.JwtAuthenticationEntryPoint;
 import com.gasagency.security.JwtRequestFilter;
 import com.gasagency.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -53,10 +55,25 @@ public class SecurityConfig {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(authz -> authz
+                        // Async/error re-dispatches of an already authorized request (StreamingResponseBody,
+                        // WebAsyncTask); the stateless JWT context is not carried over to them
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/forgot-password")
                         .permitAll()
                         .requestMatchers("/api/health", "/api/health/**").permitAll() // Allow health check without auth
-                        .requestMatchers("OPTIONS", "/**").permitAll() // Allow OPTIONS for CORS preflight on mobile
+                        // JFR profiling is MANAGER only
+                        .requestMatchers("/api/admin/**").hasRole("MANAGER")
+                        // Bulk exports stream whole tables: MANAGER only
+                        .requestMatchers(HttpMethod.GET, "/api/ledger/export", "/api/sales/export",
+                                "/api/bank-account-ledgers/export", "/api/supplier-transactions/export",
+                                "/api/expenses/export")
+                        .hasRole("MANAGER")
+                        // Runs every alert detector on demand
+                        .requestMatchers(HttpMethod.POST, "/api/alerts/config/check").hasRole("MANAGER")
+                        // Ledger repair, partition migration and the archived months
+                        .requestMatchers("/api/ledger/admin/**", "/api/ledger/archive", "/api/ledger/archive/**")
+                        .hasRole("MANAGER")
+                        .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow OPTIONS for CORS preflight on mobile
                         .requestMatchers("/users/**").hasRole("MANAGER")
                         .requestMatchers("/manager/**").hasRole("MANAGER")
                         .requestMatchers("/staff/**").hasAnyRole("MANAGER", "STAFF")
@@ -0,0 +1,41 @@
+package com.gasagency.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Adds "Server-Timing: db;dur=<ms>;desc="<n> statements, <m> batches"" to
+ * every response body written by a controller or exception handler.
+ *
+ * Runs just before the body is serialized: headers cannot be added once the
+ * filter chain returns, and with open-in-view off no SQL runs after this
+ * point.
+ */
+@ControllerAdvice
+public class ServerTimingResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        QueryCounter.Counts counts = QueryCounter.current();
+        if (counts != null) {
+            response.getHeaders().add("Server-Timing", String.format(Locale.ROOT,
+                    "db;dur=%.1f;desc=\"%d statements, %d batches\"",
+                    counts.getDbMillis(), counts.getStatements(), counts.getBatches()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,34 @@
+package com.gasagency.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesces concurrent calls of the annotated method with equal arguments into
+ * one in-flight computation; callers that arrive while it runs wait for and
+ * share its result (or exception) instead of recomputing.
+ *
+ * Only for read-only methods whose arguments have value equality and whose
+ * result does not depend on the calling user. Callers receive the same result
+ * instance, so it must not be mutated. Combine with @Cacheable to keep the
+ * result after the flight lands. See {@link SingleFlightAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * Name used in metrics; defaults to ClassName.methodName
+     */
+    String value() default "";
+
+    /**
+     * How long a joining caller waits for the running computation before it
+     * gives up and runs the method itself
+     */
+    long waitTimeoutMillis() default 30_000;
+}
@@ -0,0 +1,108 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AOP Aspect implementing {@link SingleFlight} request coalescing.
+ *
+ * The first caller for a key (method + arguments) becomes the leader and runs
+ * the method; concurrent callers with the same key block on the leader's
+ * future for at most waitTimeoutMillis, then run the method themselves, so a
+ * stuck leader cannot hold its followers indefinitely. The entry is removed as
+ * soon as the leader finishes, so nothing is retained between flights.
+ *
+ * Ordered ahead of the transaction and cache interceptors: waiting callers
+ * neither open a transaction nor take a connection, and only the leader
+ * populates the cache.
+ *
+ * Metrics: singleflight.calls{name, role=leader|coalesced|timeout} and
+ * singleflight.inflight (flights currently running).
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class SingleFlightAspect {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightAspect.class);
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("singleflight.inflight", inFlight, ConcurrentMap::size)
+                .description("Coalesced computations currently in flight")
+                .register(meterRegistry);
+    }
+
+    @Around("@annotation(singleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, SingleFlight singleFlight) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String name = singleFlight.value().isEmpty()
+                ? signature.getDeclaringType().getSimpleName() + "." + signature.getName()
+                : singleFlight.value();
+        FlightKey key = new FlightKey(name, Arrays.asList(joinPoint.getArgs()));
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            counter(name, "coalesced").increment();
+            logger.debug("SINGLE_FLIGHT_JOIN | name={}", name);
+            try {
+                return leader.get(singleFlight.waitTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                counter(name, "timeout").increment();
+                logger.warn("SINGLE_FLIGHT_TIMEOUT | name={} | waitedMs={}", name, singleFlight.waitTimeoutMillis());
+                return joinPoint.proceed();
+            }
+        }
+
+        counter(name, "leader").increment();
+        try {
+            Object result = joinPoint.proceed();
+            flight.complete(result);
+            return result;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Counter counter(String name, String role) {
+        return counters.computeIfAbsent(new CounterKey(name, role), key -> Counter.builder("singleflight.calls")
+                .description("Calls to @SingleFlight methods by whether they ran or joined a computation")
+                .tag("name", key.name())
+                .tag("role", key.role())
+                .register(meterRegistry));
+    }
+
+    private record FlightKey(String name, List<Object> args) {
+    }
+
+    private record CounterKey(String name, String role) {
+    }
+}
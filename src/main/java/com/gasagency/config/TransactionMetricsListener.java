@@ -0,0 +1,96 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every physical transaction run by the JPA transaction manager.
+ *
+ * Notified only for new transactions (participating calls join the outer
+ * one), so timings are per commit/rollback, not per @Transactional method
+ * invocation. Transactions are named by Spring after the method that started
+ * them ("SaleService.createSale", "SimpleJpaRepository.findById"), which keeps
+ * the tag set bounded by the code base.
+ *
+ * Meters:
+ * - transaction.duration{name, read_only, outcome=commit|rollback|failed}
+ * - transaction.active (gauge)
+ */
+public class TransactionMetricsListener implements TransactionExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionMetricsListener.class);
+    private static final long LONG_TRANSACTION_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    // Transactions on one thread complete in reverse order of begin (REQUIRES_NEW suspends the outer one)
+    private final ThreadLocal<Deque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicInteger active = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+
+    public TransactionMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("transaction.active", active, AtomicInteger::get)
+                .description("Physical transactions currently open")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null) {
+            active.incrementAndGet();
+            startTimes.get().push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        record(transaction, commitFailure == null ? "commit" : "failed");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        record(transaction, rollbackFailure == null ? "rollback" : "failed");
+    }
+
+    private void record(TransactionExecution transaction, String outcome) {
+        Long start = startTimes.get().poll();
+        if (start == null) {
+            return;
+        }
+        active.decrementAndGet();
+        long elapsed = System.nanoTime() - start;
+        String name = shortName(transaction.getTransactionName());
+        Timer.builder("transaction.duration")
+                .description("Physical transaction duration by starting method and outcome")
+                .tag("name", name)
+                .tag("read_only", String.valueOf(transaction.isReadOnly()))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (elapsed > LONG_TRANSACTION_NANOS) {
+            logger.warn("Long transaction detected: {} took {}ms ({})", name,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), outcome);
+        }
+    }
+
+    /**
+     * "com.gasagency.service.SaleService.createSale" -> "SaleService.createSale"
+     */
+    static String shortName(String transactionName) {
+        if (transactionName == null || transactionName.isEmpty()) {
+            return "unnamed";
+        }
+        int methodDot = transactionName.lastIndexOf('.');
+        int classDot = methodDot > 0 ? transactionName.lastIndexOf('.', methodDot - 1) : -1;
+        return transactionName.substring(classDot + 1);
+    }
+}
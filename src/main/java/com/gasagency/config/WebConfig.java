@@ -7,25 +7,22 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * WebConfig - Registers web-related beans and interceptors
- * Configures request/response logging and other web middleware
+ * Configures admission control and other web middleware
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     @Autowired
-    private RequestResponseLoggingInterceptor requestResponseLoggingInterceptor;
+    private WorkloadAdmissionInterceptor workloadAdmissionInterceptor;
 
     /**
-     * Register interceptors for request/response logging
+     * Register interceptors for admission control
+     * (request logging and latency metrics live in RequestResponseLoggingFilter
+     * and the http.server.requests timers)
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(requestResponseLoggingInterceptor)
-                .addPathPatterns("/**")
-                .excludePathPatterns(
-                        "/actuator/**",
-                        "/health/**",
-                        "/swagger-ui/**",
-                        "/v3/api-docs/**");
+        registry.addInterceptor(workloadAdmissionInterceptor)
+                .addPathPatterns("/api/**");
     }
 }
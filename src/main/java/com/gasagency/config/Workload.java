@@ -0,0 +1,21 @@
+package com.gasagency.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a controller or handler method to a workload class.
+ *
+ * Unannotated handlers are classified by HTTP method: GET/HEAD are
+ * INTERACTIVE, everything else is WRITE. A method annotation wins over the
+ * class annotation. See {@link WorkloadAdmissionInterceptor}.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+    WorkloadClass value();
+}
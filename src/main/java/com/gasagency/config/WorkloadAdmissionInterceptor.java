@@ -0,0 +1,193 @@
+package com.gasagency.config;
+
+import com.gasagency.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkloadAdmissionInterceptor - per workload class concurrency limits
+ *
+ * Each request is classified (see {@link Workload}) and must take a permit from
+ * its class before the handler runs. When the class is at its limit the
+ * request waits in FIFO order for up to queue-timeout, then is rejected with
+ * 503 and Retry-After. A limit of 0 disables admission control for the class
+ * (the default for WRITE, so sales are never shed).
+ *
+ * Properties (app.workload.{write|interactive|report}.*):
+ * - max-concurrent: permits for the class
+ * - queue-timeout: how long a request may wait for a permit
+ * - retry-after: value of the Retry-After header on rejection
+ *
+ * The permit is held until the response completes, including the async part of
+ * streaming exports. SSE streams (ResponseBodyEmitter handlers) are not
+ * admission controlled. Metrics: workload.active, workload.queued,
+ * workload.admission.wait and workload.rejected, tagged class=...
+ */
+@Component
+public class WorkloadAdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadAdmissionInterceptor.class);
+    private static final String WORKLOAD_ATTR = WorkloadAdmissionInterceptor.class.getName() + ".WORKLOAD";
+    private static final String PERMIT_ATTR = WorkloadAdmissionInterceptor.class.getName() + ".PERMIT";
+
+    private final Map<WorkloadClass, Gate> gates = new EnumMap<>(WorkloadClass.class);
+
+    public WorkloadAdmissionInterceptor(Environment environment, MeterRegistry meterRegistry) {
+        gates.put(WorkloadClass.WRITE, new Gate(WorkloadClass.WRITE, environment, meterRegistry,
+                0, Duration.ofSeconds(10), Duration.ofSeconds(5)));
+        gates.put(WorkloadClass.INTERACTIVE, new Gate(WorkloadClass.INTERACTIVE, environment, meterRegistry,
+                32, Duration.ofSeconds(5), Duration.ofSeconds(2)));
+        gates.put(WorkloadClass.REPORT, new Gate(WorkloadClass.REPORT, environment, meterRegistry,
+                3, Duration.ofSeconds(5), Duration.ofSeconds(15)));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Re-dispatch after a streaming body finished; the permit is still held
+            WorkloadContext.bind((WorkloadClass) request.getAttribute(WORKLOAD_ATTR));
+            return true;
+        }
+        if (!(handler instanceof HandlerMethod handlerMethod) || isEventStream(handlerMethod)) {
+            return true;
+        }
+
+        WorkloadClass workloadClass = classify(handlerMethod, request);
+        Gate gate = gates.get(workloadClass);
+        gate.acquire(request);
+        request.setAttribute(WORKLOAD_ATTR, workloadClass);
+        request.setAttribute(PERMIT_ATTR, Boolean.TRUE);
+        WorkloadContext.bind(workloadClass);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // The body continues on another thread; keep the permit until the async dispatch completes
+        WorkloadContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        WorkloadContext.clear();
+        if (request.isAsyncStarted() || request.getAttribute(PERMIT_ATTR) == null) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTR);
+        gates.get((WorkloadClass) request.getAttribute(WORKLOAD_ATTR)).release();
+    }
+
+    /**
+     * SSE streams stay open for minutes without touching the database; holding a
+     * permit for that long would starve the class they were classified into.
+     */
+    static boolean isEventStream(HandlerMethod handlerMethod) {
+        return ResponseBodyEmitter.class.isAssignableFrom(handlerMethod.getReturnType().getParameterType());
+    }
+
+    static WorkloadClass classify(HandlerMethod handlerMethod, HttpServletRequest request) {
+        Workload workload = handlerMethod.getMethodAnnotation(Workload.class);
+        if (workload == null) {
+            workload = handlerMethod.getBeanType().getAnnotation(Workload.class);
+        }
+        if (workload != null) {
+            return workload.value();
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? WorkloadClass.INTERACTIVE : WorkloadClass.WRITE;
+    }
+
+    private static final class Gate {
+        private final WorkloadClass workloadClass;
+        private final Semaphore permits;
+        private final long queueTimeoutMillis;
+        private final long retryAfterSeconds;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        Gate(WorkloadClass workloadClass, Environment environment, MeterRegistry meterRegistry,
+                int defaultLimit, Duration defaultQueueTimeout, Duration defaultRetryAfter) {
+            String prefix = "app.workload." + workloadClass.tagValue() + ".";
+            int limit = environment.getProperty(prefix + "max-concurrent", Integer.class, defaultLimit);
+            this.workloadClass = workloadClass;
+            this.permits = limit > 0 ? new Semaphore(limit, true) : null;
+            this.queueTimeoutMillis = environment
+                    .getProperty(prefix + "queue-timeout", Duration.class, defaultQueueTimeout).toMillis();
+            this.retryAfterSeconds = Math.max(1, environment
+                    .getProperty(prefix + "retry-after", Duration.class, defaultRetryAfter).toSeconds());
+
+            String tag = workloadClass.tagValue();
+            Gauge.builder("workload.active", active, AtomicInteger::get)
+                    .description("Requests holding an admission permit")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            Gauge.builder("workload.queued", queued, AtomicInteger::get)
+                    .description("Requests waiting for an admission permit")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("workload.admission.wait")
+                    .description("Time spent waiting for an admission permit")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("workload.rejected")
+                    .description("Requests rejected with 503 after the queue timeout")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            logger.info("Workload class {}: max-concurrent={} queue-timeout={}ms", tag,
+                    limit > 0 ? limit : "unlimited", queueTimeoutMillis);
+        }
+
+        void acquire(HttpServletRequest request) throws InterruptedException {
+            if (permits != null && !permits.tryAcquire()) {
+                long start = System.nanoTime();
+                queued.incrementAndGet();
+                boolean admitted;
+                try {
+                    admitted = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+                } finally {
+                    queued.decrementAndGet();
+                    waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (!admitted) {
+                    rejected.increment();
+                    logger.warn("WORKLOAD_REJECTED | class={} | method={} | uri={} | waited={}ms",
+                            workloadClass.tagValue(), request.getMethod(), request.getRequestURI(),
+                            queueTimeoutMillis);
+                    throw new ServiceOverloadedException(workloadClass.tagValue(), retryAfterSeconds);
+                }
+            }
+            active.incrementAndGet();
+        }
+
+        void release() {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+}
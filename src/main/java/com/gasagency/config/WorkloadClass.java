@@ -0,0 +1,17 @@
+package com.gasagency.config;
+
+/**
+ * Workload classes used for admission control and connection pool selection.
+ *
+ * WRITE - transactional writes (sales, payments, transfers); never shed
+ * INTERACTIVE - screen reads (lists, detail views, dashboard)
+ * REPORT - long-running aggregates and exports, capped so month-end reporting
+ * cannot exhaust the pool the sale path depends on
+ */
+public enum WorkloadClass {
+    WRITE, INTERACTIVE, REPORT;
+
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,34 @@
+package com.gasagency.config;
+
+/**
+ * Workload class of the request being served on the current thread.
+ *
+ * Bound by {@link WorkloadAdmissionInterceptor}; work handed to another thread
+ * (streaming exports) must capture {@link #current()} and re-bind it there.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    /**
+     * @return the bound class, or null outside a classified request
+     */
+    public static WorkloadClass current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(WorkloadClass workloadClass) {
+        if (workloadClass == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(workloadClass);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
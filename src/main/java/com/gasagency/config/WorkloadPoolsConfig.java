@@ -0,0 +1,89 @@
+package com.gasagency.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Workload Pools Configuration
+ *
+ * Enabled with app.workload.pools.enabled=true. Gives each workload class its
+ * own Hikari pool so reports and screen reads cannot take the connections the
+ * sale path waits on:
+ * - "write" pool: spring.datasource.* / spring.datasource.hikari.*
+ * - "interactive" pool: app.workload.pools.interactive.hikari.*
+ * - "report" pool: app.workload.pools.report.hikari.*
+ *
+ * The interactive and report pools connect with spring.datasource.* unless
+ * their hikari.jdbc-url/username/password are set (e.g. to a read replica).
+ * Keep each pool at or above the class's app.workload.*.max-concurrent so
+ * admitted requests do not then wait on the pool.
+ *
+ * Replaces the replica routing of {@link ReadReplicaConfig}; the two cannot be
+ * enabled together.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.workload.pools", name = "enabled", havingValue = "true")
+public class WorkloadPoolsConfig {
+
+    public WorkloadPoolsConfig(Environment environment) {
+        if (environment.getProperty("app.datasource.replica.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("app.workload.pools.enabled and app.datasource.replica.enabled "
+                    + "are mutually exclusive; point app.workload.pools.report.hikari.jdbc-url at the "
+                    + "replica instead");
+        }
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        return createPool(properties, WorkloadClass.WRITE);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.workload.pools.interactive.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties properties) {
+        return createPool(properties, WorkloadClass.INTERACTIVE);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.workload.pools.report.hikari")
+    public HikariDataSource reportDataSource(DataSourceProperties properties) {
+        return createPool(properties, WorkloadClass.REPORT);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") HikariDataSource write,
+            @Qualifier("interactiveDataSource") HikariDataSource interactive,
+            @Qualifier("reportDataSource") HikariDataSource report) {
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(WorkloadClass.WRITE, write);
+        targets.put(WorkloadClass.INTERACTIVE, interactive);
+        targets.put(WorkloadClass.REPORT, report);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(write);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private HikariDataSource createPool(DataSourceProperties properties, WorkloadClass workloadClass) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(workloadClass.tagValue());
+        return dataSource;
+    }
+}
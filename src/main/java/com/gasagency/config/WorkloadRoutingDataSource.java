@@ -0,0 +1,29 @@
+package com.gasagency.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes each physical connection to the pool of the current request's
+ * workload class.
+ *
+ * Read-write transactions always use the WRITE pool, whatever the request's
+ * class, as does work outside a classified request (scheduled jobs, startup).
+ * Must sit behind a LazyConnectionDataSourceProxy for the same reason as
+ * {@link ReplicaRoutingDataSource}.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        WorkloadClass workloadClass = WorkloadContext.current();
+        if (workloadClass == null || workloadClass == WorkloadClass.WRITE) {
+            return WorkloadClass.WRITE;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return WorkloadClass.WRITE;
+        }
+        return workloadClass;
+    }
+}
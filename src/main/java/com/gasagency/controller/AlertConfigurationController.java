@@ -3,6 +3,7 @@ package com.gasagency.controller;
 import com.gasagency.util.ApiResponse;
 import com.gasagency.entity.AlertConfiguration;
 import com.gasagency.service.AlertConfigurationService;
+import com.gasagency.service.AlertDetectionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -22,9 +23,12 @@ public class AlertConfigurationController {
 
     private static final Logger logger = LoggerFactory.getLogger(AlertConfigurationController.class);
     private final AlertConfigurationService service;
+    private final AlertDetectionService detectionService;
 
-    public AlertConfigurationController(AlertConfigurationService service) {
+    public AlertConfigurationController(AlertConfigurationService service,
+            AlertDetectionService detectionService) {
         this.service = service;
+        this.detectionService = detectionService;
     }
 
     /**
@@ -118,4 +122,15 @@ public class AlertConfigurationController {
             return ResponseEntity.ok(ApiResponse.error(404, "Alert configuration not found"));
         }
     }
+
+    /**
+     * Run all alert detectors now and report per detector: status (OK, FAILED,
+     * TIMED_OUT, SKIPPED), duration and alerts created
+     */
+    @PostMapping("/check")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<ApiResponse<List<AlertDetectionService.DetectorRun>>> checkNow() {
+        List<AlertDetectionService.DetectorRun> report = detectionService.checkAlertsNow();
+        return ResponseEntity.ok(ApiResponse.success(report, "Alert detection completed"));
+    }
 }
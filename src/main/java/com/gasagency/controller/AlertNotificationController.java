@@ -36,16 +36,18 @@ public class AlertNotificationController {
 
     /**
      * SSE Stream endpoint for real-time alerts
-     * Client establishes persistent connection to receive real-time notifications
+     * Client establishes persistent connection to receive real-time notifications;
+     * a reconnecting EventSource sends Last-Event-ID and gets the events it missed
      */
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(Authentication authentication) {
+    public SseEmitter stream(Authentication authentication,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         String userId = authentication != null && authentication.getPrincipal() instanceof UserDetails
                 ? ((UserDetails) authentication.getPrincipal()).getUsername()
                 : "anonymous_" + System.currentTimeMillis();
 
         logger.info("User {} subscribed to alerts stream", userId);
-        return sseService.subscribe(userId);
+        return sseService.subscribe(userId, lastEventId);
     }
 
     /**
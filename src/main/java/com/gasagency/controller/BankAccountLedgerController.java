@@ -2,13 +2,20 @@ package com.gasagency.controller;
 
 import com.gasagency.dto.BankAccountLedgerDTO;
 import com.gasagency.service.BankAccountLedgerService;
+import com.gasagency.service.ExportService;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.Map;
@@ -18,13 +25,16 @@ import java.util.Map;
 public class BankAccountLedgerController {
 
     private final BankAccountLedgerService bankAccountLedgerService;
+    private final ExportService exportService;
 
-    public BankAccountLedgerController(BankAccountLedgerService bankAccountLedgerService) {
+    public BankAccountLedgerController(BankAccountLedgerService bankAccountLedgerService,
+            ExportService exportService) {
         this.bankAccountLedgerService = bankAccountLedgerService;
+        this.exportService = exportService;
     }
 
     @GetMapping
-    public ResponseEntity<Page<BankAccountLedgerDTO>> getAllBankTransactions(
+    public ResponseEntity<?> getAllBankTransactions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "transactionDate") String sortBy,
@@ -33,7 +43,16 @@ public class BankAccountLedgerController {
             @RequestParam(required = false) String transactionType,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-            @RequestParam(required = false) String referenceNumber) {
+            @RequestParam(required = false) String referenceNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        // Passing cursor (empty for the first page) switches to keyset pagination
+        if (cursor != null) {
+            return ResponseEntity.ok(bankAccountLedgerService.getAllBankTransactions(
+                    cursor, size, direction, bankAccountId, transactionType, fromDate, toDate, referenceNumber,
+                    includeTotal));
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
         Page<BankAccountLedgerDTO> transactions = bankAccountLedgerService.getAllBankTransactions(
@@ -51,6 +70,7 @@ public class BankAccountLedgerController {
         return ResponseEntity.ok(transaction);
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getBankTransactionsSummary(
             @RequestParam(required = false) Long bankAccountId,
@@ -64,4 +84,19 @@ public class BankAccountLedgerController {
 
         return ResponseEntity.ok(summary);
     }
+
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportBankTransactions(
+            @RequestParam(required = false) Long bankAccountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.contentDisposition("bank-ledger"))
+                .body(exportService.exportBankLedger(bankAccountId, fromDate, toDate, exportFormat));
+    }
 }
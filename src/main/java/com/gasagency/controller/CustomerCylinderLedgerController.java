@@ -2,16 +2,33 @@
 package com.gasagency.controller;
 
 import com.gasagency.dto.CustomerCylinderLedgerDTO;
+import com.gasagency.dto.CustomerPositionDTO;
+import com.gasagency.dto.CustomerStatementDTO;
 import com.gasagency.service.CustomerCylinderLedgerService;
+import com.gasagency.service.CustomerStatementService;
+import com.gasagency.service.ExportService;
+import com.gasagency.service.LedgerArchiveReader;
+import com.gasagency.service.LedgerArchiveService;
+import com.gasagency.service.LedgerCheckpointService;
+import com.gasagency.service.LedgerPartitionService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.security.access.prepost.PreAuthorize;
 import com.gasagency.dto.CustomerBalanceDTO;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -94,15 +111,31 @@ public class CustomerCylinderLedgerController {
         }
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/pending-summary")
     public ResponseEntity<List<CustomerCylinderLedgerDTO>> getAllPendingBalances() {
         return ResponseEntity.ok(service.getAllPendingBalances());
     }
 
     private final CustomerCylinderLedgerService service;
-
-    public CustomerCylinderLedgerController(CustomerCylinderLedgerService service) {
+    private final ExportService exportService;
+    private final LedgerPartitionService partitionService;
+    private final LedgerArchiveService archiveService;
+    private final LedgerArchiveReader archiveReader;
+    private final LedgerCheckpointService checkpointService;
+    private final CustomerStatementService statementService;
+
+    public CustomerCylinderLedgerController(CustomerCylinderLedgerService service, ExportService exportService,
+            LedgerPartitionService partitionService, LedgerArchiveService archiveService,
+            LedgerArchiveReader archiveReader, LedgerCheckpointService checkpointService,
+            CustomerStatementService statementService) {
         this.service = service;
+        this.exportService = exportService;
+        this.partitionService = partitionService;
+        this.archiveService = archiveService;
+        this.archiveReader = archiveReader;
+        this.checkpointService = checkpointService;
+        this.statementService = statementService;
     }
 
     @GetMapping("/{id}")
@@ -118,13 +151,20 @@ public class CustomerCylinderLedgerController {
         return ResponseEntity.ok(service.getCustomerBalancesForPage(page, size));
     }
 
+    // Passing cursor (empty for the first page) switches to keyset pagination
+    // ordered by id; the response then carries nextCursor instead of page counts
     @GetMapping
-    public ResponseEntity<Page<CustomerCylinderLedgerDTO>> getAllLedger(
+    public ResponseEntity<?> getAllLedger(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "ASC") String direction) {
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction.toUpperCase());
+        if (cursor != null) {
+            return ResponseEntity.ok(service.getAllLedger(cursor, size, sortDirection, includeTotal));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         return ResponseEntity.ok(service.getAllLedger(pageable));
     }
@@ -156,7 +196,7 @@ public class CustomerCylinderLedgerController {
             }
         }
 
-        // For empty returns, set refId to 0L (not null) to satisfy DB constraint
+        // Empty returns reference no other transaction (refId null)
         // Create ledger entry with amount received
         CustomerCylinderLedgerDTO dto = service.createLedgerEntry(
                 request.customerId,
@@ -164,7 +204,7 @@ public class CustomerCylinderLedgerController {
                 request.variantId,
                 request.transactionDate,
                 "EMPTY_RETURN",
-                0L,
+                null,
                 0L,
                 request.emptyIn,
                 java.math.BigDecimal.ZERO,
@@ -211,12 +251,14 @@ public class CustomerCylinderLedgerController {
 
     // Endpoint: Get all stock movements (ledger entries) for inventory movement
     // history
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/movements")
     public ResponseEntity<List<CustomerCylinderLedgerDTO>> getAllMovements() {
         return ResponseEntity.ok(service.getAllMovements());
     }
 
     // Endpoint: Get stock movements for a specific warehouse
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/movements/warehouse/{warehouseId}")
     public ResponseEntity<List<CustomerCylinderLedgerDTO>> getMovementsByWarehouse(@PathVariable Long warehouseId) {
         return ResponseEntity.ok(service.getMovementsByWarehouse(warehouseId));
@@ -251,6 +293,24 @@ public class CustomerCylinderLedgerController {
         return ResponseEntity.ok(service.getCustomerLedgerSummary(customerId));
     }
 
+    // Cylinders held and amount due by a customer at the end of a date
+    @GetMapping("/customer/{customerId}/as-of")
+    public ResponseEntity<CustomerPositionDTO> getCustomerPositionAsOf(
+            @PathVariable Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(statementService.getPositionAsOf(customerId, date));
+    }
+
+    // Opening position, the period's entries with running balances, closing position
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/customer/{customerId}/statement")
+    public ResponseEntity<CustomerStatementDTO> getCustomerStatement(
+            @PathVariable Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        return ResponseEntity.ok(statementService.getStatement(customerId, fromDate, toDate));
+    }
+
     // Update a ledger entry with full chain recalculation
     // Validates that no due amounts go negative anywhere in the chain
     @PutMapping("/{ledgerId}")
@@ -266,4 +326,69 @@ public class CustomerCylinderLedgerController {
         service.recalculateAllBalances();
         return ResponseEntity.ok(Map.of("status", "success", "message", "All balances have been recalculated"));
     }
+
+    // Write the opening-balance checkpoints of the last closed month now
+    @PostMapping("/admin/checkpoints/compact")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Integer>> compactCheckpoints() {
+        return ResponseEntity.ok(Map.of("customers", checkpointService.compact()));
+    }
+
+    // Monthly partitions of the ledger (Postgres) and the archived months
+    @GetMapping("/admin/partitions")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Object>> getPartitionStatus() {
+        Map<String, Object> status = new java.util.LinkedHashMap<>(partitionService.status());
+        status.put("archives", archiveReader.listArchives());
+        return ResponseEntity.ok(status);
+    }
+
+    // Migration tool: move the oldest months out of the default partition
+    @PostMapping("/admin/partitions/migrate")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Long>> migratePartitions(@RequestParam(defaultValue = "12") int months) {
+        return ResponseEntity.ok(partitionService.migrate(months));
+    }
+
+    // Archive every month older than the configured horizon now
+    @PostMapping("/admin/partitions/archive")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Long>> archivePartitions() {
+        return ResponseEntity.ok(archiveService.archiveExpired());
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<List<Map<String, Object>>> getArchivedMonths() {
+        return ResponseEntity.ok(archiveReader.listArchives());
+    }
+
+    // Entries of an archived month (yyyy-MM), read from the archive file
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/archive/{month}")
+    public ResponseEntity<List<CustomerCylinderLedgerDTO>> getArchivedEntries(
+            @PathVariable String month,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) Long variantId) {
+        YearMonth period;
+        try {
+            period = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Month must be in the form yyyy-MM");
+        }
+        return ResponseEntity.ok(archiveReader.read(period, customerId, variantId));
+    }
+
+    // Streams every matching row as CSV or NDJSON without building the list in memory
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportLedger(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.contentDisposition("ledger"))
+                .body(exportService.exportLedger(customerId, exportFormat));
+    }
 }
@@ -2,6 +2,8 @@ package com.gasagency.controller;
 
 import com.gasagency.dto.CustomerDuePaymentDTO;
 import com.gasagency.service.CustomerDuePaymentService;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +24,7 @@ public class CustomerDuePaymentController {
         this.service = service;
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/report")
     public ResponseEntity<Page<CustomerDuePaymentDTO>> getDuePaymentReport(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
@@ -39,6 +42,7 @@ public class CustomerDuePaymentController {
                 .ok(service.getDuePaymentReport(fromDate, toDate, customerId, minAmount, maxAmount, pageable));
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/report/summary")
     public ResponseEntity<CustomerDuePaymentService.CustomerDuePaymentReportSummaryDTO> getDuePaymentReportSummary(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
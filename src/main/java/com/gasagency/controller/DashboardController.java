@@ -2,6 +2,7 @@ package com.gasagency.controller;
 
 import com.gasagency.dto.DashboardSummaryDTO;
 import com.gasagency.service.DashboardService;
+import com.gasagency.config.QueryBudget;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
@@ -29,6 +30,7 @@ public class DashboardController {
      * @param month optional month parameter 1-12 (defaults to current month)
      * @return DashboardSummaryDTO with complete dashboard data
      */
+    @QueryBudget(40) // aggregates ~25 independent widget queries
     @GetMapping("/comprehensive")
     public ResponseEntity<DashboardSummaryDTO> getComprehensiveDashboard(
             @RequestParam(required = false) Integer year,
@@ -3,15 +3,21 @@ package com.gasagency.controller;
 import com.gasagency.dto.ExpenseDTO;
 import com.gasagency.dto.ExpenseSummaryDTO;
 import com.gasagency.service.ExpenseService;
+import com.gasagency.service.ExportService;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 
 @RestController
@@ -20,15 +26,22 @@ import java.time.LocalDate;
 public class ExpenseController {
 
     private final ExpenseService service;
+    private final ExportService exportService;
 
-    public ExpenseController(ExpenseService service) {
+    public ExpenseController(ExpenseService service, ExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     @GetMapping
-    public ResponseEntity<Page<ExpenseDTO>> getAllExpenses(
+    public ResponseEntity<?> getAllExpenses(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        if (cursor != null) {
+            return ResponseEntity.ok(service.getAllExpenses(cursor, size, includeTotal));
+        }
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(service.getAllExpenses(pageable));
     }
@@ -43,6 +56,7 @@ public class ExpenseController {
         return ResponseEntity.ok(service.getExpensesByDateRange(fromDate, toDate, pageable));
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/summary")
     public ResponseEntity<ExpenseSummaryDTO> getExpensesSummary(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
@@ -102,4 +116,17 @@ public class ExpenseController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.contentDisposition("expenses"))
+                .body(exportService.exportExpenses(fromDate, toDate, exportFormat));
+    }
 }
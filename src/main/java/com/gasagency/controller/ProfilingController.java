@@ -0,0 +1,113 @@
+package com.gasagency.controller;
+
+import com.gasagency.service.ProfilingService;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Profiling Controller
+ * On-demand Java Flight Recorder recordings for diagnosing production slowdowns
+ * without shell access. MANAGER only (/api/admin/** in SecurityConfig).
+ *
+ * Recording runs on the MVC async executor for the requested duration, so no
+ * request thread is parked while the JVM is being profiled.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+public class ProfilingController {
+
+    // Grace period on top of the recording itself for dump, parse and transfer
+    private static final long ASYNC_GRACE_MILLIS = 60_000;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ProfilingService profilingService;
+
+    public ProfilingController(ProfilingService profilingService) {
+        this.profilingService = profilingService;
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("recording", profilingService.isRecording());
+        response.put("maxDurationSeconds", ProfilingService.MAX_DURATION.toSeconds());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Records for the given number of seconds and returns the .jfr file (open in
+     * JDK Mission Control or `jfr print`).
+     */
+    @PostMapping("/recording")
+    public WebAsyncTask<ResponseEntity<Resource>> record(
+            @RequestParam(defaultValue = "default") String profile,
+            @RequestParam(defaultValue = "30") long seconds) {
+        return new WebAsyncTask<>(timeoutFor(seconds), () -> {
+            Path file = profilingService.record(profile, Duration.ofSeconds(seconds));
+            try {
+                long size = Files.size(file);
+                // The file is removed once the response has been written and the stream closed
+                Resource body = new InputStreamResource(
+                        Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .contentLength(size)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"gas-agency-"
+                                + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr\"")
+                        .body(body);
+            } catch (IOException e) {
+                profilingService.deleteQuietly(file);
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Records for the given number of seconds and returns the top hot methods,
+     * allocation sites, lock contention and GC pauses instead of the raw file.
+     */
+    @PostMapping("/summary")
+    public WebAsyncTask<ResponseEntity<Map<String, Object>>> summary(
+            @RequestParam(defaultValue = "default") String profile,
+            @RequestParam(defaultValue = "30") long seconds,
+            @RequestParam(defaultValue = "20") int top) {
+        return new WebAsyncTask<>(timeoutFor(seconds), () -> {
+            Path file = profilingService.record(profile, Duration.ofSeconds(seconds));
+            try {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("profile", profile);
+                response.put("durationSeconds", seconds);
+                response.put("recordingBytes", Files.size(file));
+                response.putAll(profilingService.summarize(file, Math.max(1, top)));
+                return ResponseEntity.ok(response);
+            } finally {
+                profilingService.deleteQuietly(file);
+            }
+        });
+    }
+
+    private static long timeoutFor(long seconds) {
+        long capped = Math.max(0, Math.min(seconds, ProfilingService.MAX_DURATION.toSeconds()));
+        return capped * 1000 + ASYNC_GRACE_MILLIS;
+    }
+}
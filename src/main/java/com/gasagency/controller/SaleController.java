@@ -4,24 +4,36 @@ package com.gasagency.controller;
 import com.gasagency.dto.CreateSaleRequestDTO;
 import com.gasagency.dto.SaleDTO;
 import com.gasagency.service.SaleService;
+import com.gasagency.service.ExportService;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
+import com.gasagency.config.QueryBudget;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.format.annotation.DateTimeFormat;
 import jakarta.validation.Valid;
 
 import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/sales")
 public class SaleController {
     private final SaleService service;
+    private final ExportService exportService;
 
-    public SaleController(SaleService service) {
+    public SaleController(SaleService service, ExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     @GetMapping("/recent")
@@ -29,6 +41,7 @@ public class SaleController {
         return ResponseEntity.ok(service.getRecentSales());
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/summary")
     public ResponseEntity<com.gasagency.dto.SaleSummaryDTO> getSalesSummary(
             @RequestParam(required = false) String fromDate,
@@ -43,6 +56,7 @@ public class SaleController {
                         referenceNumber));
     }
 
+    @Workload(WorkloadClass.REPORT)
     @GetMapping("/payment-mode-summary")
     public ResponseEntity<com.gasagency.dto.PaymentModeSummaryDTO> getPaymentModeSummary(
             @RequestParam(required = false) String fromDate,
@@ -58,6 +72,7 @@ public class SaleController {
                 variantId, bankAccountId, minAmount, maxAmount, minTransactionCount));
     }
 
+    @QueryBudget(50) // a one-line sale currently needs ~43 (stock locks, ledger, bank ledger, alerts)
     @PostMapping
     public ResponseEntity<SaleDTO> createSale(@Valid @RequestBody CreateSaleRequestDTO request) {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.createSale(request));
@@ -69,7 +84,7 @@ public class SaleController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<SaleDTO>> getAllSales(
+    public ResponseEntity<?> getAllSales(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "saleDate") String sortBy,
@@ -80,8 +95,21 @@ public class SaleController {
             @RequestParam(required = false) Long variantId,
             @RequestParam(required = false) Double minAmount,
             @RequestParam(required = false) Double maxAmount,
-            @RequestParam(required = false) String referenceNumber) {
+            @RequestParam(required = false) String referenceNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean includeTotal) {
+        // Passing cursor (empty for the first page) switches to keyset pagination on (saleDate, id)
+        if (cursor != null) {
+            return ResponseEntity.ok(service.getAllSales(cursor, size, direction, fromDate, toDate, customerId,
+                    variantId, minAmount, maxAmount, referenceNumber, Boolean.TRUE.equals(includeTotal)));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        // includeTotal=false returns a slice and skips the count query
+        if (Boolean.FALSE.equals(includeTotal)) {
+            return ResponseEntity
+                    .ok(service.getAllSalesSlice(pageable, fromDate, toDate, customerId, variantId, minAmount,
+                            maxAmount, referenceNumber));
+        }
         return ResponseEntity
                 .ok(service.getAllSales(pageable, fromDate, toDate, customerId, variantId, minAmount, maxAmount,
                         referenceNumber));
@@ -95,4 +123,18 @@ public class SaleController {
         Pageable pageable = PageRequest.of(page, size, Sort.by("saleDate").descending());
         return ResponseEntity.ok(service.getSalesByCustomer(customerId, pageable));
     }
+
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.contentDisposition("sales"))
+                .body(exportService.exportSales(fromDate, toDate, exportFormat));
+    }
 }
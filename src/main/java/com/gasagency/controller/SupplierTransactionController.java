@@ -4,23 +4,33 @@ package com.gasagency.controller;
 import com.gasagency.dto.CreateSupplierTransactionRequestDTO;
 import com.gasagency.dto.SupplierTransactionDTO;
 import com.gasagency.service.SupplierTransactionService;
-import org.springframework.data.domain.Page;
+import com.gasagency.service.ExportService;
+import com.gasagency.config.Workload;
+import com.gasagency.config.WorkloadClass;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.format.annotation.DateTimeFormat;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/supplier-transactions")
 public class SupplierTransactionController {
     private final SupplierTransactionService service;
+    private final ExportService exportService;
 
-    public SupplierTransactionController(SupplierTransactionService service) {
+    public SupplierTransactionController(SupplierTransactionService service, ExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     @PostMapping
@@ -41,13 +51,19 @@ public class SupplierTransactionController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<SupplierTransactionDTO>> getAllTransactions(
+    public ResponseEntity<?> getAllTransactions(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "ASC") String direction,
-            @RequestParam(required = false) String referenceNumber) {
+            @RequestParam(required = false) String referenceNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction.toUpperCase());
+        if (cursor != null) {
+            return ResponseEntity.ok(service.getAllTransactions(cursor, size, sortDirection, referenceNumber,
+                    includeTotal));
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         return ResponseEntity.ok(service.getAllTransactions(pageable, referenceNumber));
     }
@@ -61,4 +77,18 @@ public class SupplierTransactionController {
     public ResponseEntity<List<SupplierTransactionDTO>> getTransactionsByWarehouse(@PathVariable Long warehouseId) {
         return ResponseEntity.ok(service.getTransactionsByWarehouse(warehouseId));
     }
+
+    @Workload(WorkloadClass.REPORT)
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportFormat.contentDisposition("supplier-transactions"))
+                .body(exportService.exportSupplierTransactions(fromDate, toDate, exportFormat));
+    }
 }
@@ -0,0 +1,69 @@
+package com.gasagency.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cylinders held (per variant) and amount due by a customer at the end of a
+ * given date.
+ */
+public class CustomerPositionDTO {
+    private Long customerId;
+    private String customerName;
+    private LocalDate asOfDate;
+    private BigDecimal dueAmount;
+    private List<CustomerBalanceDTO.VariantBalance> variantBalances;
+
+    public CustomerPositionDTO() {
+    }
+
+    public CustomerPositionDTO(Long customerId, String customerName, LocalDate asOfDate, BigDecimal dueAmount,
+            List<CustomerBalanceDTO.VariantBalance> variantBalances) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.asOfDate = asOfDate;
+        this.dueAmount = dueAmount;
+        this.variantBalances = variantBalances;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDate getAsOfDate() {
+        return asOfDate;
+    }
+
+    public void setAsOfDate(LocalDate asOfDate) {
+        this.asOfDate = asOfDate;
+    }
+
+    public BigDecimal getDueAmount() {
+        return dueAmount;
+    }
+
+    public void setDueAmount(BigDecimal dueAmount) {
+        this.dueAmount = dueAmount;
+    }
+
+    public List<CustomerBalanceDTO.VariantBalance> getVariantBalances() {
+        return variantBalances;
+    }
+
+    public void setVariantBalances(List<CustomerBalanceDTO.VariantBalance> variantBalances) {
+        this.variantBalances = variantBalances;
+    }
+}
@@ -0,0 +1,221 @@
+package com.gasagency.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A customer's statement for a period: the position at the end of the day
+ * before fromDate, the period's entries in chain (date, id) order with the
+ * running balance of their variant and the running due, and the position at
+ * the end of toDate.
+ */
+public class CustomerStatementDTO {
+    private Long customerId;
+    private String customerName;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private CustomerPositionDTO opening;
+    private List<Entry> entries;
+    private CustomerPositionDTO closing;
+
+    public static class Entry {
+        private Long id;
+        private LocalDate transactionDate;
+        private String refType;
+        private Long refId;
+        private String transactionReference;
+        private Long variantId;
+        private String variantName;
+        private Long filledOut;
+        private Long emptyIn;
+        private BigDecimal totalAmount;
+        private BigDecimal amountReceived;
+        private String paymentMode;
+        // Variant balance after this entry; null for payments
+        private Long runningBalance;
+        private BigDecimal runningDue;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public LocalDate getTransactionDate() {
+            return transactionDate;
+        }
+
+        public void setTransactionDate(LocalDate transactionDate) {
+            this.transactionDate = transactionDate;
+        }
+
+        public String getRefType() {
+            return refType;
+        }
+
+        public void setRefType(String refType) {
+            this.refType = refType;
+        }
+
+        public Long getRefId() {
+            return refId;
+        }
+
+        public void setRefId(Long refId) {
+            this.refId = refId;
+        }
+
+        public String getTransactionReference() {
+            return transactionReference;
+        }
+
+        public void setTransactionReference(String transactionReference) {
+            this.transactionReference = transactionReference;
+        }
+
+        public Long getVariantId() {
+            return variantId;
+        }
+
+        public void setVariantId(Long variantId) {
+            this.variantId = variantId;
+        }
+
+        public String getVariantName() {
+            return variantName;
+        }
+
+        public void setVariantName(String variantName) {
+            this.variantName = variantName;
+        }
+
+        public Long getFilledOut() {
+            return filledOut;
+        }
+
+        public void setFilledOut(Long filledOut) {
+            this.filledOut = filledOut;
+        }
+
+        public Long getEmptyIn() {
+            return emptyIn;
+        }
+
+        public void setEmptyIn(Long emptyIn) {
+            this.emptyIn = emptyIn;
+        }
+
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+
+        public void setTotalAmount(BigDecimal totalAmount) {
+            this.totalAmount = totalAmount;
+        }
+
+        public BigDecimal getAmountReceived() {
+            return amountReceived;
+        }
+
+        public void setAmountReceived(BigDecimal amountReceived) {
+            this.amountReceived = amountReceived;
+        }
+
+        public String getPaymentMode() {
+            return paymentMode;
+        }
+
+        public void setPaymentMode(String paymentMode) {
+            this.paymentMode = paymentMode;
+        }
+
+        public Long getRunningBalance() {
+            return runningBalance;
+        }
+
+        public void setRunningBalance(Long runningBalance) {
+            this.runningBalance = runningBalance;
+        }
+
+        public BigDecimal getRunningDue() {
+            return runningDue;
+        }
+
+        public void setRunningDue(BigDecimal runningDue) {
+            this.runningDue = runningDue;
+        }
+    }
+
+    public CustomerStatementDTO() {
+    }
+
+    public CustomerStatementDTO(Long customerId, String customerName, LocalDate fromDate, LocalDate toDate,
+            CustomerPositionDTO opening, List<Entry> entries, CustomerPositionDTO closing) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.opening = opening;
+        this.entries = entries;
+        this.closing = closing;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public CustomerPositionDTO getOpening() {
+        return opening;
+    }
+
+    public void setOpening(CustomerPositionDTO opening) {
+        this.opening = opening;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public CustomerPositionDTO getClosing() {
+        return closing;
+    }
+
+    public void setClosing(CustomerPositionDTO closing) {
+        this.closing = closing;
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class AlertNotification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_notification_id_seq")
+    @SequenceGenerator(name = "alert_notification_id_seq", sequenceName = "alert_notification_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 50)
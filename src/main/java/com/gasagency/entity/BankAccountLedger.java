@@ -8,14 +8,15 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
 @Table(name = "bank_account_ledger", indexes = {
-        @Index(name = "idx_bal_bank_account_date", columnList = "bank_account_id, transaction_date"),
-        @Index(name = "idx_bal_transaction_date", columnList = "transaction_date"),
+        @Index(name = "idx_bal_bank_account_date_id", columnList = "bank_account_id, transaction_date, id"),
+        @Index(name = "idx_bal_transaction_date_id", columnList = "transaction_date, id"),
         @Index(name = "idx_bal_trans_type_date", columnList = "transaction_type, transaction_date")
 })
 public class BankAccountLedger extends Auditable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_ledger_id_seq")
+    @SequenceGenerator(name = "bank_account_ledger_id_seq", sequenceName = "bank_account_ledger_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
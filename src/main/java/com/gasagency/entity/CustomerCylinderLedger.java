@@ -11,24 +11,40 @@ import java.util.Objects;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Table(name = "customer_cylinder_ledger", indexes = {
+@Table(name = "customer_cylinder_ledger", uniqueConstraints = {
+        // One row per referenced transaction and variant (V6); append relies on it.
+        // On the partitioned Postgres table one unique index per partition (V7)
+        @UniqueConstraint(name = "uk_ccl_ref", columnNames = { "ref_type", "ref_id", "customer_id", "variant_id" })
+}, indexes = {
         // Performance indexes for due payment and transaction queries
         @Index(name = "idx_ccl_customer_trans_date", columnList = "customer_id, transaction_date"),
         @Index(name = "idx_ccl_warehouse_date", columnList = "warehouse_id, transaction_date"),
         @Index(name = "idx_ccl_transaction_date", columnList = "transaction_date"),
         @Index(name = "idx_ccl_ref_type_date", columnList = "ref_type, transaction_date"),
-        @Index(name = "idx_ccl_customer_variant", columnList = "customer_id, variant_id"),
-        
+        // Latest-entry lookups; Postgres migration adds INCLUDE columns (V2)
+        @Index(name = "idx_ccl_customer_variant_latest",
+                columnList = "customer_id, variant_id, transaction_date DESC, id DESC"),
+        @Index(name = "idx_ccl_customer_latest", columnList = "customer_id, id DESC"),
+        @Index(name = "idx_ccl_warehouse_type_created", columnList = "warehouse_id, ref_type, created_date"),
+
         // Legacy indexes
-        @Index(name = "idx_ledger_customer_id", columnList = "customer_id"),
-        @Index(name = "idx_ledger_warehouse_id", columnList = "warehouse_id"),
         @Index(name = "idx_ledger_variant_id", columnList = "variant_id"),
-        @Index(name = "idx_ledger_customer_warehouse", columnList = "customer_id, warehouse_id"),
         @Index(name = "idx_customer_warehouse_variant", columnList = "customer_id, warehouse_id, variant_id")
 })
+// Everything toDTO reads; used by the paged and single-entry ledger reads
+@NamedEntityGraph(name = CustomerCylinderLedger.GRAPH_FOR_DTO, attributeNodes = {
+        @NamedAttributeNode("customer"),
+        @NamedAttributeNode("variant"),
+        @NamedAttributeNode("bankAccount")
+})
 public class CustomerCylinderLedger extends Auditable {
+    public static final String GRAPH_FOR_DTO = "CustomerCylinderLedger.forDto";
+
+    // One id per insert (V10), not a pooled block: ids break ties in the chain
+    // order (transaction_date, id) and must follow the order of the writes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_cylinder_ledger_id_seq")
+    @SequenceGenerator(name = "customer_cylinder_ledger_id_seq", sequenceName = "customer_cylinder_ledger_id_seq", allocationSize = 1)
     private Long id;
 
     @Version
@@ -36,16 +52,16 @@ public class CustomerCylinderLedger extends Auditable {
     private Long version = 0L;
 
     @NotNull(message = "Customer is required.")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     @JsonBackReference("customer-ledgers")
     private Customer customer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "warehouse_id", nullable = true)
     @JsonBackReference("warehouse-customerCylinderLedgers")
     private Warehouse warehouse;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "variant_id", nullable = true)
     @JsonBackReference("variant-ledgers")
     private CylinderVariant variant;
@@ -100,14 +116,16 @@ public class CustomerCylinderLedger extends Auditable {
     @Column(nullable = true, length = 50)
     private String paymentMode;
 
-    @Column(name = "transaction_reference", nullable = true, length = 50, unique = true)
-    private String transactionReference; // Auto-generated for EMPTY_RETURN transactions
+    // Sale reference (shared by the lines of one sale) or auto-generated for
+    // EMPTY_RETURN transactions
+    @Column(name = "transaction_reference", nullable = true, length = 50)
+    private String transactionReference;
 
     @Column(nullable = true, length = 1500)
     private String updateReason; // Optional reason for why the ledger entry was updated (includes changes
                                  // summary + user note)
 
-    @ManyToOne(fetch = jakarta.persistence.FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "bank_account_id", nullable = true)
     @JsonBackReference("bankAccount-ledgers")
     private BankAccount bankAccount;
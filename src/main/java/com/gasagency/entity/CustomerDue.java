@@ -0,0 +1,65 @@
+package com.gasagency.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Current due amount of one customer: the dueAmount of the customer's latest
+ * ledger entry, maintained by CustomerDueService in the transaction of every
+ * ledger write.
+ */
+@Entity
+@Table(name = "customer_due")
+public class CustomerDue {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal dueAmount;
+
+    private Long lastLedgerId; // Ledger entry the amount was taken from
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CustomerDue() {
+    }
+
+    public CustomerDue(Long customerId) {
+        this.customerId = customerId;
+        this.dueAmount = BigDecimal.ZERO;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public BigDecimal getDueAmount() {
+        return dueAmount;
+    }
+
+    public void setDueAmount(BigDecimal dueAmount) {
+        this.dueAmount = dueAmount;
+    }
+
+    public Long getLastLedgerId() {
+        return lastLedgerId;
+    }
+
+    public void setLastLedgerId(Long lastLedgerId) {
+        this.lastLedgerId = lastLedgerId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -10,9 +10,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Table(name = "customer_variant_price", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "customer_id", "variant_id" })
 }, indexes = {
-        @Index(name = "idx_cvp_customer_id", columnList = "customer_id"),
-        @Index(name = "idx_cvp_variant_id", columnList = "variant_id"),
-        @Index(name = "idx_cvp_customer_variant", columnList = "customer_id,variant_id")
+        @Index(name = "idx_cvp_variant_id", columnList = "variant_id")
 })
 public class CustomerVariantPrice extends Auditable {
     @Id
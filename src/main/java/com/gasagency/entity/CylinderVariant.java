@@ -11,7 +11,6 @@ import java.util.List;
 
 @Entity
 @Table(name = "cylinder_variant", uniqueConstraints = { @UniqueConstraint(columnNames = { "name" }) }, indexes = {
-        @Index(name = "idx_variant_name", columnList = "name"),
         @Index(name = "idx_variant_active", columnList = "active")
 })
 public class CylinderVariant extends Auditable {
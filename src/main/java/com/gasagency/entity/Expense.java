@@ -7,7 +7,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
 @Table(name = "expenses", indexes = {
-        @Index(name = "idx_expense_date", columnList = "expense_date"),
+        @Index(name = "idx_expense_date_id", columnList = "expense_date, id"),
         @Index(name = "idx_expense_category_date", columnList = "category_id, expense_date")
 })
 public class Expense extends Auditable {
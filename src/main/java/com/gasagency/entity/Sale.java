@@ -17,18 +17,26 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 @Entity
 @Table(name = "sale", indexes = {
         // Performance indexes for sales lookups
-        @Index(name = "idx_sale_date", columnList = "sale_date"),
+        @Index(name = "idx_sale_date_id", columnList = "sale_date, id"),
         @Index(name = "idx_sale_customer_date", columnList = "customer_id, sale_date"),
-        @Index(name = "idx_sale_warehouse_date", columnList = "warehouse_id, sale_date"),
-
-        // Legacy indexes
-        @Index(name = "idx_sale_customer_id", columnList = "customer_id"),
-        @Index(name = "idx_sale_warehouse_id", columnList = "warehouse_id"),
-        @Index(name = "idx_sale_reference_number", columnList = "reference_number", unique = true)
+        @Index(name = "idx_sale_warehouse_date", columnList = "warehouse_id, sale_date")
 })
+// Loaded by id in the second phase of sale searches; see SaleRepositoryCustomImpl
+@NamedEntityGraph(name = Sale.GRAPH_WITH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("customer"),
+        @NamedAttributeNode("warehouse"),
+        @NamedAttributeNode("bankAccount"),
+        @NamedAttributeNode(value = "saleItems", subgraph = "items")
+}, subgraphs = @NamedSubgraph(name = "items", attributeNodes = {
+        @NamedAttributeNode("variant"),
+        @NamedAttributeNode("warehouse")
+}))
 public class Sale extends Auditable {
+    public static final String GRAPH_WITH_DETAILS = "Sale.withDetails";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_id_seq")
+    @SequenceGenerator(name = "sale_id_seq", sequenceName = "sale_id_seq", allocationSize = 50)
     private Long id;
 
     @Version
@@ -16,7 +16,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 })
 public class SaleItem extends Auditable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_item_id_seq")
+    @SequenceGenerator(name = "sale_item_id_seq", sequenceName = "sale_item_id_seq", allocationSize = 50)
     private Long id;
 
     @Version
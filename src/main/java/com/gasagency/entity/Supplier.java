@@ -7,7 +7,6 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
 @Table(name = "supplier", uniqueConstraints = { @UniqueConstraint(columnNames = { "name" }) }, indexes = {
-        @Index(name = "idx_supplier_name", columnList = "name"),
         @Index(name = "idx_supplier_contact", columnList = "contact")
 })
 public class Supplier extends Auditable {
@@ -10,7 +10,6 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
 @Table(name = "warehouse", indexes = {
-        @Index(name = "idx_warehouse_name", columnList = "name", unique = true),
         @Index(name = "idx_warehouse_status", columnList = "status")
 })
 public class Warehouse extends Auditable {
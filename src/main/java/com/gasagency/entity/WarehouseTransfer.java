@@ -12,14 +12,13 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 @Table(name = "warehouse_transfer", indexes = {
         @Index(name = "idx_wt_transfer_date", columnList = "transfer_date"),
         @Index(name = "idx_wt_warehouses", columnList = "from_warehouse_id, to_warehouse_id, transfer_date"),
-        @Index(name = "idx_transfer_from_warehouse", columnList = "from_warehouse_id"),
         @Index(name = "idx_transfer_to_warehouse", columnList = "to_warehouse_id"),
-        @Index(name = "idx_transfer_variant", columnList = "variant_id"),
-        @Index(name = "idx_transfer_reference_number", columnList = "reference_number", unique = true)
+        @Index(name = "idx_transfer_variant", columnList = "variant_id")
 })
 public class WarehouseTransfer extends Auditable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_transfer_id_seq")
+    @SequenceGenerator(name = "warehouse_transfer_id_seq", sequenceName = "warehouse_transfer_id_seq", allocationSize = 50)
     private Long id;
 
     @Version
@@ -1,5 +1,6 @@
 package com.gasagency.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -93,6 +94,19 @@ public class GlobalExceptionHandler {
                 return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
         }
 
+        @ExceptionHandler(ServiceOverloadedException.class)
+        public ResponseEntity<ErrorResponse> handleServiceOverloaded(
+                        ServiceOverloadedException ex, WebRequest request) {
+                ErrorResponse error = new ErrorResponse(
+                                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                                "SERVICE_OVERLOADED",
+                                ex.getMessage(),
+                                LocalDateTime.now());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                                .body(error);
+        }
+
         @ExceptionHandler(InvalidOperationException.class)
         public ResponseEntity<ErrorResponse> handleInvalidOperation(
                         InvalidOperationException ex, WebRequest request) {
@@ -0,0 +1,25 @@
+package com.gasagency.exception;
+
+/**
+ * Exception thrown when a request is shed by admission control because its
+ * workload class is at its concurrency limit. Mapped to 503 with Retry-After.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    private final String workloadClass;
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String workloadClass, long retryAfterSeconds) {
+        super("Too many concurrent " + workloadClass + " requests. Please retry in " + retryAfterSeconds
+                + " seconds.");
+        this.workloadClass = workloadClass;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getWorkloadClass() {
+        return workloadClass;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
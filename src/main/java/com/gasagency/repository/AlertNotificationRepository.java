@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +15,7 @@ public interface AlertNotificationRepository extends JpaRepository<AlertNotifica
 
     Optional<AlertNotification> findByAlertKey(String alertKey);
 
+    List<AlertNotification> findByAlertKeyIn(Collection<String> alertKeys);
+
     void deleteByExpiresAtLessThan(LocalDateTime now);
 }
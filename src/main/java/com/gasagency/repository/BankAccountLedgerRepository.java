@@ -5,15 +5,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface BankAccountLedgerRepository extends JpaRepository<BankAccountLedger, Long> {
+public interface BankAccountLedgerRepository extends JpaRepository<BankAccountLedger, Long>,
+                BankAccountLedgerRepositoryCustom {
 
         @Query("SELECT bal FROM BankAccountLedger bal WHERE bal.bankAccount.id = :bankAccountId ORDER BY bal.transactionDate DESC")
         Page<BankAccountLedger> findByBankAccountId(@Param("bankAccountId") Long bankAccountId, Pageable pageable);
@@ -101,4 +106,14 @@ public interface BankAccountLedgerRepository extends JpaRepository<BankAccountLe
                         "WHERE EXTRACT(MONTH FROM bal.transactionDate) = EXTRACT(MONTH FROM CAST(:date AS DATE)) " +
                         "AND EXTRACT(YEAR FROM bal.transactionDate) = EXTRACT(YEAR FROM CAST(:date AS DATE))")
         long countByCreatedAtMonthYear(@Param("date") LocalDate date);
+
+        // Streaming export, consumed inside a transaction
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT bal FROM BankAccountLedger bal JOIN FETCH bal.bankAccount " +
+                        "WHERE (:bankAccountId IS NULL OR bal.bankAccount.id = :bankAccountId) " +
+                        "AND bal.transactionDate BETWEEN :startDate AND :endDate " +
+                        "ORDER BY bal.transactionDate ASC, bal.id ASC")
+        Stream<BankAccountLedger> streamForExport(@Param("bankAccountId") Long bankAccountId,
+                        @Param("startDate") LocalDateTime startDate,
+                        @Param("endDate") LocalDateTime endDate);
 }
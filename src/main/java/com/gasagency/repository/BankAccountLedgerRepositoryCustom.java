@@ -0,0 +1,31 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.BankAccountLedger;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BankAccountLedgerRepositoryCustom {
+
+    /**
+     * Keyset page ordered by (transactionDate, id). All filters are optional
+     * and applied in the database, including the reference number match.
+     */
+    List<BankAccountLedger> findFilteredAfter(
+            Long bankAccountId,
+            String transactionType,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String referenceNumber,
+            LocalDateTime afterDate,
+            Long afterId,
+            boolean descending,
+            int limit);
+
+    long countFiltered(
+            Long bankAccountId,
+            String transactionType,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String referenceNumber);
+}
@@ -0,0 +1,74 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.BankAccountLedger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BankAccountLedgerRepositoryCustomImpl implements BankAccountLedgerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BankAccountLedger> findFilteredAfter(Long bankAccountId, String transactionType,
+            LocalDateTime startDate, LocalDateTime endDate, String referenceNumber,
+            LocalDateTime afterDate, Long afterId, boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BankAccountLedger> cq = cb.createQuery(BankAccountLedger.class);
+        Root<BankAccountLedger> ledger = cq.from(BankAccountLedger.class);
+        ledger.fetch("bankAccount", JoinType.LEFT);
+
+        List<Predicate> predicates = buildPredicates(cb, ledger, bankAccountId, transactionType, startDate,
+                endDate, referenceNumber);
+        if (afterDate != null && afterId != null) {
+            predicates.add(KeysetPredicates.after(cb, ledger.get("transactionDate"), ledger.get("id"),
+                    afterDate, afterId, descending));
+        }
+
+        cq.select(ledger).where(predicates.toArray(new Predicate[0]))
+                .orderBy(KeysetPredicates.orderBy(cb, ledger.get("transactionDate"), ledger.get("id"), descending));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countFiltered(Long bankAccountId, String transactionType, LocalDateTime startDate,
+            LocalDateTime endDate, String referenceNumber) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<BankAccountLedger> ledger = cq.from(BankAccountLedger.class);
+        cq.select(cb.count(ledger)).where(buildPredicates(cb, ledger, bankAccountId, transactionType, startDate,
+                endDate, referenceNumber).toArray(new Predicate[0]));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<BankAccountLedger> ledger,
+            Long bankAccountId, String transactionType, LocalDateTime startDate, LocalDateTime endDate,
+            String referenceNumber) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (bankAccountId != null) {
+            predicates.add(cb.equal(ledger.get("bankAccount").get("id"), bankAccountId));
+        }
+        if (transactionType != null) {
+            predicates.add(cb.equal(ledger.get("transactionType"), transactionType));
+        }
+        if (startDate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(ledger.get("transactionDate"), startDate));
+        }
+        if (endDate != null) {
+            predicates.add(cb.lessThanOrEqualTo(ledger.get("transactionDate"), endDate));
+        }
+        if (referenceNumber != null && !referenceNumber.isEmpty()) {
+            predicates.add(cb.like(cb.lower(ledger.get("referenceNumber")),
+                    "%" + referenceNumber.toLowerCase() + "%"));
+        }
+        return predicates;
+    }
+}
@@ -6,19 +6,41 @@ import com.gasagency.entity.CylinderVariant;
 import com.gasagency.entity.Warehouse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CustomerCylinderLedgerRepository extends JpaRepository<CustomerCylinderLedger, Long> {
+public interface CustomerCylinderLedgerRepository extends JpaRepository<CustomerCylinderLedger, Long>,
+                CustomerCylinderLedgerRepositoryCustom {
+        /**
+         * Shared SELECT for {@link CustomerCylinderLedgerView} projections. Only the
+         * columns the DTO needs are read; variant and bank account are optional.
+         */
+        String VIEW_SELECT = "SELECT l.id AS id, c.id AS customerId, c.name AS customerName, " +
+                        "v.id AS variantId, v.name AS variantName, l.transactionDate AS transactionDate, " +
+                        "l.refType AS refType, l.refId AS refId, l.filledOut AS filledOut, l.emptyIn AS emptyIn, " +
+                        "l.balance AS balance, l.createdDate AS createdDate, l.updatedDate AS updatedDate, " +
+                        "l.totalAmount AS totalAmount, l.amountReceived AS amountReceived, " +
+                        "l.dueAmount AS dueAmount, l.paymentMode AS paymentMode, " +
+                        "l.transactionReference AS transactionReference, l.updateReason AS updateReason, " +
+                        "b.id AS bankAccountId, b.bankName AS bankAccountName " +
+                        "FROM CustomerCylinderLedger l JOIN l.customer c " +
+                        "LEFT JOIN l.variant v LEFT JOIN l.bankAccount b ";
+
         List<CustomerCylinderLedger> findByCustomer(Customer customer);
 
         Page<CustomerCylinderLedger> findByCustomer(Customer customer, Pageable pageable);
@@ -42,25 +64,38 @@ public interface CustomerCylinderLedgerRepository extends JpaRepository<Customer
         List<CustomerCylinderLedger> findByCustomerAndVariant(@Param("customer") Customer customer,
                         @Param("variant") CylinderVariant variant);
 
-        // Get latest ledger entry for a customer-variant combination
+        // Get latest ledger entry for a customer-variant combination (chain order)
         @Query(value = "SELECT l FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId " +
-                        "AND l.variant.id = :variantId ORDER BY l.id DESC")
+                        "AND l.variant.id = :variantId ORDER BY l.transactionDate DESC, l.id DESC")
         List<CustomerCylinderLedger> findLatestLedger(@Param("customerId") Long customerId,
                         @Param("variantId") Long variantId);
 
         List<CustomerCylinderLedger> findByVariant(CylinderVariant variant);
 
+        // Keyset pagination on the primary key (no OFFSET, no COUNT)
+        @EntityGraph(CustomerCylinderLedger.GRAPH_FOR_DTO)
+        List<CustomerCylinderLedger> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+        @EntityGraph(CustomerCylinderLedger.GRAPH_FOR_DTO)
+        List<CustomerCylinderLedger> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
         // Get all ledger entries for a specific warehouse
         @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.warehouse.id = :warehouseId ORDER BY l.transactionDate DESC")
         List<CustomerCylinderLedger> findByWarehouseId(@Param("warehouseId") Long warehouseId);
 
         // Count EMPTY_RETURN entries for a warehouse in a specific month
+        default long countEmptyReturnsByWarehouseAndMonth(Warehouse warehouse, LocalDate date) {
+                LocalDateTime monthStart = date.withDayOfMonth(1).atStartOfDay();
+                return countEmptyReturnsByWarehouseCreatedBetween(warehouse, monthStart, monthStart.plusMonths(1));
+        }
+
+        // OPTIMIZED: Half-open range on created_date so idx_ccl_warehouse_type_created
+        // can be used (EXTRACT(MONTH/YEAR ...) on the column cannot)
         @Query("SELECT COUNT(l) FROM CustomerCylinderLedger l WHERE l.warehouse = :warehouse " +
                         "AND l.refType = 'EMPTY_RETURN' " +
-                        "AND EXTRACT(MONTH FROM l.createdDate) = EXTRACT(MONTH FROM CAST(:date AS DATE)) " +
-                        "AND EXTRACT(YEAR FROM l.createdDate) = EXTRACT(YEAR FROM CAST(:date AS DATE))")
-        long countEmptyReturnsByWarehouseAndMonth(@Param("warehouse") Warehouse warehouse,
-                        @Param("date") LocalDate date);
+                        "AND l.createdDate >= :from AND l.createdDate < :to")
+        long countEmptyReturnsByWarehouseCreatedBetween(@Param("warehouse") Warehouse warehouse,
+                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
         // Get ledger entries for a specific date and reference type (optimized query)
         @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.transactionDate = :transactionDate " +
@@ -69,22 +104,112 @@ public interface CustomerCylinderLedgerRepository extends JpaRepository<Customer
                         @Param("transactionDate") LocalDate transactionDate,
                         @Param("refType") CustomerCylinderLedger.TransactionType refType);
 
+        // === READ MODELS (DTO mapping without lazy loads) ===
+
+        @EntityGraph(CustomerCylinderLedger.GRAPH_FOR_DTO)
+        Optional<CustomerCylinderLedger> findWithDetailsById(Long id);
+
+        @EntityGraph(CustomerCylinderLedger.GRAPH_FOR_DTO)
+        @Query("SELECT l FROM CustomerCylinderLedger l")
+        Page<CustomerCylinderLedger> findAllWithDetails(Pageable pageable);
+
+        @EntityGraph(CustomerCylinderLedger.GRAPH_FOR_DTO)
+        Page<CustomerCylinderLedger> findWithDetailsByCustomer(Customer customer, Pageable pageable);
+
+        @Query(VIEW_SELECT + "ORDER BY l.id ASC")
+        List<CustomerCylinderLedgerView> findAllViews();
+
+        @Query(VIEW_SELECT + "WHERE c.id = :customerId ORDER BY l.id ASC")
+        List<CustomerCylinderLedgerView> findViewsByCustomerId(@Param("customerId") Long customerId);
+
+        // Latest balance per variant (ROW_NUMBER over idx_ccl_customer_variant_latest)
+        // with the variant's issued/returned totals; window functions behave the
+        // same on Postgres and H2
+        @Query(value = "SELECT s.variant_id AS variantId, v.name AS variantName, s.balance AS balance, "
+                        + "s.filled_out AS filledOut, s.empty_in AS emptyIn "
+                        + "FROM (SELECT l.variant_id, l.balance, "
+                        + "ROW_NUMBER() OVER (PARTITION BY l.variant_id ORDER BY l.transaction_date DESC, l.id DESC) AS rn, "
+                        + "CAST(SUM(l.filled_out) OVER (PARTITION BY l.variant_id) AS BIGINT) AS filled_out, "
+                        + "CAST(SUM(l.empty_in) OVER (PARTITION BY l.variant_id) AS BIGINT) AS empty_in "
+                        + "FROM customer_cylinder_ledger l "
+                        + "WHERE l.customer_id = :customerId AND l.variant_id IS NOT NULL "
+                        + "AND l.ref_type <> 'PAYMENT') s "
+                        + "JOIN cylinder_variant v ON v.id = s.variant_id "
+                        + "WHERE s.rn = 1 ORDER BY v.name", nativeQuery = true)
+        List<CustomerVariantSummaryView> findVariantSummariesByCustomerId(@Param("customerId") Long customerId);
+
+        @Query("SELECT COALESCE(SUM(l.totalAmount), 0) AS totalBilled, "
+                        + "COALESCE(SUM(l.amountReceived), 0) AS totalReceived, "
+                        + "COALESCE(SUM(l.filledOut), 0) AS totalFilledOut, "
+                        + "COALESCE(SUM(l.emptyIn), 0) AS totalEmptyIn "
+                        + "FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId")
+        CustomerLedgerTotalsView findTotalsByCustomerId(@Param("customerId") Long customerId);
+
+        @Query(VIEW_SELECT + "WHERE c.id = :customerId AND v.id = :variantId ORDER BY l.id ASC")
+        List<CustomerCylinderLedgerView> findViewsByCustomerIdAndVariantId(@Param("customerId") Long customerId,
+                        @Param("variantId") Long variantId);
+
+        @Query(VIEW_SELECT + "WHERE v.id = :variantId ORDER BY l.id ASC")
+        List<CustomerCylinderLedgerView> findViewsByVariantId(@Param("variantId") Long variantId);
+
+        // Stock movement history, newest transaction date first
+        @Query(VIEW_SELECT + "ORDER BY l.transactionDate DESC, l.id ASC")
+        List<CustomerCylinderLedgerView> findMovementViews();
+
+        @Query(VIEW_SELECT + "WHERE l.warehouse.id = :warehouseId ORDER BY l.transactionDate DESC, l.id ASC")
+        List<CustomerCylinderLedgerView> findMovementViewsByWarehouseId(@Param("warehouseId") Long warehouseId);
+
+        // Latest entry in chain order (date, id) per active customer and active
+        // variant in one query; the highest id is not the latest after a
+        // back-dated entry
+        @Query(VIEW_SELECT + "WHERE l.id IN (SELECT s.id FROM (SELECT l2.id AS id, ROW_NUMBER() OVER ("
+                        + "PARTITION BY l2.customer.id, l2.variant.id "
+                        + "ORDER BY l2.transactionDate DESC, l2.id DESC) AS rn FROM CustomerCylinderLedger l2 "
+                        + "WHERE l2.customer.active = true AND l2.variant.active = true) s WHERE s.rn = 1) "
+                        + "ORDER BY c.id ASC, v.id ASC")
+        List<CustomerCylinderLedgerView> findLatestViewsForActiveCustomersAndVariants();
+
+        // Customers whose outstanding cylinders (sum of the latest balance per
+        // variant, in chain order as in findVariantSummariesByCustomerId) reach
+        // the threshold, in one grouped query
+        @Query(value = "SELECT c.id AS customerId, c.name AS customerName, "
+                        + "CAST(SUM(s.balance) AS BIGINT) AS pendingCount "
+                        + "FROM (SELECT l.customer_id, l.balance, ROW_NUMBER() OVER ("
+                        + "PARTITION BY l.customer_id, l.variant_id ORDER BY l.transaction_date DESC, l.id DESC) AS rn "
+                        + "FROM customer_cylinder_ledger l WHERE l.variant_id IS NOT NULL) s "
+                        + "JOIN customer c ON c.id = s.customer_id "
+                        + "WHERE s.rn = 1 GROUP BY c.id, c.name HAVING SUM(s.balance) >= :threshold "
+                        + "ORDER BY c.id", nativeQuery = true)
+        List<PendingReturnView> findCustomersWithPendingReturnsAtLeast(@Param("threshold") long threshold);
+
         // === PESSIMISTIC LOCKING FOR CONCURRENT OPERATIONS ===
 
-        // Lock for reading latest balance without duplicates
-        @Lock(LockModeType.PESSIMISTIC_WRITE)
-        @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId " +
-                        "AND l.variant.id = :variantId ORDER BY l.id DESC LIMIT 1")
-        Optional<CustomerCylinderLedger> findLatestLedgerWithLock(@Param("customerId") Long customerId,
+        // Last entry of a customer in chain order (date, id), the order edits
+        // replay dues in; source of the customer_due register after an edit
+        @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId "
+                        + "ORDER BY l.transactionDate DESC, l.id DESC LIMIT 1")
+        Optional<CustomerCylinderLedger> findLatestByCustomerId(@Param("customerId") Long customerId);
+
+        // A customer's entries dated after a checkpoint (all entries when after is
+        // null) in chain order (date, id), for replays that start at the checkpoint.
+        // The cast types the IS NULL test: the Postgres driver sends a date
+        // parameter without a type, which the server cannot infer there
+        @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId "
+                        + "AND (CAST(:after AS LocalDate) IS NULL OR l.transactionDate > :after) "
+                        + "ORDER BY l.transactionDate ASC, l.id ASC")
+        List<CustomerCylinderLedger> findChainAfter(@Param("customerId") Long customerId,
+                        @Param("after") LocalDate after);
+
+        // The uk_ccl_ref key across all partitions (on Postgres the key itself is
+        // enforced per partition)
+        @Query("SELECT COUNT(l) > 0 FROM CustomerCylinderLedger l WHERE l.refType = :refType "
+                        + "AND l.refId = :refId AND l.customer.id = :customerId AND l.variant.id = :variantId")
+        boolean existsByReference(@Param("refType") CustomerCylinderLedger.TransactionType refType,
+                        @Param("refId") Long refId, @Param("customerId") Long customerId,
                         @Param("variantId") Long variantId);
 
-        // Lock for reference validation (prevent duplicate transactions)
-        @Lock(LockModeType.PESSIMISTIC_WRITE)
-        @Query("SELECT l FROM CustomerCylinderLedger l WHERE l.customer.id = :customerId " +
-                        "AND l.variant.id = :variantId AND l.refId = :refId AND l.refType = :refType")
-        Optional<CustomerCylinderLedger> findByRefIdWithLock(@Param("customerId") Long customerId,
-                        @Param("variantId") Long variantId, @Param("refId") Long refId,
-                        @Param("refType") CustomerCylinderLedger.TransactionType refType);
+        @Query("SELECT DISTINCT l.customer.id FROM CustomerCylinderLedger l")
+        List<Long> findCustomerIds();
 
         // Lock for reading all ledger entries for a customer on a variant
         @Lock(LockModeType.PESSIMISTIC_WRITE)
@@ -92,4 +217,12 @@ public interface CustomerCylinderLedgerRepository extends JpaRepository<Customer
                         "AND l.variant.id = :variantId ORDER BY l.id DESC")
         List<CustomerCylinderLedger> findByCustomerAndVariantWithLock(@Param("customerId") Long customerId,
                         @Param("variantId") Long variantId);
+
+        // === STREAMING EXPORT (must be consumed inside a transaction) ===
+
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT l FROM CustomerCylinderLedger l JOIN FETCH l.customer " +
+                        "LEFT JOIN FETCH l.variant LEFT JOIN FETCH l.warehouse LEFT JOIN FETCH l.bankAccount " +
+                        "WHERE (:customerId IS NULL OR l.customer.id = :customerId) ORDER BY l.id ASC")
+        Stream<CustomerCylinderLedger> streamForExport(@Param("customerId") Long customerId);
 }
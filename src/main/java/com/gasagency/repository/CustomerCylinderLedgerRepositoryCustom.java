@@ -0,0 +1,19 @@
+package com.gasagency.repository;
+
+public interface CustomerCylinderLedgerRepositoryCustom {
+
+    /**
+     * Insert one ledger row in a single INSERT ... SELECT that reads the
+     * latest balance of the customer and variant and adds filledOut - emptyIn.
+     * The same statement skips a second row for the same (refType, refId,
+     * customer, variant) in any partition; uk_ccl_ref backs this up within a
+     * partition. Callers serialize appends per customer by locking the
+     * customer_due row first.
+     *
+     * @return id of the new row, or null when nothing was inserted because
+     *         the balance would go negative (more empties returned than held),
+     *         the reference is already on the ledger or the date is archived
+     *         (on or before the latest ledger_archive.period_end)
+     */
+    Long append(LedgerAppend entry);
+}
@@ -0,0 +1,98 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.CustomerCylinderLedger;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.query.TypedParameterValue;
+import org.hibernate.type.BasicTypeReference;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDateTime;
+
+public class CustomerCylinderLedgerRepositoryCustomImpl implements CustomerCylinderLedgerRepositoryCustom {
+
+    // Native rather than JPQL: the balance subquery sits in the SELECT of the insert.
+    // The balance carried forward is the variant's entry just before the new
+    // row in chain order (transaction_date, id), so a back-dated row starts
+    // from the balance at its own date (idx_ccl_customer_variant_latest).
+    // The first NOT EXISTS is the uk_ccl_ref check across partitions (a null
+    // ref_id matches nothing); the second keeps rows out of archived dates,
+    // checked in the statement that routes the row to its partition
+    private static final String APPEND_SQL = "INSERT INTO customer_cylinder_ledger (id, version, customer_id, "
+            + "warehouse_id, variant_id, sale_id, bank_account_id, transaction_date, ref_type, ref_id, filled_out, "
+            + "empty_in, balance, total_amount, amount_received, due_amount, payment_mode, transaction_reference, "
+            + "created_by, created_date, updated_by, updated_date) "
+            + "SELECT :id, 0, :customerId, :warehouseId, :variantId, :saleId, :bankAccountId, :transactionDate, "
+            + ":refType, :refId, :filledOut, :emptyIn, p.balance + :filledOut - :emptyIn, :totalAmount, "
+            + ":amountReceived, :dueAmount, :paymentMode, :transactionReference, :auditor, :now, :auditor, :now "
+            + "FROM (SELECT COALESCE((SELECT l.balance FROM customer_cylinder_ledger l "
+            + "WHERE l.customer_id = :customerId AND l.variant_id = :variantId "
+            + "AND (l.transaction_date < :transactionDate OR (l.transaction_date = :transactionDate AND l.id < :id)) "
+            + "ORDER BY l.transaction_date DESC, l.id DESC LIMIT 1), 0) AS balance) p "
+            + "WHERE p.balance + :filledOut - :emptyIn >= 0 AND NOT EXISTS (SELECT 1 FROM customer_cylinder_ledger d "
+            + "WHERE d.ref_type = :refType AND d.ref_id = :refId AND d.customer_id = :customerId "
+            + "AND d.variant_id = :variantId) "
+            + "AND NOT EXISTS (SELECT 1 FROM ledger_archive a WHERE a.period_end >= :transactionDate)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AuditorAware<String> auditorAware;
+
+    public CustomerCylinderLedgerRepositoryCustomImpl(AuditorAware<String> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    @Override
+    public Long append(LedgerAppend entry) {
+        Long id = nextId();
+        LocalDateTime now = LocalDateTime.now();
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+
+        Query insert = entityManager.createNativeQuery(APPEND_SQL);
+        insert.setParameter("id", id);
+        insert.setParameter("customerId", entry.customerId());
+        bind(insert, "warehouseId", StandardBasicTypes.LONG, entry.warehouseId());
+        bind(insert, "variantId", StandardBasicTypes.LONG, entry.variantId());
+        bind(insert, "saleId", StandardBasicTypes.LONG, entry.saleId());
+        bind(insert, "bankAccountId", StandardBasicTypes.LONG, entry.bankAccountId());
+        insert.setParameter("transactionDate", entry.transactionDate());
+        insert.setParameter("refType", entry.refType().name());
+        bind(insert, "refId", StandardBasicTypes.LONG, entry.refId());
+        insert.setParameter("filledOut", entry.filledOut());
+        insert.setParameter("emptyIn", entry.emptyIn());
+        bind(insert, "totalAmount", StandardBasicTypes.BIG_DECIMAL, entry.totalAmount());
+        bind(insert, "amountReceived", StandardBasicTypes.BIG_DECIMAL, entry.amountReceived());
+        bind(insert, "dueAmount", StandardBasicTypes.BIG_DECIMAL, entry.dueAmount());
+        bind(insert, "paymentMode", StandardBasicTypes.STRING, entry.paymentMode());
+        bind(insert, "transactionReference", StandardBasicTypes.STRING, entry.transactionReference());
+        bind(insert, "auditor", StandardBasicTypes.STRING, auditor);
+        insert.setParameter("now", now);
+
+        return insert.executeUpdate() == 1 ? id : null;
+    }
+
+    /**
+     * Id from the entity's own sequence generator, so rows appended here and
+     * rows persisted through Hibernate never collide. It takes one value per
+     * call; callers hold the customer's due register, so the ids of one
+     * customer's rows follow the order of the appends on every node.
+     */
+    private Long nextId() {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(CustomerCylinderLedger.class).getGenerator();
+        return (Long) generator.generate(session, null, null, EventType.INSERT);
+    }
+
+    // Typed so a null is bound as the column's type (Postgres cannot infer it
+    // for parameters in a select list)
+    private static <T> void bind(Query query, String name, BasicTypeReference<T> type, T value) {
+        query.setParameter(name, new TypedParameterValue<>(type, value));
+    }
+}
@@ -0,0 +1,60 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.CustomerCylinderLedger;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a ledger entry for list endpoints.
+ *
+ * Selects exactly the columns CustomerCylinderLedgerDTO needs (plus customer,
+ * variant and bank account names) in one joined query, so list reads neither
+ * materialise managed entities nor load the associated entities.
+ * See {@link CustomerCylinderLedgerRepository#VIEW_SELECT}.
+ */
+public interface CustomerCylinderLedgerView {
+
+    Long getId();
+
+    Long getCustomerId();
+
+    String getCustomerName();
+
+    Long getVariantId();
+
+    String getVariantName();
+
+    LocalDate getTransactionDate();
+
+    CustomerCylinderLedger.TransactionType getRefType();
+
+    Long getRefId();
+
+    Long getFilledOut();
+
+    Long getEmptyIn();
+
+    Long getBalance();
+
+    LocalDateTime getCreatedDate();
+
+    LocalDateTime getUpdatedDate();
+
+    BigDecimal getTotalAmount();
+
+    BigDecimal getAmountReceived();
+
+    BigDecimal getDueAmount();
+
+    String getPaymentMode();
+
+    String getTransactionReference();
+
+    String getUpdateReason();
+
+    Long getBankAccountId();
+
+    String getBankAccountName();
+}
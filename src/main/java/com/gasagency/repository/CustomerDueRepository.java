@@ -0,0 +1,23 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.CustomerDue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Repository
+public interface CustomerDueRepository extends JpaRepository<CustomerDue, Long> {
+
+    @Query("SELECT d.dueAmount FROM CustomerDue d WHERE d.customerId = :customerId")
+    Optional<BigDecimal> findDueAmount(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query(value = "INSERT INTO customer_due (customer_id, due_amount, updated_at) "
+            + "VALUES (:customerId, 0, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("customerId") Long customerId);
+}
@@ -0,0 +1,18 @@
+package com.gasagency.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Sums over all ledger entries of one customer.
+ * See {@link CustomerCylinderLedgerRepository#findTotalsByCustomerId}.
+ */
+public interface CustomerLedgerTotalsView {
+
+    BigDecimal getTotalBilled();
+
+    BigDecimal getTotalReceived();
+
+    Long getTotalFilledOut();
+
+    Long getTotalEmptyIn();
+}
@@ -0,0 +1,19 @@
+package com.gasagency.repository;
+
+/**
+ * One variant of a customer's ledger: balance of the latest entry plus the
+ * cylinders issued and returned over the whole history.
+ * See {@link CustomerCylinderLedgerRepository#findVariantSummariesByCustomerId}.
+ */
+public interface CustomerVariantSummaryView {
+
+    Long getVariantId();
+
+    String getVariantName();
+
+    Long getBalance();
+
+    Long getFilledOut();
+
+    Long getEmptyIn();
+}
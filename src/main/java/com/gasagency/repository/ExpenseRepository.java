@@ -6,11 +6,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
@@ -19,6 +23,18 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
 
         Page<Expense> findByCategory(ExpenseCategory category, Pageable pageable);
 
+        // Keyset pagination on (expenseDate DESC, id DESC) - no OFFSET, no COUNT
+        @Query("SELECT e FROM Expense e ORDER BY e.expenseDate DESC, e.id DESC")
+        List<Expense> findKeysetFirstPage(Pageable pageable);
+
+        @Query("SELECT e FROM Expense e WHERE e.expenseDate < :expenseDate " +
+                        "OR (e.expenseDate = :expenseDate AND e.id < :id) " +
+                        "ORDER BY e.expenseDate DESC, e.id DESC")
+        List<Expense> findKeysetPageAfter(
+                        @Param("expenseDate") LocalDate expenseDate,
+                        @Param("id") Long id,
+                        Pageable pageable);
+
         @Query("SELECT e FROM Expense e WHERE e.expenseDate BETWEEN :fromDate AND :toDate " +
                         "AND e.category.id = :categoryId")
         Page<Expense> findByCategoryAndDateRange(
@@ -56,4 +72,10 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
                         @Param("fromDate") LocalDate fromDate,
                         @Param("toDate") LocalDate toDate,
                         @Param("category") ExpenseCategory category);
+
+        // Streaming export, consumed inside a transaction
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT e FROM Expense e JOIN FETCH e.category " +
+                        "WHERE e.expenseDate BETWEEN :fromDate AND :toDate ORDER BY e.expenseDate ASC, e.id ASC")
+        Stream<Expense> streamForExport(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
 }
@@ -0,0 +1,35 @@
+package com.gasagency.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.List;
+
+/**
+ * Criteria helpers for keyset pagination over (sort key, id).
+ * Rows "after" the cursor are those strictly past it in the given direction,
+ * using id as the tie-breaker for equal sort keys.
+ */
+final class KeysetPredicates {
+
+    private KeysetPredicates() {
+    }
+
+    static <K extends Comparable<? super K>> Predicate after(CriteriaBuilder cb, Path<K> key, Path<Long> id,
+            K keyValue, Long idValue, boolean descending) {
+        if (descending) {
+            return cb.or(cb.lessThan(key, keyValue),
+                    cb.and(cb.equal(key, keyValue), cb.lessThan(id, idValue)));
+        }
+        return cb.or(cb.greaterThan(key, keyValue),
+                cb.and(cb.equal(key, keyValue), cb.greaterThan(id, idValue)));
+    }
+
+    static List<Order> orderBy(CriteriaBuilder cb, Path<?> key, Path<?> id, boolean descending) {
+        return descending
+                ? List.of(cb.desc(key), cb.desc(id))
+                : List.of(cb.asc(key), cb.asc(id));
+    }
+}
@@ -0,0 +1,43 @@
+package com.gasagency.repository;
+
+import com.gasagency.entity.CustomerCylinderLedger;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A fully specified customer ledger row, written by
+ * {@link CustomerCylinderLedgerRepositoryCustom#append}. The balance is not
+ * part of it: the insert derives it from the latest row of the same customer
+ * and variant. dueAmount is filled in by the ledger service from the
+ * customer_due register.
+ */
+public record LedgerAppend(
+        Long customerId,
+        Long warehouseId,
+        Long variantId,
+        LocalDate transactionDate,
+        CustomerCylinderLedger.TransactionType refType,
+        Long refId,
+        Long saleId,
+        long filledOut,
+        long emptyIn,
+        BigDecimal totalAmount,
+        BigDecimal amountReceived,
+        BigDecimal dueAmount,
+        String paymentMode,
+        Long bankAccountId,
+        String transactionReference) {
+
+    public LedgerAppend withDueAmount(BigDecimal dueAmount) {
+        return new LedgerAppend(customerId, warehouseId, variantId, transactionDate, refType, refId, saleId,
+                filledOut, emptyIn, totalAmount, amountReceived, dueAmount, paymentMode, bankAccountId,
+                transactionReference);
+    }
+
+    public LedgerAppend withTransactionReference(String transactionReference) {
+        return new LedgerAppend(customerId, warehouseId, variantId, transactionDate, refType, refId, saleId,
+                filledOut, emptyIn, totalAmount, amountReceived, dueAmount, paymentMode, bankAccountId,
+                transactionReference);
+    }
+}
@@ -0,0 +1,15 @@
+package com.gasagency.repository;
+
+/**
+ * Outstanding (not yet returned) cylinders of one customer, summed over the
+ * latest balance of each variant.
+ * See {@link CustomerCylinderLedgerRepository#findCustomersWithPendingReturnsAtLeast}.
+ */
+public interface PendingReturnView {
+
+    Long getCustomerId();
+
+    String getCustomerName();
+
+    Long getPendingCount();
+}
@@ -4,13 +4,27 @@ import com.gasagency.entity.SaleItem;
 import com.gasagency.entity.CylinderVariant;
 import com.gasagency.entity.Sale;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface SaleItemRepository extends JpaRepository<SaleItem, Long> {
     List<SaleItem> findBySale(Sale sale);
 
     List<SaleItem> findByVariant(CylinderVariant variant);
+
+    // Streaming export at item grain (one row per sale line), consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT si FROM SaleItem si JOIN FETCH si.sale s JOIN FETCH s.customer JOIN FETCH s.warehouse " +
+            "LEFT JOIN FETCH s.bankAccount JOIN FETCH si.variant JOIN FETCH si.warehouse " +
+            "WHERE s.saleDate BETWEEN :fromDate AND :toDate ORDER BY s.saleDate ASC, s.id ASC, si.id ASC")
+    Stream<SaleItem> streamForExport(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
 }
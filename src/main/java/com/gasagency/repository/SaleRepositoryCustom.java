@@ -3,8 +3,10 @@ package com.gasagency.repository;
 import com.gasagency.entity.Sale;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface SaleRepositoryCustom {
     Page<Sale> findFilteredSalesCustom(
@@ -17,5 +19,52 @@ public interface SaleRepositoryCustom {
             String referenceNumber,
             Pageable pageable);
 
+    /**
+     * Same filters as {@link #findFilteredSalesCustom} without the count query,
+     * for clients that only page forward.
+     */
+    Slice<Sale> findFilteredSalesSlice(
+            LocalDate from,
+            LocalDate to,
+            Long customerId,
+            Long variantId,
+            Double minAmount,
+            Double maxAmount,
+            String referenceNumber,
+            Pageable pageable);
+
     Page<Sale> findByDateRange(LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    /**
+     * Keyset page of sale ids ordered by (saleDate, id) with the same filters
+     * as {@link #findFilteredSalesCustom}. Pass null afterDate/afterId for the
+     * first page.
+     */
+    List<Long> findFilteredSaleIdsAfter(
+            LocalDate from,
+            LocalDate to,
+            Long customerId,
+            Long variantId,
+            Double minAmount,
+            Double maxAmount,
+            String referenceNumber,
+            LocalDate afterDate,
+            Long afterId,
+            boolean descending,
+            int limit);
+
+    long countFilteredSales(
+            LocalDate from,
+            LocalDate to,
+            Long customerId,
+            Long variantId,
+            Double minAmount,
+            Double maxAmount,
+            String referenceNumber);
+
+    /**
+     * Load sales with customer, bank account and items for the given ids.
+     * Result order is unspecified.
+     */
+    List<Sale> findAllWithItemsByIdIn(List<Long> ids);
 }
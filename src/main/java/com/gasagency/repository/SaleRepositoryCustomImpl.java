@@ -2,8 +2,11 @@ package com.gasagency.repository;
 
 import com.gasagency.entity.Sale;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -12,23 +15,183 @@ import jakarta.persistence.criteria.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sale search in two phases:
+ * 1. page over sale ids only, with filters and ordering applied in SQL
+ * 2. load just those ids with customer, bank account and items through the
+ * {@link Sale#GRAPH_WITH_DETAILS} entity graph
+ *
+ * A row limit is never combined with a collection fetch, so Hibernate does
+ * not fall back to in-memory pagination (HHH90003004).
+ */
 public class SaleRepositoryCustomImpl implements SaleRepositoryCustom {
 
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Order.desc("saleDate"), Sort.Order.desc("id"));
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Override
     public Page<Sale> findFilteredSalesCustom(LocalDate from, LocalDate to, Long customerId, Long variantId,
             Double minAmount, Double maxAmount, String referenceNumber, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<Sale> all = findFilteredWithDetails(from, to, customerId, variantId, minAmount, maxAmount,
+                    referenceNumber);
+            return PageableExecutionUtils.getPage(all, pageable, all::size);
+        }
+
+        List<Long> ids = findFilteredSaleIds(from, to, customerId, variantId, minAmount, maxAmount,
+                referenceNumber, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        List<Sale> content = findAllWithItemsInOrder(ids);
+
+        // Count only runs when the total cannot be deduced from the page itself
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countFilteredSales(from, to, customerId, variantId, minAmount, maxAmount, referenceNumber));
+    }
+
+    @Override
+    public Slice<Sale> findFilteredSalesSlice(LocalDate from, LocalDate to, Long customerId, Long variantId,
+            Double minAmount, Double maxAmount, String referenceNumber, Pageable pageable) {
+        // One extra id tells whether another page exists without a count query
+        List<Long> ids = findFilteredSaleIds(from, to, customerId, variantId, minAmount, maxAmount,
+                referenceNumber, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(findAllWithItemsInOrder(ids), pageable, hasNext);
+    }
+
+    @Override
+    public Page<Sale> findByDateRange(LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<Sale> all = findFilteredWithDetails(fromDate, toDate, null, null, null, null, null);
+            return PageableExecutionUtils.getPage(all, pageable, all::size);
+        }
+
+        List<Long> ids = findFilteredSaleIds(fromDate, toDate, null, null, null, null, null, DEFAULT_SORT,
+                pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(findAllWithItemsInOrder(ids), pageable,
+                () -> countFilteredSales(fromDate, toDate, null, null, null, null, null));
+    }
+
+    @Override
+    public List<Long> findFilteredSaleIdsAfter(LocalDate from, LocalDate to, Long customerId, Long variantId,
+            Double minAmount, Double maxAmount, String referenceNumber, LocalDate afterDate, Long afterId,
+            boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Sale> sale = cq.from(Sale.class);
+
+        List<Predicate> predicates = buildFilterPredicates(cb, cq, sale, from, to, customerId, variantId,
+                minAmount, maxAmount, referenceNumber);
+        if (afterDate != null && afterId != null) {
+            predicates.add(KeysetPredicates.after(cb, sale.get("saleDate"), sale.get("id"),
+                    afterDate, afterId, descending));
+        }
+
+        cq.select(sale.get("id")).where(predicates.toArray(new Predicate[0]))
+                .orderBy(KeysetPredicates.orderBy(cb, sale.get("saleDate"), sale.get("id"), descending));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countFilteredSales(LocalDate from, LocalDate to, Long customerId, Long variantId,
+            Double minAmount, Double maxAmount, String referenceNumber) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Sale> sale = cq.from(Sale.class);
+        cq.select(cb.count(sale)).where(buildFilterPredicates(cb, cq, sale, from, to, customerId, variantId,
+                minAmount, maxAmount, referenceNumber).toArray(new Predicate[0]));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    @Override
+    public List<Sale> findAllWithItemsByIdIn(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Sale> cq = cb.createQuery(Sale.class);
         Root<Sale> sale = cq.from(Sale.class);
-        sale.fetch("customer", JoinType.LEFT);
-        sale.fetch("saleItems", JoinType.LEFT);
-        sale.fetch("bankAccount", JoinType.LEFT);
-        List<Predicate> predicates = new ArrayList<>();
+        cq.select(sale).where(sale.get("id").in(ids));
+        return withDetailsGraph(entityManager.createQuery(cq)).getResultList();
+    }
+
+    /**
+     * Phase 1: ids only, ordered by the requested sort with id as tie-breaker
+     * so that offsets are stable.
+     */
+    private List<Long> findFilteredSaleIds(LocalDate from, LocalDate to, Long customerId, Long variantId,
+            Double minAmount, Double maxAmount, String referenceNumber, Sort sort, long offset, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Sale> sale = cq.from(Sale.class);
+
+        cq.select(sale.get("id"))
+                .where(buildFilterPredicates(cb, cq, sale, from, to, customerId, variantId, minAmount, maxAmount,
+                        referenceNumber).toArray(new Predicate[0]))
+                .orderBy(toOrders(cb, sale, sort));
 
+        return entityManager.createQuery(cq)
+                .setFirstResult((int) offset)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    /**
+     * Phase 2: load the page's sales and return them in phase 1 order.
+     */
+    private List<Sale> findAllWithItemsInOrder(List<Long> ids) {
+        Map<Long, Sale> byId = findAllWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Sale::getId, Function.identity()));
+        return ids.stream().map(byId::get).collect(Collectors.toList());
+    }
+
+    private List<Sale> findFilteredWithDetails(LocalDate from, LocalDate to, Long customerId, Long variantId,
+            Double minAmount, Double maxAmount, String referenceNumber) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Sale> cq = cb.createQuery(Sale.class);
+        Root<Sale> sale = cq.from(Sale.class);
+        cq.select(sale)
+                .where(buildFilterPredicates(cb, cq, sale, from, to, customerId, variantId, minAmount, maxAmount,
+                        referenceNumber).toArray(new Predicate[0]))
+                .orderBy(toOrders(cb, sale, DEFAULT_SORT));
+        return withDetailsGraph(entityManager.createQuery(cq)).getResultList();
+    }
+
+    private <T> TypedQuery<T> withDetailsGraph(TypedQuery<T> query) {
+        return query.setHint("jakarta.persistence.fetchgraph",
+                entityManager.getEntityGraph(Sale.GRAPH_WITH_DETAILS));
+    }
+
+    private List<Order> toOrders(CriteriaBuilder cb, Root<Sale> sale, Sort sort) {
+        Sort effective = sort.isSorted() ? sort : DEFAULT_SORT;
+        List<Order> orders = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : effective) {
+            Path<Object> path = sale.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+            hasId |= "id".equals(order.getProperty());
+        }
+        if (!hasId) {
+            Sort.Order first = effective.iterator().next();
+            orders.add(first.isAscending() ? cb.asc(sale.get("id")) : cb.desc(sale.get("id")));
+        }
+        return orders;
+    }
+
+    private List<Predicate> buildFilterPredicates(CriteriaBuilder cb, CriteriaQuery<?> cq, Root<Sale> sale,
+            LocalDate from, LocalDate to, Long customerId, Long variantId, Double minAmount, Double maxAmount,
+            String referenceNumber) {
+        List<Predicate> predicates = new ArrayList<>();
         if (from != null) {
             predicates.add(cb.greaterThanOrEqualTo(sale.get("saleDate"), from));
         }
@@ -55,82 +218,6 @@ public class SaleRepositoryCustomImpl implements SaleRepositoryCustom {
         if (referenceNumber != null && !referenceNumber.isEmpty()) {
             predicates.add(cb.like(sale.get("referenceNumber"), "%" + referenceNumber + "%"));
         }
-
-        cq.select(sale).distinct(true).where(predicates.toArray(new Predicate[0]));
-
-        TypedQuery<Sale> query = entityManager.createQuery(cq);
-        List<Sale> resultList;
-        if (pageable.isUnpaged()) {
-            resultList = query.getResultList();
-        } else {
-            query.setFirstResult((int) pageable.getOffset());
-            query.setMaxResults(pageable.getPageSize());
-            resultList = query.getResultList();
-        }
-
-        // Count query
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Sale> countRoot = countQuery.from(Sale.class);
-        List<Predicate> countPredicates = new ArrayList<>();
-        if (from != null)
-            countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("saleDate"), from));
-        if (to != null)
-            countPredicates.add(cb.lessThanOrEqualTo(countRoot.get("saleDate"), to));
-        if (customerId != null)
-            countPredicates.add(cb.equal(countRoot.get("customer").get("id"), customerId));
-        if (variantId != null) {
-            Subquery<Long> subquery = countQuery.subquery(Long.class);
-            Root<com.gasagency.entity.SaleItem> si2 = subquery.from(com.gasagency.entity.SaleItem.class);
-            subquery.select(cb.literal(1L))
-                    .where(cb.equal(si2.get("sale"), countRoot),
-                            cb.equal(si2.get("variant").get("id"), variantId));
-            countPredicates.add(cb.exists(subquery));
-        }
-        if (minAmount != null)
-            countPredicates.add(cb.greaterThanOrEqualTo(countRoot.get("totalAmount"), minAmount));
-        if (maxAmount != null)
-            countPredicates.add(cb.lessThanOrEqualTo(countRoot.get("totalAmount"), maxAmount));
-        if (referenceNumber != null && !referenceNumber.isEmpty())
-            countPredicates.add(cb.like(countRoot.get("referenceNumber"), "%" + referenceNumber + "%"));
-        countQuery.select(cb.countDistinct(countRoot)).where(countPredicates.toArray(new Predicate[0]));
-        Long total = entityManager.createQuery(countQuery).getSingleResult();
-
-        return new PageImpl<>(resultList, pageable, total);
-    }
-
-    @Override
-    public Page<Sale> findByDateRange(LocalDate fromDate, LocalDate toDate, Pageable pageable) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Sale> cq = cb.createQuery(Sale.class);
-        Root<Sale> sale = cq.from(Sale.class);
-        sale.fetch("customer", JoinType.LEFT);
-        sale.fetch("saleItems", JoinType.LEFT);
-
-        List<Predicate> predicates = new ArrayList<>();
-        predicates.add(cb.greaterThanOrEqualTo(sale.get("saleDate"), fromDate));
-        predicates.add(cb.lessThanOrEqualTo(sale.get("saleDate"), toDate));
-
-        cq.select(sale).distinct(true).where(predicates.toArray(new Predicate[0]))
-                .orderBy(cb.desc(sale.get("saleDate")), cb.desc(sale.get("id")));
-
-        TypedQuery<Sale> query = entityManager.createQuery(cq);
-        List<Sale> resultList;
-        if (pageable.isUnpaged()) {
-            resultList = query.getResultList();
-        } else {
-            query.setFirstResult((int) pageable.getOffset());
-            query.setMaxResults(pageable.getPageSize());
-            resultList = query.getResultList();
-        }
-
-        // Count query
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Sale> countRoot = countQuery.from(Sale.class);
-        countQuery.select(cb.countDistinct(countRoot))
-                .where(cb.greaterThanOrEqualTo(countRoot.get("saleDate"), fromDate),
-                        cb.lessThanOrEqualTo(countRoot.get("saleDate"), toDate));
-        Long total = entityManager.createQuery(countQuery).getSingleResult();
-
-        return new PageImpl<>(resultList, pageable, total);
+        return predicates;
     }
 }
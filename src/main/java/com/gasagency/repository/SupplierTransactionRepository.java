@@ -3,14 +3,19 @@ package com.gasagency.repository;
 import com.gasagency.entity.SupplierTransaction;
 import com.gasagency.entity.Supplier;
 import com.gasagency.entity.Warehouse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SupplierTransactionRepository extends JpaRepository<SupplierTransaction, Long> {
@@ -18,6 +23,19 @@ public interface SupplierTransactionRepository extends JpaRepository<SupplierTra
 
     List<SupplierTransaction> findByWarehouse(Warehouse warehouse);
 
+    // Keyset pagination on the primary key (no OFFSET, no COUNT)
+    List<SupplierTransaction> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<SupplierTransaction> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    List<SupplierTransaction> findByIdGreaterThanAndReferenceContainingIgnoreCaseOrderByIdAsc(Long id,
+            String reference, Pageable pageable);
+
+    List<SupplierTransaction> findByIdLessThanAndReferenceContainingIgnoreCaseOrderByIdDesc(Long id,
+            String reference, Pageable pageable);
+
+    long countByReferenceContainingIgnoreCase(String reference);
+
     @Query("SELECT st FROM SupplierTransaction st WHERE st.reference = :referenceNumber")
     Optional<SupplierTransaction> findByReferenceNumber(@Param("referenceNumber") String referenceNumber);
 
@@ -25,4 +43,12 @@ public interface SupplierTransactionRepository extends JpaRepository<SupplierTra
             "WHERE EXTRACT(MONTH FROM st.createdDate) = EXTRACT(MONTH FROM CAST(:date AS DATE)) " +
             "AND EXTRACT(YEAR FROM st.createdDate) = EXTRACT(YEAR FROM CAST(:date AS DATE))")
     long countByCreatedAtMonthYear(@Param("date") LocalDate date);
+
+    // Streaming export, consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT st FROM SupplierTransaction st JOIN FETCH st.supplier JOIN FETCH st.variant " +
+            "JOIN FETCH st.warehouse WHERE st.transactionDate BETWEEN :fromDate AND :toDate " +
+            "ORDER BY st.transactionDate ASC, st.id ASC")
+    Stream<SupplierTransaction> streamForExport(@Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
 }
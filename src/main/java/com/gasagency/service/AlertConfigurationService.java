@@ -9,6 +9,8 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -107,17 +109,24 @@ public class AlertConfigurationService {
         logger.info("AlertConfiguration saved with id: {}, pendingReturnThreshold: {}", saved.getId(),
                 saved.getPendingReturnThreshold());
 
-        // Trigger immediate alert detection after config update (lazy initialization to
+        // Trigger immediate alert detection once the new configuration is committed:
+        // detectors run on their own threads and would not see it before. Only
+        // queued, so the request does not wait for the detectors (lazy lookup to
         // avoid circular dependency)
-        try {
-            logger.info("Triggering immediate alert detection after config update");
-            AlertDetectionService alertDetectionService = alertDetectionServiceProvider.getIfAvailable();
-            if (alertDetectionService != null) {
-                alertDetectionService.checkAlertsNow();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    logger.info("Triggering immediate alert detection after config update");
+                    AlertDetectionService alertDetectionService = alertDetectionServiceProvider.getIfAvailable();
+                    if (alertDetectionService != null) {
+                        alertDetectionService.requestCheck();
+                    }
+                } catch (Exception e) {
+                    logger.warn("Could not trigger immediate alert detection", e);
+                }
             }
-        } catch (Exception e) {
-            logger.warn("Could not trigger immediate alert detection", e);
-        }
+        });
 
         return saved;
     }
@@ -1,54 +1,323 @@
 package com.gasagency.service;
 
 import com.gasagency.alert.AlertDetector;
+import com.gasagency.config.LeaderElection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Central alert detection service using Strategy Pattern
  * Auto-discovers all AlertDetector implementations
  * Runs periodic checks without needing to modify this class for new alerts
+ *
+ * Detectors run on their own bounded pool (app.alerts.detection.threads), not
+ * on the Spring scheduler thread, so a slow detector delays neither the other
+ * detectors nor the other scheduled jobs. Per detector, keyed by its alert type
+ * in kebab case (e.g. pending-return-cylinders):
+ * - interval: app.alerts.detection.detectors.<type>.interval, default
+ * app.alerts.detection.interval; each run is delayed by up to
+ * app.alerts.detection.jitter more so detectors do not fire in step
+ * - budget: app.alerts.detection.detectors.<type>.budget, default
+ * app.alerts.detection.budget (whole seconds), enforced as the timeout of the
+ * transaction the run executes in
+ * - a detector never overlaps itself; a run due while the last one is still
+ * going is skipped
+ * Scheduled runs happen on the scheduler leader only; checkAlertsNow and
+ * requestCheck run on the calling node.
+ *
+ * Metrics: alerts.detector.duration, alerts.detector.alerts,
+ * alerts.detector.failures{reason}, alerts.detector.skipped (all tagged with
+ * detector)
  */
 @Service
 public class AlertDetectionService {
 
     private static final Logger logger = LoggerFactory.getLogger(AlertDetectionService.class);
-    private final List<AlertDetector> detectors;
+    private static final String DETECTORS_PREFIX = "app.alerts.detection.detectors.";
 
-    public AlertDetectionService(List<AlertDetector> detectors) {
-        this.detectors = detectors;
-        logger.info("AlertDetectionService initialized with {} detectors", detectors.size());
-        detectors.forEach(d -> logger.info("  - {}", d.getAlertType()));
+    private final List<ScheduledDetector> detectors;
+    private final LeaderElection leaderElection;
+    private final Duration jitter;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService scheduler;
+    private final MeterRegistry meterRegistry;
+
+    public AlertDetectionService(List<AlertDetector> detectors, LeaderElection leaderElection,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, Environment environment,
+            @Value("${app.alerts.detection.threads:2}") int threads,
+            @Value("${app.alerts.detection.interval:5m}") Duration defaultInterval,
+            @Value("${app.alerts.detection.jitter:30s}") Duration jitter,
+            @Value("${app.alerts.detection.budget:60s}") Duration defaultBudget) {
+        this.leaderElection = leaderElection;
+        this.jitter = jitter;
+        this.meterRegistry = meterRegistry;
+
+        Binder binder = Binder.get(environment);
+        List<ScheduledDetector> scheduled = new ArrayList<>(detectors.size());
+        for (AlertDetector detector : detectors) {
+            String key = DETECTORS_PREFIX + detector.getAlertType().toLowerCase(Locale.ROOT).replace('_', '-');
+            Duration interval = binder.bind(key + ".interval", Duration.class).orElse(defaultInterval);
+            Duration budget = binder.bind(key + ".budget", Duration.class).orElse(defaultBudget);
+            scheduled.add(new ScheduledDetector(detector, interval, budget, transactionManager));
+        }
+        this.detectors = List.copyOf(scheduled);
+
+        // A detector is queued at most once (it never overlaps itself), so this queue never overflows
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, detectors.size())), daemonThreads("alert-detector-"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("alert-scheduler-"));
+
+        logger.info("AlertDetectionService initialized with {} detectors on {} threads", detectors.size(), threads);
+        this.detectors.forEach(d -> logger.info("  - {} every {} (budget {})", d.alertType, d.interval, d.budget));
+    }
+
+    @PostConstruct
+    public void start() {
+        detectors.forEach(this::scheduleNext);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
     }
 
     /**
-     * Run all registered alert detectors
-     * This method is called automatically every 5 minutes
-     * New alert detectors are automatically picked up without code changes
+     * Manually trigger alert detection (for testing or immediate checks)
+     * Runs every detector on the pool and waits for each up to its budget
+     *
+     * @return one entry per detector, in registration order
      */
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
-    public void checkAllAlerts() {
-        logger.debug("Running alert detection checks with {} detectors", detectors.size());
+    public List<DetectorRun> checkAlertsNow() {
+        logger.info("Manual alert detection triggered");
+        long start = System.nanoTime();
+        List<Future<DetectorRun>> futures = new ArrayList<>(detectors.size());
+        for (ScheduledDetector detector : detectors) {
+            futures.add(submit(detector));
+        }
 
-        for (AlertDetector detector : detectors) {
-            try {
-                logger.debug("Running detector: {}", detector.getAlertType());
-                detector.detectAndCreateAlerts();
-            } catch (Exception e) {
-                logger.error("Error in detector {}: {}", detector.getAlertType(), e.getMessage(), e);
+        List<DetectorRun> report = new ArrayList<>(detectors.size());
+        for (int i = 0; i < detectors.size(); i++) {
+            ScheduledDetector detector = detectors.get(i);
+            long remaining = detector.budget.toNanos() - (System.nanoTime() - start);
+            report.add(await(detector, futures.get(i), remaining));
+        }
+        return report;
+    }
+
+    /**
+     * Start every detector on the pool now and return without waiting; each
+     * run records its own outcome. For callers that must not block, such as
+     * a transaction's afterCommit on a request thread.
+     */
+    public void requestCheck() {
+        logger.info("Alert detection requested");
+        detectors.forEach(this::submit);
+    }
+
+    private void scheduleNext(ScheduledDetector detector) {
+        long delay = detector.interval.toMillis();
+        if (!jitter.isZero()) {
+            delay += ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+        }
+        try {
+            scheduler.schedule(() -> runScheduled(detector), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void runScheduled(ScheduledDetector detector) {
+        try {
+            if (leaderElection.isLeader()) {
+                submit(detector);
             }
+        } finally {
+            scheduleNext(detector);
+        }
+    }
+
+    private Future<DetectorRun> submit(ScheduledDetector detector) {
+        if (!detector.running.compareAndSet(false, true)) {
+            detector.skipped.increment();
+            logger.debug("Detector {} still running; run skipped", detector.alertType);
+            return CompletableFuture.completedFuture(DetectorRun.skipped(detector.alertType));
+        }
+        try {
+            return pool.submit(() -> execute(detector));
+        } catch (RejectedExecutionException e) {
+            detector.running.set(false);
+            return CompletableFuture.completedFuture(DetectorRun.skipped(detector.alertType));
         }
     }
 
     /**
-     * Manually trigger alert detection (for testing or immediate checks)
+     * One run on a pool thread, inside a transaction whose timeout is the
+     * detector's budget: every statement gets the remaining time as its JDBC
+     * query timeout, so an overrunning detector is stopped by the database and
+     * rolled back (the thread is never interrupted).
      */
-    public void checkAlertsNow() {
-        logger.info("Manual alert detection triggered");
-        checkAllAlerts();
+    private DetectorRun execute(ScheduledDetector detector) {
+        long start = System.nanoTime();
+        int created = 0;
+        Exception error = null;
+        try {
+            Integer result = detector.transaction.execute(status -> detector.detector.detectAndCreateAlerts());
+            created = result != null ? result : 0;
+            detector.alerts.increment(created);
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            detector.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            detector.running.set(false);
+        }
+
+        long durationMs = elapsedMillis(start);
+        if (isTimeout(error) || durationMs > detector.budget.toMillis()) {
+            // Counted as a timeout even when the detector finished its work late
+            logger.warn("Detector {} exceeded its budget of {} ({} ms)", detector.alertType, detector.budget,
+                    durationMs);
+            failure(detector, "timeout");
+            return new DetectorRun(detector.alertType, "TIMED_OUT", durationMs, created,
+                    "Exceeded budget of " + detector.budget);
+        }
+        if (error != null) {
+            logger.error("Error in detector {}: {}", detector.alertType, error.getMessage(), error);
+            failure(detector, "error");
+            return DetectorRun.failed(detector.alertType, "FAILED", durationMs, error.getMessage());
+        }
+        return DetectorRun.ok(detector.alertType, durationMs, created);
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransactionTimedOutException || t instanceof QueryTimeoutException
+                    || t instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DetectorRun await(ScheduledDetector detector, Future<DetectorRun> future, long remainingNanos) {
+        try {
+            return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Still queued or still running; the run itself records its outcome
+            return DetectorRun.failed(detector.alertType, "TIMED_OUT", detector.budget.toMillis(),
+                    "No result within budget of " + detector.budget);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DetectorRun.failed(detector.alertType, "FAILED", 0, "Interrupted");
+        } catch (ExecutionException | CancellationException e) {
+            return DetectorRun.failed(detector.alertType, "FAILED", 0, e.getMessage());
+        }
+    }
+
+    private void failure(ScheduledDetector detector, String reason) {
+        meterRegistry.counter("alerts.detector.failures", "detector", detector.alertType, "reason", reason)
+                .increment();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Outcome of one detector run: status is OK, FAILED, TIMED_OUT or SKIPPED
+     * (the previous run was still going).
+     */
+    public record DetectorRun(String alertType, String status, long durationMs, int alertsCreated,
+            String error) {
+
+        static DetectorRun ok(String alertType, long durationMs, int alertsCreated) {
+            return new DetectorRun(alertType, "OK", durationMs, alertsCreated, null);
+        }
+
+        static DetectorRun failed(String alertType, String status, long durationMs, String error) {
+            return new DetectorRun(alertType, status, durationMs, 0, error);
+        }
+
+        static DetectorRun skipped(String alertType) {
+            return new DetectorRun(alertType, "SKIPPED", 0, 0, "Previous run still in progress");
+        }
+    }
+
+    private final class ScheduledDetector {
+        private final AlertDetector detector;
+        private final String alertType;
+        private final Duration interval;
+        private final Duration budget;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final TransactionTemplate transaction;
+        private final Timer duration;
+        private final Counter alerts;
+        private final Counter skipped;
+
+        ScheduledDetector(AlertDetector detector, Duration interval, Duration budget,
+                PlatformTransactionManager transactionManager) {
+            this.detector = detector;
+            this.alertType = detector.getAlertType();
+            this.interval = interval;
+            // Transaction timeouts are whole seconds
+            this.budget = Duration.ofSeconds(Math.max(1, (budget.toMillis() + 999) / 1000));
+            this.transaction = new TransactionTemplate(transactionManager);
+            this.transaction.setTimeout((int) this.budget.getSeconds());
+            this.duration = Timer.builder("alerts.detector.duration")
+                    .description("Alert detector run time")
+                    .tag("detector", alertType)
+                    .register(meterRegistry);
+            this.alerts = Counter.builder("alerts.detector.alerts")
+                    .description("Alerts created or refreshed by the detector")
+                    .tag("detector", alertType)
+                    .register(meterRegistry);
+            this.skipped = Counter.builder("alerts.detector.skipped")
+                    .description("Runs skipped because the previous run was still going")
+                    .tag("detector", alertType)
+                    .register(meterRegistry);
+        }
     }
 }
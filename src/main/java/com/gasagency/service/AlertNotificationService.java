@@ -1,5 +1,6 @@
 package com.gasagency.service;
 
+import com.gasagency.config.LeaderOnly;
 import com.gasagency.entity.AlertNotification;
 import com.gasagency.repository.AlertNotificationRepository;
 import org.slf4j.Logger;
@@ -9,7 +10,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,50 +26,85 @@ public class AlertNotificationService {
 
     private static final Logger logger = LoggerFactory.getLogger(AlertNotificationService.class);
     private final AlertNotificationRepository repository;
-    private final SseService sseService;
+    private final OutboxService outboxService;
 
-    public AlertNotificationService(AlertNotificationRepository repository, SseService sseService) {
+    public AlertNotificationService(AlertNotificationRepository repository, OutboxService outboxService) {
         this.repository = repository;
-        this.sseService = sseService;
+        this.outboxService = outboxService;
     }
 
     /**
      * Create or update alert
-     * If alert with same key already exists and is not dismissed, return existing
-     * Otherwise, create new alert
+     * If alert with same key already exists and is still active (or dismissed and
+     * not yet expired), return existing; otherwise create or refresh it
      */
     public AlertNotification createOrUpdateAlert(String alertType, String alertKey,
             Long warehouseId, Long customerId,
             String message, String severity) {
-        // Check if alert already exists and is active
-        Optional<AlertNotification> existing = repository.findByAlertKey(alertKey);
-
-        if (existing.isPresent()) {
-            AlertNotification alert = existing.get();
-            if (!alert.getIsDismissed() && alert.getExpiresAt().isAfter(LocalDateTime.now())) {
-                // Alert already active, no need to recreate
-                return alert;
-            }
-        }
+        AlertNotification candidate = new AlertNotification();
+        candidate.setAlertType(alertType);
+        candidate.setAlertKey(alertKey);
+        candidate.setWarehouseId(warehouseId);
+        candidate.setCustomerId(customerId);
+        candidate.setMessage(message);
+        candidate.setSeverity(severity);
+        List<AlertNotification> changed = createOrUpdateAlerts(List.of(candidate));
+        return changed.isEmpty() ? repository.findByAlertKey(alertKey).orElse(null) : changed.get(0);
+    }
 
-        // Create new alert
-        AlertNotification alert = new AlertNotification();
-        alert.setAlertType(alertType);
-        alert.setAlertKey(alertKey);
-        alert.setWarehouseId(warehouseId);
-        alert.setCustomerId(customerId);
-        alert.setMessage(message);
-        alert.setSeverity(severity);
-        alert.setIsDismissed(false);
-        alert.setExpiresAt(LocalDateTime.now().plusHours(24));
+    /**
+     * Batch form of createOrUpdateAlert for detectors that raise many alerts per run
+     *
+     * Existing rows are read with one IN query on alert_key. A candidate whose key
+     * is active, or dismissed and not yet expired, is left alone; an expired row
+     * is refreshed in place (alert_key is unique) and a missing one inserted. The
+     * changed rows are written as JDBC batches and announced with one outbox batch.
+     *
+     * @return the alerts created or refreshed (the ones announced to clients)
+     */
+    public List<AlertNotification> createOrUpdateAlerts(List<AlertNotification> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        Map<String, AlertNotification> existingByKey = new HashMap<>();
+        List<String> keys = candidates.stream().map(AlertNotification::getAlertKey).toList();
+        for (AlertNotification alert : repository.findByAlertKeyIn(keys)) {
+            existingByKey.put(alert.getAlertKey(), alert);
+        }
 
-        AlertNotification saved = repository.save(alert);
-        logger.info("Created alert: {} - {}", alertKey, message);
+        LocalDateTime now = LocalDateTime.now();
+        List<AlertNotification> changed = new ArrayList<>();
+        for (AlertNotification candidate : candidates) {
+            AlertNotification alert = existingByKey.get(candidate.getAlertKey());
+            if (alert != null && alert.getExpiresAt().isAfter(now)) {
+                // Alert already active (or dismissed until it expires), no need to recreate
+                continue;
+            }
+            if (alert == null) {
+                alert = candidate;
+                existingByKey.put(alert.getAlertKey(), alert);
+            } else {
+                alert.setAlertType(candidate.getAlertType());
+                alert.setWarehouseId(candidate.getWarehouseId());
+                alert.setCustomerId(candidate.getCustomerId());
+                alert.setMessage(candidate.getMessage());
+                alert.setSeverity(candidate.getSeverity());
+                alert.setDismissedAt(null);
+                alert.setDismissedByUserId(null);
+            }
+            alert.setIsDismissed(false);
+            alert.setExpiresAt(now.plusHours(24));
+            changed.add(alert);
+        }
 
-        // Send via SSE (Real-time)
-        sseService.broadcastAlert(saved);
+        if (!changed.isEmpty()) {
+            repository.saveAll(changed);
+            changed.forEach(alert -> logger.info("Created alert: {} - {}", alert.getAlertKey(), alert.getMessage()));
 
-        return saved;
+            // Send via SSE (Real-time) on every node once this transaction commits
+            outboxService.appendAll("alert", changed);
+        }
+        return changed;
     }
 
     /**
@@ -101,7 +140,7 @@ public class AlertNotificationService {
             logger.info("Alert {} dismissed by user {}", alertId, userId);
 
             // Broadcast dismissal to all clients
-            sseService.broadcastAlertDismissal(alertId);
+            outboxService.append("alert-dismissed", alertId);
         }
     }
 
@@ -114,10 +153,11 @@ public class AlertNotificationService {
     }
 
     /**
-     * Auto-cleanup expired alerts (runs every hour)
+     * Auto-cleanup expired alerts (runs every hour, on the scheduler leader only)
      * Removes alerts that have expired (24 hours passed)
      */
     @Scheduled(fixedRate = 3600000) // Every hour
+    @LeaderOnly
     public void cleanupExpiredAlerts() {
         LocalDateTime now = LocalDateTime.now();
         try {
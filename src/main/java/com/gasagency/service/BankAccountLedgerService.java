@@ -1,10 +1,14 @@
 package com.gasagency.service;
 
 import com.gasagency.dto.BankAccountLedgerDTO;
+import com.gasagency.dto.CursorPageDTO;
 import com.gasagency.entity.BankAccountLedger;
 import com.gasagency.repository.BankAccountLedgerRepository;
+import com.gasagency.util.KeysetCursor;
+import com.gasagency.config.SingleFlight;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,9 +23,12 @@ import java.util.Map;
 public class BankAccountLedgerService {
 
     private final BankAccountLedgerRepository bankAccountLedgerRepository;
+    private final PageCountService pageCountService;
 
-    public BankAccountLedgerService(BankAccountLedgerRepository bankAccountLedgerRepository) {
+    public BankAccountLedgerService(BankAccountLedgerRepository bankAccountLedgerRepository,
+            PageCountService pageCountService) {
         this.bankAccountLedgerRepository = bankAccountLedgerRepository;
+        this.pageCountService = pageCountService;
     }
 
     @Transactional(readOnly = true)
@@ -92,6 +99,44 @@ public class BankAccountLedgerService {
         return result.map(this::convertToDTO);
     }
 
+    /**
+     * Keyset pagination ordered by (transactionDate, id). Unlike the offset
+     * variant every filter, including the reference number, runs in the query.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<BankAccountLedgerDTO> getAllBankTransactions(
+            String cursor,
+            int size,
+            Sort.Direction direction,
+            Long bankAccountId,
+            String transactionType,
+            LocalDate fromDate,
+            LocalDate toDate,
+            String referenceNumber,
+            boolean includeTotal) {
+
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDateTime startDate = fromDate != null ? fromDate.atStartOfDay() : null;
+        LocalDateTime endDate = toDate != null ? toDate.atTime(23, 59, 59) : null;
+
+        List<BankAccountLedger> rows = bankAccountLedgerRepository.findFilteredAfter(
+                bankAccountId, transactionType, startDate, endDate, referenceNumber,
+                after != null ? after.keyAsDateTime() : null,
+                after != null ? after.getId() : null,
+                direction == Sort.Direction.DESC,
+                size + 1);
+
+        Long total = null;
+        if (includeTotal) {
+            String countKey = "bankLedger:" + bankAccountId + ":" + transactionType + ":" + startDate + ":"
+                    + endDate + ":" + (referenceNumber != null ? referenceNumber.toLowerCase() : null);
+            total = pageCountService.count(countKey, () -> bankAccountLedgerRepository.countFiltered(
+                    bankAccountId, transactionType, startDate, endDate, referenceNumber));
+        }
+        return CursorPageDTO.fromFetched(rows, size,
+                l -> KeysetCursor.of(l.getTransactionDate(), l.getId()), this::convertToDTO, total);
+    }
+
     @Transactional(readOnly = true)
     public BankAccountLedgerDTO getBankTransactionById(Long id) {
         return bankAccountLedgerRepository.findById(id)
@@ -100,6 +145,7 @@ public class BankAccountLedgerService {
     }
 
     @Transactional(readOnly = true)
+    @SingleFlight
     public Map<String, Object> getSummary(Long bankAccountId, String transactionType, LocalDate fromDate,
             LocalDate toDate, String referenceNumber) {
         List<BankAccountLedger> transactions;
@@ -1,8 +1,10 @@
 package com.gasagency.service;
 
+import com.gasagency.dto.CursorPageDTO;
 import com.gasagency.dto.CustomerCylinderLedgerDTO;
 import com.gasagency.entity.CustomerCylinderLedger;
 import com.gasagency.entity.Customer;
+import com.gasagency.entity.CustomerDue;
 import com.gasagency.entity.CylinderVariant;
 import com.gasagency.entity.Warehouse;
 import com.gasagency.entity.BankAccount;
@@ -11,6 +13,10 @@ import com.gasagency.entity.Sale;
 import com.gasagency.entity.WarehouseTransfer;
 import com.gasagency.entity.BankAccountLedger;
 import com.gasagency.repository.CustomerCylinderLedgerRepository;
+import com.gasagency.repository.CustomerCylinderLedgerView;
+import com.gasagency.repository.CustomerLedgerTotalsView;
+import com.gasagency.repository.CustomerVariantSummaryView;
+import com.gasagency.repository.LedgerAppend;
 import com.gasagency.repository.CustomerRepository;
 import com.gasagency.repository.CylinderVariantRepository;
 import com.gasagency.repository.WarehouseRepository;
@@ -21,13 +27,22 @@ import com.gasagency.repository.WarehouseTransferRepository;
 import com.gasagency.repository.BankAccountLedgerRepository;
 import com.gasagency.exception.ResourceNotFoundException;
 import com.gasagency.exception.InvalidOperationException;
+import com.gasagency.util.KeysetCursor;
 import com.gasagency.util.LoggerUtil;
 import com.gasagency.util.ReferenceNumberGenerator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
@@ -44,6 +59,7 @@ import java.util.stream.Collectors;
 public class CustomerCylinderLedgerService {
 
         private static final Logger logger = LoggerFactory.getLogger(CustomerCylinderLedgerService.class);
+        static final String LEDGER_SUMMARY_CACHE = "customerLedgerSummaryCache";
         private final CustomerCylinderLedgerRepository repository;
         private final CustomerRepository customerRepository;
         private final CylinderVariantRepository variantRepository;
@@ -56,6 +72,11 @@ public class CustomerCylinderLedgerService {
         private final WarehouseTransferRepository warehouseTransferRepository;
         private final BankAccountLedgerRepository bankAccountLedgerRepository;
         private final PaymentModeRepository paymentModeRepository;
+        private final PageCountService pageCountService;
+        private final CustomerDueService customerDueService;
+        private final LedgerCheckpointService checkpointService;
+        private final LedgerArchiveService archiveService;
+        private final CacheManager cacheManager;
 
         public CustomerCylinderLedgerService(CustomerCylinderLedgerRepository repository,
                         CustomerRepository customerRepository,
@@ -68,7 +89,12 @@ public class CustomerCylinderLedgerService {
                         SaleRepository saleRepository,
                         WarehouseTransferRepository warehouseTransferRepository,
                         BankAccountLedgerRepository bankAccountLedgerRepository,
-                        PaymentModeRepository paymentModeRepository) {
+                        PaymentModeRepository paymentModeRepository,
+                        PageCountService pageCountService,
+                        CustomerDueService customerDueService,
+                        LedgerCheckpointService checkpointService,
+                        LedgerArchiveService archiveService,
+                        CacheManager cacheManager) {
                 this.repository = repository;
                 this.customerRepository = customerRepository;
                 this.variantRepository = variantRepository;
@@ -81,12 +107,16 @@ public class CustomerCylinderLedgerService {
                 this.warehouseTransferRepository = warehouseTransferRepository;
                 this.bankAccountLedgerRepository = bankAccountLedgerRepository;
                 this.paymentModeRepository = paymentModeRepository;
+                this.pageCountService = pageCountService;
+                this.customerDueService = customerDueService;
+                this.checkpointService = checkpointService;
+                this.archiveService = archiveService;
+                this.cacheManager = cacheManager;
         }
 
         // Get all ledger entries sorted by date descending (for stock movement history)
         public List<CustomerCylinderLedgerDTO> getAllMovements() {
-                List<CustomerCylinderLedgerDTO> ledgerMovements = repository.findAll().stream()
-                                .sorted((a, b) -> b.getTransactionDate().compareTo(a.getTransactionDate()))
+                List<CustomerCylinderLedgerDTO> ledgerMovements = repository.findMovementViews().stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
 
@@ -134,8 +164,8 @@ public class CustomerCylinderLedgerService {
         // Get ledger entries for a specific warehouse sorted by date descending
         public List<CustomerCylinderLedgerDTO> getMovementsByWarehouse(Long warehouseId) {
                 // Get customer ledger movements for this warehouse
-                List<CustomerCylinderLedgerDTO> ledgerMovements = repository.findByWarehouseId(warehouseId).stream()
-                                .sorted((a, b) -> b.getTransactionDate().compareTo(a.getTransactionDate()))
+                List<CustomerCylinderLedgerDTO> ledgerMovements = repository
+                                .findMovementViewsByWarehouseId(warehouseId).stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
 
@@ -215,341 +245,289 @@ public class CustomerCylinderLedgerService {
                 return result;
         }
 
+        /**
+         * OPTIMIZED: Latest entry per active customer/variant pair from a single
+         * grouped query instead of one query per pair.
+         */
         public List<CustomerCylinderLedgerDTO> getAllPendingBalances() {
-                List<CustomerCylinderLedgerDTO> result = new java.util.ArrayList<>();
-                List<Customer> customers = customerRepository.findAllByActive(true);
-                List<CylinderVariant> variants = variantRepository.findAllByActive(true);
-                for (Customer customer : customers) {
-                        for (CylinderVariant variant : variants) {
-                                List<CustomerCylinderLedger> latestLedger = repository
-                                                .findLatestLedger(customer.getId(), variant.getId());
-                                if (!latestLedger.isEmpty()) {
-                                        CustomerCylinderLedger ledger = latestLedger.get(0);
-                                        CustomerCylinderLedgerDTO dto = toDTO(ledger);
-                                        result.add(dto);
-                                }
-                        }
-                }
-                return result;
+                return repository.findLatestViewsForActiveCustomersAndVariants().stream()
+                                .map(this::toDTO)
+                                .collect(Collectors.toList());
         }
 
         @Transactional
         public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
                         LocalDate transactionDate, String refType, Long refId,
                         Long filledOut, Long emptyIn) {
-                LoggerUtil.logBusinessEntry(logger, "CREATE_LEDGER_ENTRY", "customerId", customerId, "warehouseId",
-                                warehouseId, "variantId", variantId);
+                return createLedgerEntry(customerId, warehouseId, variantId, transactionDate, refType, refId,
+                                filledOut, emptyIn, null, null, null, null);
+        }
 
-                Customer customer = customerRepository.findById(customerId)
-                                .orElseThrow(() -> {
-                                        LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY", "Customer not found",
-                                                        "customerId", customerId);
-                                        return new ResourceNotFoundException(
-                                                        "Customer not found with id: " + customerId);
-                                });
+        // Overloaded method for SALE transactions with amount details
+        @Transactional
+        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
+                        LocalDate transactionDate, String refType, Long refId,
+                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived) {
+                return createLedgerEntry(customerId, warehouseId, variantId, transactionDate, refType, refId,
+                                filledOut, emptyIn, totalAmount, amountReceived, null, null);
+        }
 
-                Warehouse warehouse = null;
-                if (warehouseId != null) {
-                        warehouse = warehouseRepository.findById(warehouseId)
-                                        .orElseThrow(() -> {
-                                                LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY",
-                                                                "Warehouse not found",
-                                                                "warehouseId", warehouseId);
-                                                return new ResourceNotFoundException(
-                                                                "Warehouse not found with id: " + warehouseId);
-                                        });
+        @Transactional
+        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
+                        LocalDate transactionDate, String refType, Long refId,
+                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived,
+                        String modeOfPayment) {
+                return createLedgerEntry(customerId, warehouseId, variantId, transactionDate, refType, refId,
+                                filledOut, emptyIn, totalAmount, amountReceived, modeOfPayment, null);
+        }
+
+        @Transactional
+        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
+                        LocalDate transactionDate, String refType, Long refId,
+                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived,
+                        String modeOfPayment, Long bankAccountId) {
+                if (filledOut == null || emptyIn == null) {
+                        throw new IllegalArgumentException("Quantities cannot be null");
                 }
+                CustomerCylinderLedger.TransactionType type = CustomerCylinderLedger.TransactionType.valueOf(refType);
+                Long id = append(new LedgerAppend(customerId, warehouseId, variantId, transactionDate, type, refId,
+                                type == CustomerCylinderLedger.TransactionType.SALE ? refId : null,
+                                filledOut, emptyIn, totalAmount, amountReceived, null, modeOfPayment, bankAccountId,
+                                findTransactionReference(type, refId)));
+                return getLedgerEntryById(id);
+        }
 
-                CylinderVariant variant = variantRepository.findById(variantId)
-                                .orElseThrow(() -> {
-                                        LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY", "Variant not found",
-                                                        "variantId", variantId);
-                                        return new ResourceNotFoundException(
-                                                        "Variant not found with id: " + variantId);
-                                });
+        /**
+         * Append one ledger row. Locks the customer's due register (one query per
+         * transaction), works out the new due from it and inserts the row with a
+         * single INSERT ... SELECT that also derives the cylinder balance and skips
+         * a duplicate reference or an archived date. Callers that already hold
+         * the customer, variant and reference (SaleService) use this directly;
+         * entry.dueAmount is ignored.
+         *
+         * A sale line dated today costs four statements: the register lock (first
+         * append of the transaction only), the id, the insert and the register
+         * update at flush. An empty return also loads its warehouse and variant,
+         * numbers the return and puts the empties in stock; a back-dated append
+         * also rewrites the later entries (rechainFrom). createLedgerEntry adds the
+         * reference lookup and the reload of the new row for its DTO.
+         *
+         * @return id of the new ledger row
+         */
+        @Transactional
+        public Long append(LedgerAppend entry) {
+                LoggerUtil.logBusinessEntry(logger, "CREATE_LEDGER_ENTRY", "customerId", entry.customerId(),
+                                "warehouseId", entry.warehouseId(), "variantId", entry.variantId());
 
-                // Validate inputs
-                if (filledOut < 0 || emptyIn < 0) {
+                CustomerCylinderLedger.TransactionType type = entry.refType();
+                if (entry.filledOut() < 0 || entry.emptyIn() < 0) {
                         LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY", "Negative quantities", "filledOut",
-                                        filledOut, "emptyIn", emptyIn);
+                                        entry.filledOut(), "emptyIn", entry.emptyIn());
                         throw new IllegalArgumentException("Quantities cannot be negative");
                 }
+                // For transaction types that require a reference, enforce refId not null
+                if (type == CustomerCylinderLedger.TransactionType.SALE && entry.refId() == null) {
+                        throw new IllegalArgumentException("Reference ID is required for SALE transactions");
+                }
+                if (entry.variantId() == null && type != CustomerCylinderLedger.TransactionType.PAYMENT) {
+                        throw new IllegalArgumentException("Variant cannot be null");
+                }
+                // The native insert bypasses bean validation on the entity
+                if (entry.transactionDate() == null) {
+                        throw new IllegalArgumentException("Transaction date is required");
+                }
+                if (entry.transactionDate().isAfter(LocalDate.now())) {
+                        throw new IllegalArgumentException("Transaction date cannot be in the future.");
+                }
 
-                // === PREVENT DUPLICATE LEDGER ENTRIES ===
-                CustomerCylinderLedger.TransactionType type = CustomerCylinderLedger.TransactionType.valueOf(refType);
-                if (refId != null && type == CustomerCylinderLedger.TransactionType.SALE) {
-                        // Check if this transaction already exists (with lock to prevent race
-                        // condition)
-                        java.util.Optional<CustomerCylinderLedger> existingLedger = repository.findByRefIdWithLock(
-                                        customerId, variantId, refId, type);
-                        if (existingLedger.isPresent()) {
-                                LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY",
-                                                "Duplicate ledger entry attempted", "customerId", customerId,
-                                                "refId", refId, "refType", refType);
-                                throw new IllegalArgumentException(
-                                                "Ledger entry already exists for this transaction. Duplicate entry prevented.");
+                CustomerDue due = customerDueService.lock(entry.customerId());
+                BigDecimal dueAmount = nextDueAmount(due.getDueAmount(), entry.totalAmount(), entry.amountReceived());
+
+                // Empty returns also get a return reference and put the empties back in stock
+                Warehouse warehouse = null;
+                CylinderVariant variant = null;
+                String transactionReference = entry.transactionReference();
+                if (type == CustomerCylinderLedger.TransactionType.EMPTY_RETURN && entry.warehouseId() != null) {
+                        warehouse = warehouseRepository.findById(entry.warehouseId())
+                                        .orElseThrow(() -> new ResourceNotFoundException(
+                                                        "Warehouse not found with id: " + entry.warehouseId()));
+                        variant = variantRepository.findById(entry.variantId())
+                                        .orElseThrow(() -> new ResourceNotFoundException(
+                                                        "Variant not found with id: " + entry.variantId()));
+                        if (transactionReference == null) {
+                                transactionReference = referenceNumberGenerator.generateEmptyReturnReference(warehouse);
                         }
                 }
 
-                // Calculate balance correctly
-                // filledOut = cylinders given to customer (increases balance)
-                // emptyIn = empty cylinders returned (decreases balance)
-                // Get latest balance with lock to ensure consistency
-                Long previousBalance = getPreviousBalanceWithLock(customerId, variantId);
-                // Prevent returning more empties than the customer currently holds
-                if (emptyIn > previousBalance + filledOut) {
+                Long id;
+                try {
+                        id = repository.append(entry.withDueAmount(dueAmount)
+                                        .withTransactionReference(transactionReference));
+                } catch (DataIntegrityViolationException e) {
+                        if (isDuplicateReference(e)) {
+                                throw duplicateEntry(entry);
+                        }
+                        throw e;
+                }
+                if (id == null) {
+                        archiveService.assertNotArchived(entry.transactionDate());
+                        // uk_ccl_ref is per partition on Postgres (V7), so the insert also
+                        // skips a reference already in another month; appends of the
+                        // customer are serialized by the due register, so this is exact
+                        if (entry.refId() != null && entry.variantId() != null && repository.existsByReference(
+                                        type, entry.refId(), entry.customerId(), entry.variantId())) {
+                                throw duplicateEntry(entry);
+                        }
+                        // Prevent returning more empties than the customer currently holds
                         LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY",
                                         "Empty return exceeds filled cylinders held (after this sale)", "customerId",
-                                        customerId,
-                                        "variantId", variantId, "previousBalance", previousBalance, "filledOut",
-                                        filledOut, "emptyIn", emptyIn);
+                                        entry.customerId(), "variantId", entry.variantId(), "filledOut",
+                                        entry.filledOut(), "emptyIn", entry.emptyIn());
                         throw new IllegalArgumentException(
                                         "Cannot return more empty cylinders than the customer will hold for this variant after this sale.");
                 }
-                Long balance = previousBalance + filledOut - emptyIn;
 
-                // For transaction types that require a reference, enforce refId not null
-                if ((type == CustomerCylinderLedger.TransactionType.SALE) && refId == null) {
-                        throw new IllegalArgumentException("Reference ID is required for SALE transactions");
+                customerDueService.record(due, dueAmount, id);
+                if (entry.transactionDate().isBefore(LocalDate.now())) {
+                        // Later entries, and the due computed above from the latest one, were
+                        // written without this row
+                        rechainFrom(entry.customerId(), entry.transactionDate());
+                        customerDueService.refresh(entry.customerId());
+                        // A back-dated row changes the state at every checkpoint on or after its date
+                        checkpointService.invalidateFrom(entry.customerId(), entry.transactionDate());
                 }
+                evictLedgerSummaryAfterCommit(entry.customerId());
 
-                // Create new ledger entry for each transaction
-                CustomerCylinderLedger ledger = new CustomerCylinderLedger(
-                                customer, warehouse, variant, transactionDate,
-                                type,
-                                refId, filledOut, emptyIn, balance);
-                ledger = repository.save(ledger);
+                LoggerUtil.logBusinessSuccess(logger, "CREATE_LEDGER_ENTRY", "id", id, "customerId",
+                                entry.customerId(), "dueAmount", dueAmount);
+                LoggerUtil.logAudit("CREATE", "LEDGER", "ledgerId", id, "customerId", entry.customerId());
 
-                // Populate transaction reference based on transaction type (Industry Standard -
-                // Denormalized for Performance)
-                String transactionReference = null;
-                if (refId != null) {
-                        try {
-                                switch (type) {
-                                        case SALE:
-                                                Sale sale = saleRepository.findById(refId).orElse(null);
-                                                if (sale != null) {
-                                                        transactionReference = sale.getReferenceNumber();
-                                                        ledger.setSale(sale); // Set the sale object directly
-                                                        ledger = repository.save(ledger); // Save immediately after
-                                                                                          // setting sale
-                                                }
-                                                break;
-                                        case TRANSFER:
-                                                WarehouseTransfer transfer = warehouseTransferRepository.findById(refId)
-                                                                .orElse(null);
-                                                if (transfer != null) {
-                                                        transactionReference = transfer.getReferenceNumber();
-                                                }
-                                                break;
-                                        case PAYMENT:
-                                                BankAccountLedger bankLedger = bankAccountLedgerRepository
-                                                                .findById(refId).orElse(null);
-                                                if (bankLedger != null) {
-                                                        transactionReference = bankLedger.getReferenceNumber();
-                                                }
-                                                break;
-                                        default:
-                                                break;
-                                }
-
-                                if (transactionReference != null) {
-                                        ledger.setTransactionReference(transactionReference);
-                                }
-                        } catch (Exception e) {
-                                logger.warn("Could not fetch transaction reference for type: {} and refId: {}", type,
-                                                refId, e);
-                        }
+                if (warehouse != null && entry.emptyIn() > 0) {
+                        inventoryStockService.incrementEmptyQty(warehouse, variant, entry.emptyIn());
                 }
-
-                // Generate return reference for EMPTY_RETURN transactions
-                if (type == CustomerCylinderLedger.TransactionType.EMPTY_RETURN && warehouse != null) {
-                        String returnReference = referenceNumberGenerator.generateEmptyReturnReference(warehouse);
-                        ledger.setTransactionReference(returnReference);
-                        ledger = repository.save(ledger);
-                        logger.info("Return reference generated for empty return: {} - Reference: {}",
-                                        ledger.getId(), returnReference);
-                } else if (transactionReference != null || ledger.getTransactionReference() != null) {
-                        ledger = repository.save(ledger);
-                }
-
-                LoggerUtil.logBusinessSuccess(logger, "CREATE_LEDGER_ENTRY", "id", ledger.getId(), "customerId",
-                                customerId, "balance", balance);
-                LoggerUtil.logAudit("CREATE", "LEDGER", "ledgerId", ledger.getId(), "customerId", customerId);
-
-                // Update inventory for EMPTY_RETURN
-                if (type == CustomerCylinderLedger.TransactionType.EMPTY_RETURN && emptyIn > 0) {
-                        inventoryStockService.incrementEmptyQty(warehouse, variant, emptyIn);
-                }
-
-                return toDTO(ledger);
+                return id;
         }
 
-        // Overloaded method for SALE transactions with amount details
-        @Transactional
-        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
-                        LocalDate transactionDate, String refType, Long refId,
-                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived) {
-
-                CustomerCylinderLedgerDTO dto = createLedgerEntry(customerId, warehouseId, variantId,
-                                transactionDate, refType, refId, filledOut, emptyIn);
-
-                // Update the created entry with amount details
-                if (totalAmount != null || amountReceived != null) {
-                        CustomerCylinderLedger ledger = repository.findById(dto.getId())
-                                        .orElseThrow(() -> new ResourceNotFoundException("Ledger entry not found"));
-
-                        if (totalAmount != null) {
-                                ledger.setTotalAmount(totalAmount);
-                        }
-                        if (amountReceived != null) {
-                                ledger.setAmountReceived(amountReceived);
+        /**
+         * Rewrite the stored balance and due amount of the customer's entries
+         * dated on or after the given date, in chain (date, id) order, after a
+         * back-dated write. Entries before the date keep their stored values; the
+         * replay starts from the latest checkpoint before it. The caller holds the
+         * customer's due register.
+         *
+         * @return number of entries rewritten
+         */
+        private int rechainFrom(Long customerId, LocalDate from) {
+                LedgerCheckpointService.Checkpoint checkpoint = checkpointService.findBefore(customerId, from)
+                                .orElse(null);
+                Map<Long, Long> runningBalances = new HashMap<>();
+                BigDecimal runningDue = BigDecimal.ZERO;
+                if (checkpoint != null) {
+                        runningBalances.putAll(checkpoint.balances());
+                        if (checkpoint.dueAmount() != null) {
+                                runningDue = checkpoint.dueAmount();
                         }
+                }
 
-                        // Calculate running balance (due amount) - cumulative from all previous
-                        // transactions
-                        // Special case: if totalAmount is 0, check if there's amountReceived
-                        // (payment-only transaction)
-                        if (totalAmount != null && totalAmount.compareTo(java.math.BigDecimal.ZERO) == 0) {
-                                final Long ledgerId = ledger.getId();
-                                // Get previous running balance from latest entry
-                                List<CustomerCylinderLedger> previousEntries = repository
-                                                .findByCustomer(ledger.getCustomer())
-                                                .stream()
-                                                .filter(e -> !e.getId().equals(ledgerId))
-                                                .sorted((a, b) -> b.getId().compareTo(a.getId()))
-                                                .limit(1)
-                                                .collect(Collectors.toList());
-
-                                BigDecimal previousBalance = BigDecimal.ZERO;
-                                if (!previousEntries.isEmpty()) {
-                                        previousBalance = previousEntries.get(0).getDueAmount() != null
-                                                        ? previousEntries.get(0).getDueAmount()
-                                                        : java.math.BigDecimal.ZERO;
-                                }
-
-                                // If amountReceived is provided, subtract it from previous balance (payment
-                                // reduces due amount)
-                                // Otherwise just carry forward the previous balance
-                                if (amountReceived != null && amountReceived.compareTo(java.math.BigDecimal.ZERO) > 0) {
-                                        BigDecimal newDue = previousBalance.subtract(amountReceived);
-                                        // Ensure due amount doesn't go negative (customer overpaid)
-                                        if (newDue.signum() < 0) {
-                                                newDue = java.math.BigDecimal.ZERO;
-                                        }
-                                        ledger.setDueAmount(newDue);
-                                } else {
-                                        ledger.setDueAmount(previousBalance);
-                                }
-                        } else if (totalAmount != null && amountReceived != null) {
-                                final Long ledgerId = ledger.getId();
-                                // Get previous running balance from latest entry
-                                List<CustomerCylinderLedger> previousEntries = repository
-                                                .findByCustomer(ledger.getCustomer())
-                                                .stream()
-                                                .filter(e -> !e.getId().equals(ledgerId))
-                                                .sorted((a, b) -> b.getId().compareTo(a.getId()))
-                                                .limit(1)
-                                                .collect(Collectors.toList());
-
-                                BigDecimal previousBalance = BigDecimal.ZERO;
-                                if (!previousEntries.isEmpty()) {
-                                        previousBalance = previousEntries.get(0).getDueAmount() != null
-                                                        ? previousEntries.get(0).getDueAmount()
-                                                        : java.math.BigDecimal.ZERO;
+                int rewritten = 0;
+                for (CustomerCylinderLedger entry : repository.findChainAfter(customerId,
+                                checkpoint != null ? checkpoint.asOfDate() : null)) {
+                        Long variantId = entry.getVariant() != null ? entry.getVariant().getId() : null;
+                        if (entry.getTransactionDate().isBefore(from)) {
+                                if (variantId != null) {
+                                        runningBalances.put(variantId, entry.getBalance());
                                 }
-
-                                // Cumulative balance = previous balance + current transaction amount - payment
-                                // received
-                                BigDecimal currentTransactionDue = totalAmount.subtract(amountReceived);
-                                BigDecimal cumulativeDue = previousBalance.add(currentTransactionDue);
-                                // Ensure due amount doesn't go negative (customer overpaid)
-                                if (cumulativeDue.signum() < 0) {
-                                        cumulativeDue = java.math.BigDecimal.ZERO;
+                                if (entry.getDueAmount() != null) {
+                                        runningDue = entry.getDueAmount();
                                 }
-                                ledger.setDueAmount(cumulativeDue);
-                        } else if (totalAmount != null) {
-                                final Long ledgerId = ledger.getId();
-                                // No payment received in this transaction
-                                List<CustomerCylinderLedger> previousEntries = repository
-                                                .findByCustomer(ledger.getCustomer())
-                                                .stream()
-                                                .filter(e -> !e.getId().equals(ledgerId))
-                                                .sorted((a, b) -> b.getId().compareTo(a.getId()))
-                                                .limit(1)
-                                                .collect(Collectors.toList());
+                                continue;
+                        }
 
-                                BigDecimal previousBalance = BigDecimal.ZERO;
-                                if (!previousEntries.isEmpty()) {
-                                        previousBalance = previousEntries.get(0).getDueAmount() != null
-                                                        ? previousEntries.get(0).getDueAmount()
-                                                        : java.math.BigDecimal.ZERO;
+                        // Payments carry no cylinder balance
+                        long balance = entry.getBalance();
+                        if (variantId != null) {
+                                balance = runningBalances.getOrDefault(variantId, 0L) + entry.getFilledOut()
+                                                - entry.getEmptyIn();
+                                if (balance < 0) {
+                                        throw new InvalidOperationException("Entry " + entry.getId() + " (dated "
+                                                        + entry.getTransactionDate() + ") would have negative balance: "
+                                                        + balance + " cylinders.");
                                 }
-
-                                // Cumulative balance = previous balance + current transaction amount
-                                BigDecimal cumulativeDue = previousBalance.add(totalAmount);
-                                ledger.setDueAmount(cumulativeDue);
+                                runningBalances.put(variantId, balance);
+                        }
+                        runningDue = nextDueAmount(runningDue, entry.getTotalAmount(), entry.getAmountReceived());
+
+                        if (balance != entry.getBalance() || entry.getDueAmount() == null
+                                        || runningDue.compareTo(entry.getDueAmount()) != 0) {
+                                entry.setBalance(balance);
+                                entry.setDueAmount(runningDue);
+                                repository.save(entry);
+                                rewritten++;
                         }
-
-                        ledger = repository.save(ledger);
-                        return toDTO(ledger);
                 }
-
-                return dto;
+                if (rewritten > 0) {
+                        LoggerUtil.logBusinessEntry(logger, "LEDGER_RECHAIN", "customerId", customerId, "from", from,
+                                        "rewritten", rewritten);
+                }
+                return rewritten;
         }
 
-        @Transactional
-        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
-                        LocalDate transactionDate, String refType, Long refId,
-                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived,
-                        String modeOfPayment) {
-
-                CustomerCylinderLedgerDTO dto = createLedgerEntry(customerId, warehouseId, variantId,
-                                transactionDate, refType, refId, filledOut, emptyIn, totalAmount, amountReceived);
+        /**
+         * Running balance (due amount) after a transaction: previous due plus what
+         * was billed minus what was received, never below zero.
+         */
+        private static BigDecimal nextDueAmount(BigDecimal previousDue, BigDecimal totalAmount,
+                        BigDecimal amountReceived) {
+                BigDecimal billed = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+                BigDecimal received = amountReceived != null ? amountReceived : BigDecimal.ZERO;
+                // Ensure due amount doesn't go negative (customer overpaid)
+                return previousDue.add(billed).subtract(received).max(BigDecimal.ZERO);
+        }
 
-                // Update the created entry with payment mode
-                if (modeOfPayment != null) {
-                        CustomerCylinderLedger ledger = repository.findById(dto.getId())
-                                        .orElseThrow(() -> new RuntimeException("Ledger entry not found"));
-                        ledger.setPaymentMode(modeOfPayment);
-                        ledger = repository.save(ledger);
-                        return toDTO(ledger);
+        // Denormalized reference of the referenced transaction (sale, transfer or
+        // bank deposit), for callers that only pass the refId
+        private String findTransactionReference(CustomerCylinderLedger.TransactionType type, Long refId) {
+                if (refId == null) {
+                        return null;
+                }
+                switch (type) {
+                        case SALE:
+                                return saleRepository.findById(refId).map(Sale::getReferenceNumber).orElse(null);
+                        case TRANSFER:
+                                return warehouseTransferRepository.findById(refId)
+                                                .map(WarehouseTransfer::getReferenceNumber).orElse(null);
+                        case PAYMENT:
+                                return bankAccountLedgerRepository.findById(refId)
+                                                .map(BankAccountLedger::getReferenceNumber).orElse(null);
+                        default:
+                                return null;
                 }
-
-                return dto;
         }
 
-        @Transactional
-        public CustomerCylinderLedgerDTO createLedgerEntry(Long customerId, Long warehouseId, Long variantId,
-                        LocalDate transactionDate, String refType, Long refId,
-                        Long filledOut, Long emptyIn, BigDecimal totalAmount, BigDecimal amountReceived,
-                        String modeOfPayment, Long bankAccountId) {
-
-                CustomerCylinderLedgerDTO dto = createLedgerEntry(customerId, warehouseId, variantId,
-                                transactionDate, refType, refId, filledOut, emptyIn, totalAmount, amountReceived,
-                                modeOfPayment);
-
-                // Update the created entry with bank account ID
-                if (bankAccountId != null) {
-                        CustomerCylinderLedger ledger = repository.findById(dto.getId())
-                                        .orElseThrow(() -> new RuntimeException("Ledger entry not found"));
-
-                        BankAccount bankAccount = bankAccountRepository.findById(bankAccountId)
-                                        .orElseThrow(() -> new RuntimeException(
-                                                        "Bank account not found with id: " + bankAccountId));
+        private static IllegalArgumentException duplicateEntry(LedgerAppend entry) {
+                LoggerUtil.logBusinessError(logger, "CREATE_LEDGER_ENTRY", "Duplicate ledger entry attempted",
+                                "customerId", entry.customerId(), "refId", entry.refId(), "refType", entry.refType());
+                return new IllegalArgumentException(
+                                "Ledger entry already exists for this transaction. Duplicate entry prevented.");
+        }
 
-                        ledger.setBankAccount(bankAccount);
-                        ledger = repository.save(ledger);
-                        return toDTO(ledger);
+        // uk_ccl_ref is the only key an append can collide on (ids come from the
+        // sequence). Match the SQL state: on Postgres the key is a unique index
+        // per partition (uk_ccl_ref_<month>), not uk_ccl_ref
+        private static boolean isDuplicateReference(DataIntegrityViolationException e) {
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof java.sql.SQLException sqlException
+                                        && "23505".equals(sqlException.getSQLState())) {
+                                return true;
+                        }
                 }
-
-                return dto;
+                return false;
         }
 
         public CustomerCylinderLedgerDTO getLedgerEntryById(Long id) {
                 LoggerUtil.logDatabaseOperation(logger, "SELECT", "LEDGER", "id", id);
 
-                CustomerCylinderLedger ledger = repository.findById(id)
+                CustomerCylinderLedger ledger = repository.findWithDetailsById(id)
                                 .orElseThrow(() -> {
                                         LoggerUtil.logBusinessError(logger, "GET_LEDGER_ENTRY",
                                                         "Ledger entry not found", "id", id);
@@ -562,7 +540,7 @@ public class CustomerCylinderLedgerService {
         public List<CustomerCylinderLedgerDTO> getAllLedger() {
                 LoggerUtil.logDatabaseOperation(logger, "SELECT_ALL", "LEDGER");
 
-                return repository.findAll().stream()
+                return repository.findAllViews().stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
         }
@@ -571,10 +549,33 @@ public class CustomerCylinderLedgerService {
                 LoggerUtil.logDatabaseOperation(logger, "SELECT_PAGINATED", "LEDGER", "page", pageable.getPageNumber(),
                                 "size", pageable.getPageSize());
 
-                return repository.findAll(pageable)
+                return repository.findAllWithDetails(pageable)
                                 .map(this::toDTO);
         }
 
+        /**
+         * OPTIMIZED: Keyset pagination over ledger id. Cost is independent of how
+         * deep the client pages; total count is only computed (and cached) on
+         * request.
+         */
+        @Transactional(readOnly = true)
+        public CursorPageDTO<CustomerCylinderLedgerDTO> getAllLedger(String cursor, int size,
+                        Sort.Direction direction, boolean includeTotal) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                LoggerUtil.logDatabaseOperation(logger, "SELECT_KEYSET", "LEDGER", "afterId",
+                                after != null ? after.getId() : null, "size", size);
+
+                Pageable limit = PageRequest.of(0, size + 1);
+                List<CustomerCylinderLedger> rows = direction == Sort.Direction.DESC
+                                ? repository.findByIdLessThanOrderByIdDesc(
+                                                after != null ? after.getId() : Long.MAX_VALUE, limit)
+                                : repository.findByIdGreaterThanOrderByIdAsc(
+                                                after != null ? after.getId() : 0L, limit);
+                Long total = includeTotal ? pageCountService.count("ledger", repository::count) : null;
+                return CursorPageDTO.fromFetched(rows, size,
+                                l -> KeysetCursor.of(l.getId(), l.getId()), this::toDTO, total);
+        }
+
         public List<CustomerCylinderLedgerDTO> getLedgerByCustomer(Long customerId) {
                 LoggerUtil.logDatabaseOperation(logger, "SELECT", "LEDGER", "customerId", customerId);
 
@@ -585,7 +586,7 @@ public class CustomerCylinderLedgerService {
                                         return new ResourceNotFoundException(
                                                         "Customer not found with id: " + customerId);
                                 });
-                return repository.findByCustomer(customer).stream()
+                return repository.findViewsByCustomerId(customer.getId()).stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
         }
@@ -601,7 +602,7 @@ public class CustomerCylinderLedgerService {
                                         return new ResourceNotFoundException(
                                                         "Customer not found with id: " + customerId);
                                 });
-                return repository.findByCustomer(customer, pageable)
+                return repository.findWithDetailsByCustomer(customer, pageable)
                                 .map(this::toDTO);
         }
 
@@ -623,7 +624,7 @@ public class CustomerCylinderLedgerService {
                                         return new ResourceNotFoundException(
                                                         "Variant not found with id: " + variantId);
                                 });
-                return repository.findByCustomerAndVariant(customer, variant).stream()
+                return repository.findViewsByCustomerIdAndVariantId(customer.getId(), variant.getId()).stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
         }
@@ -638,7 +639,7 @@ public class CustomerCylinderLedgerService {
                                         return new ResourceNotFoundException(
                                                         "Variant not found with id: " + variantId);
                                 });
-                return repository.findByVariant(variant).stream()
+                return repository.findViewsByVariantId(variant.getId()).stream()
                                 .map(this::toDTO)
                                 .collect(Collectors.toList());
         }
@@ -678,42 +679,6 @@ public class CustomerCylinderLedgerService {
                 return latestLedgers.get(0).getBalance();
         }
 
-        /**
-         * Get previous balance with pessimistic lock to ensure consistency during
-         * concurrent operations.
-         * This prevents race conditions in balance calculations.
-         * 
-         * NOTE: Called from @Transactional method, uses parent transaction for lock
-         * operation.
-         */
-        public Long getPreviousBalanceWithLock(Long customerId, Long variantId) {
-                LoggerUtil.logDatabaseOperation(logger, "GET_BALANCE_WITH_LOCK", "CUSTOMER_CYLINDER_LEDGER",
-                                "customerId", customerId, "variantId", variantId);
-
-                java.util.Optional<CustomerCylinderLedger> latestLedger = repository
-                                .findLatestLedgerWithLock(customerId, variantId);
-                if (latestLedger.isPresent()) {
-                        return latestLedger.get().getBalance();
-                }
-                return 0L;
-        }
-
-        /**
-         * Get count of pending return cylinders for a customer
-         * Used for alert detection
-         */
-        public long getPendingReturnCountForCustomer(Long customerId) {
-                Customer customer = customerRepository.findById(customerId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "Customer not found with id: " + customerId));
-
-                List<CustomerCylinderLedger> ledgers = repository.findByCustomer(customer);
-                return ledgers.stream()
-                                .filter(l -> l.getEmptyIn() != null && l.getEmptyIn() > 0)
-                                .mapToLong(l -> l.getEmptyIn() != null ? l.getEmptyIn() : 0)
-                                .sum();
-        }
-
         private CustomerCylinderLedgerDTO toDTO(CustomerCylinderLedger ledger) {
                 Long variantId = ledger.getVariant() != null ? ledger.getVariant().getId() : null;
                 String variantName = ledger.getVariant() != null ? ledger.getVariant().getName() : null;
@@ -745,6 +710,32 @@ public class CustomerCylinderLedgerService {
                 return dto;
         }
 
+        private CustomerCylinderLedgerDTO toDTO(CustomerCylinderLedgerView view) {
+                CustomerCylinderLedgerDTO dto = new CustomerCylinderLedgerDTO(
+                                view.getId(),
+                                view.getCustomerId(),
+                                view.getCustomerName(),
+                                view.getVariantId(),
+                                view.getVariantName(),
+                                view.getTransactionDate(),
+                                view.getRefType().toString(),
+                                view.getRefId(),
+                                view.getFilledOut(),
+                                view.getEmptyIn(),
+                                view.getBalance());
+                dto.setCreatedAt(view.getCreatedDate());
+                dto.setUpdatedDate(view.getUpdatedDate());
+                dto.setTotalAmount(view.getTotalAmount());
+                dto.setAmountReceived(view.getAmountReceived());
+                dto.setDueAmount(view.getDueAmount());
+                dto.setPaymentMode(view.getPaymentMode());
+                dto.setTransactionReference(view.getTransactionReference());
+                dto.setUpdateReason(view.getUpdateReason());
+                dto.setBankAccountId(view.getBankAccountId());
+                dto.setBankAccountName(view.getBankAccountName());
+                return dto;
+        }
+
         private CustomerCylinderLedgerDTO transferToLedgerDTO(com.gasagency.dto.WarehouseTransferDTO transfer) {
                 // Convert transfer to ledger DTO format for display
                 CustomerCylinderLedgerDTO dto = new CustomerCylinderLedgerDTO(
@@ -806,26 +797,16 @@ public class CustomerCylinderLedgerService {
                 ledger.setTotalAmount(java.math.BigDecimal.ZERO);
                 ledger.setAmountReceived(paymentRequest.amount);
 
-                // Calculate running balance (remaining customer debt) BEFORE this payment
-                // Get all previous ledger entries for this customer
-                List<CustomerCylinderLedger> previousEntries = repository.findByCustomer(customer);
-                BigDecimal currentDue = BigDecimal.ZERO;
-
-                for (CustomerCylinderLedger entry : previousEntries) {
-                        if (entry.getRefType() == CustomerCylinderLedger.TransactionType.PAYMENT) {
-                                currentDue = currentDue
-                                                .subtract(entry.getAmountReceived() != null ? entry.getAmountReceived()
-                                                                : java.math.BigDecimal.ZERO);
-                        } else {
-                                java.math.BigDecimal transactionDue = (entry.getTotalAmount() != null
-                                                ? entry.getTotalAmount()
-                                                : java.math.BigDecimal.ZERO)
-                                                .subtract(entry.getAmountReceived() != null ? entry.getAmountReceived()
-                                                                : java.math.BigDecimal.ZERO);
-                                currentDue = currentDue.add(transactionDue);
-                        }
+                // Archived months end before the current one
+                if (ledger.getTransactionDate().isBefore(LocalDate.now())) {
+                        archiveService.assertNotArchived(ledger.getTransactionDate());
                 }
 
+                // Current due (remaining customer debt) BEFORE this payment, locked until
+                // the payment entry and the register update commit
+                CustomerDue due = customerDueService.lock(customer.getId());
+                BigDecimal currentDue = due.getDueAmount();
+
                 // Validate payment amount doesn't exceed current due
                 if (paymentRequest.amount.compareTo(currentDue) > 0) {
                         LoggerUtil.logBusinessError(logger, "RECORD_PAYMENT", "Payment exceeds due amount",
@@ -867,6 +848,13 @@ public class CustomerCylinderLedgerService {
                 }
 
                 CustomerCylinderLedger savedLedger = repository.save(ledger);
+                customerDueService.record(due, savedLedger);
+                if (savedLedger.getTransactionDate().isBefore(LocalDate.now())) {
+                        rechainFrom(customer.getId(), savedLedger.getTransactionDate());
+                        customerDueService.refresh(customer.getId());
+                        checkpointService.invalidateFrom(customer.getId(), savedLedger.getTransactionDate());
+                }
+                evictLedgerSummaryAfterCommit(customer.getId());
 
                 // Record bank account transaction if required by payment mode configuration
                 if (paymentRequest.bankAccountId != null && paymentRequest.paymentMode != null) {
@@ -987,59 +975,62 @@ public class CustomerCylinderLedgerService {
                 }
         }
 
-        // Get complete summary for a customer (across all ledger entries)
+        // Get complete summary for a customer (across all ledger entries); cached
+        // until the customer's next ledger write
+        @Cacheable(value = LEDGER_SUMMARY_CACHE, key = "#customerId")
+        @Transactional(readOnly = true)
         public Map<String, Object> getCustomerLedgerSummary(Long customerId) {
-                Customer customer = customerRepository.findById(customerId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "Customer not found with id: " + customerId));
-
-                List<CustomerCylinderLedger> allEntries = repository.findByCustomer(customer);
+                if (!customerRepository.existsById(customerId)) {
+                        throw new ResourceNotFoundException("Customer not found with id: " + customerId);
+                }
+
+                // Latest balance per variant and the sums are computed by the database
+                List<Map<String, Object>> variants = new ArrayList<>();
+                for (CustomerVariantSummaryView view : repository.findVariantSummariesByCustomerId(customerId)) {
+                        Map<String, Object> vSummary = new HashMap<>();
+                        vSummary.put("variantId", view.getVariantId());
+                        vSummary.put("variantName", view.getVariantName());
+                        // Use the balance field which represents filled cylinders with customer
+                        Long filledCount = view.getBalance() != null && view.getBalance() > 0
+                                        ? view.getBalance()
+                                        : 0L;
+                        vSummary.put("filledCount", filledCount);
+                        // Return pending = cylinders with customer that need to be returned (same as
+                        // filledCount)
+                        vSummary.put("returnPending", filledCount);
+                        vSummary.put("totalFilledOut", view.getFilledOut());
+                        vSummary.put("totalEmptyIn", view.getEmptyIn());
+                        variants.add(vSummary);
+                }
+
+                CustomerLedgerTotalsView totals = repository.findTotalsByCustomerId(customerId);
                 Map<String, Object> summary = new HashMap<>();
-                Map<Long, Map<String, Object>> variantSummary = new HashMap<>();
-
-                // Get the latest balance for each variant (most recent entry per variant)
-                Map<Long, CustomerCylinderLedger> latestByVariant = new HashMap<>();
-
-                for (CustomerCylinderLedger entry : allEntries) {
-                        // Skip PAYMENT transactions (they don't affect variant-specific balances)
-                        if (entry.getRefType() == CustomerCylinderLedger.TransactionType.PAYMENT) {
-                                continue;
-                        }
+                summary.put("variants", variants);
+                summary.put("totalBilled", totals.getTotalBilled());
+                summary.put("totalReceived", totals.getTotalReceived());
+                summary.put("totalFilledOut", totals.getTotalFilledOut());
+                summary.put("totalEmptyIn", totals.getTotalEmptyIn());
+                summary.put("dueAmount", customerDueService.findCurrentDue(customerId).orElse(BigDecimal.ZERO));
+                return summary;
+        }
 
-                        if (entry.getVariant() != null) {
-                                Long variantId = entry.getVariant().getId();
-                                // Keep the latest entry for each variant (by ID, assuming higher ID = later)
-                                if (!latestByVariant.containsKey(variantId)
-                                                || entry.getId() > latestByVariant.get(variantId).getId()) {
-                                        latestByVariant.put(variantId, entry);
-                                }
-                        }
+        // The cached summary is dropped once this transaction's ledger changes are
+        // visible; evicting earlier would let a concurrent read cache the old state
+        private void evictLedgerSummaryAfterCommit(Long customerId) {
+                Cache cache = cacheManager.getCache(LEDGER_SUMMARY_CACHE);
+                if (cache == null) {
+                        return;
                 }
-
-                // Build summary from latest entries per variant
-                for (Map.Entry<Long, CustomerCylinderLedger> entry : latestByVariant.entrySet()) {
-                        CustomerCylinderLedger ledger = entry.getValue();
-                        if (ledger.getVariant() != null) {
-                                Long variantId = ledger.getVariant().getId();
-                                String variantName = ledger.getVariant().getName();
-
-                                java.util.Map<String, Object> vSummary = new java.util.HashMap<>();
-                                vSummary.put("variantName", variantName);
-                                // Use the balance field which represents filled cylinders with customer
-                                Long filledCount = ledger.getBalance() != null && ledger.getBalance() > 0
-                                                ? ledger.getBalance()
-                                                : 0L;
-                                vSummary.put("filledCount", filledCount);
-                                // Return pending = cylinders with customer that need to be returned (same as
-                                // filledCount)
-                                vSummary.put("returnPending", filledCount);
-
-                                variantSummary.put(variantId, vSummary);
-                        }
+                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                        cache.evict(customerId);
+                        return;
                 }
-
-                summary.put("variants", new ArrayList<>(variantSummary.values()));
-                return summary;
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                                cache.evict(customerId);
+                        }
+                });
         }
 
         // Update payment mode for a ledger entry
@@ -1140,51 +1131,20 @@ public class CustomerCylinderLedgerService {
         /**
          * Get customer's previous due amount (the most recent ledger entry's due
          * amount)
-         * This represents the total outstanding amount the customer owes
+         * This represents the total outstanding amount the customer owes; read from
+         * the customer_due register, so the cost does not grow with the history
          * 
          * @param customerId The customer ID
          * @return Previous due amount, or ZERO if no previous entries exist
          */
+        @Transactional(readOnly = true)
         public BigDecimal getCustomerPreviousDue(Long customerId) {
-                Customer customer = customerRepository.findById(customerId)
-                                .orElseThrow(() -> new ResourceNotFoundException(
-                                                "Customer not found with id: " + customerId));
-
-                List<CustomerCylinderLedger> ledgerEntries = repository.findByCustomer(customer);
-
-                logger.info("getCustomerPreviousDue - customerId: {}, total entries found: {}", customerId,
-                                ledgerEntries != null ? ledgerEntries.size() : 0);
-
-                if (ledgerEntries == null || ledgerEntries.isEmpty()) {
-                        logger.info("No ledger entries found for customer {}", customerId);
-                        return BigDecimal.ZERO;
-                }
-
-                // Get the most recent entry (highest ID - latest created)
-                CustomerCylinderLedger latestEntry = null;
-                Long maxId = -1L;
-                for (CustomerCylinderLedger entry : ledgerEntries) {
-                        if (entry.getId() > maxId) {
-                                maxId = entry.getId();
-                                latestEntry = entry;
+                return customerDueService.findCurrentDue(customerId).orElseGet(() -> {
+                        if (!customerRepository.existsById(customerId)) {
+                                throw new ResourceNotFoundException("Customer not found with id: " + customerId);
                         }
-                }
-
-                if (latestEntry == null) {
-                        logger.info("No valid latest entry found for customer {}", customerId);
                         return BigDecimal.ZERO;
-                }
-
-                BigDecimal dueAmount = latestEntry.getDueAmount();
-                if (dueAmount == null) {
-                        dueAmount = BigDecimal.ZERO;
-                }
-
-                logger.info("Latest ledger for customer {} - Entry ID: {}, Due Amount: {}, Total Amount: {}, Amount Received: {}",
-                                customerId, latestEntry.getId(), dueAmount, latestEntry.getTotalAmount(),
-                                latestEntry.getAmountReceived());
-
-                return dueAmount;
+                });
         }
 
         /**
@@ -1232,6 +1192,10 @@ public class CustomerCylinderLedgerService {
                 CylinderVariant variant = entry.getVariant();
                 Warehouse warehouse = entry.getWarehouse();
 
+                // Hold the customer's due register while the chain is rewritten
+                customerDueService.lock(customer.getId());
+                archiveService.assertNotArchived(entry.getTransactionDate());
+
                 // 3. Store OLD values to calculate inventory impact
                 long oldFilledOut = entry.getFilledOut();
                 long oldEmptyIn = entry.getEmptyIn();
@@ -1261,31 +1225,27 @@ public class CustomerCylinderLedgerService {
                 }
                 // ==================== SIMULATION: CHECK CHAIN RECALCULATION
                 // ====================
+                // The replay starts at the latest checkpoint dated before this entry:
+                // only the entries after it are loaded (all of them without one)
+                LedgerCheckpointService.Checkpoint checkpoint = checkpointService
+                                .findBefore(customer.getId(), entry.getTransactionDate()).orElse(null);
+
+                // Get entries for ALL VARIANTS for due amount calculation (cumulative debt)
+                List<CustomerCylinderLedger> allEntries = repository.findChainAfter(customer.getId(),
+                                checkpoint != null ? checkpoint.asOfDate() : null);
+
                 // Get entries SAME VARIANT ONLY for balance calculation (only for
                 // SALE/EMPTY_RETURN)
                 List<CustomerCylinderLedger> variantEntries = new ArrayList<>();
                 if (variant != null) {
-                        variantEntries = repository.findByCustomer(customer).stream()
+                        variantEntries = allEntries.stream()
                                         .filter(e -> e.getVariant() != null
                                                         && e.getVariant().getId().equals(variant.getId()))
-                                        .sorted((a, b) -> {
-                                                int dateCompare = a.getTransactionDate()
-                                                                .compareTo(b.getTransactionDate());
-                                                return dateCompare != 0 ? dateCompare
-                                                                : Long.compare(a.getId(), b.getId());
-                                        })
                                         .collect(Collectors.toList());
                 }
 
-                // Get entries for ALL VARIANTS for due amount calculation (cumulative debt)
-                List<CustomerCylinderLedger> allEntries = repository.findByCustomer(customer).stream()
-                                .sorted((a, b) -> {
-                                        int dateCompare = a.getTransactionDate().compareTo(b.getTransactionDate());
-                                        return dateCompare != 0 ? dateCompare : Long.compare(a.getId(), b.getId());
-                                })
-                                .collect(Collectors.toList());
-
-                // Check if entry is within the latest 15 records (per variant)
+                // Check if entry is within the latest 15 records (per variant); every
+                // entry after this one is loaded, so its position from the end is exact
                 if (variantEntries.size() > 15) {
                         int earliestEditableIndex = variantEntries.size() - 15;
                         int currentIndex = -1;
@@ -1350,10 +1310,19 @@ public class CustomerCylinderLedgerService {
                 long newBalance = 0;
 
                 if (variant != null && entryIndex >= 0) {
-                        oldBalance = (entryIndex > 0 ? variantEntries.get(entryIndex - 1).getBalance() : 0)
-                                        + oldFilledOut - oldEmptyIn;
-                        newBalance = (entryIndex > 0 ? variantEntries.get(entryIndex - 1).getBalance() : 0)
-                                        + newFilledOut - newEmptyIn;
+                        // The first loaded entry starts from the checkpoint; without one it may
+                        // sit on archived history (LedgerArchiveService): its previous balance is
+                        // what it was written on
+                        long previousBalance;
+                        if (entryIndex > 0) {
+                                previousBalance = variantEntries.get(entryIndex - 1).getBalance();
+                        } else if (checkpoint != null) {
+                                previousBalance = checkpoint.balance(variant.getId());
+                        } else {
+                                previousBalance = entry.getBalance() - oldFilledOut + oldEmptyIn;
+                        }
+                        oldBalance = previousBalance + oldFilledOut - oldEmptyIn;
+                        newBalance = previousBalance + newFilledOut - newEmptyIn;
 
                         // Validate balance won't go negative
                         if (newBalance < 0) {
@@ -1389,6 +1358,14 @@ public class CustomerCylinderLedgerService {
                         if (prevCumulativeDue == null) {
                                 prevCumulativeDue = BigDecimal.ZERO;
                         }
+                } else if (checkpoint != null) {
+                        prevCumulativeDue = checkpoint.dueAmount();
+                } else if (entry.getDueAmount() != null) {
+                        // First remaining entry: derive the due it was written on, as for the balance
+                        prevCumulativeDue = entry.getDueAmount()
+                                        .subtract(oldTotalAmount != null ? oldTotalAmount : BigDecimal.ZERO)
+                                        .add(oldAmountReceived != null ? oldAmountReceived : BigDecimal.ZERO)
+                                        .max(BigDecimal.ZERO);
                 }
                 newCumulativeDue = prevCumulativeDue.add(newDueContribution);
 
@@ -1664,6 +1641,11 @@ public class CustomerCylinderLedgerService {
                         runningDue = nextCumulativeDue;
                 }
 
+                customerDueService.refresh(customer.getId());
+                // Checkpoints from this entry's date on hold the old values
+                checkpointService.invalidateFrom(customer.getId(), entry.getTransactionDate());
+                evictLedgerSummaryAfterCommit(customer.getId());
+
                 LoggerUtil.logBusinessSuccess(logger, "UPDATE_LEDGER", "ledgerId", ledgerId,
                                 "affectedEntries", affectedEntries.size());
                 LoggerUtil.logAudit("UPDATE", "LEDGER_ENTRY", "ledgerId", ledgerId,
@@ -1674,26 +1656,31 @@ public class CustomerCylinderLedgerService {
                 return toDTO(entry);
         }
 
-        // Repair function to recalculate all balances with correct formula
+        // Repair function to recalculate all balances with correct formula, per
+        // customer from its latest checkpoint
+        @CacheEvict(value = LEDGER_SUMMARY_CACHE, allEntries = true)
         @Transactional
         public void recalculateAllBalances() {
-                List<CustomerCylinderLedger> allEntries = repository.findAll();
-
-                // Group by customer and variant for separate recalculation
-                Map<String, List<CustomerCylinderLedger>> groupedEntries = allEntries.stream()
-                                .collect(Collectors.groupingBy(
-                                                e -> e.getCustomer().getId() + "_" + e.getVariant().getId()));
-
                 int totalUpdated = 0;
 
-                for (List<CustomerCylinderLedger> entries : groupedEntries.values()) {
-                        // Sort by transaction date
-                        entries.sort((a, b) -> a.getTransactionDate().compareTo(b.getTransactionDate()));
+                for (Long customerId : repository.findCustomerIds()) {
+                        LedgerCheckpointService.Checkpoint checkpoint = checkpointService.findLatest(customerId)
+                                        .orElse(null);
+                        // Running balance per variant, in chain order (date, id)
+                        Map<Long, Long> runningBalances = new HashMap<>();
+                        if (checkpoint != null) {
+                                runningBalances.putAll(checkpoint.balances());
+                        }
 
-                        long runningBalance = 0;
-                        for (CustomerCylinderLedger entry : entries) {
-                                // Correct formula: balance = previousBalance - filledOut + emptyIn
-                                long newBalance = runningBalance - entry.getFilledOut() + entry.getEmptyIn();
+                        for (CustomerCylinderLedger entry : repository.findChainAfter(customerId,
+                                        checkpoint != null ? checkpoint.asOfDate() : null)) {
+                                if (entry.getVariant() == null) {
+                                        continue; // Payments carry no cylinder balance
+                                }
+                                Long variantId = entry.getVariant().getId();
+                                // Correct formula: balance = previousBalance + filledOut - emptyIn
+                                long newBalance = runningBalances.getOrDefault(variantId, 0L)
+                                                + entry.getFilledOut() - entry.getEmptyIn();
 
                                 if (newBalance != entry.getBalance()) {
                                         long oldBalance = entry.getBalance();
@@ -1704,7 +1691,7 @@ public class CustomerCylinderLedgerService {
                                                         entry.getId(), oldBalance, newBalance);
                                 }
 
-                                runningBalance = newBalance;
+                                runningBalances.put(variantId, newBalance);
                         }
                 }
 
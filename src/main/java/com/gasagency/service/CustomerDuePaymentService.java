@@ -6,6 +6,7 @@ import com.gasagency.entity.CustomerCylinderLedger;
 import com.gasagency.repository.CustomerRepository;
 import com.gasagency.repository.CustomerCylinderLedgerRepository;
 import com.gasagency.util.LoggerUtil;
+import com.gasagency.config.SingleFlight;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -37,6 +38,7 @@ public class CustomerDuePaymentService {
      * Prevents loading entire result set into memory
      */
     @Transactional(readOnly = true)
+    @SingleFlight
     public Page<CustomerDuePaymentDTO> getDuePaymentReport(
             LocalDate fromDate,
             LocalDate toDate,
@@ -91,6 +93,7 @@ public class CustomerDuePaymentService {
     }
 
     @Transactional(readOnly = true)
+    @SingleFlight
     public CustomerDuePaymentReportSummaryDTO getDuePaymentReportSummary(
             LocalDate fromDate,
             LocalDate toDate,
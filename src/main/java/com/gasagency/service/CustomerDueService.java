@@ -0,0 +1,106 @@
+package com.gasagency.service;
+
+import com.gasagency.entity.CustomerCylinderLedger;
+import com.gasagency.entity.CustomerDue;
+import com.gasagency.exception.ResourceNotFoundException;
+import com.gasagency.repository.CustomerCylinderLedgerRepository;
+import com.gasagency.repository.CustomerDueRepository;
+import com.gasagency.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Register of each customer's current due amount (table customer_due).
+ *
+ * Every ledger write that changes a due amount locks the customer's row with
+ * lock(), computes the new due from it and stores it back with record(), all
+ * in the writer's transaction. The row lock serializes due writers of one customer;
+ * lock() only queries the first time in a transaction, later calls return the
+ * already-locked entity. Reads are a primary-key lookup whatever the size of
+ * the customer's history.
+ */
+@Service
+public class CustomerDueService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CustomerDueRepository repository;
+    private final CustomerCylinderLedgerRepository ledgerRepository;
+    private final CustomerRepository customerRepository;
+
+    public CustomerDueService(CustomerDueRepository repository,
+            CustomerCylinderLedgerRepository ledgerRepository,
+            CustomerRepository customerRepository) {
+        this.repository = repository;
+        this.ledgerRepository = ledgerRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * Current due amount of the customer; empty when the customer has no
+     * register row (no due-bearing ledger entry yet, or no such customer).
+     */
+    @Transactional(readOnly = true)
+    public Optional<BigDecimal> findCurrentDue(Long customerId) {
+        return repository.findDueAmount(customerId);
+    }
+
+    /**
+     * Lock the customer's register row for the rest of the transaction
+     * (SELECT ... FOR UPDATE) and return it. Creates the row for a customer
+     * that has none yet; throws ResourceNotFoundException for an unknown
+     * customer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CustomerDue lock(Long customerId) {
+        CustomerDue due = entityManager.find(CustomerDue.class, customerId, LockModeType.PESSIMISTIC_WRITE);
+        if (due == null) {
+            if (!customerRepository.existsById(customerId)) {
+                throw new ResourceNotFoundException("Customer not found with id: " + customerId);
+            }
+            // A concurrent first writer's insert makes this one wait for its commit
+            // and then insert nothing; both end up locking the same row
+            repository.insertIfAbsent(customerId);
+            due = entityManager.find(CustomerDue.class, customerId, LockModeType.PESSIMISTIC_WRITE);
+        }
+        return due;
+    }
+
+    /**
+     * Store the due amount of a new latest ledger entry. The row must have been
+     * locked with lock() in this transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(CustomerDue due, CustomerCylinderLedger ledger) {
+        record(due, ledger.getDueAmount(), ledger.getId());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(CustomerDue due, BigDecimal dueAmount, Long ledgerId) {
+        due.setDueAmount(dueAmount != null ? dueAmount : BigDecimal.ZERO);
+        due.setLastLedgerId(ledgerId);
+    }
+
+    /**
+     * Re-read the due amount from the customer's last ledger entry in chain
+     * (date, id) order, after entries were rewritten in place (ledger edits).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Long customerId) {
+        CustomerDue due = lock(customerId);
+        ledgerRepository.findLatestByCustomerId(customerId).ifPresentOrElse(
+                latest -> record(due, latest),
+                () -> {
+                    due.setDueAmount(BigDecimal.ZERO);
+                    due.setLastLedgerId(null);
+                });
+    }
+}
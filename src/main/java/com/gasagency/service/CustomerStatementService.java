@@ -0,0 +1,198 @@
+package com.gasagency.service;
+
+import com.gasagency.dto.CustomerBalanceDTO;
+import com.gasagency.dto.CustomerPositionDTO;
+import com.gasagency.dto.CustomerStatementDTO;
+import com.gasagency.entity.Customer;
+import com.gasagency.entity.CylinderVariant;
+import com.gasagency.exception.InvalidOperationException;
+import com.gasagency.exception.ResourceNotFoundException;
+import com.gasagency.repository.CustomerRepository;
+import com.gasagency.repository.CylinderVariantRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Point-in-time positions and period statements of a customer's ledger.
+ *
+ * A position at a date starts from the customer's latest checkpoint on or
+ * before it (LedgerCheckpointService) and replays only the entries after
+ * it; a statement adds the period's entries with running balances computed
+ * by window functions. Both read the customer's rows through
+ * idx_ccl_customer_date_id (V9), so the cost follows the period length and
+ * the distance to the last checkpoint, not the length of the history.
+ *
+ * Archiving a month (LedgerArchiveService) leaves a checkpoint at its
+ * period_end, which every later position starts from; positions before it
+ * are no longer available.
+ */
+@Service
+public class CustomerStatementService {
+
+    private static final String REPLAY_SQL = "SELECT variant_id, filled_out, empty_in, total_amount, "
+            + "amount_received FROM customer_cylinder_ledger WHERE customer_id = ? AND transaction_date <= ?%s "
+            + "ORDER BY transaction_date, id";
+    // The running due never goes below zero (an overpayment is not carried):
+    // due_n = s_n - min(0, min s_k) with s_k the opening due plus the period's
+    // billed minus received up to entry k, the closed form of
+    // due_n = max(0, due_n-1 + billed - received)
+    private static final String STATEMENT_SQL = "SELECT s.*, "
+            + "? + s.due_change - LEAST(0, MIN(? + s.due_change) OVER (ORDER BY s.transaction_date, s.id "
+            + "ROWS UNBOUNDED PRECEDING)) AS running_due FROM ("
+            + "SELECT l.id, l.transaction_date, l.ref_type, l.ref_id, l.transaction_reference, l.variant_id, "
+            + "v.name AS variant_name, l.filled_out, l.empty_in, l.total_amount, l.amount_received, l.payment_mode, "
+            + "SUM(l.filled_out - l.empty_in) OVER (PARTITION BY l.variant_id ORDER BY l.transaction_date, l.id "
+            + "ROWS UNBOUNDED PRECEDING) AS balance_change, "
+            + "SUM(COALESCE(l.total_amount, 0) - COALESCE(l.amount_received, 0)) "
+            + "OVER (ORDER BY l.transaction_date, l.id ROWS UNBOUNDED PRECEDING) AS due_change "
+            + "FROM customer_cylinder_ledger l LEFT JOIN cylinder_variant v ON v.id = l.variant_id "
+            + "WHERE l.customer_id = ? AND l.transaction_date >= ? AND l.transaction_date <= ?) s "
+            + "ORDER BY s.transaction_date, s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerCheckpointService checkpointService;
+    private final CustomerRepository customerRepository;
+    private final CylinderVariantRepository variantRepository;
+    private final LedgerArchiveService archiveService;
+
+    public CustomerStatementService(JdbcTemplate jdbcTemplate, LedgerCheckpointService checkpointService,
+            CustomerRepository customerRepository, CylinderVariantRepository variantRepository,
+            LedgerArchiveService archiveService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointService = checkpointService;
+        this.archiveService = archiveService;
+        this.customerRepository = customerRepository;
+        this.variantRepository = variantRepository;
+    }
+
+    /**
+     * Cylinders held per variant and amount due by the customer at the end of
+     * the given date.
+     */
+    @Transactional(readOnly = true)
+    public CustomerPositionDTO getPositionAsOf(Long customerId, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        Customer customer = findCustomer(customerId);
+        assertNotArchived(date);
+        Position position = positionAsOf(customerId, date);
+        return toDTO(customer, date, position);
+    }
+
+    /**
+     * Statement of the customer for fromDate..toDate (inclusive).
+     */
+    @Transactional(readOnly = true)
+    public CustomerStatementDTO getStatement(Long customerId, LocalDate fromDate, LocalDate toDate) {
+        if (fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("From and to dates are required");
+        }
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("From date cannot be after to date");
+        }
+        Customer customer = findCustomer(customerId);
+        LocalDate openingDate = fromDate.minusDays(1);
+        assertNotArchived(openingDate);
+        Position opening = positionAsOf(customerId, openingDate);
+
+        Position closing = new Position(new TreeMap<>(opening.balances()), opening.dueAmount());
+        List<CustomerStatementDTO.Entry> entries = new ArrayList<>();
+        jdbcTemplate.query(STATEMENT_SQL, (RowCallbackHandler) rs -> {
+            CustomerStatementDTO.Entry entry = new CustomerStatementDTO.Entry();
+            entry.setId(rs.getLong("id"));
+            entry.setTransactionDate(rs.getObject("transaction_date", LocalDate.class));
+            entry.setRefType(rs.getString("ref_type"));
+            entry.setRefId(rs.getObject("ref_id", Long.class));
+            entry.setTransactionReference(rs.getString("transaction_reference"));
+            entry.setVariantId(rs.getObject("variant_id", Long.class));
+            entry.setVariantName(rs.getString("variant_name"));
+            entry.setFilledOut(rs.getLong("filled_out"));
+            entry.setEmptyIn(rs.getLong("empty_in"));
+            entry.setTotalAmount(rs.getBigDecimal("total_amount"));
+            entry.setAmountReceived(rs.getBigDecimal("amount_received"));
+            entry.setPaymentMode(rs.getString("payment_mode"));
+            entry.setRunningDue(rs.getBigDecimal("running_due"));
+            if (entry.getVariantId() != null) {
+                entry.setRunningBalance(opening.balance(entry.getVariantId()) + rs.getLong("balance_change"));
+                closing.balances().put(entry.getVariantId(), entry.getRunningBalance());
+            }
+            entries.add(entry);
+        }, opening.dueAmount(), opening.dueAmount(), customerId, fromDate, toDate);
+
+        BigDecimal closingDue = entries.isEmpty() ? opening.dueAmount()
+                : entries.get(entries.size() - 1).getRunningDue();
+        return new CustomerStatementDTO(customer.getId(), customer.getName(), fromDate, toDate,
+                toDTO(customer, openingDate, opening), entries,
+                toDTO(customer, toDate, new Position(closing.balances(), closingDue)));
+    }
+
+    private record Position(Map<Long, Long> balances, BigDecimal dueAmount) {
+
+        long balance(Long variantId) {
+            return balances.getOrDefault(variantId, 0L);
+        }
+    }
+
+    /**
+     * The latest checkpoint on or before the date plus a replay of the
+     * entries after it up to the date.
+     */
+    private Position positionAsOf(Long customerId, LocalDate date) {
+        LedgerCheckpointService.Checkpoint checkpoint = checkpointService
+                .findBefore(customerId, date.plusDays(1)).orElse(null);
+        Map<Long, Long> balances = new TreeMap<>();
+        BigDecimal[] due = { BigDecimal.ZERO };
+        if (checkpoint != null) {
+            balances.putAll(checkpoint.balances());
+            due[0] = checkpoint.dueAmount();
+        }
+        String sql = String.format(REPLAY_SQL, checkpoint != null ? " AND transaction_date > ?" : "");
+        Object[] args = checkpoint != null ? new Object[] { customerId, date, checkpoint.asOfDate() }
+                : new Object[] { customerId, date };
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            BigDecimal total = rs.getBigDecimal("total_amount");
+            BigDecimal received = rs.getBigDecimal("amount_received");
+            due[0] = due[0].add(total != null ? total : BigDecimal.ZERO)
+                    .subtract(received != null ? received : BigDecimal.ZERO).max(BigDecimal.ZERO);
+            long variantId = rs.getLong("variant_id");
+            if (!rs.wasNull()) {
+                balances.merge(variantId, rs.getLong("filled_out") - rs.getLong("empty_in"), Long::sum);
+            }
+        }, args);
+        return new Position(balances, due[0]);
+    }
+
+    // Before the latest archive's checkpoint there is nothing to start from
+    private void assertNotArchived(LocalDate date) {
+        archiveService.findArchivedUntil().ifPresent(archivedUntil -> {
+            if (date.isBefore(archivedUntil)) {
+                throw new InvalidOperationException("Ledger history before " + archivedUntil + " is archived");
+            }
+        });
+    }
+
+    private Customer findCustomer(Long customerId) {
+        return customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+    }
+
+    private CustomerPositionDTO toDTO(Customer customer, LocalDate date, Position position) {
+        Map<Long, String> variantNames = variantRepository.findAllById(position.balances().keySet()).stream()
+                .collect(Collectors.toMap(CylinderVariant::getId, CylinderVariant::getName));
+        List<CustomerBalanceDTO.VariantBalance> balances = new ArrayList<>();
+        position.balances().forEach((variantId, balance) -> balances.add(
+                new CustomerBalanceDTO.VariantBalance(variantId, variantNames.get(variantId), balance)));
+        return new CustomerPositionDTO(customer.getId(), customer.getName(), date, position.dueAmount(), balances);
+    }
+}
@@ -8,6 +8,7 @@ import com.gasagency.entity.Customer;
 import com.gasagency.entity.CustomerCylinderLedger;
 import com.gasagency.entity.AlertNotification;
 import com.gasagency.repository.*;
+import com.gasagency.config.SingleFlight;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -77,6 +78,7 @@ public class DashboardService {
      * Cache: 2 minutes (real-time dashboard with acceptable freshness)
      */
     @Cacheable(value = "dashboardCache", key = "'summary_' + #year + '_' + #month", unless = "#result == null")
+    @SingleFlight
     public DashboardSummaryDTO getDashboardSummary(Integer year, Integer month) {
         DashboardSummaryDTO dto = new DashboardSummaryDTO();
 
@@ -1,11 +1,14 @@
 package com.gasagency.service;
 
+import com.gasagency.dto.CursorPageDTO;
 import com.gasagency.dto.ExpenseDTO;
 import com.gasagency.dto.ExpenseSummaryDTO;
 import com.gasagency.entity.Expense;
 import com.gasagency.entity.ExpenseCategory;
 import com.gasagency.repository.ExpenseRepository;
 import com.gasagency.repository.ExpenseCategoryRepository;
+import com.gasagency.util.KeysetCursor;
+import com.gasagency.config.SingleFlight;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -26,12 +29,14 @@ public class ExpenseService {
         private final ExpenseRepository repository;
         private final ExpenseCategoryRepository categoryRepository;
         private final ModelMapper modelMapper;
+        private final PageCountService pageCountService;
 
         public ExpenseService(ExpenseRepository repository, ExpenseCategoryRepository categoryRepository,
-                        ModelMapper modelMapper) {
+                        ModelMapper modelMapper, PageCountService pageCountService) {
                 this.repository = repository;
                 this.categoryRepository = categoryRepository;
                 this.modelMapper = modelMapper;
+                this.pageCountService = pageCountService;
         }
 
         @Transactional(readOnly = true)
@@ -44,6 +49,18 @@ public class ExpenseService {
                                 .map(this::convertToDTO);
         }
 
+        @Transactional(readOnly = true)
+        public CursorPageDTO<ExpenseDTO> getAllExpenses(String cursor, int size, boolean includeTotal) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                Pageable limit = PageRequest.of(0, size + 1);
+                List<Expense> rows = after == null
+                                ? repository.findKeysetFirstPage(limit)
+                                : repository.findKeysetPageAfter(after.keyAsDate(), after.getId(), limit);
+                Long total = includeTotal ? pageCountService.count("expenses", repository::count) : null;
+                return CursorPageDTO.fromFetched(rows, size,
+                                e -> KeysetCursor.of(e.getExpenseDate(), e.getId()), this::convertToDTO, total);
+        }
+
         @Transactional(readOnly = true)
         public Page<ExpenseDTO> getExpensesByDateRange(LocalDate fromDate, LocalDate toDate, Pageable pageable) {
                 Pageable pageableWithSort = PageRequest.of(
@@ -115,6 +132,7 @@ public class ExpenseService {
         }
 
         @Transactional(readOnly = true)
+        @SingleFlight
         public ExpenseSummaryDTO getExpensesSummary(LocalDate fromDate, LocalDate toDate, Long categoryId) {
                 List<Expense> expenses;
 
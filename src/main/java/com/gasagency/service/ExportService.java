@@ -0,0 +1,330 @@
+package com.gasagency.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasagency.config.WorkloadClass;
+import com.gasagency.config.WorkloadContext;
+import com.gasagency.entity.BankAccount;
+import com.gasagency.entity.BankAccountLedger;
+import com.gasagency.entity.CustomerCylinderLedger;
+import com.gasagency.entity.Expense;
+import com.gasagency.entity.Sale;
+import com.gasagency.entity.SaleItem;
+import com.gasagency.entity.SupplierTransaction;
+import com.gasagency.repository.BankAccountLedgerRepository;
+import com.gasagency.repository.CustomerCylinderLedgerRepository;
+import com.gasagency.repository.ExpenseRepository;
+import com.gasagency.repository.SaleItemRepository;
+import com.gasagency.repository.SupplierTransactionRepository;
+import com.gasagency.util.AuditLogger;
+import com.gasagency.util.LoggerUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streaming CSV / NDJSON exports.
+ *
+ * Rows are read through a JPA Stream (JDBC fetch size 500) inside a read-only
+ * transaction opened on the response thread, written straight to the servlet
+ * output stream, and the persistence context is cleared every
+ * {@link #CLEAR_INTERVAL} rows. Heap use stays flat regardless of row count.
+ */
+@Service
+public class ExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String contentDisposition(String baseName) {
+            return "attachment; filename=\"" + baseName + "-" + LocalDate.now() + "." + extension + "\"";
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + " (use csv or ndjson)");
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final AuditLogger auditLogger;
+    private final CustomerCylinderLedgerRepository ledgerRepository;
+    private final SaleItemRepository saleItemRepository;
+    private final BankAccountLedgerRepository bankAccountLedgerRepository;
+    private final ExpenseRepository expenseRepository;
+    private final SupplierTransactionRepository supplierTransactionRepository;
+
+    public ExportService(PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            AuditLogger auditLogger,
+            CustomerCylinderLedgerRepository ledgerRepository,
+            SaleItemRepository saleItemRepository,
+            BankAccountLedgerRepository bankAccountLedgerRepository,
+            ExpenseRepository expenseRepository,
+            SupplierTransactionRepository supplierTransactionRepository) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.auditLogger = auditLogger;
+        this.ledgerRepository = ledgerRepository;
+        this.saleItemRepository = saleItemRepository;
+        this.bankAccountLedgerRepository = bankAccountLedgerRepository;
+        this.expenseRepository = expenseRepository;
+        this.supplierTransactionRepository = supplierTransactionRepository;
+    }
+
+    public StreamingResponseBody exportLedger(Long customerId, Format format) {
+        List<String> columns = Arrays.asList("id", "transactionDate", "customerId", "customerName", "variant",
+                "warehouse", "refType", "refId", "filledOut", "emptyIn", "balance", "totalAmount",
+                "amountReceived", "dueAmount", "paymentMode", "bankAccount", "transactionReference");
+        return export("LEDGER", format, columns, () -> ledgerRepository.streamForExport(customerId),
+                (CustomerCylinderLedger l) -> Arrays.asList(
+                        l.getId(),
+                        l.getTransactionDate(),
+                        l.getCustomer().getId(),
+                        l.getCustomer().getName(),
+                        l.getVariant() != null ? l.getVariant().getName() : null,
+                        l.getWarehouse() != null ? l.getWarehouse().getName() : null,
+                        l.getRefType(),
+                        l.getRefId(),
+                        l.getFilledOut(),
+                        l.getEmptyIn(),
+                        l.getBalance(),
+                        l.getTotalAmount(),
+                        l.getAmountReceived(),
+                        l.getDueAmount(),
+                        l.getPaymentMode(),
+                        bankAccountName(l.getBankAccount()),
+                        l.getTransactionReference()));
+    }
+
+    /**
+     * One row per sale line; sale level columns repeat on each line.
+     */
+    public StreamingResponseBody exportSales(LocalDate fromDate, LocalDate toDate, Format format) {
+        List<String> columns = Arrays.asList("saleId", "referenceNumber", "saleDate", "customerId",
+                "customerName", "warehouse", "paymentMode", "bankAccount", "saleTotal", "itemId", "variant",
+                "qtyIssued", "qtyEmptyReceived", "basePrice", "discount", "finalPrice");
+        return export("SALES", format, columns,
+                () -> saleItemRepository.streamForExport(orMin(fromDate), orMax(toDate)),
+                (SaleItem item) -> {
+                    Sale sale = item.getSale();
+                    return Arrays.asList(
+                            sale.getId(),
+                            sale.getReferenceNumber(),
+                            sale.getSaleDate(),
+                            sale.getCustomer().getId(),
+                            sale.getCustomer().getName(),
+                            sale.getWarehouse().getName(),
+                            sale.getPaymentMode(),
+                            bankAccountName(sale.getBankAccount()),
+                            sale.getTotalAmount(),
+                            item.getId(),
+                            item.getVariant().getName(),
+                            item.getQtyIssued(),
+                            item.getQtyEmptyReceived(),
+                            item.getBasePrice(),
+                            item.getDiscount(),
+                            item.getFinalPrice());
+                });
+    }
+
+    public StreamingResponseBody exportBankLedger(Long bankAccountId, LocalDate fromDate, LocalDate toDate,
+            Format format) {
+        List<String> columns = Arrays.asList("id", "transactionDate", "bankAccount", "transactionType", "amount",
+                "balanceAfter", "referenceNumber", "description");
+        return export("BANK_LEDGER", format, columns,
+                () -> bankAccountLedgerRepository.streamForExport(bankAccountId,
+                        orMin(fromDate).atStartOfDay(), orMax(toDate).atTime(23, 59, 59)),
+                (BankAccountLedger b) -> Arrays.asList(
+                        b.getId(),
+                        b.getTransactionDate(),
+                        bankAccountName(b.getBankAccount()),
+                        b.getTransactionType(),
+                        b.getAmount(),
+                        b.getBalanceAfter(),
+                        b.getReferenceNumber(),
+                        b.getDescription()));
+    }
+
+    public StreamingResponseBody exportExpenses(LocalDate fromDate, LocalDate toDate, Format format) {
+        List<String> columns = Arrays.asList("id", "expenseDate", "category", "description", "amount", "notes");
+        return export("EXPENSES", format, columns,
+                () -> expenseRepository.streamForExport(orMin(fromDate), orMax(toDate)),
+                (Expense e) -> Arrays.asList(
+                        e.getId(),
+                        e.getExpenseDate(),
+                        e.getCategory().getName(),
+                        e.getDescription(),
+                        e.getAmount(),
+                        e.getNotes()));
+    }
+
+    public StreamingResponseBody exportSupplierTransactions(LocalDate fromDate, LocalDate toDate, Format format) {
+        List<String> columns = Arrays.asList("id", "transactionDate", "reference", "supplier", "warehouse",
+                "variant", "filledReceived", "emptySent", "amount");
+        return export("SUPPLIER_TRANSACTIONS", format, columns,
+                () -> supplierTransactionRepository.streamForExport(orMin(fromDate), orMax(toDate)),
+                (SupplierTransaction t) -> Arrays.asList(
+                        t.getId(),
+                        t.getTransactionDate(),
+                        t.getReference(),
+                        t.getSupplier().getName(),
+                        t.getWarehouse().getName(),
+                        t.getVariant().getName(),
+                        t.getFilledReceived(),
+                        t.getEmptySent(),
+                        t.getAmount()));
+    }
+
+    private <T> StreamingResponseBody export(String exportType, Format format, List<String> columns,
+            Supplier<Stream<T>> source, Function<T, List<Object>> toRow) {
+        // Resolve the user and workload class now; the body runs later on an async response thread
+        String exportedBy = currentUsername();
+        WorkloadClass workloadClass = WorkloadContext.current();
+        return outputStream -> {
+            WorkloadContext.bind(workloadClass);
+            try {
+                writeExport(exportType, format, columns, source, toRow, exportedBy, outputStream);
+            } finally {
+                WorkloadContext.clear();
+            }
+        };
+    }
+
+    private <T> void writeExport(String exportType, Format format, List<String> columns,
+            Supplier<Stream<T>> source, Function<T, List<Object>> toRow, String exportedBy,
+            OutputStream outputStream) {
+        long startTime = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        Long written = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<T> rows = source.get()) {
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, columns);
+                }
+                for (T entity : (Iterable<T>) rows::iterator) {
+                    List<Object> values = toRow.apply(entity);
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, values);
+                    } else {
+                        writeJsonLine(writer, columns, values);
+                    }
+                    if (++count % CLEAR_INTERVAL == 0) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Client disconnected mid-download
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        auditLogger.logDataExported(exportType, written, exportedBy);
+        LoggerUtil.logPerformance("EXPORT_" + exportType, System.currentTimeMillis() - startTime, "SUCCESS",
+                "records", written, "format", format);
+    }
+
+    private void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvCell(values.get(i)));
+        }
+        writer.write('\n');
+    }
+
+    private void writeJsonLine(Writer writer, List<String> columns, List<Object> values) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), values.get(i));
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private String csvCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Neutralise spreadsheet formulas in free-text columns
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private String bankAccountName(BankAccount bankAccount) {
+        return bankAccount != null ? bankAccount.getBankName() + " - " + bankAccount.getAccountNumber() : null;
+    }
+
+    private LocalDate orMin(LocalDate date) {
+        return date != null ? date : MIN_DATE;
+    }
+
+    private LocalDate orMax(LocalDate date) {
+        return date != null ? date : MAX_DATE;
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "SYSTEM";
+    }
+}
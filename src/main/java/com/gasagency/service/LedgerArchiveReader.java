@@ -0,0 +1,177 @@
+package com.gasagency.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gasagency.dto.CustomerCylinderLedgerDTO;
+import com.gasagency.entity.Customer;
+import com.gasagency.entity.CylinderVariant;
+import com.gasagency.exception.ResourceNotFoundException;
+import com.gasagency.repository.CustomerRepository;
+import com.gasagency.repository.CylinderVariantRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only access to ledger months archived by LedgerArchiveService.
+ *
+ * A read streams the month's file through a FileChannel, keeps the rows of
+ * the requested customer (and variant) and checks the file's SHA-256 against
+ * ledger_archive before returning them. Nothing is loaded back into the
+ * database.
+ */
+@Service
+public class LedgerArchiveReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerArchiveService archiveService;
+    private final CustomerRepository customerRepository;
+    private final CylinderVariantRepository variantRepository;
+    private final ObjectReader rowReader;
+
+    public LedgerArchiveReader(JdbcTemplate jdbcTemplate, LedgerArchiveService archiveService,
+            CustomerRepository customerRepository, CylinderVariantRepository variantRepository,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveService = archiveService;
+        this.customerRepository = customerRepository;
+        this.variantRepository = variantRepository;
+        // Amounts come back as BigDecimal with their scale, not as doubles
+        this.rowReader = objectMapper.readerFor(Map.class)
+                .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    public List<Map<String, Object>> listArchives() {
+        return archiveService.listArchives();
+    }
+
+    /**
+     * Entries of an archived month in id order, for one customer or (when
+     * customerId is null) everyone, optionally narrowed to one variant.
+     */
+    public List<CustomerCylinderLedgerDTO> read(YearMonth month, Long customerId, Long variantId) {
+        List<Map<String, Object>> archive = jdbcTemplate.queryForList(
+                "SELECT file_name, sha256 FROM ledger_archive WHERE period_start = ?", month.atDay(1));
+        if (archive.isEmpty()) {
+            throw new ResourceNotFoundException("No archived ledger for " + month);
+        }
+        Path file = archiveService.getDirectory().resolve((String) archive.get(0).get("file_name"));
+        String expectedSha256 = (String) archive.get(0).get("sha256");
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        MessageDigest digest = LedgerArchiveService.sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DigestInputStream raw = new DigestInputStream(Channels.newInputStream(channel), digest);
+            InputStream gzip = new GZIPInputStream(raw, BUFFER_SIZE);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(gzip, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Map<String, Object> row = rowReader.readValue(line);
+                if ((customerId == null || customerId.equals(asLong(row.get("customer_id"))))
+                        && (variantId == null || variantId.equals(asLong(row.get("variant_id"))))) {
+                    rows.add(row);
+                }
+            }
+            // Whatever the gzip reader left unread still counts for the checksum
+            raw.transferTo(OutputStream.nullOutputStream());
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Archive file for " + month + " is missing: " + file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ledger archive " + file, e);
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equals(expectedSha256)) {
+            throw new IllegalStateException("Ledger archive " + file + " does not match its checksum");
+        }
+        return toDTOs(rows);
+    }
+
+    private List<CustomerCylinderLedgerDTO> toDTOs(List<Map<String, Object>> rows) {
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> variantIds = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            customerIds.add(asLong(row.get("customer_id")));
+            Long variantId = asLong(row.get("variant_id"));
+            if (variantId != null) {
+                variantIds.add(variantId);
+            }
+        }
+        Map<Long, String> customerNames = customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Customer::getName));
+        Map<Long, String> variantNames = variantRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(CylinderVariant::getId, CylinderVariant::getName));
+
+        List<CustomerCylinderLedgerDTO> entries = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Long customerId = asLong(row.get("customer_id"));
+            Long variantId = asLong(row.get("variant_id"));
+            CustomerCylinderLedgerDTO dto = new CustomerCylinderLedgerDTO(
+                    asLong(row.get("id")),
+                    customerId,
+                    customerNames.get(customerId),
+                    variantId,
+                    variantId != null ? variantNames.get(variantId) : null,
+                    convert(row.get("transaction_date"), LocalDate::parse),
+                    (String) row.get("ref_type"),
+                    asLong(row.get("ref_id")),
+                    asLong(row.get("filled_out")),
+                    asLong(row.get("empty_in")),
+                    asLong(row.get("balance")));
+            dto.setCreatedAt(convert(row.get("created_date"), LocalDateTime::parse));
+            dto.setUpdatedDate(convert(row.get("updated_date"), LocalDateTime::parse));
+            dto.setTotalAmount(asBigDecimal(row.get("total_amount")));
+            dto.setAmountReceived(asBigDecimal(row.get("amount_received")));
+            dto.setDueAmount(asBigDecimal(row.get("due_amount")));
+            dto.setPaymentMode((String) row.get("payment_mode"));
+            dto.setBankAccountId(asLong(row.get("bank_account_id")));
+            dto.setTransactionReference((String) row.get("transaction_reference"));
+            dto.setUpdateReason((String) row.get("update_reason"));
+            entries.add(dto);
+        }
+        return entries;
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static BigDecimal asBigDecimal(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return value instanceof Number number ? BigDecimal.valueOf(number.longValue()) : null;
+    }
+
+    private static <T> T convert(Object value, Function<String, T> parser) {
+        return value instanceof String text ? parser.apply(text) : null;
+    }
+}
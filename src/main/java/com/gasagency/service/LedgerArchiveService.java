@@ -0,0 +1,339 @@
+package com.gasagency.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasagency.config.LeaderOnly;
+import com.gasagency.exception.InvalidOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold archive of old ledger months (Postgres, on partitioned ledgers only).
+ *
+ * A monthly partition that ended more than app.ledger.archive.horizon-months
+ * ago is written to {directory}/customer_cylinder_ledger_YYYY_MM.jsonl.gz (one
+ * JSON object per row, gzip, written through a FileChannel and forced to
+ * disk), recorded in ledger_archive with its row count and SHA-256, then
+ * detached and dropped. Months go oldest first, one transaction each;
+ * LedgerArchiveReader serves them back.
+ *
+ * Balances survive the drop: for each customer and variant whose last row is
+ * in the archived month, an INITIAL_STOCK row dated the first day of the next
+ * month brings the balance forward (and, for a customer with no later rows,
+ * the due), the same shape CustomerService writes for a new customer's
+ * opening stock. Every customer is then checkpointed at that date from the
+ * stored chain (LedgerCheckpointService), so replays start from the state at
+ * the end of the month instead of the first row left. Ledger writes and edits
+ * dated on or before that date are rejected, and positions before it are not
+ * available. Ledger totals only cover the rows still in the database.
+ */
+@Service
+public class LedgerArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerArchiveService.class);
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Latest row in chain order (transaction_date, id) per customer and
+    // variant in the archived month, kept when the key has no later rows. The
+    // due is the customer's stored due at the brought-forward row's place in
+    // the chain (its latest row dated on or before the period end); it is
+    // billed on the customer's latest key when the customer has no later rows
+    private static final String CARRY_FORWARD_SQL = "WITH last_rows AS ("
+            + "SELECT DISTINCT ON (customer_id, variant_id) id, customer_id, variant_id, transaction_date, balance "
+            + "FROM %s WHERE variant_id IS NOT NULL "
+            + "ORDER BY customer_id, variant_id, transaction_date DESC, id DESC), "
+            + "open_keys AS (SELECT r.*, "
+            + "ROW_NUMBER() OVER (PARTITION BY r.customer_id ORDER BY r.transaction_date DESC, r.id DESC) "
+            + "AS customer_rank, "
+            + "NOT EXISTS (SELECT 1 FROM customer_cylinder_ledger l WHERE l.customer_id = r.customer_id "
+            + "AND l.transaction_date >= ?) AS customer_closed "
+            + "FROM last_rows r WHERE NOT EXISTS (SELECT 1 FROM customer_cylinder_ledger l "
+            + "WHERE l.customer_id = r.customer_id AND l.variant_id = r.variant_id AND l.transaction_date >= ?)) "
+            + "INSERT INTO customer_cylinder_ledger (version, customer_id, variant_id, transaction_date, ref_type, "
+            + "filled_out, empty_in, balance, total_amount, amount_received, due_amount, update_reason, "
+            + "created_date, updated_date) "
+            + "SELECT 0, k.customer_id, k.variant_id, ?, 'INITIAL_STOCK', k.balance, 0, k.balance, "
+            + "CASE WHEN k.customer_closed AND k.customer_rank = 1 THEN d.due_amount ELSE 0 END, "
+            + "0, d.due_amount, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+            + "FROM open_keys k CROSS JOIN LATERAL (SELECT COALESCE((SELECT l.due_amount "
+            + "FROM customer_cylinder_ledger l WHERE l.customer_id = k.customer_id AND l.transaction_date <= ? "
+            + "ORDER BY l.transaction_date DESC, l.id DESC LIMIT 1), 0) AS due_amount) d "
+            + "WHERE k.balance <> 0 OR (k.customer_closed AND k.customer_rank = 1 AND d.due_amount <> 0) "
+            + "ORDER BY k.id";
+    private static final String RECORD_SQL = "INSERT INTO ledger_archive (period_start, period_end, file_name, "
+            + "row_count, min_ledger_id, max_ledger_id, carried_forward, sha256, archived_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate exportTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerPartitionService partitionService;
+    private final LedgerCheckpointService checkpointService;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+    private final int horizonMonths;
+    private final Path directory;
+
+    public LedgerArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            LedgerPartitionService partitionService, LedgerCheckpointService checkpointService,
+            ObjectMapper objectMapper, CacheManager cacheManager,
+            @Value("${app.ledger.archive.enabled:false}") boolean enabled,
+            @Value("${app.ledger.archive.horizon-months:36}") int horizonMonths,
+            @Value("${app.ledger.archive.directory:archive/ledger}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionService = partitionService;
+        this.checkpointService = checkpointService;
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.horizonMonths = horizonMonths;
+        this.directory = Paths.get(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public static String fileName(YearMonth month) {
+        return LedgerPartitionService.partitionName(month) + ".jsonl.gz";
+    }
+
+    /**
+     * Archive expired months (daily when app.ledger.archive.enabled, on the
+     * scheduler leader only).
+     */
+    @Scheduled(cron = "${app.ledger.archive.cron:0 30 2 * * *}")
+    @LeaderOnly
+    public void archiveExpiredPartitions() {
+        if (enabled && partitionService.isPartitioned()) {
+            archiveExpired();
+        }
+    }
+
+    /**
+     * Archive every monthly partition older than the horizon, oldest first;
+     * stops at the first month that fails.
+     *
+     * @return archived months with their row counts
+     */
+    public Map<String, Long> archiveExpired() {
+        if (!partitionService.isPartitioned()) {
+            throw new InvalidOperationException(LedgerPartitionService.PARENT_TABLE
+                    + " is not partitioned on this database");
+        }
+        YearMonth horizon = YearMonth.now().minusMonths(horizonMonths);
+        Map<String, Long> archived = new LinkedHashMap<>();
+        for (YearMonth month : partitionService.listMonthlyPartitions()) {
+            if (!month.isBefore(horizon)) {
+                break;
+            }
+            try {
+                archived.put(month.toString(), archive(month));
+            } catch (RuntimeException e) {
+                logger.error("LEDGER_ARCHIVE_FAILED | month={} | error={}", month, e.getMessage(), e);
+                break;
+            }
+        }
+        if (!archived.isEmpty()) {
+            // Summaries include ledger totals, which just lost the archived rows
+            Cache summaries = cacheManager.getCache(CustomerCylinderLedgerService.LEDGER_SUMMARY_CACHE);
+            if (summaries != null) {
+                summaries.clear();
+            }
+        }
+        return archived;
+    }
+
+    private long archive(YearMonth month) {
+        LocalDate oldestUnsplit = partitionService.oldestDateInDefault();
+        if (oldestUnsplit != null && YearMonth.from(oldestUnsplit).isBefore(month.plusMonths(1))) {
+            throw new InvalidOperationException("The default ledger partition still holds rows from "
+                    + oldestUnsplit + "; run the partition migration first");
+        }
+        Long rows = transactionTemplate.execute(status -> archiveInTransaction(month));
+        return rows != null ? rows : 0;
+    }
+
+    private long archiveInTransaction(YearMonth month) {
+        String partition = LedgerPartitionService.partitionName(month);
+        LocalDate periodStart = month.atDay(1);
+        LocalDate periodEnd = month.plusMonths(1).atDay(1);
+
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+        // A write into the month that is already running either ends before
+        // this lock or waits on it and is then aborted as a deadlock with the
+        // detach below (one of the two is rolled back, nothing is lost). Once
+        // this commits, the month's partition is gone and a new write dated in
+        // it would be routed to the default partition: the ledger rejects
+        // those against ledger_archive.period_end (assertNotArchived)
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN EXCLUSIVE MODE");
+
+        Path file = directory.resolve(fileName(month));
+        ExportResult export = export(partition, file);
+
+        int carried = jdbcTemplate.update(String.format(CARRY_FORWARD_SQL, partition), periodEnd, periodEnd,
+                periodEnd, "Balance brought forward from archived ledger " + month, periodEnd);
+        // Covers the brought-forward rows; replays from an older checkpoint would
+        // count them twice
+        int checkpointed = checkpointService.checkpointFromStoredChain(periodEnd);
+        checkpointService.deleteBefore(periodEnd);
+        jdbcTemplate.update(RECORD_SQL, periodStart, periodEnd, file.getFileName().toString(), export.rows(),
+                export.minId(), export.maxId(), carried, export.sha256(), LocalDateTime.now());
+
+        // Last, so the ACCESS EXCLUSIVE lock on the whole ledger is held only
+        // until the commit right after
+        jdbcTemplate.execute("ALTER TABLE " + LedgerPartitionService.PARENT_TABLE + " DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+
+        logger.info("LEDGER_ARCHIVED | month={} | rows={} | carriedForward={} | checkpoints={} | file={}", month,
+                export.rows(), carried, checkpointed, file);
+        return export.rows();
+    }
+
+    /**
+     * Write the partition's rows, in id order, to a gzip file of JSON lines.
+     * The file is written next to its final name and moved into place once
+     * forced to disk, so a crash never leaves a truncated archive under the
+     * real name; a rolled-back transaction leaves a complete file without a
+     * ledger_archive row, which the next run overwrites.
+     */
+    private ExportResult export(String partition, Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".part");
+        MessageDigest digest = sha256();
+        long[] rows = { 0 };
+        Long[] idRange = { null, null };
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel),
+                        BUFFER_SIZE);
+                GZIPOutputStream gzip = new GZIPOutputStream(new DigestOutputStream(buffered, digest), BUFFER_SIZE);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+                exportTemplate.query("SELECT * FROM " + partition + " ORDER BY id", (RowCallbackHandler) rs -> {
+                    Map<String, Object> row = toRow(rs);
+                    try {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    long id = rs.getLong("id");
+                    idRange[0] = idRange[0] == null ? id : idRange[0];
+                    idRange[1] = id;
+                    rows[0]++;
+                });
+                // Streams are not closed: closing them closes the channel before the force
+                writer.flush();
+                gzip.finish();
+                buffered.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write ledger archive " + file, e);
+        }
+        return new ExportResult(rows[0], idRange[0], idRange[1], HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // Column name to JSON value; dates and timestamps as ISO strings
+    private static Map<String, Object> toRow(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            Object value = rs.getObject(i);
+            if (value instanceof java.sql.Date date) {
+                value = date.toLocalDate().toString();
+            } else if (value instanceof Timestamp timestamp) {
+                value = timestamp.toLocalDateTime().toString();
+            }
+            row.put(meta.getColumnLabel(i).toLowerCase(java.util.Locale.ROOT), value);
+        }
+        return row;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The latest archived month's period_end, the date of its brought-forward
+     * rows and checkpoint, or empty when nothing is archived.
+     */
+    public Optional<LocalDate> findArchivedUntil() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT MAX(period_end) FROM ledger_archive",
+                LocalDate.class));
+    }
+
+    /**
+     * Reject a ledger write or edit dated in an archived month or on its
+     * period_end. The month's rows are in the archive file, and a new row
+     * would land in the default partition behind the balances brought forward
+     * from it; the checkpoint at period_end covers that day.
+     */
+    public void assertNotArchived(LocalDate transactionDate) {
+        findArchivedUntil().ifPresent(archivedUntil -> {
+            if (!transactionDate.isAfter(archivedUntil)) {
+                throw new InvalidOperationException("Ledger entries dated on or before " + archivedUntil
+                        + " are archived and can no longer be added or changed");
+            }
+        });
+    }
+
+    public List<Map<String, Object>> listArchives() {
+        return jdbcTemplate.queryForList("SELECT period_start, period_end, file_name, row_count, min_ledger_id, "
+                + "max_ledger_id, carried_forward, sha256, archived_at FROM ledger_archive ORDER BY period_start DESC");
+    }
+
+    private record ExportResult(long rows, Long minId, Long maxId, String sha256) {
+    }
+}
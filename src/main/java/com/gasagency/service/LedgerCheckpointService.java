@@ -0,0 +1,276 @@
+package com.gasagency.service;
+
+import com.gasagency.config.LeaderOnly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Opening-balance checkpoints of the customer ledger (table
+ * customer_ledger_checkpoint, V8).
+ *
+ * A checkpoint is a customer's cylinder balance per variant and due amount
+ * after every entry dated on or before its as_of_date, in the (date, id) chain
+ * order edits replay in. Ledger replays (updateLedgerEntry, the balance
+ * repair, CustomerStatementService positions) start from the latest
+ * checkpoint before the entry or date they need and only read the entries
+ * after it.
+ *
+ * compactCheckpoints() checkpoints each customer at the end of every closed
+ * month with entries, replaying only the entries since the customer's
+ * previous checkpoint. A ledger write dated before today calls invalidateFrom() in its
+ * own transaction, so a checkpoint never covers a row written after it.
+ */
+@Service
+public class LedgerCheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerCheckpointService.class);
+
+    private static final String CHECKPOINT_SQL = "SELECT as_of_date, variant_id, balance, due_amount "
+            + "FROM customer_ledger_checkpoint WHERE customer_id = ? AND as_of_date = "
+            + "(SELECT MAX(as_of_date) FROM customer_ledger_checkpoint WHERE customer_id = ?%s)";
+    // Customers with entries dated after their latest checkpoint, up to the cut
+    private static final String PENDING_CUSTOMERS_SQL = "SELECT c.id FROM customer c "
+            + "LEFT JOIN (SELECT customer_id, MAX(as_of_date) AS as_of_date FROM customer_ledger_checkpoint "
+            + "GROUP BY customer_id) k ON k.customer_id = c.id "
+            + "WHERE (k.as_of_date IS NULL OR k.as_of_date < ?) "
+            + "AND EXISTS (SELECT 1 FROM customer_cylinder_ledger l WHERE l.customer_id = c.id "
+            + "AND l.transaction_date <= ? AND (k.as_of_date IS NULL OR l.transaction_date > k.as_of_date)) "
+            + "ORDER BY c.id";
+    private static final String LAST_IDS_SQL = "SELECT variant_id, last_ledger_id "
+            + "FROM customer_ledger_checkpoint WHERE customer_id = ? AND as_of_date = ?";
+    private static final String CHAIN_SQL = "SELECT id, transaction_date, variant_id, filled_out, empty_in, total_amount, "
+            + "amount_received FROM customer_cylinder_ledger WHERE customer_id = ? AND transaction_date <= ?%s "
+            + "ORDER BY transaction_date, id";
+    private static final String INSERT_SQL = "INSERT INTO customer_ledger_checkpoint (customer_id, variant_id, "
+            + "as_of_date, last_ledger_id, balance, due_amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Every customer with entries up to the date or an earlier checkpoint: the
+    // stored balance of each key's chain-latest entry and the stored due of the
+    // customer's, or the earlier checkpoint's for what has no entry up to the
+    // date (Postgres)
+    private static final String FROM_STORED_CHAIN_SQL = "WITH prior AS (SELECT c.customer_id, c.variant_id, "
+            + "c.last_ledger_id, c.balance, c.due_amount FROM customer_ledger_checkpoint c WHERE c.as_of_date = "
+            + "(SELECT MAX(p.as_of_date) FROM customer_ledger_checkpoint p WHERE p.customer_id = c.customer_id "
+            + "AND p.as_of_date < ?)), "
+            + "latest_rows AS (SELECT l.customer_id, l.variant_id, l.id, l.balance, "
+            + "ROW_NUMBER() OVER (PARTITION BY l.customer_id, l.variant_id "
+            + "ORDER BY l.transaction_date DESC, l.id DESC) AS key_rank, "
+            + "FIRST_VALUE(l.due_amount) OVER (PARTITION BY l.customer_id "
+            + "ORDER BY l.transaction_date DESC, l.id DESC) AS due_amount "
+            + "FROM customer_cylinder_ledger l WHERE l.transaction_date <= ?), "
+            + "customer_dues AS (SELECT DISTINCT customer_id, due_amount FROM latest_rows), "
+            + "keys AS (SELECT customer_id, variant_id FROM latest_rows WHERE variant_id IS NOT NULL AND key_rank = 1 "
+            + "UNION SELECT customer_id, variant_id FROM prior) "
+            + "INSERT INTO customer_ledger_checkpoint (customer_id, variant_id, as_of_date, last_ledger_id, balance, "
+            + "due_amount, created_at) "
+            + "SELECT k.customer_id, k.variant_id, ?, COALESCE(r.id, p.last_ledger_id), "
+            + "COALESCE(r.balance, p.balance), COALESCE(d.due_amount, "
+            + "(SELECT MAX(p2.due_amount) FROM prior p2 WHERE p2.customer_id = k.customer_id), 0), "
+            + "CURRENT_TIMESTAMP "
+            + "FROM keys k "
+            + "LEFT JOIN latest_rows r ON r.customer_id = k.customer_id AND r.variant_id = k.variant_id "
+            + "AND r.key_rank = 1 "
+            + "LEFT JOIN prior p ON p.customer_id = k.customer_id AND p.variant_id = k.variant_id "
+            + "LEFT JOIN customer_dues d ON d.customer_id = k.customer_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerDueService customerDueService;
+
+    public LedgerCheckpointService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            CustomerDueService customerDueService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.customerDueService = customerDueService;
+    }
+
+    /**
+     * A customer's state as of the end of asOfDate. Variants without an entry
+     * up to that date have no balance in the map (zero).
+     */
+    public record Checkpoint(LocalDate asOfDate, BigDecimal dueAmount, Map<Long, Long> balances) {
+
+        public long balance(Long variantId) {
+            return balances.getOrDefault(variantId, 0L);
+        }
+    }
+
+    /**
+     * Latest checkpoint of the customer dated strictly before the given date.
+     */
+    public Optional<Checkpoint> findBefore(Long customerId, LocalDate date) {
+        return find(String.format(CHECKPOINT_SQL, " AND as_of_date < ?"), customerId, customerId, date);
+    }
+
+    /**
+     * Latest checkpoint of the customer.
+     */
+    public Optional<Checkpoint> findLatest(Long customerId) {
+        return find(String.format(CHECKPOINT_SQL, ""), customerId, customerId);
+    }
+
+    private Optional<Checkpoint> find(String sql, Object... args) {
+        Map<Long, Long> balances = new LinkedHashMap<>();
+        LocalDate[] asOfDate = new LocalDate[1];
+        BigDecimal[] dueAmount = new BigDecimal[1];
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            asOfDate[0] = rs.getObject("as_of_date", LocalDate.class);
+            dueAmount[0] = rs.getBigDecimal("due_amount");
+            balances.put(rs.getLong("variant_id"), rs.getLong("balance"));
+        }, args);
+        return asOfDate[0] == null ? Optional.empty()
+                : Optional.of(new Checkpoint(asOfDate[0], dueAmount[0], balances));
+    }
+
+    /**
+     * Drop the customer's checkpoints dated on or after the given date, after
+     * a ledger write with that transaction date. Runs in the writer's
+     * transaction, which holds the customer's due register.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invalidateFrom(Long customerId, LocalDate date) {
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM customer_ledger_checkpoint WHERE customer_id = ? AND as_of_date >= ?",
+                customerId, date);
+        if (deleted > 0) {
+            logger.info("LEDGER_CHECKPOINTS_INVALIDATED | customerId={} | from={} | rows={}",
+                    customerId, date, deleted);
+        }
+    }
+
+    /**
+     * Checkpoint every customer as of the end of the given date from the
+     * balance and due stored on its ledger entries, without replaying them.
+     * For LedgerArchiveService, which has kept the chain-latest entries of the
+     * archived month; runs in its transaction.
+     *
+     * @return checkpoint rows written
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int checkpointFromStoredChain(LocalDate asOfDate) {
+        return jdbcTemplate.update(FROM_STORED_CHAIN_SQL, asOfDate, asOfDate, asOfDate);
+    }
+
+    /**
+     * Drop every checkpoint dated before the given date (ledger history before
+     * it has been archived and is covered by the checkpoint at that date).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int deleteBefore(LocalDate date) {
+        return jdbcTemplate.update("DELETE FROM customer_ledger_checkpoint WHERE as_of_date < ?", date);
+    }
+
+    /**
+     * Checkpoint every customer with entries since its latest checkpoint at
+     * the end of the last closed month (daily, on the scheduler leader only).
+     */
+    @Scheduled(cron = "${app.ledger.checkpoints.cron:0 45 2 * * *}")
+    @LeaderOnly
+    public void compactCheckpoints() {
+        compact();
+    }
+
+    /**
+     * @return number of customers checkpointed
+     */
+    public int compact() {
+        LocalDate cut = YearMonth.now().minusMonths(1).atEndOfMonth();
+        List<Long> customerIds = jdbcTemplate.queryForList(PENDING_CUSTOMERS_SQL, Long.class, cut, cut);
+        int created = 0;
+        for (Long customerId : customerIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> compactCustomer(customerId, cut)))) {
+                    created++;
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not checkpoint ledger of customer {}: {}", customerId, e.getMessage());
+            }
+        }
+        if (!customerIds.isEmpty()) {
+            logger.info("LEDGER_CHECKPOINTS_CREATED | asOf={} | customers={}", cut, created);
+        }
+        return created;
+    }
+
+    /**
+     * Replay the customer's entries after its latest checkpoint up to the cut,
+     * writing a checkpoint at the end of each month with entries (the last one
+     * at the cut). Holds the customer's due register, so no ledger write of
+     * the customer interleaves.
+     */
+    private boolean compactCustomer(Long customerId, LocalDate cut) {
+        customerDueService.lock(customerId);
+        Checkpoint previous = findLatest(customerId).orElse(null);
+        if (previous != null && !previous.asOfDate().isBefore(cut)) {
+            return false;
+        }
+
+        Map<Long, Long> balances = new LinkedHashMap<>();
+        Map<Long, Long> lastLedgerIds = new LinkedHashMap<>();
+        BigDecimal[] due = { BigDecimal.ZERO };
+        if (previous != null) {
+            balances.putAll(previous.balances());
+            due[0] = previous.dueAmount();
+            jdbcTemplate.query(LAST_IDS_SQL, (RowCallbackHandler) rs -> lastLedgerIds.put(
+                    rs.getLong("variant_id"), rs.getObject("last_ledger_id", Long.class)),
+                    customerId, previous.asOfDate());
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate[] month = new LocalDate[1];
+        String sql = String.format(CHAIN_SQL, previous != null ? " AND transaction_date > ?" : "");
+        Object[] args = previous != null ? new Object[] { customerId, cut, previous.asOfDate() }
+                : new Object[] { customerId, cut };
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            LocalDate monthEnd = YearMonth.from(rs.getObject("transaction_date", LocalDate.class)).atEndOfMonth();
+            if (month[0] != null && monthEnd.isAfter(month[0])) {
+                addRows(rows, customerId, month[0], balances, lastLedgerIds, due[0], now);
+            }
+            month[0] = monthEnd;
+            BigDecimal total = rs.getBigDecimal("total_amount");
+            BigDecimal received = rs.getBigDecimal("amount_received");
+            due[0] = due[0].add(total != null ? total : BigDecimal.ZERO)
+                    .subtract(received != null ? received : BigDecimal.ZERO).max(BigDecimal.ZERO);
+            long variantId = rs.getLong("variant_id");
+            if (!rs.wasNull()) {
+                balances.merge(variantId, rs.getLong("filled_out") - rs.getLong("empty_in"), Long::sum);
+                lastLedgerIds.put(variantId, rs.getLong("id"));
+            }
+        }, args);
+        if (month[0] == null) {
+            return false;
+        }
+        addRows(rows, customerId, cut, balances, lastLedgerIds, due[0], now);
+        if (rows.isEmpty()) {
+            // Payments only so far; nothing to key a checkpoint row on
+            return false;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        return true;
+    }
+
+    private static void addRows(List<Object[]> rows, Long customerId, LocalDate asOfDate,
+            Map<Long, Long> balances, Map<Long, Long> lastLedgerIds, BigDecimal due, LocalDateTime now) {
+        balances.forEach((variantId, balance) -> rows.add(new Object[] { customerId, variantId, asOfDate,
+                lastLedgerIds.get(variantId), balance, due, now }));
+    }
+}
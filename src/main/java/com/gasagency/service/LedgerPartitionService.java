@@ -0,0 +1,207 @@
+package com.gasagency.service;
+
+import com.gasagency.config.LeaderOnly;
+import com.gasagency.exception.InvalidOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Monthly range partitions of customer_cylinder_ledger (Postgres, V7).
+ *
+ * V7 turned the existing table into the DEFAULT partition. migrate() moves
+ * its rows into monthly partitions, oldest month first and one month per
+ * transaction; maintainPartitions() creates the partitions of the current
+ * and coming months so new rows stop landing in the default partition.
+ * Queries that filter on transaction_date then only touch the months they
+ * ask for, and old months can be archived whole (LedgerArchiveService).
+ *
+ * On a database without the partitioned table (H2) everything is a no-op.
+ */
+@Service
+public class LedgerPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerPartitionService.class);
+
+    public static final String PARENT_TABLE = "customer_cylinder_ledger";
+    public static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String PARTITIONED_SQL = "SELECT EXISTS (SELECT 1 FROM pg_class "
+            + "WHERE relname = ? AND relkind = 'p' AND pg_table_is_visible(oid))";
+    private static final String PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = ? AND pg_table_is_visible(p.oid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+
+    private volatile Boolean partitioned;
+
+    public LedgerPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${app.ledger.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+    }
+
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+            result = postgres && Boolean.TRUE.equals(
+                    jdbcTemplate.queryForObject(PARTITIONED_SQL, Boolean.class, PARENT_TABLE));
+            partitioned = result;
+        }
+        return result;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARENT_TABLE + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * Monthly partitions, oldest first (the default partition is not listed).
+     */
+    public List<YearMonth> listMonthlyPartitions() {
+        if (!isPartitioned()) {
+            return List.of();
+        }
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, PARENT_TABLE)) {
+            if (name.startsWith(PARENT_TABLE + "_") && !name.equals(DEFAULT_PARTITION)) {
+                try {
+                    months.add(YearMonth.parse(name.substring(PARENT_TABLE.length() + 1), PARTITION_SUFFIX));
+                } catch (DateTimeParseException e) {
+                    logger.warn("Ignoring ledger partition with unexpected name {}", name);
+                }
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("partitioned", isPartitioned());
+        if (isPartitioned()) {
+            List<YearMonth> months = listMonthlyPartitions();
+            status.put("monthlyPartitions", months.size());
+            status.put("oldestPartition", months.isEmpty() ? null : months.get(0).toString());
+            status.put("newestPartition", months.isEmpty() ? null : months.get(months.size() - 1).toString());
+            status.put("defaultPartitionOldestDate", oldestDateInDefault());
+        }
+        return status;
+    }
+
+    /**
+     * Create the partitions of the current month and the next months-ahead
+     * months (daily, on the scheduler leader only). Rows of the current month
+     * still in the default partition are moved into the new partition.
+     */
+    @Scheduled(cron = "${app.ledger.partitions.cron:0 15 2 * * *}")
+    @LeaderOnly
+    public void maintainPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        Set<YearMonth> existing = new HashSet<>(listMonthlyPartitions());
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (existing.contains(month)) {
+                continue;
+            }
+            try {
+                long moved = transactionTemplate.execute(status -> splitMonth(month));
+                logger.info("LEDGER_PARTITION_CREATED | month={} | movedRows={}", month, moved);
+            } catch (DataAccessException e) {
+                logger.warn("Could not create ledger partition for {}: {}", month, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Migration tool: move up to maxMonths months out of the default partition
+     * into their own partitions, oldest month first. Each month is one
+     * transaction; writes into the default partition wait for it, so run it
+     * off-peak. Call again until the default partition is empty.
+     *
+     * @return rows moved per month
+     */
+    public Map<String, Long> migrate(int maxMonths) {
+        if (!isPartitioned()) {
+            throw new InvalidOperationException(PARENT_TABLE + " is not partitioned on this database");
+        }
+        if (maxMonths < 1) {
+            throw new IllegalArgumentException("months must be at least 1");
+        }
+        Map<String, Long> moved = new LinkedHashMap<>();
+        for (int i = 0; i < maxMonths; i++) {
+            LocalDate oldest = oldestDateInDefault();
+            if (oldest == null) {
+                break;
+            }
+            YearMonth month = YearMonth.from(oldest);
+            long rows = transactionTemplate.execute(status -> splitMonth(month));
+            moved.put(month.toString(), rows);
+            logger.info("LEDGER_PARTITION_MIGRATED | month={} | rows={}", month, rows);
+        }
+        return moved;
+    }
+
+    public LocalDate oldestDateInDefault() {
+        return jdbcTemplate.queryForObject("SELECT MIN(transaction_date) FROM " + DEFAULT_PARTITION, LocalDate.class);
+    }
+
+    /**
+     * Create the month's partition, move the month's rows from the default
+     * partition into it and attach it. Runs in the caller's transaction.
+     */
+    private long splitMonth(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        // Fail fast rather than queue every ledger reader behind this transaction
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+        // Blocks writes into the default partition until commit, so no row of the
+        // month can arrive between the move and the attach (which checks for them)
+        jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + PARENT_TABLE
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int rows = jdbcTemplate.update("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION
+                + " WHERE transaction_date >= ? AND transaction_date < ?", from, to);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE transaction_date >= ? AND transaction_date < ?", from, to);
+        // uk_ccl_ref cannot be declared on the parent without transaction_date,
+        // so every partition carries its own copy
+        jdbcTemplate.execute("ALTER TABLE " + partition + " ADD CONSTRAINT uk_ccl_ref_"
+                + month.format(PARTITION_SUFFIX) + " UNIQUE (ref_type, ref_id, customer_id, variant_id)");
+        // Indexes are built here, on the filled table
+        jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return rows;
+    }
+}
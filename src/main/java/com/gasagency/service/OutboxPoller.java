@@ -0,0 +1,178 @@
+package com.gasagency.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails outbox_event by id on every node and hands each row to the local
+ * SseService, using the row id as the SSE event id (the same on every node, so
+ * Last-Event-ID replay works after reconnecting to another node or a restart).
+ *
+ * Ids are handed out at insert but become visible at commit, so a lower id can
+ * appear after a higher one. An id skipped over is remembered as a gap and
+ * looked up again on each poll until it shows up or app.outbox.gap-timeout
+ * passes (a rolled-back insert never shows up).
+ *
+ * Runs on its own thread with plain JDBC outside any transaction, so polls go
+ * to the primary and are not held up by scheduled jobs.
+ */
+@Component
+public class OutboxPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxPoller.class);
+
+    private static final String SELECT_COLUMNS = "SELECT id, event_type, payload FROM outbox_event ";
+    private static final int MAX_GAP_LOOKUPS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SseService sseService;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final int maxGaps;
+    private final ScheduledExecutorService scheduler;
+
+    // Only touched by the poller thread
+    private long cursor;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private final Counter delivered;
+    private final Counter gapsExpired;
+
+    public OutboxPoller(JdbcTemplate jdbcTemplate, SseService sseService, MeterRegistry meterRegistry,
+            @Value("${app.outbox.poll-interval:500ms}") Duration pollInterval,
+            @Value("${app.outbox.batch-size:100}") int batchSize,
+            @Value("${app.outbox.gap-timeout:10s}") Duration gapTimeout,
+            @Value("${app.outbox.max-gaps:1000}") int maxGaps) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sseService = sseService;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxGaps = maxGaps;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.delivered = Counter.builder("outbox.events.delivered")
+                .description("Outbox events delivered to this node's SSE hub")
+                .register(meterRegistry);
+        this.gapsExpired = Counter.builder("outbox.gaps.expired")
+                .description("Skipped outbox ids that never committed within the gap timeout")
+                .register(meterRegistry);
+        Gauge.builder("outbox.gaps", gaps, Map::size)
+                .description("Skipped outbox ids still being watched")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.execute(this::prime);
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Starts at the current end of the outbox and fills the replay buffer with
+     * the latest events, so clients reconnecting after a restart can catch up.
+     */
+    void prime() {
+        try {
+            List<OutboxRow> latest = new ArrayList<>(jdbcTemplate.query(
+                    SELECT_COLUMNS + "ORDER BY id DESC LIMIT ?", ROW_MAPPER, sseService.getReplayCapacity()));
+            Collections.reverse(latest);
+            latest.forEach(this::deliver);
+            cursor = latest.isEmpty() ? 0 : latest.get(latest.size() - 1).id();
+            logger.info("Outbox poller started at id {} ({} events primed for replay)", cursor, latest.size());
+        } catch (Exception e) {
+            logger.warn("Outbox poller could not read the outbox at startup: {}", e.getMessage());
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            logger.warn("Outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    void poll() {
+        recheckGaps();
+        List<OutboxRow> rows;
+        do {
+            rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?", ROW_MAPPER,
+                    cursor, batchSize);
+            long now = System.nanoTime();
+            for (OutboxRow row : rows) {
+                for (long skipped = cursor + 1; skipped < row.id() && gaps.size() < maxGaps; skipped++) {
+                    gaps.put(skipped, now);
+                }
+                deliver(row);
+                cursor = row.id();
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    private void recheckGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Long>> expired = gaps.entrySet().iterator();
+        while (expired.hasNext()) {
+            if (now - expired.next().getValue() > gapTimeoutNanos) {
+                expired.remove();
+                gapsExpired.increment();
+            }
+        }
+        if (gaps.isEmpty()) {
+            return;
+        }
+        List<Long> ids = gaps.keySet().stream().limit(MAX_GAP_LOOKUPS).toList();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<OutboxRow> late = jdbcTemplate.query(SELECT_COLUMNS + "WHERE id IN (" + placeholders
+                + ") ORDER BY id", ROW_MAPPER, ids.toArray());
+        for (OutboxRow row : late) {
+            gaps.remove(row.id());
+            deliver(row);
+        }
+    }
+
+    private void deliver(OutboxRow row) {
+        sseService.publish(row.id(), row.eventType(), row.payload());
+        delivered.increment();
+    }
+
+    private record OutboxRow(long id, String eventType, String payload) {
+    }
+
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, rowNum) -> new OutboxRow(
+            rs.getLong("id"), rs.getString("event_type"), rs.getString("payload"));
+}
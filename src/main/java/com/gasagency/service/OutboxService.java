@@ -0,0 +1,103 @@
+package com.gasagency.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasagency.config.LeaderOnly;
+import com.gasagency.entity.OutboxEvent;
+import com.gasagency.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transactional outbox for events pushed to SSE clients.
+ *
+ * append() must run inside the transaction of the change it announces: the
+ * event row commits (or rolls back) with it, and every node's OutboxPoller
+ * delivers it to that node's SSE connections. Clients therefore see an alert
+ * whichever node they are connected to, and never see one that was rolled back.
+ *
+ * This is the only path to SSE clients (SseService.publish is not public).
+ * Today the events are the alert changes of AlertNotificationService; no
+ * other domain change is pushed to clients, and nothing in the application
+ * uses ApplicationEventPublisher.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO outbox_event (created_at, event_type, payload) "
+            + "VALUES (?, ?, ?)";
+
+    private final OutboxEventRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+
+    public OutboxService(OutboxEventRepository repository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${app.outbox.retention:1d}") Duration retention) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    /**
+     * Queue an event for all nodes; eventType becomes the SSE event name and
+     * payload its JSON data.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String eventType, Object payload) {
+        repository.save(new OutboxEvent(eventType, toJson(payload)));
+    }
+
+    /**
+     * Queue one event per payload in a single JDBC batch (the IDENTITY id keeps
+     * Hibernate from batching OutboxEvent inserts). Events get ids in payload order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String eventType, Collection<?> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            rows.add(new Object[] { now, eventType, toJson(payload) });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Purge delivered events (runs every hour, on the scheduler leader only).
+     * Retention only needs to cover poller downtime and Last-Event-ID replay.
+     */
+    @Scheduled(fixedRate = 3600000)
+    @LeaderOnly
+    @Transactional
+    public void purgeDeliveredEvents() {
+        int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        logger.info("Cleanup: {} outbox events older than {} removed", deleted, retention);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + e.getMessage(), e);
+        }
+    }
+}
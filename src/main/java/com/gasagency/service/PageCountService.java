@@ -0,0 +1,34 @@
+package com.gasagency.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Cached total counts for cursor-paginated lists.
+ *
+ * Keyset pages never need a COUNT(*) to navigate, so totals are only computed
+ * when a client explicitly asks for them and are then served from
+ * "pageCountCache" until it expires. Totals are therefore approximate.
+ */
+@Service
+public class PageCountService {
+
+    public static final String CACHE_NAME = "pageCountCache";
+
+    private final CacheManager cacheManager;
+
+    public PageCountService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public Long count(String key, Supplier<Long> loader) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loader.get();
+        }
+        return cache.get(key, loader::get);
+    }
+}
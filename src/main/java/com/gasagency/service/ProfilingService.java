@@ -0,0 +1,294 @@
+package com.gasagency.service;
+
+import com.gasagency.exception.InvalidOperationException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * On-demand Java Flight Recorder profiling.
+ *
+ * Records the running JVM with one of the JDK's built-in settings ("default":
+ * ~1% overhead, safe in production; "profile": denser sampling, ~2-3%) into a
+ * temp file, and summarizes a recording into hot methods, allocation sites,
+ * lock contention and GC pauses with jdk.jfr.consumer.
+ *
+ * Only one recording runs at a time; a second request is rejected instead of
+ * stacking profiler overhead on an already slow node.
+ */
+@Service
+public class ProfilingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingService.class);
+
+    public static final Duration MAX_DURATION = Duration.ofMinutes(5);
+    private static final List<String> PROFILES = List.of("default", "profile");
+    private static final String APPLICATION_PACKAGE = "com.gasagency.";
+
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public boolean isRecording() {
+        return recording.get();
+    }
+
+    /**
+     * Records for the given duration on the calling thread and returns the
+     * .jfr file. The caller owns the file and must delete it.
+     */
+    public Path record(String profile, Duration duration) {
+        if (!PROFILES.contains(profile)) {
+            throw new IllegalArgumentException("Profile must be one of " + PROFILES);
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(MAX_DURATION) > 0) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + MAX_DURATION.toSeconds()
+                    + " seconds");
+        }
+        if (!recording.compareAndSet(false, true)) {
+            throw new InvalidOperationException("A JFR recording is already in progress");
+        }
+        Path file = null;
+        try (Recording jfr = new Recording(Configuration.getConfiguration(profile))) {
+            file = Files.createTempFile("gas-agency-", ".jfr");
+            jfr.setName("on-demand-" + profile);
+            jfr.setToDisk(true);
+            logger.info("JFR_RECORDING_STARTED | profile={} | duration={}s", profile, duration.toSeconds());
+            jfr.start();
+            try {
+                Thread.sleep(duration.toMillis());
+            } finally {
+                jfr.stop();
+            }
+            jfr.dump(file);
+            logger.info("JFR_RECORDING_FINISHED | profile={} | bytes={}", profile, Files.size(file));
+            return file;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(file);
+            throw new InvalidOperationException("JFR recording was interrupted", e);
+        } catch (IOException | ParseException e) {
+            deleteQuietly(file);
+            throw new InvalidOperationException("JFR recording failed: " + e.getMessage(), e);
+        } finally {
+            recording.set(false);
+        }
+    }
+
+    /**
+     * Streams through the recording once and keeps only the aggregates, so a
+     * large file never has to fit on the heap.
+     */
+    public Map<String, Object> summarize(Path file, int top) {
+        Map<String, Long> executionSamples = new HashMap<>();
+        Map<String, Long> applicationSamples = new HashMap<>();
+        Map<String, Long> allocationBytes = new HashMap<>();
+        Map<String, Contention> contention = new HashMap<>();
+        Map<String, Contention> gcByName = new HashMap<>();
+        List<Map<String, Object>> longestPauses = new ArrayList<>();
+        long totalSamples = 0;
+        long totalAllocated = 0;
+        long gcCount = 0;
+        long gcTotalPauseNanos = 0;
+
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        totalSamples++;
+                        executionSamples.merge(topFrame(event.getStackTrace()), 1L, Long::sum);
+                        String applicationFrame = applicationFrame(event.getStackTrace());
+                        if (applicationFrame != null) {
+                            applicationSamples.merge(applicationFrame, 1L, Long::sum);
+                        }
+                    }
+                    case "jdk.ObjectAllocationSample" -> {
+                        long weight = event.getLong("weight");
+                        totalAllocated += weight;
+                        allocationBytes.merge(className(event.getClass("objectClass")) + " @ "
+                                + topFrame(event.getStackTrace()), weight, Long::sum);
+                    }
+                    case "jdk.JavaMonitorEnter" -> contention
+                            .computeIfAbsent("monitor " + className(event.getClass("monitorClass")) + " @ "
+                                    + topFrame(event.getStackTrace()), k -> new Contention())
+                            .add(event.getDuration());
+                    case "jdk.ThreadPark" -> {
+                        RecordedClass parkedClass = event.getClass("parkedClass");
+                        // Idle pool threads park on a ConditionObject waiting for work; that is
+                        // not contention
+                        if (parkedClass != null && !parkedClass.getName().endsWith("$ConditionObject")) {
+                            contention.computeIfAbsent("park " + className(parkedClass) + " @ "
+                                    + callerFrame(event.getStackTrace()), k -> new Contention())
+                                    .add(event.getDuration());
+                        }
+                    }
+                    case "jdk.GarbageCollection" -> {
+                        Duration pauses = event.getDuration("sumOfPauses");
+                        gcCount++;
+                        gcTotalPauseNanos += pauses.toNanos();
+                        gcByName.computeIfAbsent(event.getString("name"), k -> new Contention()).add(pauses);
+                        Map<String, Object> pause = new LinkedHashMap<>();
+                        pause.put("collector", event.getString("name"));
+                        pause.put("cause", event.getString("cause"));
+                        pause.put("startTime", event.getStartTime().toString());
+                        pause.put("longestPauseMs", millis(event.getDuration("longestPause")));
+                        pause.put("sumOfPausesMs", millis(pauses));
+                        longestPauses.add(pause);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidOperationException("Could not read JFR recording: " + e.getMessage(), e);
+        }
+
+        longestPauses.sort(Comparator.comparingDouble(p -> -((Double) p.get("longestPauseMs"))));
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("collections", gcCount);
+        gc.put("totalPauseMs", gcTotalPauseNanos / 1_000_000.0);
+        gc.put("byCollector", topContention(gcByName, Integer.MAX_VALUE, "collector"));
+        gc.put("longestPauses", longestPauses.subList(0, Math.min(top, longestPauses.size())));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("executionSamples", totalSamples);
+        summary.put("hotMethods", topCounts(executionSamples, totalSamples, top, "method", "samples"));
+        summary.put("hotApplicationMethods",
+                topCounts(applicationSamples, totalSamples, top, "method", "samples"));
+        summary.put("allocatedBytesSampled", totalAllocated);
+        summary.put("allocationSites", topCounts(allocationBytes, totalAllocated, top, "site", "bytes"));
+        summary.put("lockContention", topContention(contention, top, "site"));
+        summary.put("gc", gc);
+        return summary;
+    }
+
+    public void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete JFR file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static List<Map<String, Object>> topCounts(Map<String, Long> counts, long total, int top,
+            String keyName, String valueName) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(top)
+                .map(entry -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put(keyName, entry.getKey());
+                    row.put(valueName, entry.getValue());
+                    row.put("percent", total == 0 ? 0.0 : Math.round(entry.getValue() * 1000.0 / total) / 10.0);
+                    return row;
+                })
+                .toList();
+    }
+
+    private static List<Map<String, Object>> topContention(Map<String, Contention> contention, int top,
+            String keyName) {
+        return contention.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Contention> e) -> e.getValue().totalNanos)
+                        .reversed())
+                .limit(top)
+                .map(entry -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put(keyName, entry.getKey());
+                    row.put("count", entry.getValue().count);
+                    row.put("totalMs", entry.getValue().totalNanos / 1_000_000.0);
+                    row.put("maxMs", entry.getValue().maxNanos / 1_000_000.0);
+                    return row;
+                })
+                .toList();
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<no stack>";
+        }
+        return frame(stackTrace.getFrames().get(0));
+    }
+
+    /**
+     * Innermost frame in our own code, so time spent in JDK/library leaves is
+     * attributed to the service method that caused it. Proxy and CGLIB frames are
+     * skipped.
+     */
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APPLICATION_PACKAGE) && !type.contains("$$")) {
+                return frame(frame);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First frame above LockSupport/AQS, i.e. the code that asked for the lock.
+     */
+    private static String callerFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack>";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.util.concurrent.locks.") && !type.startsWith("jdk.internal.misc.")) {
+                return frame(frame);
+            }
+        }
+        return topFrame(stackTrace);
+    }
+
+    private static String frame(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass == null ? "<unknown>" : recordedClass.getName();
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    private static final class Contention {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(Duration duration) {
+            long nanos = duration.toNanos();
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+    }
+}
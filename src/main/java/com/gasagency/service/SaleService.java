@@ -2,6 +2,7 @@
 package com.gasagency.service;
 
 import com.gasagency.dto.CreateSaleRequestDTO;
+import com.gasagency.dto.CursorPageDTO;
 import com.gasagency.dto.SaleDTO;
 import com.gasagency.dto.SaleItemDTO;
 import com.gasagency.dto.SaleSummaryDTO;
@@ -11,16 +12,20 @@ import com.gasagency.exception.ResourceNotFoundException;
 import com.gasagency.exception.InvalidOperationException;
 import com.gasagency.exception.ConcurrencyConflictException;
 import com.gasagency.util.AuditLogger;
+import com.gasagency.util.KeysetCursor;
 import com.gasagency.util.PerformanceTracker;
 import com.gasagency.util.ReferenceNumberGenerator;
+import com.gasagency.config.SingleFlight;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -55,6 +60,9 @@ public class SaleService {
         private final ReferenceNumberGenerator referenceNumberGenerator;
         private final AlertConfigurationService alertConfigService;
         private final AlertNotificationService alertNotificationService;
+        private final PageCountService pageCountService;
+        private final CustomerDueService customerDueService;
+        private final TransactionTemplate saleTransaction;
 
         public SaleService(SaleRepository saleRepository,
                         SaleItemRepository saleItemRepository,
@@ -71,7 +79,10 @@ public class SaleService {
                         PerformanceTracker performanceTracker,
                         ReferenceNumberGenerator referenceNumberGenerator,
                         AlertConfigurationService alertConfigService,
-                        AlertNotificationService alertNotificationService) {
+                        AlertNotificationService alertNotificationService,
+                        PageCountService pageCountService,
+                        CustomerDueService customerDueService,
+                        PlatformTransactionManager transactionManager) {
                 this.saleRepository = saleRepository;
                 this.saleItemRepository = saleItemRepository;
                 this.customerRepository = customerRepository;
@@ -88,6 +99,11 @@ public class SaleService {
                 this.referenceNumberGenerator = referenceNumberGenerator;
                 this.alertConfigService = alertConfigService;
                 this.alertNotificationService = alertNotificationService;
+                this.pageCountService = pageCountService;
+                this.customerDueService = customerDueService;
+                // Read committed: every statement sees the latest commits, and the
+                // customer_due / inventory row locks serialize the writers that matter
+                this.saleTransaction = new TransactionTemplate(transactionManager);
         }
 
         @Transactional(readOnly = true)
@@ -99,6 +115,7 @@ public class SaleService {
                                 .getContent();
         }
 
+        @SingleFlight
         public SaleSummaryDTO getSalesSummary(String fromDate, String toDate, Long customerId,
                         Long variantId, Double minAmount, Double maxAmount, String referenceNumber) {
                 LocalDate from = null;
@@ -168,8 +185,14 @@ public class SaleService {
 
                 while (attempt < maxRetries) {
                         try {
-                                return createSaleInternal(request);
-                        } catch (ObjectOptimisticLockingFailureException e) {
+                                // One transaction for the sale, its items, stock and ledger lines
+                                SaleDTO sale = saleTransaction.execute(status -> createSaleInternal(request));
+                                // Check for low stock alerts in real-time after sale; outside the sale
+                                // transaction so an alert failure cannot roll the sale back
+                                checkAndCreateLowStockAlerts(
+                                                warehouseService.getWarehouseEntity(request.getWarehouseId()));
+                                return sale;
+                        } catch (ConcurrencyFailureException e) {
                                 attempt++;
                                 if (attempt >= maxRetries) {
                                         logger.error("Sale creation failed after {} retries due to concurrent modifications",
@@ -191,7 +214,6 @@ public class SaleService {
                 throw new ConcurrencyConflictException("Failed to create sale after maximum retries.");
         }
 
-        @Transactional(isolation = Isolation.REPEATABLE_READ)
         private SaleDTO createSaleInternal(CreateSaleRequestDTO request) {
                 String transactionId = UUID.randomUUID().toString();
                 MDC.put("transactionId", transactionId);
@@ -251,6 +273,11 @@ public class SaleService {
                         throw new InvalidOperationException("Cannot create sale for inactive customer");
                 }
 
+                // Lock the customer's due register before any stock row: the due check
+                // below and every ledger line see the same amount, and all due writers
+                // take their locks in this order
+                CustomerDue customerDue = customerDueService.lock(customer.getId());
+
                 // Validate and get warehouse
                 logger.debug("Looking up warehouse with id: {}", request.getWarehouseId());
                 Warehouse warehouse = warehouseService.getWarehouseEntity(request.getWarehouseId());
@@ -280,12 +307,20 @@ public class SaleService {
                 }
 
                 // Validate and lock all inventory items upfront
+                java.util.Set<Long> saleVariantIds = new java.util.HashSet<>();
                 for (CreateSaleRequestDTO.SaleItemRequestDTO itemRequest : request.getItems()) {
                         // Validate item request
                         if (itemRequest.getVariantId() == null) {
                                 logger.error("Item variant ID is null in sale request");
                                 throw new InvalidOperationException("Variant ID cannot be null");
                         }
+                        // A sale has one ledger line per variant (uk_ccl_ref)
+                        if (!saleVariantIds.add(itemRequest.getVariantId())) {
+                                logger.error("Variant {} appears more than once in sale request",
+                                                itemRequest.getVariantId());
+                                throw new InvalidOperationException(
+                                                "Each variant can appear only once in a sale");
+                        }
                         if (itemRequest.getQtyIssued() == null || itemRequest.getQtyIssued() <= 0) {
                                 logger.error("Invalid quantity issued: {}", itemRequest.getQtyIssued());
                                 throw new InvalidOperationException("Quantity issued must be greater than 0");
@@ -378,7 +413,7 @@ public class SaleService {
                 // current sale)
                 if (request.getAmountReceived() != null && request.getAmountReceived().compareTo(BigDecimal.ZERO) > 0) {
                         // Get customer's previous due amount
-                        BigDecimal previousDueAmount = ledgerService.getCustomerPreviousDue(request.getCustomerId());
+                        BigDecimal previousDueAmount = customerDue.getDueAmount();
                         BigDecimal totalDueAmount = previousDueAmount.add(totalAmount);
 
                         logger.info("Payment validation - customerId: {}, previousDue: {}, currentSale: {}, totalDue: {}, amountReceived: {}",
@@ -467,11 +502,13 @@ public class SaleService {
                         }
                 }
 
-                // Now attach sale items and persist
-                for (int i = 0; i < saleItems.size(); i++) {
-                        saleItems.get(i).setSale(sale);
-                        saleItemRepository.save(saleItems.get(i));
+                // Now attach sale items and persist (inserted as one JDBC batch at flush)
+                for (SaleItem saleItem : saleItems) {
+                        saleItem.setSale(sale);
+                }
+                saleItemRepository.saveAll(saleItems);
 
+                for (int i = 0; i < saleItems.size(); i++) {
                         CreateSaleRequestDTO.SaleItemRequestDTO itemRequest = request.getItems().get(i);
                         CylinderVariant variant = saleItems.get(i).getVariant();
 
@@ -487,28 +524,33 @@ public class SaleService {
                                         warehouse.getName(), variant.getName(), itemRequest.getQtyIssued(),
                                         itemRequest.getQtyEmptyReceived());
 
-                        // Create ledger entry
-                        ledgerService.createLedgerEntry(
+                        // Create ledger entry: each line bills its own price; the payment is
+                        // booked on the last line so the running due never dips below zero
+                        // part-way through the sale
+                        boolean lastLine = i == saleItems.size() - 1;
+                        BigDecimal lineAmountReceived = request.getAmountReceived() == null ? null
+                                        : lastLine ? request.getAmountReceived() : BigDecimal.ZERO;
+                        ledgerService.append(new LedgerAppend(
                                         customer.getId(),
                                         warehouse.getId(),
                                         variant.getId(),
                                         sale.getSaleDate(),
-                                        "SALE",
+                                        CustomerCylinderLedger.TransactionType.SALE,
+                                        sale.getId(),
                                         sale.getId(),
                                         itemRequest.getQtyIssued(),
                                         itemRequest.getQtyEmptyReceived(),
-                                        totalAmount,
-                                        request.getAmountReceived(),
+                                        saleItems.get(i).getFinalPrice(),
+                                        lineAmountReceived,
+                                        null,
                                         request.getModeOfPayment(),
-                                        request.getBankAccountId());
+                                        request.getBankAccountId(),
+                                        sale.getReferenceNumber()));
                         logger.debug("Ledger entry created for sale item");
                 }
 
                 logger.info("Sale {} completed successfully for customer {}", sale.getId(), customer.getName());
 
-                // Check for low stock alerts in real-time after sale
-                checkAndCreateLowStockAlerts(warehouse);
-
                 // Track performance and audit
                 long txnDuration = System.currentTimeMillis() - txnStartTime;
                 performanceTracker.trackTransaction(transactionId, txnDuration, "COMPLETED");
@@ -668,6 +710,68 @@ public class SaleService {
                                 .map(this::toDTO);
         }
 
+        /**
+         * Same as {@link #getAllSales(Pageable, String, String, Long, Long, Double, Double, String)}
+         * without the total count query, for clients that only need next/previous.
+         */
+        @Transactional(readOnly = true)
+        public Slice<SaleDTO> getAllSalesSlice(Pageable pageable, String fromDate, String toDate, Long customerId,
+                        Long variantId, Double minAmount, Double maxAmount, String referenceNumber) {
+                return saleRepository
+                                .findFilteredSalesSlice(parseDateOrNull(fromDate), parseDateOrNull(toDate), customerId,
+                                                variantId, minAmount, maxAmount, referenceNumber, pageable)
+                                .map(this::toDTO);
+        }
+
+        /**
+         * OPTIMIZED: Keyset pagination ordered by (saleDate, id).
+         * Phase 1 pages over sale ids only; phase 2 loads just those sales with
+         * their items, so no collection fetch is ever combined with a row limit.
+         */
+        @Transactional(readOnly = true)
+        public CursorPageDTO<SaleDTO> getAllSales(String cursor, int size, Sort.Direction direction,
+                        String fromDate, String toDate, Long customerId, Long variantId, Double minAmount,
+                        Double maxAmount, String referenceNumber, boolean includeTotal) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                LocalDate from = parseDateOrNull(fromDate);
+                LocalDate to = parseDateOrNull(toDate);
+                logger.debug("Fetching sales by cursor: size={}, customerId={}, variantId={}, referenceNumber={}",
+                                size, customerId, variantId, referenceNumber);
+
+                List<Long> ids = saleRepository.findFilteredSaleIdsAfter(from, to, customerId, variantId,
+                                minAmount, maxAmount, referenceNumber,
+                                after != null ? after.keyAsDate() : null,
+                                after != null ? after.getId() : null,
+                                direction == Sort.Direction.DESC,
+                                size + 1);
+
+                Map<Long, Sale> byId = saleRepository.findAllWithItemsByIdIn(ids).stream()
+                                .collect(Collectors.toMap(Sale::getId, sale -> sale));
+                List<Sale> rows = ids.stream().map(byId::get).collect(Collectors.toList());
+
+                Long total = null;
+                if (includeTotal) {
+                        String countKey = "sales:" + from + ":" + to + ":" + customerId + ":" + variantId + ":"
+                                        + minAmount + ":" + maxAmount + ":" + referenceNumber;
+                        total = pageCountService.count(countKey, () -> saleRepository.countFilteredSales(
+                                        from, to, customerId, variantId, minAmount, maxAmount,
+                                        referenceNumber));
+                }
+                return CursorPageDTO.fromFetched(rows, size,
+                                sale -> KeysetCursor.of(sale.getSaleDate(), sale.getId()), this::toDTO, total);
+        }
+
+        private LocalDate parseDateOrNull(String date) {
+                if (date == null || date.isEmpty()) {
+                        return null;
+                }
+                try {
+                        return LocalDate.parse(date);
+                } catch (DateTimeParseException e) {
+                        return null;
+                }
+        }
+
         public Page<SaleDTO> getSalesByCustomer(Long customerId, Pageable pageable) {
                 logger.debug("Fetching sales for customer: {} with pagination", customerId);
                 Customer customer = customerRepository.findById(customerId)
@@ -687,6 +791,7 @@ public class SaleService {
                                 .map(this::toDTO);
         }
 
+        @SingleFlight
         public com.gasagency.dto.PaymentModeSummaryDTO getPaymentModeSummary(String fromDate, String toDate,
                         Long customerId,
                         String paymentMode, Long variantId, Long bankAccountId, Double minAmount, Double maxAmount,
@@ -1,142 +1,349 @@
 package com.gasagency.service;
 
-import com.gasagency.entity.AlertNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * SSE (Server-Sent Events) Service for real-time alert notifications
- * Manages persistent connections with clients and broadcasts alerts
+ * SSE (Server-Sent Events) hub for real-time alert notifications
+ *
+ * - Any number of connections per user (one per tab/device), capped by
+ * app.sse.max-connections-per-user; the oldest is closed beyond that
+ * - Publishing only enqueues: every connection has a bounded send queue
+ * (app.sse.queue-capacity) drained by a small shared sender pool, so a
+ * publisher never blocks on a client socket. A connection whose queue is full
+ * is a slow consumer and is closed; the browser reconnects and catches up by
+ * replay
+ * - One heartbeat thread for all connections (app.sse.heartbeat-interval)
+ * - Events arrive from the OutboxPoller with their outbox id as SSE event id
+ * (the same on every node) and the latest are kept for replay
+ * (app.sse.replay-capacity). A reconnect with Last-Event-ID gets the missed
+ * events; when they have already left the buffer it gets a "resync" event and
+ * should reload GET /api/alerts
+ *
+ * Metrics: sse.connections, sse.events.published, sse.events.replayed,
+ * sse.connections.closed{reason}
  */
 @Service
 public class SseService {
 
     private static final Logger logger = LoggerFactory.getLogger(SseService.class);
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+
+    private final long emitterTimeoutMillis;
+    private final int queueCapacity;
+    private final int maxConnectionsPerUser;
+    private final int replayCapacity;
+
+    private final Map<Long, Connection> connections = new ConcurrentHashMap<>();
+    private final AtomicLong connectionIds = new AtomicLong();
+    // By outbox id; a late (out-of-order committed) event lands in its place
+    private final NavigableMap<Long, Event> replayBuffer = new TreeMap<>();
+    private final Object publishLock = new Object();
+    private long highestEventId;
+
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+
+    private final Counter published;
+    private final Counter replayed;
+    private final MeterRegistry meterRegistry;
+
+    public SseService(MeterRegistry meterRegistry,
+            @Value("${app.sse.timeout:30m}") Duration emitterTimeout,
+            @Value("${app.sse.heartbeat-interval:30s}") Duration heartbeatInterval,
+            @Value("${app.sse.queue-capacity:64}") int queueCapacity,
+            @Value("${app.sse.replay-capacity:256}") int replayCapacity,
+            @Value("${app.sse.max-connections-per-user:10}") int maxConnectionsPerUser,
+            @Value("${app.sse.sender-threads:4}") int senderThreads) {
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.queueCapacity = queueCapacity;
+        this.replayCapacity = replayCapacity;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.meterRegistry = meterRegistry;
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("sse-sender-"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat-"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval.toMillis(),
+                heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("sse.connections", connections, Map::size)
+                .description("Open SSE connections")
+                .register(meterRegistry);
+        this.published = Counter.builder("sse.events.published")
+                .description("Events published to all SSE connections")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("sse.events.replayed")
+                .description("Events re-sent to reconnecting clients from Last-Event-ID")
+                .register(meterRegistry);
+    }
 
     /**
      * Subscribe user to alert stream
-     * Each user gets their own SSE emitter connection
+     * Each call is a separate connection; lastEventId is the Last-Event-ID
+     * header of a reconnecting EventSource (null on first connect)
      */
-    public SseEmitter subscribe(String userId) {
-        logger.info("User {} subscribing to alerts", userId);
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Connection connection = new Connection(connectionIds.incrementAndGet(), userId, emitter);
+
+        emitter.onCompletion(() -> close(connection, "completed"));
+        emitter.onTimeout(() -> close(connection, "timeout"));
+        emitter.onError(throwable -> close(connection, "error"));
 
-        // 30 minute timeout - increased from 5 minutes to allow longer connections
-        SseEmitter emitter = new SseEmitter(1800000L);
-        emitters.put(userId, emitter);
+        closeOldestBeyondLimit(userId);
 
-        // Send initial connection confirmation
+        // Registering and taking the replay snapshot under the publish lock means
+        // every event is delivered exactly once: either replayed or queued
+        List<Event> missed;
+        boolean resync;
+        synchronized (publishLock) {
+            Long lastId = parseEventId(lastEventId);
+            resync = lastId != null && !isReplayable(lastId);
+            missed = lastId != null && !resync ? eventsAfter(lastId) : List.of();
+            connections.put(connection.id, connection);
+        }
+
+        // Sent before the response is committed; SseEmitter buffers them until then
         try {
             emitter.send(SseEmitter.event()
                     .name("connected")
                     .data("Connected to alert stream")
                     .build());
+            if (resync) {
+                emitter.send(SseEmitter.event()
+                        .name("resync")
+                        .data("Missed events are no longer available; reload active alerts")
+                        .build());
+            }
+            for (Event event : missed) {
+                emitter.send(event.toBuilder());
+            }
         } catch (IOException e) {
             logger.warn("Failed to send connection confirmation to user {}: {}", userId, e.getMessage());
-            emitters.remove(userId);
+            close(connection, "send_failed");
         }
+        // Events published meanwhile were only queued; hand them to the senders now
+        connection.startDraining();
+        replayed.increment(missed.size());
 
-        // Start a keep-alive thread to prevent timeout
-        startKeepAlive(userId, emitter);
-
-        // Auto cleanup on completion
-        emitter.onCompletion(() -> {
-            logger.info("User {} SSE completed", userId);
-            emitters.remove(userId);
-        });
-
-        // Auto cleanup on timeout
-        emitter.onTimeout(() -> {
-            logger.info("User {} SSE timeout", userId);
-            emitters.remove(userId);
-        });
-
-        // Auto cleanup on error
-        emitter.onError(throwable -> {
-            logger.warn("User {} SSE error: {}", userId, throwable.getMessage());
-            emitters.remove(userId);
-        });
-
+        logger.info("SSE_SUBSCRIBED | user={} | connection={} | replayed={} | resync={} | open={}",
+                userId, connection.id, missed.size(), resync, connections.size());
         return emitter;
     }
 
     /**
-     * Send keep-alive messages to prevent connection timeout
+     * Get count of active connections
      */
-    private void startKeepAlive(String userId, SseEmitter emitter) {
-        Thread keepAliveThread = new Thread(() -> {
+    public int getActiveConnections() {
+        return connections.size();
+    }
+
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        for (Connection connection : connections.values()) {
             try {
-                while (emitters.containsKey(userId)) {
-                    Thread.sleep(60000); // Send keep-alive every 60 seconds
-                    try {
-                        emitter.send(SseEmitter.event()
-                                .name("keep-alive")
-                                .data("Connection active")
-                                .build());
-                    } catch (IOException e) {
-                        logger.debug("Failed to send keep-alive to user {}: {}", userId, e.getMessage());
-                        break;
-                    }
-                }
-            } catch (InterruptedException e) {
-                logger.debug("Keep-alive thread interrupted for user {}", userId);
-                Thread.currentThread().interrupt();
+                connection.emitter.complete();
+            } catch (RuntimeException e) {
+                // Container already recycled the response
+                logger.debug("SSE connection {} already closed: {}", connection.id, e.getMessage());
             }
-        });
-        keepAliveThread.setDaemon(true);
-        keepAliveThread.setName("SSE-KeepAlive-" + userId);
-        keepAliveThread.start();
+        }
+        connections.clear();
     }
 
     /**
-     * Broadcast alert to all connected clients in real-time
+     * Adds to the replay buffer and enqueues on every local connection; never
+     * blocks on a client. Package-private: only the OutboxPoller publishes,
+     * so every event goes through OutboxService.append() and reaches the
+     * clients of every node.
      */
-    public void broadcastAlert(AlertNotification alert) {
-        logger.debug("Broadcasting alert: {} to {} connected users", alert.getAlertKey(), emitters.size());
-
-        emitters.forEach((userId, emitter) -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .id(alert.getId().toString())
-                        .name("alert")
-                        .data(alert)
-                        .build());
-            } catch (IOException e) {
-                logger.warn("Failed to send alert to user {}: {}", userId, e.getMessage());
-                emitters.remove(userId);
+    void publish(long id, String name, Object data) {
+        List<Connection> slow = new ArrayList<>();
+        synchronized (publishLock) {
+            Event event = new Event(id, name, data);
+            replayBuffer.put(id, event);
+            if (replayBuffer.size() > replayCapacity) {
+                replayBuffer.pollFirstEntry();
+            }
+            highestEventId = Math.max(highestEventId, id);
+            for (Connection connection : connections.values()) {
+                if (!connection.offer(event)) {
+                    slow.add(connection);
+                }
             }
-        });
+        }
+        published.increment();
+        slow.forEach(connection -> close(connection, "slow_consumer"));
+    }
+
+    private void sendHeartbeats() {
+        for (Connection connection : connections.values()) {
+            // A full queue already has data going out; the connection is not idle
+            connection.offer(Event.HEARTBEAT);
+        }
+    }
+
+    private void closeOldestBeyondLimit(String userId) {
+        List<Connection> own = connections.values().stream()
+                .filter(connection -> connection.userId.equals(userId))
+                .sorted((a, b) -> Long.compare(a.id, b.id))
+                .toList();
+        for (int i = 0; i <= own.size() - maxConnectionsPerUser; i++) {
+            close(own.get(i), "user_limit");
+        }
+    }
+
+    private void close(Connection connection, String reason) {
+        if (connections.remove(connection.id) == null) {
+            return;
+        }
+        connection.closed.set(true);
+        meterRegistry.counter("sse.connections.closed", "reason", reason).increment();
+        if (!"completed".equals(reason) && !"timeout".equals(reason) && !"error".equals(reason)) {
+            // Closed by us: end the response so the browser reconnects with Last-Event-ID
+            connection.emitter.complete();
+        }
+        logger.info("SSE_CLOSED | user={} | connection={} | reason={} | open={}",
+                connection.userId, connection.id, reason, connections.size());
     }
 
     /**
-     * Broadcast alert dismissal to all connected clients
+     * A client that saw an id this node has not polled yet is simply ahead of
+     * us and needs nothing replayed. Otherwise everything after lastId must
+     * still be in the buffer.
      */
-    public void broadcastAlertDismissal(Long alertId) {
-        logger.debug("Broadcasting alert dismissal: {} to {} connected users", alertId, emitters.size());
+    private boolean isReplayable(long lastId) {
+        if (lastId >= highestEventId) {
+            return true;
+        }
+        return !replayBuffer.isEmpty() && lastId >= replayBuffer.firstKey() - 1;
+    }
 
-        emitters.forEach((userId, emitter) -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("alert-dismissed")
-                        .data(alertId)
-                        .build());
-            } catch (IOException e) {
-                logger.warn("Failed to send dismissal notification to user {}: {}", userId, e.getMessage());
-                emitters.remove(userId);
-            }
-        });
+    private List<Event> eventsAfter(long lastId) {
+        return new ArrayList<>(replayBuffer.tailMap(lastId, false).values());
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // Not an outbox id: treat as unknown
+            return 0L;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Event(long id, String name, Object data) {
+
+        static final Event HEARTBEAT = new Event(0, "keep-alive", "Connection active");
+
+        SseEmitter.SseEventBuilder toBuilder() {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(name).data(data);
+            return id > 0 ? builder.id(Long.toString(id)) : builder;
+        }
     }
 
     /**
-     * Get count of active connections
+     * One open stream. At most one sender thread drains a connection at a time,
+     * so events stay in order without locking the emitter.
      */
-    public int getActiveConnections() {
-        return emitters.size();
+    private final class Connection {
+        private final long id;
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Queue<Event> queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Starts taken: subscribe() sends the greeting and replay first
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Connection(long id, String userId, SseEmitter emitter) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        boolean offer(Event event) {
+            if (closed.get()) {
+                return true;
+            }
+            if (!queue.offer(event)) {
+                return false;
+            }
+            scheduleDrain();
+            return true;
+        }
+
+        void startDraining() {
+            draining.set(false);
+            if (!closed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    emitter.send(event.toBuilder());
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("SSE send to user {} failed: {}", userId, e.getMessage());
+                close(this, "send_failed");
+            }
+            // Also picks up an event offered after the last poll but before the flag reset
+            startDraining();
+        }
     }
 }
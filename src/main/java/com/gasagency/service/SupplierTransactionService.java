@@ -2,14 +2,18 @@
 package com.gasagency.service;
 
 import com.gasagency.dto.CreateSupplierTransactionRequestDTO;
+import com.gasagency.dto.CursorPageDTO;
 import com.gasagency.dto.SupplierTransactionDTO;
 import com.gasagency.entity.*;
 import com.gasagency.repository.*;
 import com.gasagency.exception.ResourceNotFoundException;
+import com.gasagency.util.KeysetCursor;
 import com.gasagency.util.LoggerUtil;
 import com.gasagency.util.ReferenceNumberGenerator;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
@@ -27,19 +31,22 @@ public class SupplierTransactionService {
         private final WarehouseRepository warehouseRepository;
         private final InventoryStockService inventoryStockService;
         private final ReferenceNumberGenerator referenceNumberGenerator;
+        private final PageCountService pageCountService;
 
         public SupplierTransactionService(SupplierTransactionRepository repository,
                         SupplierRepository supplierRepository,
                         CylinderVariantRepository variantRepository,
                         WarehouseRepository warehouseRepository,
                         InventoryStockService inventoryStockService,
-                        ReferenceNumberGenerator referenceNumberGenerator) {
+                        ReferenceNumberGenerator referenceNumberGenerator,
+                        PageCountService pageCountService) {
                 this.repository = repository;
                 this.supplierRepository = supplierRepository;
                 this.variantRepository = variantRepository;
                 this.warehouseRepository = warehouseRepository;
                 this.inventoryStockService = inventoryStockService;
                 this.referenceNumberGenerator = referenceNumberGenerator;
+                this.pageCountService = pageCountService;
         }
 
         @Transactional
@@ -265,6 +272,48 @@ public class SupplierTransactionService {
                 return result.map(this::toDTO);
         }
 
+        /**
+         * OPTIMIZED: Keyset pagination over transaction id. The reference filter
+         * is applied in the query so every page is full.
+         */
+        @Transactional(readOnly = true)
+        public CursorPageDTO<SupplierTransactionDTO> getAllTransactions(String cursor, int size,
+                        Sort.Direction direction, String referenceNumber, boolean includeTotal) {
+                KeysetCursor after = KeysetCursor.decode(cursor);
+                LoggerUtil.logDatabaseOperation(logger, "SELECT_KEYSET", "SUPPLIER_TRANSACTION", "afterId",
+                                after != null ? after.getId() : null, "size", size, "referenceNumber",
+                                referenceNumber);
+
+                boolean filtered = referenceNumber != null && !referenceNumber.isEmpty();
+                boolean descending = direction == Sort.Direction.DESC;
+                Long afterId = after != null ? after.getId() : (descending ? Long.MAX_VALUE : 0L);
+                Pageable limit = PageRequest.of(0, size + 1);
+
+                List<SupplierTransaction> rows;
+                if (filtered) {
+                        rows = descending
+                                        ? repository.findByIdLessThanAndReferenceContainingIgnoreCaseOrderByIdDesc(
+                                                        afterId, referenceNumber, limit)
+                                        : repository.findByIdGreaterThanAndReferenceContainingIgnoreCaseOrderByIdAsc(
+                                                        afterId, referenceNumber, limit);
+                } else {
+                        rows = descending
+                                        ? repository.findByIdLessThanOrderByIdDesc(afterId, limit)
+                                        : repository.findByIdGreaterThanOrderByIdAsc(afterId, limit);
+                }
+
+                Long total = null;
+                if (includeTotal) {
+                        total = filtered
+                                        ? pageCountService.count("supplierTransactions:" + referenceNumber.toLowerCase(),
+                                                        () -> repository.countByReferenceContainingIgnoreCase(
+                                                                        referenceNumber))
+                                        : pageCountService.count("supplierTransactions", repository::count);
+                }
+                return CursorPageDTO.fromFetched(rows, size,
+                                t -> KeysetCursor.of(t.getId(), t.getId()), this::toDTO, total);
+        }
+
         public List<SupplierTransactionDTO> getTransactionsBySupplier(Long supplierId) {
                 LoggerUtil.logDatabaseOperation(logger, "SELECT", "SUPPLIER_TRANSACTION", "supplierId", supplierId);
 
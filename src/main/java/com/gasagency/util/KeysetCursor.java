@@ -0,0 +1,84 @@
+package com.gasagency.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor over (sort key, id).
+ *
+ * Encoded as URL-safe Base64 of "key|id" so clients pass it back verbatim
+ * instead of computing offsets. The next page is read with
+ * WHERE (key, id) is past the cursor, which stays index-bound regardless of
+ * how deep the client has paged.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String key;
+    private final Long id;
+
+    private KeysetCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(Object key, Long id) {
+        return new KeysetCursor(String.valueOf(key), id);
+    }
+
+    /**
+     * Decode a client supplied cursor. Null or blank means "first page".
+     *
+     * @throws IllegalArgumentException if the token was not produced by
+     *                                  {@link #encode()}
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            if (split <= 0) {
+                throw new IllegalArgumentException("Invalid pagination cursor");
+            }
+            return new KeysetCursor(raw.substring(0, split), Long.valueOf(raw.substring(split + 1)));
+        } catch (IllegalArgumentException e) {
+            // Base64 and number format errors are both IllegalArgumentException
+            throw new IllegalArgumentException("Invalid pagination cursor", e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate keyAsDate() {
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor", e);
+        }
+    }
+
+    public LocalDateTime keyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor", e);
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package com.gasagency.util;
 
+import net.logstash.logback.argument.StructuredArgument;
+import net.logstash.logback.argument.StructuredArguments;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.slf4j.event.Level;
+
+import java.util.Arrays;
 
 /**
  * Centralized logging utility for consistent structured logging across the
  * application
  * Provides methods for common logging patterns: business operations, errors,
  * audit, performance
+ *
+ * OPTIMIZED: every method checks the level first and returns before touching
+ * its arguments, so disabled calls (e.g. DEBUG database operations in prod)
+ * build no message. Enabled calls pass key/value pairs as logstash
+ * StructuredArguments: the text appenders render "EVENT | key=value | ..." as
+ * before, the JSON appender additionally emits each pair as a field.
  */
 public class LoggerUtil {
 
-    private static final String AUDIT_LOGGER = "com.gasagency.audit";
-    private static final String PERFORMANCE_LOGGER = "com.gasagency.performance";
+    private static final Logger AUDIT_LOG = LoggerFactory.getLogger("com.gasagency.audit");
+    private static final Logger PERFORMANCE_LOG = LoggerFactory.getLogger("com.gasagency.performance");
+
+    // "{}", "{} | {}", "{} | {} | {}", ... indexed by argument count
+    private static final String[] PATTERNS = new String[24];
+
+    static {
+        StringBuilder pattern = new StringBuilder("{}");
+        PATTERNS[1] = pattern.toString();
+        for (int i = 2; i < PATTERNS.length; i++) {
+            PATTERNS[i] = pattern.append(" | {}").toString();
+        }
+    }
 
     private LoggerUtil() {
         // Utility class, no instantiation
@@ -33,9 +55,9 @@ public class LoggerUtil {
      * @param details   Key-value pairs describing the operation
      */
     public static void logBusinessEntry(Logger logger, String operation, Object... details) {
-        StringBuilder message = new StringBuilder("OPERATION_START | operation=").append(operation);
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("OPERATION_START", details, "operation", operation));
+        }
     }
 
     /**
@@ -45,9 +67,9 @@ public class LoggerUtil {
      * @param details   Key-value pairs describing the result
      */
     public static void logBusinessSuccess(Logger logger, String operation, Object... details) {
-        StringBuilder message = new StringBuilder("OPERATION_SUCCESS | operation=").append(operation);
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("OPERATION_SUCCESS", details, "operation", operation));
+        }
     }
 
     /**
@@ -58,10 +80,10 @@ public class LoggerUtil {
      * @param details      Key-value pairs with additional context
      */
     public static void logBusinessError(Logger logger, String operation, String errorMessage, Object... details) {
-        StringBuilder message = new StringBuilder("OPERATION_FAILED | operation=").append(operation)
-                .append(" | error=").append(errorMessage);
-        appendDetails(message, details);
-        logger.warn(message.toString());
+        if (logger.isWarnEnabled()) {
+            emit(logger, Level.WARN, null, arguments("OPERATION_FAILED", details, "operation", operation,
+                    "error", errorMessage));
+        }
     }
 
     /**
@@ -72,10 +94,10 @@ public class LoggerUtil {
      * @param details   Additional context
      */
     public static void logDatabaseOperation(Logger logger, String operation, String entity, Object... details) {
-        StringBuilder message = new StringBuilder("DB_OPERATION | operation=").append(operation)
-                .append(" | entity=").append(entity);
-        appendDetails(message, details);
-        logger.debug(message.toString());
+        if (logger.isDebugEnabled()) {
+            emit(logger, Level.DEBUG, null, arguments("DB_OPERATION", details, "operation", operation,
+                    "entity", entity));
+        }
     }
 
     /**
@@ -86,11 +108,9 @@ public class LoggerUtil {
      * @param details Key-value pairs with audit information
      */
     public static void logAudit(String action, String entity, Object... details) {
-        Logger auditLogger = LoggerFactory.getLogger(AUDIT_LOGGER);
-        StringBuilder message = new StringBuilder("AUDIT | action=").append(action)
-                .append(" | entity=").append(entity);
-        appendDetails(message, details);
-        auditLogger.info(message.toString());
+        if (AUDIT_LOG.isInfoEnabled()) {
+            emit(AUDIT_LOG, Level.INFO, null, arguments("AUDIT", details, "action", action, "entity", entity));
+        }
     }
 
     /**
@@ -101,12 +121,11 @@ public class LoggerUtil {
      * @param status     Status (SUCCESS, FAILURE, etc.)
      */
     public static void logPerformance(String metric, long durationMs, String status, Object... details) {
-        Logger perfLogger = LoggerFactory.getLogger(PERFORMANCE_LOGGER);
-        StringBuilder message = new StringBuilder("METRIC | name=").append(metric)
-                .append(" | duration=").append(durationMs).append("ms")
-                .append(" | status=").append(status);
-        appendDetails(message, details);
-        perfLogger.debug(message.toString());
+        if (PERFORMANCE_LOG.isDebugEnabled()) {
+            emit(PERFORMANCE_LOG, Level.DEBUG, null, arguments("METRIC", details, "name", metric,
+                    "duration", StructuredArguments.keyValue("duration", durationMs, "{0}={1}ms"),
+                    "status", status));
+        }
     }
 
     /**
@@ -118,24 +137,55 @@ public class LoggerUtil {
      * @param details   Key-value pairs with context
      */
     public static void logException(Logger logger, String message, Exception exception, Object... details) {
-        StringBuilder logMessage = new StringBuilder("EXCEPTION | message=").append(message);
-        appendDetails(logMessage, details);
-        logger.error(logMessage.toString(), exception);
+        if (logger.isErrorEnabled()) {
+            // "message" is a reserved field in the JSON layout; keep the text but rename the field
+            emit(logger, Level.ERROR, exception, arguments("EXCEPTION", details, "message",
+                    StructuredArguments.keyValue("exceptionMessage", message, "message={1}")));
+        }
     }
 
     /**
-     * Helper method to append key-value pairs to message
-     * Expects alternating key, value pattern
+     * Builds the argument array: the event name, the fixed fields, then the
+     * caller's details (alternating key, value; an odd trailing value is kept
+     * as-is). Only called once the level is known to be enabled.
      */
-    private static void appendDetails(StringBuilder message, Object[] details) {
-        if (details != null && details.length > 0) {
-            for (int i = 0; i < details.length - 1; i += 2) {
-                message.append(" | ").append(details[i]).append("=").append(details[i + 1]);
-            }
-            // Handle odd number of parameters (incomplete pair)
-            if (details.length % 2 == 1) {
-                message.append(" | ").append(details[details.length - 1]);
-            }
+    private static Object[] arguments(String event, Object[] details, Object... fields) {
+        int detailCount = details == null ? 0 : (details.length + 1) / 2;
+        Object[] args = new Object[1 + fields.length / 2 + detailCount];
+        int a = 0;
+        args[a++] = event;
+        for (int i = 0; i < fields.length - 1; i += 2) {
+            // A pre-built argument (custom format) is passed through unchanged
+            args[a++] = fields[i + 1] instanceof StructuredArgument
+                    ? fields[i + 1]
+                    : StructuredArguments.keyValue((String) fields[i], fields[i + 1]);
+        }
+        for (int i = 0; details != null && i + 1 < details.length; i += 2) {
+            args[a++] = StructuredArguments.keyValue(String.valueOf(details[i]), details[i + 1]);
+        }
+        // Handle odd number of parameters (incomplete pair)
+        if (details != null && details.length % 2 == 1) {
+            args[a] = StructuredArguments.value("detail", details[details.length - 1]);
+        }
+        return args;
+    }
+
+    private static void emit(Logger logger, Level level, Throwable throwable, Object[] args) {
+        String pattern = args.length < PATTERNS.length
+                ? PATTERNS[args.length]
+                : PATTERNS[1] + " | {}".repeat(args.length - 1);
+        if (throwable != null) {
+            // SLF4J treats a trailing Throwable without a placeholder as the exception
+            Object[] withThrowable = Arrays.copyOf(args, args.length + 1);
+            withThrowable[args.length] = throwable;
+            args = withThrowable;
+        }
+        switch (level) {
+            case ERROR -> logger.error(pattern, args);
+            case WARN -> logger.warn(pattern, args);
+            case INFO -> logger.info(pattern, args);
+            case DEBUG -> logger.debug(pattern, args);
+            default -> logger.trace(pattern, args);
         }
     }
 
@@ -148,10 +198,9 @@ public class LoggerUtil {
      * @param details  Key-value pairs with request details
      */
     public static void logApiEntry(Logger logger, String method, String endpoint, Object... details) {
-        StringBuilder message = new StringBuilder("API_REQUEST | method=").append(method)
-                .append(" | endpoint=").append(endpoint);
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("API_REQUEST", details, "method", method, "endpoint", endpoint));
+        }
     }
 
     /**
@@ -163,11 +212,10 @@ public class LoggerUtil {
      * @param details  Key-value pairs with response details
      */
     public static void logApiSuccess(Logger logger, String method, String endpoint, Object... details) {
-        StringBuilder message = new StringBuilder("API_RESPONSE | method=").append(method)
-                .append(" | endpoint=").append(endpoint)
-                .append(" | status=SUCCESS");
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("API_RESPONSE", details, "method", method,
+                    "endpoint", endpoint, "status", "SUCCESS"));
+        }
     }
 
     /**
@@ -182,12 +230,10 @@ public class LoggerUtil {
      */
     public static void logApiError(Logger logger, String method, String endpoint, int statusCode, String errorMessage,
             Object... details) {
-        StringBuilder message = new StringBuilder("API_ERROR | method=").append(method)
-                .append(" | endpoint=").append(endpoint)
-                .append(" | statusCode=").append(statusCode)
-                .append(" | error=").append(errorMessage);
-        appendDetails(message, details);
-        logger.warn(message.toString());
+        if (logger.isWarnEnabled()) {
+            emit(logger, Level.WARN, null, arguments("API_ERROR", details, "method", method, "endpoint", endpoint,
+                    "statusCode", statusCode, "error", errorMessage));
+        }
     }
 
     /**
@@ -235,11 +281,10 @@ public class LoggerUtil {
      */
     public static void logValidationFailure(Logger logger, String field, Object value, String reason,
             Object... details) {
-        StringBuilder message = new StringBuilder("VALIDATION_FAILED | field=").append(field)
-                .append(" | value=").append(value)
-                .append(" | reason=").append(reason);
-        appendDetails(message, details);
-        logger.warn(message.toString());
+        if (logger.isWarnEnabled()) {
+            emit(logger, Level.WARN, null, arguments("VALIDATION_FAILED", details, "field", field, "value", value,
+                    "reason", reason));
+        }
     }
 
     /**
@@ -251,10 +296,9 @@ public class LoggerUtil {
      * @param details Key-value pairs with context
      */
     public static void logDataAccess(Logger logger, String entity, String action, Object... details) {
-        StringBuilder message = new StringBuilder("DATA_ACCESS | entity=").append(entity)
-                .append(" | action=").append(action);
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("DATA_ACCESS", details, "entity", entity, "action", action));
+        }
     }
 
     /**
@@ -265,9 +309,9 @@ public class LoggerUtil {
      * @param details   Key-value pairs with context
      */
     public static void logConcurrencyIssue(Logger logger, String operation, Object... details) {
-        StringBuilder message = new StringBuilder("CONCURRENCY_ISSUE | operation=").append(operation);
-        appendDetails(message, details);
-        logger.warn(message.toString());
+        if (logger.isWarnEnabled()) {
+            emit(logger, Level.WARN, null, arguments("CONCURRENCY_ISSUE", details, "operation", operation));
+        }
     }
 
     /**
@@ -281,11 +325,10 @@ public class LoggerUtil {
      */
     public static void logCalculation(Logger logger, String calculation, String inputs, String output,
             Object... details) {
-        StringBuilder message = new StringBuilder("CALCULATION | name=").append(calculation)
-                .append(" | inputs=").append(inputs)
-                .append(" | output=").append(output);
-        appendDetails(message, details);
-        logger.debug(message.toString());
+        if (logger.isDebugEnabled()) {
+            emit(logger, Level.DEBUG, null, arguments("CALCULATION", details, "name", calculation, "inputs", inputs,
+                    "output", output));
+        }
     }
 
     /**
@@ -300,11 +343,9 @@ public class LoggerUtil {
      */
     public static void logStateTransition(Logger logger, String entity, Long entityId, String oldState,
             String newState, Object... details) {
-        StringBuilder message = new StringBuilder("STATE_TRANSITION | entity=").append(entity)
-                .append(" | id=").append(entityId)
-                .append(" | from=").append(oldState)
-                .append(" | to=").append(newState);
-        appendDetails(message, details);
-        logger.info(message.toString());
+        if (logger.isInfoEnabled()) {
+            emit(logger, Level.INFO, null, arguments("STATE_TRANSITION", details, "entity", entity, "id", entityId,
+                    "from", oldState, "to", newState));
+        }
     }
 }
@@ -0,0 +1,55 @@
+package db.migration.h2;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * H2 copy of db/migration/postgresql/V6__ledger_append_key.sql. H2 has no
+ * procedural blocks, so the unique constraint on transaction_reference is
+ * looked up by its column in INFORMATION_SCHEMA here.
+ */
+public class V6__ledger_append_key extends BaseJavaMigration {
+
+    private static final String TRANSACTION_REFERENCE_KEYS_SQL = "SELECT tc.constraint_name "
+            + "FROM information_schema.table_constraints tc "
+            + "WHERE tc.table_schema = CURRENT_SCHEMA AND LOWER(tc.table_name) = 'customer_cylinder_ledger' "
+            + "AND tc.constraint_type = 'UNIQUE' "
+            + "AND (SELECT COUNT(*) FROM information_schema.key_column_usage k "
+            + "WHERE k.constraint_schema = tc.constraint_schema AND k.constraint_name = tc.constraint_name) = 1 "
+            + "AND EXISTS (SELECT 1 FROM information_schema.key_column_usage k "
+            + "WHERE k.constraint_schema = tc.constraint_schema AND k.constraint_name = tc.constraint_name "
+            + "AND LOWER(k.column_name) = 'transaction_reference')";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            // All lines of a sale carry the sale's reference number
+            List<String> constraints = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(TRANSACTION_REFERENCE_KEYS_SQL)) {
+                while (rs.next()) {
+                    constraints.add(rs.getString(1));
+                }
+            }
+            for (String constraint : constraints) {
+                statement.execute("ALTER TABLE customer_cylinder_ledger DROP CONSTRAINT \""
+                        + constraint.replace("\"", "\"\"") + "\"");
+            }
+
+            statement.execute("UPDATE customer_cylinder_ledger SET ref_id = NULL "
+                    + "WHERE ref_type = 'EMPTY_RETURN' AND ref_id = 0");
+            statement.execute("ALTER TABLE customer_cylinder_ledger "
+                    + "ADD CONSTRAINT uk_ccl_ref UNIQUE (ref_type, ref_id, customer_id, variant_id)");
+
+            statement.execute("DROP INDEX IF EXISTS idx_ccl_customer_variant_latest");
+            statement.execute("CREATE INDEX idx_ccl_customer_variant_latest "
+                    + "ON customer_cylinder_ledger (customer_id, variant_id, transaction_date DESC, id DESC)");
+        }
+    }
+}
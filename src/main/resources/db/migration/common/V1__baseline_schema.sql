@@ -0,0 +1,459 @@
+-- Baseline: schema as produced by spring.jpa.hibernate.ddl-auto=update before
+-- migrations were introduced. Existing databases are baselined at version 1
+-- (spring.flyway.baseline-on-migrate) and skip this script, so it has to
+-- match what Hibernate 6 built for them: bigserial ids (its PostgreSQL DDL for
+-- IDENTITY ids) and the unique and foreign key constraint names Hibernate
+-- generated. Later migrations may rely on those names. Databases whose ids
+-- are identity columns (older Hibernate) get sequences in V3.
+
+create table alert_configuration (
+    empty_cylinder_threshold integer,
+    enabled boolean not null,
+    filled_cylinder_threshold integer,
+    pending_return_threshold integer,
+    created_at timestamp(6) not null,
+    id bigserial not null,
+    updated_at timestamp(6) not null,
+    alert_type varchar(50) not null,
+    description varchar(500),
+    primary key (id)
+);
+
+create table alert_notification (
+    is_dismissed boolean not null,
+    created_at timestamp(6) not null,
+    customer_id bigint,
+    dismissed_at timestamp(6),
+    dismissed_by_user_id bigint,
+    expires_at timestamp(6) not null,
+    id bigserial not null,
+    warehouse_id bigint,
+    severity varchar(20),
+    alert_type varchar(50) not null,
+    alert_key varchar(100) not null,
+    message varchar(500) not null,
+    primary key (id)
+);
+
+create table bank_account (
+    is_active boolean not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    version bigint not null,
+    code varchar(20) not null,
+    account_number varchar(50) not null,
+    account_type varchar(50),
+    account_holder_name varchar(100) not null,
+    account_name varchar(100),
+    bank_name varchar(100) not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table bank_account_ledger (
+    amount numeric(38,2) not null,
+    balance_after numeric(38,2),
+    bank_account_id bigint not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    sale_id bigint,
+    transaction_date timestamp(6) not null,
+    updated_date timestamp(6),
+    reference_number varchar(50) not null,
+    created_by varchar(255),
+    description varchar(255),
+    transaction_type varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table business_info (
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    contact_number varchar(15),
+    gst_number varchar(20),
+    registration_number varchar(50),
+    agency_name varchar(100) not null,
+    email varchar(100),
+    address varchar(200),
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table customer (
+    active boolean not null,
+    discount_price numeric(38,2),
+    sale_price numeric(38,2),
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    version bigint not null,
+    address TEXT,
+    configured_variants TEXT,
+    created_by varchar(255),
+    gst_no varchar(255),
+    mobile varchar(255) not null,
+    name varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table customer_cylinder_ledger (
+    amount_received numeric(38,2),
+    due_amount numeric(38,2),
+    total_amount numeric(38,2),
+    transaction_date date not null,
+    balance bigint not null,
+    bank_account_id bigint,
+    created_date timestamp(6),
+    customer_id bigint not null,
+    empty_in bigint not null,
+    filled_out bigint not null,
+    id bigserial not null,
+    ref_id bigint,
+    sale_id bigint,
+    updated_date timestamp(6),
+    variant_id bigint,
+    version bigint not null,
+    warehouse_id bigint,
+    payment_mode varchar(50),
+    transaction_reference varchar(50),
+    update_reason varchar(1500),
+    created_by varchar(255),
+    ref_type varchar(255) not null check (ref_type in ('INITIAL_STOCK','SALE','EMPTY_RETURN','TRANSFER','PAYMENT')),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table customer_variant_price (
+    discount_price numeric(38,2) not null,
+    sale_price numeric(38,2) not null,
+    created_date timestamp(6),
+    customer_id bigint not null,
+    id bigserial not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table cylinder_variant (
+    active boolean not null,
+    base_price numeric(38,2),
+    weight_kg float(53) not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    created_by varchar(255),
+    name varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table expense_categories (
+    is_active boolean not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    name varchar(100) not null,
+    description varchar(500),
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table expenses (
+    amount numeric(10,2) not null,
+    expense_date date not null,
+    category_id bigint not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    notes varchar(500),
+    created_by varchar(255),
+    description varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table inventory_stock (
+    created_date timestamp(6),
+    empty_qty bigint not null,
+    filled_qty bigint not null,
+    id bigserial not null,
+    last_updated timestamp(6) not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    version bigint not null,
+    warehouse_id bigint not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id),
+    constraint uq_warehouse_variant unique (warehouse_id, variant_id)
+);
+
+create table monthly_price (
+    base_price numeric(38,2) not null,
+    created_at date not null,
+    month_year date not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table payment_modes (
+    is_active boolean not null,
+    is_bank_account_required boolean not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    code varchar(50) not null,
+    name varchar(100) not null,
+    description varchar(500),
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table refresh_tokens (
+    created_date timestamp(6),
+    expiry_date timestamp(6) with time zone not null,
+    id bigserial not null,
+    updated_date timestamp(6),
+    user_id bigint not null,
+    created_by varchar(255),
+    token varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table sale (
+    sale_date date not null,
+    total_amount numeric(38,2) not null,
+    bank_account_id bigint,
+    created_at timestamp(6) not null,
+    created_date timestamp(6),
+    customer_id bigint not null,
+    id bigserial not null,
+    updated_date timestamp(6),
+    version bigint not null,
+    warehouse_id bigint not null,
+    payment_mode varchar(50),
+    reference_number varchar(50) not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table sale_item (
+    base_price numeric(38,2) not null,
+    discount numeric(38,2) not null,
+    final_price numeric(38,2) not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    qty_empty_received bigint not null,
+    qty_issued bigint not null,
+    sale_id bigint not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    version bigint not null,
+    warehouse_id bigint not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table supplier (
+    business_id bigint not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    code varchar(20) not null,
+    contact varchar(255) not null,
+    created_by varchar(255),
+    name varchar(255) not null,
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table supplier_transaction (
+    amount DECIMAL(10,2) not null,
+    transaction_date date not null,
+    created_date timestamp(6),
+    empty_sent bigint not null,
+    filled_received bigint not null,
+    id bigserial not null,
+    supplier_id bigint not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    warehouse_id bigint not null,
+    reference_number varchar(50) not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table users (
+    active boolean not null,
+    business_id bigint,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_date timestamp(6),
+    created_by varchar(255),
+    mobile_no varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) not null check (role in ('MANAGER','STAFF')),
+    updated_by varchar(255),
+    username varchar(255) not null,
+    primary key (id)
+);
+
+create table warehouse (
+    business_id bigint not null,
+    created_at timestamp(6) not null,
+    created_date timestamp(6),
+    id bigserial not null,
+    updated_at timestamp(6) not null,
+    updated_date timestamp(6),
+    version bigint not null,
+    code varchar(20) not null,
+    status varchar(20) not null,
+    name varchar(100) not null,
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create table warehouse_transfer (
+    transfer_date date not null,
+    created_date timestamp(6),
+    from_warehouse_id bigint not null,
+    id bigserial not null,
+    quantity bigint not null,
+    to_warehouse_id bigint not null,
+    updated_date timestamp(6),
+    variant_id bigint not null,
+    version bigint not null,
+    reference_number varchar(50) not null,
+    notes varchar(500),
+    created_by varchar(255),
+    updated_by varchar(255),
+    primary key (id)
+);
+
+create index idx_bal_bank_account_date on bank_account_ledger (bank_account_id, transaction_date);
+create index idx_bal_transaction_date on bank_account_ledger (transaction_date);
+create index idx_bal_trans_type_date on bank_account_ledger (transaction_type, transaction_date);
+create index idx_customer_active on customer (active);
+create index idx_customer_mobile on customer (mobile);
+create index idx_ccl_customer_trans_date on customer_cylinder_ledger (customer_id, transaction_date);
+create index idx_ccl_warehouse_date on customer_cylinder_ledger (warehouse_id, transaction_date);
+create index idx_ccl_transaction_date on customer_cylinder_ledger (transaction_date);
+create index idx_ccl_ref_type_date on customer_cylinder_ledger (ref_type, transaction_date);
+create index idx_ccl_customer_variant on customer_cylinder_ledger (customer_id, variant_id);
+create index idx_ledger_customer_id on customer_cylinder_ledger (customer_id);
+create index idx_ledger_warehouse_id on customer_cylinder_ledger (warehouse_id);
+create index idx_ledger_variant_id on customer_cylinder_ledger (variant_id);
+create index idx_ledger_customer_warehouse on customer_cylinder_ledger (customer_id, warehouse_id);
+create index idx_customer_warehouse_variant on customer_cylinder_ledger (customer_id, warehouse_id, variant_id);
+create index idx_cvp_customer_id on customer_variant_price (customer_id);
+create index idx_cvp_variant_id on customer_variant_price (variant_id);
+create index idx_cvp_customer_variant on customer_variant_price (customer_id, variant_id);
+create index idx_variant_name on cylinder_variant (name);
+create index idx_variant_active on cylinder_variant (active);
+create index idx_expense_date on expenses (expense_date);
+create index idx_expense_category_date on expenses (category_id, expense_date);
+create index idx_is_warehouse_variant on inventory_stock (warehouse_id, variant_id);
+create index idx_is_warehouse on inventory_stock (warehouse_id);
+create index idx_is_variant on inventory_stock (variant_id);
+create index idx_stock_warehouse_variant on inventory_stock (warehouse_id, variant_id);
+create index idx_stock_last_updated on inventory_stock (last_updated);
+create index idx_mp_variant_month on monthly_price (variant_id, month_year);
+create index idx_monthlyprice_variant_id on monthly_price (variant_id);
+create index idx_monthlyprice_month_year on monthly_price (month_year);
+create index idx_sale_date on sale (sale_date);
+create index idx_sale_customer_date on sale (customer_id, sale_date);
+create index idx_sale_warehouse_date on sale (warehouse_id, sale_date);
+create index idx_sale_customer_id on sale (customer_id);
+create index idx_sale_warehouse_id on sale (warehouse_id);
+create index idx_saleitem_sale_id on sale_item (sale_id);
+create index idx_saleitem_warehouse_id on sale_item (warehouse_id);
+create index idx_saleitem_variant_id on sale_item (variant_id);
+create index idx_supplier_name on supplier (name);
+create index idx_supplier_contact on supplier (contact);
+create index idx_st_transaction_date on supplier_transaction (transaction_date);
+create index idx_st_supplier_date on supplier_transaction (supplier_id, transaction_date);
+create index idx_st_warehouse_supplier on supplier_transaction (warehouse_id, supplier_id);
+create index idx_suppliertransaction_supplier_id on supplier_transaction (supplier_id);
+create index idx_suppliertransaction_variant_id on supplier_transaction (variant_id);
+create index idx_suppliertransaction_transaction_date on supplier_transaction (transaction_date);
+create index idx_suppliertransaction_warehouse_id on supplier_transaction (warehouse_id);
+create index idx_warehouse_status on warehouse (status);
+create index idx_wt_transfer_date on warehouse_transfer (transfer_date);
+create index idx_wt_warehouses on warehouse_transfer (from_warehouse_id, to_warehouse_id, transfer_date);
+create index idx_transfer_from_warehouse on warehouse_transfer (from_warehouse_id);
+create index idx_transfer_to_warehouse on warehouse_transfer (to_warehouse_id);
+create index idx_transfer_variant on warehouse_transfer (variant_id);
+
+alter table alert_configuration add constraint UK_gxsyemuo21yhedwasx4yhmxc1 unique (alert_type);
+alter table alert_notification add constraint UK_kphiqj5r82mq4av6sq9v31wpl unique (alert_key);
+alter table bank_account add constraint UK_mb8kv2x9143o96jgxbv6mahcq unique (account_number);
+alter table bank_account add constraint UK_xf5wk50l1mgcbecyhjwhuc9c unique (code);
+alter table bank_account_ledger add constraint UK_nua0iolsqtxmhkyidysuqrbmk unique (reference_number);
+alter table customer add constraint UK_4h6a5iro7ibjn1v8g2n7pktiw unique (mobile);
+alter table customer_cylinder_ledger add constraint UK_tbg0ebscyb51vdqxx09son07b unique (transaction_reference);
+alter table customer_variant_price add constraint UKshu8ax8nhgemihsc5i3iv6aae unique (customer_id, variant_id);
+alter table cylinder_variant add constraint UK_k4nsa4oxyoxndxqf7k3ptsudt unique (name);
+alter table expense_categories add constraint UK_q3pvwy7m2uo5tqp95g9j1l9ss unique (name);
+alter table payment_modes add constraint UK_pr60k2xg73xkfifrd6apfs8bs unique (code);
+alter table payment_modes add constraint UK_imuyxuok8l7phbfivc8hb6f32 unique (name);
+alter table refresh_tokens add constraint UK_ghpmfn23vmxfu3spu3lfg4r2d unique (token);
+alter table sale add constraint UK_ku2tcbwnkg1r912ojhtujp4ra unique (reference_number);
+alter table supplier add constraint UK_u0lh6hby20ok7au7646wrewl unique (code);
+alter table supplier add constraint UK_c3fclhmodftxk4d0judiafwi3 unique (name);
+alter table supplier_transaction add constraint UK_8jtess0u5op8tbd0f5fu575ub unique (reference_number);
+alter table users add constraint UK_p0ph17e6328j6uu1cr2tyd8vb unique (mobile_no);
+alter table users add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+alter table warehouse add constraint UK_9wk4ocyt0wv0hpffpr41aoweu unique (code);
+alter table warehouse add constraint UK_dbmkeyi4co3vmnwnjxoocd4nh unique (name);
+alter table warehouse_transfer add constraint UK_9yb6296q6aquuveqhw6ml9bs unique (reference_number);
+
+alter table bank_account_ledger add constraint FK8r2ofbhehi6cyg543ty0l24s3 foreign key (bank_account_id) references bank_account;
+alter table bank_account_ledger add constraint FKaadlvoogj4ie4nht6yqkpqmcn foreign key (sale_id) references sale;
+alter table customer_cylinder_ledger add constraint FKf1wbk9rvwn880otl28rcpkwep foreign key (bank_account_id) references bank_account;
+alter table customer_cylinder_ledger add constraint FKjxa69dw4sq6inogcwgu5w79yq foreign key (customer_id) references customer;
+alter table customer_cylinder_ledger add constraint FK31fahtmxwkd1gkmc0mjgsqij9 foreign key (sale_id) references sale;
+alter table customer_cylinder_ledger add constraint FKe2kiweuuchiksq61t7uljyfu8 foreign key (variant_id) references cylinder_variant;
+alter table customer_cylinder_ledger add constraint FK6ckp748qxsqe4e4njwmmv8xwc foreign key (warehouse_id) references warehouse;
+alter table customer_variant_price add constraint FKfapicme2jd8p6eqj28uri99so foreign key (customer_id) references customer;
+alter table customer_variant_price add constraint FKov2j2snryv211ev74ovoognej foreign key (variant_id) references cylinder_variant;
+alter table expenses add constraint FKg7aulw52en8nct0mjq8uut03q foreign key (category_id) references expense_categories;
+alter table inventory_stock add constraint FK9lql2i196putdy8nadvrkrxcj foreign key (variant_id) references cylinder_variant;
+alter table inventory_stock add constraint FK7w64x84nnn7u0gr93a94q9mnb foreign key (warehouse_id) references warehouse;
+alter table monthly_price add constraint FK49iru709w4me7olpdl01i0lfo foreign key (variant_id) references cylinder_variant;
+alter table refresh_tokens add constraint FK1lih5y2npsf8u5o3vhdb9y0os foreign key (user_id) references users;
+alter table sale add constraint FKnckvn327b2vj5w7r5m23t9y5j foreign key (bank_account_id) references bank_account;
+alter table sale add constraint FKjw88ojfoqquyd9f1obip1ar0g foreign key (customer_id) references customer;
+alter table sale add constraint FK2trdi7e6mhpy7dykb7rf30sxn foreign key (warehouse_id) references warehouse;
+alter table sale_item add constraint FKar9qqr4n69xw1shum20oflleo foreign key (sale_id) references sale;
+alter table sale_item add constraint FKb4kdppfdlwmkh3gd0q88o709t foreign key (variant_id) references cylinder_variant;
+alter table sale_item add constraint FKl5ciuv8ws13w0b75g30lkwiah foreign key (warehouse_id) references warehouse;
+alter table supplier add constraint FKiqivrk8t872jmmikcogjdobc1 foreign key (business_id) references business_info;
+alter table supplier_transaction add constraint FKdlo3of0s6rov1oyislyvp87hw foreign key (supplier_id) references supplier;
+alter table supplier_transaction add constraint FK502re37rw6030ijjliu7w61ww foreign key (variant_id) references cylinder_variant;
+alter table supplier_transaction add constraint FK6xulthma1rcg7vqo1nsfykfl3 foreign key (warehouse_id) references warehouse;
+alter table users add constraint FKrupuuecswjx7vcdjoek2gl95v foreign key (business_id) references business_info;
+alter table warehouse add constraint FKtmo6fh4ubi9p4qx1m0nen1g0f foreign key (business_id) references business_info;
+alter table warehouse_transfer add constraint FKa2spfkua8q7op1got8704utea foreign key (from_warehouse_id) references warehouse;
+alter table warehouse_transfer add constraint FK5670yt9445u0exc70sr0eu5xw foreign key (to_warehouse_id) references warehouse;
+alter table warehouse_transfer add constraint FKalt2m6hldll245euqfaj13nkj foreign key (variant_id) references cylinder_variant;
@@ -0,0 +1,24 @@
+-- Transactional outbox: events (alerts, dismissals) are inserted in the same
+-- transaction as the change that caused them; every node tails the table by
+-- id and delivers the rows to its own SSE clients. Rows are purged after
+-- app.outbox.retention.
+create table outbox_event (
+    id bigserial not null,
+    created_at timestamp(6) not null,
+    event_type varchar(50) not null,
+    payload varchar(4000) not null,
+    primary key (id)
+);
+
+create index idx_outbox_event_created_at on outbox_event (created_at);
+
+-- Leases for cluster-wide singletons. The owner renews expires_at well before
+-- it passes; any node may take over a lease that has expired.
+create table scheduler_lease (
+    name varchar(50) not null,
+    owner varchar(100),
+    expires_at timestamp(6) not null,
+    primary key (name)
+);
+
+insert into scheduler_lease (name, owner, expires_at) values ('scheduler', null, timestamp '1970-01-01 00:00:00');
@@ -0,0 +1,23 @@
+-- Current due amount per customer, kept next to the ledger so a sale or
+-- payment reads one row by primary key instead of scanning the customer's
+-- history. Written in the same transaction as every ledger row that changes
+-- the due; the row is also the per-customer lock for those writes.
+create table customer_due (
+    customer_id bigint not null,
+    due_amount numeric(38,2) not null default 0,
+    last_ledger_id bigint,
+    updated_at timestamp(6) not null,
+    primary key (customer_id),
+    constraint fk_customer_due_customer foreign key (customer_id) references customer (id) on delete cascade
+);
+
+-- Seed from each customer's latest ledger entry (highest id)
+insert into customer_due (customer_id, due_amount, last_ledger_id, updated_at)
+select c.id, coalesce(l.due_amount, 0), l.id, current_timestamp
+from customer c
+left join (
+    select customer_id, max(id) as id
+    from customer_cylinder_ledger
+    group by customer_id
+) latest on latest.customer_id = c.id
+left join customer_cylinder_ledger l on l.id = latest.id;
@@ -0,0 +1,19 @@
+-- Opening-balance checkpoints: each customer's cylinder balance per variant
+-- and due amount after every ledger entry dated on or before as_of_date, in
+-- chain (transaction_date, id) order. Ledger replays start from the latest
+-- checkpoint before the entry they touch instead of the customer's first
+-- entry. Written by LedgerCheckpointService; rows at or after the date of a
+-- back-dated ledger write are deleted in that write's transaction.
+-- last_ledger_id is the variant's last entry in the chain up to as_of_date.
+create table customer_ledger_checkpoint (
+    customer_id bigint not null,
+    variant_id bigint not null,
+    as_of_date date not null,
+    last_ledger_id bigint,
+    balance bigint not null,
+    due_amount numeric(38,2) not null,
+    created_at timestamp(6) not null,
+    primary key (customer_id, as_of_date, variant_id),
+    constraint fk_clc_customer foreign key (customer_id) references customer (id) on delete cascade,
+    constraint fk_clc_variant foreign key (variant_id) references cylinder_variant (id)
+);
@@ -0,0 +1,9 @@
+-- H2 copy of db/migration/postgresql/V10__ledger_ids_in_commit_order.sql.
+-- BASE_VALUE is the next value the sequence hands out, the start of the next
+-- block of 50.
+
+alter sequence customer_cylinder_ledger_id_seq restart with (select greatest(
+    (select coalesce(max(id), 0) + 1 from customer_cylinder_ledger),
+    (select base_value from information_schema.sequences
+     where lower(sequence_name) = 'customer_cylinder_ledger_id_seq')));
+alter sequence customer_cylinder_ledger_id_seq increment by 1;
@@ -0,0 +1,26 @@
+-- H2 copy of db/migration/postgresql/V2__hot_path_indexes.sql.
+-- H2 has no INCLUDE, and binds foreign keys to whichever index already covers
+-- the column, so the redundant-index drops are left to the Postgres script.
+
+-- customer_cylinder_ledger -------------------------------------------------
+
+-- Latest entry per customer/variant (ORDER BY id DESC LIMIT 1)
+create index idx_ccl_customer_variant_latest
+    on customer_cylinder_ledger (customer_id, variant_id, id desc);
+
+-- Latest due amount per customer
+create index idx_ccl_customer_latest
+    on customer_cylinder_ledger (customer_id, id desc);
+
+-- Monthly EMPTY_RETURN count per warehouse (range on created_date)
+create index idx_ccl_warehouse_type_created
+    on customer_cylinder_ledger (warehouse_id, ref_type, created_date);
+
+-- Keyset pagination tie-breakers (date, id) -------------------------------
+
+create index idx_sale_date_id on sale (sale_date, id);
+
+create index idx_expense_date_id on expenses (expense_date, id);
+
+create index idx_bal_bank_account_date_id on bank_account_ledger (bank_account_id, transaction_date, id);
+create index idx_bal_transaction_date_id on bank_account_ledger (transaction_date, id);
@@ -0,0 +1,33 @@
+-- H2 copy of db/migration/postgresql/V3__pooled_id_sequences.sql. H2 bigserial
+-- columns are identity columns without a named sequence, so create the
+-- sequences and point the column defaults at them.
+
+create sequence sale_id_seq start with 1 increment by 50;
+alter sequence sale_id_seq restart with (select coalesce(max(id), 0) + 1 from sale);
+alter table sale alter column id drop identity;
+alter table sale alter column id set default nextval('sale_id_seq');
+
+create sequence sale_item_id_seq start with 1 increment by 50;
+alter sequence sale_item_id_seq restart with (select coalesce(max(id), 0) + 1 from sale_item);
+alter table sale_item alter column id drop identity;
+alter table sale_item alter column id set default nextval('sale_item_id_seq');
+
+create sequence customer_cylinder_ledger_id_seq start with 1 increment by 50;
+alter sequence customer_cylinder_ledger_id_seq restart with (select coalesce(max(id), 0) + 1 from customer_cylinder_ledger);
+alter table customer_cylinder_ledger alter column id drop identity;
+alter table customer_cylinder_ledger alter column id set default nextval('customer_cylinder_ledger_id_seq');
+
+create sequence bank_account_ledger_id_seq start with 1 increment by 50;
+alter sequence bank_account_ledger_id_seq restart with (select coalesce(max(id), 0) + 1 from bank_account_ledger);
+alter table bank_account_ledger alter column id drop identity;
+alter table bank_account_ledger alter column id set default nextval('bank_account_ledger_id_seq');
+
+create sequence warehouse_transfer_id_seq start with 1 increment by 50;
+alter sequence warehouse_transfer_id_seq restart with (select coalesce(max(id), 0) + 1 from warehouse_transfer);
+alter table warehouse_transfer alter column id drop identity;
+alter table warehouse_transfer alter column id set default nextval('warehouse_transfer_id_seq');
+
+create sequence alert_notification_id_seq start with 1 increment by 50;
+alter sequence alert_notification_id_seq restart with (select coalesce(max(id), 0) + 1 from alert_notification);
+alter table alert_notification alter column id drop identity;
+alter table alert_notification alter column id set default nextval('alert_notification_id_seq');
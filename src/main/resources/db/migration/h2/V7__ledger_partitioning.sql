@@ -0,0 +1,15 @@
+-- H2 has no table partitioning, so customer_cylinder_ledger and uk_ccl_ref
+-- stay as they are; keep the archive catalog in step with
+-- db/migration/postgresql.
+
+create table ledger_archive (
+    period_start date not null primary key,
+    period_end date not null,
+    file_name varchar(255) not null,
+    row_count bigint not null,
+    min_ledger_id bigint,
+    max_ledger_id bigint,
+    carried_forward integer not null,
+    sha256 varchar(64) not null,
+    archived_at timestamp(6) not null
+);
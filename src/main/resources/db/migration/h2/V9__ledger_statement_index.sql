@@ -0,0 +1,4 @@
+-- Same index as db/migration/postgresql, without INCLUDE.
+drop index if exists idx_ccl_customer_trans_date;
+
+create index idx_ccl_customer_date_id on customer_cylinder_ledger (customer_id, transaction_date, id);
@@ -0,0 +1,11 @@
+-- Ledger ids order same-day entries of a customer's chain (transaction_date,
+-- id), so they must follow the order in which the entries were written.
+-- Blocks of 50 are handed out per node and break that on more than one node:
+-- take ledger ids one at a time from the sequence, while the writer holds the
+-- customer's due register. Restart above every id of a block already handed
+-- out.
+
+select setval('customer_cylinder_ledger_id_seq', greatest(
+    (select coalesce(max(id), 0) from customer_cylinder_ledger),
+    (select last_value + 49 from customer_cylinder_ledger_id_seq)));
+alter sequence customer_cylinder_ledger_id_seq increment by 1 cache 1;
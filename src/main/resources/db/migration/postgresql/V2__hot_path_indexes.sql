@@ -0,0 +1,62 @@
+-- Replace overlapping indexes with ones that match the hot queries.
+-- db/migration/h2 has the same creates without INCLUDE and without the drops.
+
+-- customer_cylinder_ledger -------------------------------------------------
+
+-- Latest entry per customer/variant (ORDER BY id DESC LIMIT 1) answered
+-- from the index alone
+create index idx_ccl_customer_variant_latest
+    on customer_cylinder_ledger (customer_id, variant_id, id desc) include (balance, due_amount);
+
+-- Latest due amount per customer
+create index idx_ccl_customer_latest
+    on customer_cylinder_ledger (customer_id, id desc) include (due_amount);
+
+-- Monthly EMPTY_RETURN count per warehouse (range on created_date)
+create index idx_ccl_warehouse_type_created
+    on customer_cylinder_ledger (warehouse_id, ref_type, created_date);
+
+drop index if exists idx_ccl_customer_variant;
+drop index if exists idx_ledger_customer_id;
+drop index if exists idx_ledger_customer_warehouse;
+drop index if exists idx_ledger_warehouse_id;
+
+-- Keyset pagination tie-breakers (date, id) -------------------------------
+
+create index idx_sale_date_id on sale (sale_date, id);
+drop index if exists idx_sale_date;
+
+create index idx_expense_date_id on expenses (expense_date, id);
+drop index if exists idx_expense_date;
+
+create index idx_bal_bank_account_date_id on bank_account_ledger (bank_account_id, transaction_date, id);
+create index idx_bal_transaction_date_id on bank_account_ledger (transaction_date, id);
+drop index if exists idx_bal_bank_account_date;
+drop index if exists idx_bal_transaction_date;
+
+-- Duplicates of unique constraints or of a composite index's prefix --------
+
+drop index if exists idx_is_warehouse_variant;
+drop index if exists idx_stock_warehouse_variant;
+drop index if exists idx_is_warehouse;
+
+drop index if exists idx_cvp_customer_variant;
+drop index if exists idx_cvp_customer_id;
+
+drop index if exists idx_suppliertransaction_transaction_date;
+drop index if exists idx_suppliertransaction_supplier_id;
+drop index if exists idx_suppliertransaction_warehouse_id;
+
+drop index if exists idx_monthlyprice_variant_id;
+
+drop index if exists idx_sale_customer_id;
+drop index if exists idx_sale_warehouse_id;
+drop index if exists idx_sale_reference_number;
+
+drop index if exists idx_transfer_from_warehouse;
+drop index if exists idx_transfer_reference_number;
+
+drop index if exists idx_warehouse_name;
+drop index if exists idx_supplier_name;
+drop index if exists idx_variant_name;
+drop index if exists idx_customer_mobile;
@@ -0,0 +1,40 @@
+-- Move high-volume tables from one-at-a-time IDENTITY ids to Hibernate sequence
+-- ids allocated 50 at a time (pooled-lo). The bigserial sequences already
+-- exist; step them by 50 and restart them above the current max id. The
+-- column defaults keep using the same sequences.
+
+-- A database built by a Hibernate version that generated identity columns has
+-- no <table>_id_seq: turn the identity into a plain default on such a sequence
+do $$
+declare
+    t text;
+begin
+    foreach t in array array['sale', 'sale_item', 'customer_cylinder_ledger', 'bank_account_ledger',
+            'warehouse_transfer', 'alert_notification'] loop
+        if exists (select 1 from pg_attribute where attrelid = t::regclass and attname = 'id'
+                and attidentity <> '') then
+            execute format('alter table %I alter column id drop identity', t);
+            execute format('create sequence if not exists %I', t || '_id_seq');
+            execute format('alter table %I alter column id set default nextval(%L)', t, t || '_id_seq');
+            execute format('alter sequence %I owned by %I.id', t || '_id_seq', t);
+        end if;
+    end loop;
+end $$;
+
+alter sequence sale_id_seq increment by 50;
+select setval('sale_id_seq', (select coalesce(max(id), 0) + 1 from sale), false);
+
+alter sequence sale_item_id_seq increment by 50;
+select setval('sale_item_id_seq', (select coalesce(max(id), 0) + 1 from sale_item), false);
+
+alter sequence customer_cylinder_ledger_id_seq increment by 50;
+select setval('customer_cylinder_ledger_id_seq', (select coalesce(max(id), 0) + 1 from customer_cylinder_ledger), false);
+
+alter sequence bank_account_ledger_id_seq increment by 50;
+select setval('bank_account_ledger_id_seq', (select coalesce(max(id), 0) + 1 from bank_account_ledger), false);
+
+alter sequence warehouse_transfer_id_seq increment by 50;
+select setval('warehouse_transfer_id_seq', (select coalesce(max(id), 0) + 1 from warehouse_transfer), false);
+
+alter sequence alert_notification_id_seq increment by 50;
+select setval('alert_notification_id_seq', (select coalesce(max(id), 0) + 1 from alert_notification), false);
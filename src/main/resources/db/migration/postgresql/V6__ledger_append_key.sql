@@ -0,0 +1,32 @@
+-- Ledger rows are appended with one INSERT ... SELECT; duplicates are
+-- rejected by a key instead of a locked lookup before the insert.
+-- db/migration/h2 does the same in Java (H2 has no procedural blocks).
+
+-- All lines of a sale carry the sale's reference number: drop the unique
+-- constraint on transaction_reference, found by its column so the name it
+-- got (Hibernate's or Postgres' default) does not matter
+do $$
+declare
+    c record;
+begin
+    for c in select con.conname from pg_constraint con
+            join pg_attribute a on a.attrelid = con.conrelid and a.attname = 'transaction_reference'
+            where con.conrelid = 'customer_cylinder_ledger'::regclass and con.contype = 'u'
+            and con.conkey = array[a.attnum] loop
+        execute format('alter table customer_cylinder_ledger drop constraint %I', c.conname);
+    end loop;
+end $$;
+
+-- Empty returns stored ref_id 0 for "no reference"; NULLs do not collide in
+-- the key, zeros would
+update customer_cylinder_ledger set ref_id = null where ref_type = 'EMPTY_RETURN' and ref_id = 0;
+
+alter table customer_cylinder_ledger
+    add constraint uk_ccl_ref unique (ref_type, ref_id, customer_id, variant_id);
+
+-- The balance an append carries forward is the variant's previous entry in
+-- chain order (transaction_date, id), not the highest id
+drop index if exists idx_ccl_customer_variant_latest;
+
+create index idx_ccl_customer_variant_latest
+    on customer_cylinder_ledger (customer_id, variant_id, transaction_date desc, id desc) include (balance, due_amount);
@@ -0,0 +1,111 @@
+-- Range-partition customer_cylinder_ledger by transaction_date month.
+--
+-- The existing table is kept as the DEFAULT partition: it is renamed and
+-- attached, no rows are copied here. LedgerPartitionService then moves its
+-- rows into monthly partitions, oldest month first and one month per
+-- transaction (POST /api/ledger/admin/partitions/migrate), and creates the
+-- coming months' partitions ahead of time.
+--
+-- Postgres needs the partition key in every unique constraint on the parent,
+-- so the primary key becomes (id, transaction_date); ids still come from one
+-- sequence. uk_ccl_ref is not widened: each partition keeps its own
+-- (ref_type, ref_id, customer_id, variant_id) key and append checks across
+-- partitions before inserting. Works on Postgres 12 and later, on databases
+-- built by these migrations or by Hibernate ddl-auto=update and baselined.
+
+-- The id column must be a plain default on a sequence that outlives the old
+-- table: V3 converts identity columns, repeat it here for databases that
+-- reached this version some other way
+do $$
+begin
+    if exists (select 1 from pg_attribute
+               where attrelid = 'customer_cylinder_ledger'::regclass and attname = 'id'
+                 and attidentity <> '') then
+        alter table customer_cylinder_ledger alter column id drop identity;
+    end if;
+    if to_regclass('customer_cylinder_ledger_id_seq') is null then
+        create sequence customer_cylinder_ledger_id_seq increment by 50;
+        perform setval('customer_cylinder_ledger_id_seq',
+                       (select coalesce(max(id), 0) + 1 from customer_cylinder_ledger), false);
+    end if;
+end $$;
+
+alter sequence customer_cylinder_ledger_id_seq increment by 50 owned by none;
+alter table customer_cylinder_ledger
+    alter column id set default nextval('customer_cylinder_ledger_id_seq');
+
+-- Before Postgres 17 a table cannot be attached while it has a primary key
+-- other than the parent's, nor keep its own foreign keys next to the cloned
+-- ones. The names differ between Hibernate-built and migrated databases, so
+-- find them by kind
+do $$
+declare
+    c record;
+begin
+    for c in select conname from pg_constraint
+             where conrelid = 'customer_cylinder_ledger'::regclass and contype in ('p', 'f') loop
+        execute format('alter table customer_cylinder_ledger drop constraint %I', c.conname);
+    end loop;
+end $$;
+
+alter table customer_cylinder_ledger rename to customer_cylinder_ledger_default;
+alter table customer_cylinder_ledger_default
+    add constraint customer_cylinder_ledger_default_pkey primary key (id, transaction_date);
+alter table customer_cylinder_ledger_default rename constraint uk_ccl_ref to uk_ccl_ref_default;
+
+-- Free the index names for the partitioned table. The old indexes match its
+-- definitions, so attaching the partition adopts them instead of rebuilding
+alter index idx_ccl_customer_trans_date rename to idx_ccl_default_customer_trans_date;
+alter index idx_ccl_warehouse_date rename to idx_ccl_default_warehouse_date;
+alter index idx_ccl_transaction_date rename to idx_ccl_default_transaction_date;
+alter index idx_ccl_ref_type_date rename to idx_ccl_default_ref_type_date;
+alter index idx_ccl_customer_variant_latest rename to idx_ccl_default_customer_variant_latest;
+alter index idx_ccl_customer_latest rename to idx_ccl_default_customer_latest;
+alter index idx_ccl_warehouse_type_created rename to idx_ccl_default_warehouse_type_created;
+alter index idx_ledger_variant_id rename to idx_ccl_default_variant_id;
+alter index idx_customer_warehouse_variant rename to idx_ccl_default_customer_warehouse_variant;
+
+create table customer_cylinder_ledger (
+    like customer_cylinder_ledger_default including defaults including constraints
+) partition by range (transaction_date);
+
+alter table customer_cylinder_ledger
+    alter column id set default nextval('customer_cylinder_ledger_id_seq');
+alter table customer_cylinder_ledger
+    add constraint customer_cylinder_ledger_pkey primary key (id, transaction_date);
+
+alter table customer_cylinder_ledger add constraint fk_ccl_bank_account foreign key (bank_account_id) references bank_account;
+alter table customer_cylinder_ledger add constraint fk_ccl_customer foreign key (customer_id) references customer;
+alter table customer_cylinder_ledger add constraint fk_ccl_sale foreign key (sale_id) references sale;
+alter table customer_cylinder_ledger add constraint fk_ccl_variant foreign key (variant_id) references cylinder_variant;
+alter table customer_cylinder_ledger add constraint fk_ccl_warehouse foreign key (warehouse_id) references warehouse;
+
+create index idx_ccl_customer_trans_date on customer_cylinder_ledger (customer_id, transaction_date);
+create index idx_ccl_warehouse_date on customer_cylinder_ledger (warehouse_id, transaction_date);
+create index idx_ccl_transaction_date on customer_cylinder_ledger (transaction_date);
+create index idx_ccl_ref_type_date on customer_cylinder_ledger (ref_type, transaction_date);
+create index idx_ccl_customer_variant_latest
+    on customer_cylinder_ledger (customer_id, variant_id, transaction_date desc, id desc) include (balance, due_amount);
+create index idx_ccl_customer_latest
+    on customer_cylinder_ledger (customer_id, id desc) include (due_amount);
+create index idx_ccl_warehouse_type_created
+    on customer_cylinder_ledger (warehouse_id, ref_type, created_date);
+create index idx_ledger_variant_id on customer_cylinder_ledger (variant_id);
+create index idx_customer_warehouse_variant on customer_cylinder_ledger (customer_id, warehouse_id, variant_id);
+
+-- Adopts the default partition's primary key and indexes and validates the
+-- cloned foreign keys against its rows
+alter table customer_cylinder_ledger attach partition customer_cylinder_ledger_default default;
+
+-- Months moved to compressed files by LedgerArchiveService
+create table ledger_archive (
+    period_start date not null primary key,
+    period_end date not null,
+    file_name varchar(255) not null,
+    row_count bigint not null,
+    min_ledger_id bigint,
+    max_ledger_id bigint,
+    carried_forward integer not null,
+    sha256 varchar(64) not null,
+    archived_at timestamp(6) not null
+);
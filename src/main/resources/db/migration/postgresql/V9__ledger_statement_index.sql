@@ -0,0 +1,12 @@
+-- Chain order (transaction_date, id) of one customer: as-of balances and
+-- statements read a customer's rows from a checkpoint or period start to a
+-- date in this order, as do the replays in updateLedgerEntry. The INCLUDE
+-- columns are what the as-of replay reads. Replaces the (customer_id,
+-- transaction_date) index; created on the partitioned table, so on every
+-- partition.
+-- db/migration/h2 has the same index without INCLUDE.
+drop index if exists idx_ccl_customer_trans_date;
+
+create index idx_ccl_customer_date_id
+    on customer_cylinder_ledger (customer_id, transaction_date, id)
+    include (variant_id, filled_out, empty_in, total_amount, amount_received);
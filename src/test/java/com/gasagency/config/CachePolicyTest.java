@@ -0,0 +1,69 @@
+package com.gasagency.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every cache name an application bean uses (@Cacheable, @CachePut,
+ * @CacheEvict) needs an app.cache.policies entry, so a new cache cannot ship
+ * without a size and TTL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CachePolicyTest {
+
+    private static final String APPLICATION_PACKAGE = "com.gasagency.";
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void everyUsedCacheHasPolicy() {
+        Set<String> used = usedCacheNames();
+        assertTrue(!used.isEmpty(), "no cache annotations found");
+
+        Set<String> missing = new TreeSet<>(used);
+        missing.removeAll(cacheManager.getCacheNames());
+        assertTrue(missing.isEmpty(), "Caches without a policy: " + missing + "; add "
+                + CacheConfig.POLICIES_PREFIX + ".<name>=<caffeine spec> for each");
+    }
+
+    private Set<String> usedCacheNames() {
+        AnnotationCacheOperationSource operationSource = new AnnotationCacheOperationSource();
+        Set<String> names = new TreeSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> type = beanFactory.getType(beanName, false);
+            if (type == null) {
+                continue;
+            }
+            Class<?> userClass = ClassUtils.getUserClass(type);
+            if (!userClass.getName().startsWith(APPLICATION_PACKAGE)) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(userClass, method -> {
+                Collection<CacheOperation> operations = operationSource.getCacheOperations(method, userClass);
+                if (operations != null) {
+                    operations.forEach(operation -> names.addAll(operation.getCacheNames()));
+                }
+            });
+        }
+        return names;
+    }
+}
@@ -0,0 +1,111 @@
+package com.gasagency.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SchemaMigrationTest on Postgres: Flyway builds an empty database from
+ * db/migration/{common,postgresql} and Hibernate validates the entities
+ * against it. The checks below cover what the Postgres-only migrations do
+ * that H2 never runs.
+ */
+@EnabledIf("com.gasagency.config.PostgresTestSupport#available")
+class PostgresSchemaMigrationTest extends PostgresTestSupport {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migratesCleanDatabaseAndValidatesMappings() {
+        MigrationInfo[] applied = flyway.info().applied();
+        assertTrue(applied.length > 0, "no migrations applied");
+        assertEquals("1", applied[0].getVersion().getVersion(), "schema was baselined, not built from V1");
+        assertTrue(Arrays.stream(applied).allMatch(info -> info.getState() == MigrationState.SUCCESS),
+                "a migration did not succeed");
+        assertEquals(0, flyway.info().pending().length, "pending migrations");
+        assertEquals("10", applied[applied.length - 1].getVersion().getVersion());
+    }
+
+    @Test
+    void hotPathIndexesReplaceTheOldOnes() {
+        // V2, with the ledger indexes V7 recreated on the partitioned table and V9's chain index
+        List<String> indexes = jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes "
+                + "WHERE schemaname = current_schema()", String.class);
+        assertTrue(indexes.containsAll(List.of("idx_sale_date_id", "idx_expense_date_id",
+                "idx_bal_bank_account_date_id", "idx_ccl_customer_variant_latest", "idx_ccl_customer_latest",
+                "idx_ccl_customer_date_id")), indexes.toString());
+        assertTrue(indexes.stream().noneMatch(List.of("idx_sale_date", "idx_expense_date",
+                "idx_ccl_customer_trans_date")::contains), indexes.toString());
+    }
+
+    @Test
+    void sequencesStepAsTheEntitiesAllocate() {
+        // V3 steps the pooled sequences by 50; V10 takes ledger ids one at a time
+        assertEquals(50L, increment("sale_id_seq"));
+        assertEquals(50L, increment("sale_item_id_seq"));
+        assertEquals(50L, increment("bank_account_ledger_id_seq"));
+        assertEquals(1L, increment("customer_cylinder_ledger_id_seq"));
+    }
+
+    @Test
+    void ledgerIsPartitionedWithTheOldTableAsDefault() {
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class "
+                + "WHERE oid = 'customer_cylinder_ledger'::regclass", String.class));
+        assertEquals("DEFAULT", jdbcTemplate.queryForObject("SELECT pg_get_expr(relpartbound, oid) FROM pg_class "
+                + "WHERE oid = 'customer_cylinder_ledger_default'::regclass", String.class));
+
+        // Primary key widened by the partition key, on the parent and adopted by the default partition
+        assertEquals("PRIMARY KEY (id, transaction_date)", constraint("customer_cylinder_ledger", "p"));
+        assertEquals("PRIMARY KEY (id, transaction_date)", constraint("customer_cylinder_ledger_default", "p"));
+        // V6's reference key stays on the partition
+        assertEquals("UNIQUE (ref_type, ref_id, customer_id, variant_id)",
+                constraint("customer_cylinder_ledger_default", "u"));
+
+        List<String> foreignKeys = jdbcTemplate.queryForList("SELECT conname FROM pg_constraint "
+                + "WHERE conrelid = 'customer_cylinder_ledger'::regclass AND contype = 'f' ORDER BY conname",
+                String.class);
+        assertEquals(List.of("fk_ccl_bank_account", "fk_ccl_customer", "fk_ccl_sale", "fk_ccl_variant",
+                "fk_ccl_warehouse"), foreignKeys);
+
+        // The id default moved to the parent, on a sequence the old table no longer owns
+        assertEquals("nextval('customer_cylinder_ledger_id_seq'::regclass)", jdbcTemplate.queryForObject(
+                "SELECT column_default FROM information_schema.columns WHERE table_schema = current_schema() "
+                        + "AND table_name = 'customer_cylinder_ledger' AND column_name = 'id'", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_depend "
+                + "WHERE objid = 'customer_cylinder_ledger_id_seq'::regclass AND deptype = 'a'", Integer.class));
+    }
+
+    @Test
+    void ledgerTransactionReferenceIsNotUnique() {
+        Integer keys = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.key_column_usage k "
+                + "JOIN information_schema.table_constraints tc ON tc.constraint_schema = k.constraint_schema "
+                + "AND tc.constraint_name = k.constraint_name WHERE tc.constraint_type = 'UNIQUE' "
+                + "AND k.table_name LIKE 'customer_cylinder_ledger%' AND k.column_name = 'transaction_reference'",
+                Integer.class);
+        assertEquals(0, keys);
+    }
+
+    private long increment(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT increment_by FROM pg_sequences "
+                + "WHERE schemaname = current_schema() AND sequencename = ?", Long.class, sequence);
+    }
+
+    private String constraint(String table, String type) {
+        return jdbcTemplate.queryForObject("SELECT pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = ?::regclass AND contype = ?", String.class, table, type);
+    }
+}
@@ -0,0 +1,59 @@
+package com.gasagency.config;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base of the tests that need Postgres: the test profile with the datasource
+ * pointed at a Postgres database, which Flyway builds from
+ * db/migration/{common,postgresql}.
+ *
+ * The database is the one given by -Dtest.postgres.url (with
+ * test.postgres.username / test.postgres.password, default postgres) or else
+ * a postgres:16 container when Docker is available. Subclasses add
+ * {@code @EnabledIf("com.gasagency.config.PostgresTestSupport#available")}
+ * so they are skipped when neither is. The tests commit DDL (partitions are
+ * split and dropped), so an external database must be a new, empty one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class PostgresTestSupport {
+
+    private static final String URL_PROPERTY = "test.postgres.url";
+
+    private static PostgreSQLContainer<?> container;
+
+    public static boolean available() {
+        return System.getProperty(URL_PROPERTY) != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @DynamicPropertySource
+    static void postgresDataSource(DynamicPropertyRegistry registry) {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.postgres.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.postgres.password", "postgres"));
+        } else {
+            PostgreSQLContainer<?> postgres = startContainer();
+            registry.add("spring.datasource.url", postgres::getJdbcUrl);
+            registry.add("spring.datasource.username", postgres::getUsername);
+            registry.add("spring.datasource.password", postgres::getPassword);
+        }
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    // One container for the whole run, like the cached application context
+    private static synchronized PostgreSQLContainer<?> startContainer() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+}
@@ -0,0 +1,52 @@
+package com.gasagency.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Map;
+
+/**
+ * Fails a test that runs more JDBC executions than the {@link QueryBudget} on
+ * its method (or class), counted by {@link QueryCounter} on the test thread
+ * from just before the test method to its end, so @BeforeEach fixtures are
+ * not counted. Tests without a budget are not checked.
+ *
+ * <pre>
+ * &#64;ExtendWith(QueryBudgetExtension.class)
+ * class SaleServiceTest {
+ *     &#64;Test
+ *     &#64;QueryBudget(3)
+ *     void listsSales() { ... }
+ * }
+ * </pre>
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryCounter.Counts counts = QueryCounter.stop();
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        if (budget == null) {
+            budget = context.getRequiredTestClass().getAnnotation(QueryBudget.class);
+        }
+        if (budget == null || counts == null || counts.getTotal() <= budget.value()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append(context.getDisplayName()).append(" ran ").append(counts.getTotal())
+                .append(" JDBC executions (").append(counts.getStatements()).append(" statements, ")
+                .append(counts.getBatches()).append(" batches), budget ").append(budget.value());
+        Map.Entry<String, Integer> mostRepeated = counts.getMostRepeated();
+        if (mostRepeated != null && mostRepeated.getValue() > 1) {
+            message.append("; most repeated (").append(mostRepeated.getValue()).append("x): ")
+                    .append(mostRepeated.getKey());
+        }
+        throw new AssertionError(message.toString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        routing = new ReplicaRoutingDataSource(lagMonitor, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearPin();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writeOffRequestPinsOnlyUntilTransactionCompletes() {
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, inTransaction(false));
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, inTransaction(true));
+    }
+
+    @Test
+    void writeInRequestPinsLaterReadOnlyTransactions() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, inTransaction(true));
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, inTransaction(false));
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, inTransaction(true));
+
+        ReplicaRoutingDataSource.clearPin();
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, inTransaction(true));
+    }
+
+    /**
+     * Routes one connection inside a simulated transaction, then completes it.
+     */
+    private Object inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return routing.determineCurrentLookupKey();
+        } finally {
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+            TransactionSynchronizationManager.clear();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.gasagency.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test profile starts on an empty H2 database: Flyway builds the schema
+ * from V1 and Hibernate validates the entities against it
+ * (ddl-auto=validate), so the context only starts if the migrations and the
+ * mappings agree.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.hibernate.ddl-auto}")
+    private String ddlAuto;
+
+    @Test
+    void migratesCleanDatabaseAndValidatesMappings() {
+        assertEquals("validate", ddlAuto);
+
+        MigrationInfo[] applied = flyway.info().applied();
+        assertTrue(applied.length > 0, "no migrations applied");
+        assertEquals("1", applied[0].getVersion().getVersion(), "schema was baselined, not built from V1");
+        assertTrue(Arrays.stream(applied).allMatch(info -> info.getState() == MigrationState.SUCCESS),
+                "a migration did not succeed");
+        assertEquals(0, flyway.info().pending().length, "pending migrations");
+    }
+
+    @Test
+    void ledgerTransactionReferenceIsNotUnique() {
+        // V6 finds this constraint by its column, whatever it was named
+        Integer keys = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.key_column_usage k "
+                + "JOIN information_schema.table_constraints tc ON tc.constraint_schema = k.constraint_schema "
+                + "AND tc.constraint_name = k.constraint_name WHERE tc.constraint_type = 'UNIQUE' "
+                + "AND k.table_name = 'customer_cylinder_ledger' AND k.column_name = 'transaction_reference'",
+                Integer.class);
+        assertEquals(0, keys);
+    }
+}
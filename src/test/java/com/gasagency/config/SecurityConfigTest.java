@@ -0,0 +1,75 @@
+package com.gasagency.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * URL-level authorization. Method security is not enabled, so these rules are
+ * the only guard in front of the MANAGER-only endpoints.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/api/ledger/export", "/api/sales/export", "/api/bank-account-ledgers/export",
+            "/api/supplier-transactions/export", "/api/expenses/export" })
+    void exportsRequireManager(String path) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get(path).with(user("staff").roles("STAFF"))).andExpect(status().isForbidden());
+        mockMvc.perform(get(path).with(user("manager").roles("MANAGER"))).andExpect(status().isOk());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/api/ledger/admin/partitions", "/api/ledger/archive", "/api/ledger/archive/2024-01" })
+    void ledgerAdminReadsRequireManager(String path) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get(path).with(user("staff").roles("STAFF"))).andExpect(status().isForbidden());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/api/ledger/admin/partitions/migrate", "/api/ledger/admin/partitions/archive",
+            "/api/ledger/admin/checkpoints/compact", "/api/ledger/admin/repair-balances" })
+    void ledgerAdminActionsRequireManager(String path) throws Exception {
+        mockMvc.perform(post(path)).andExpect(status().isUnauthorized());
+        mockMvc.perform(post(path).with(user("staff").roles("STAFF"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void otherEndpointsRequireAuthentication() throws Exception {
+        mockMvc.perform(get("/api/customers")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/admin/jfr/status").with(user("staff").roles("STAFF")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void corsPreflightIsPermitted() throws Exception {
+        mockMvc.perform(options("/api/customers").header("Origin", "http://localhost:4200")
+                .header("Access-Control-Request-Method", "GET")).andExpect(status().isOk());
+    }
+
+    @Test
+    void alertCheckRequiresManager() throws Exception {
+        mockMvc.perform(post("/api/alerts/config/check")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/alerts/config/check").with(user("staff").roles("STAFF")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/alerts/config/check").with(user("manager").roles("MANAGER")))
+                .andExpect(status().isOk());
+    }
+}
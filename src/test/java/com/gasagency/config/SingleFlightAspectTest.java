@@ -0,0 +1,109 @@
+package com.gasagency.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private Reports target;
+    private Reports reports;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        target = new Reports();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new SingleFlightAspect(registry));
+        reports = factory.getProxy();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followerJoinsRunningFlight() throws Exception {
+        Future<Integer> leader = executor.submit(() -> reports.slow("k"));
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+        Future<Integer> follower = executor.submit(() -> reports.slow("k"));
+        awaitCount("coalesced", 1);
+
+        target.release.countDown();
+        assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, target.calls.get());
+    }
+
+    @Test
+    void followerRunsItselfWhenLeaderIsStuck() throws Exception {
+        executor.submit(() -> reports.stuck("k"));
+        assertTrue(target.started.await(5, TimeUnit.SECONDS));
+
+        // The leader never finishes; the follower gives up after its wait timeout
+        CompletableFuture<Integer> follower = CompletableFuture.supplyAsync(() -> reports.stuck("k"));
+        assertEquals(2, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("singleflight.calls").tag("role", "timeout").counter().count());
+    }
+
+    private void awaitCount(String role, double expected) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (registry.find("singleflight.calls").tag("role", role).counters().stream()
+                    .mapToDouble(c -> c.count()).sum() >= expected) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("no " + role + " call recorded");
+    }
+
+    static class Reports {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        @SingleFlight
+        public Integer slow(String key) {
+            int call = calls.incrementAndGet();
+            started.countDown();
+            await(release, 5);
+            return call;
+        }
+
+        @SingleFlight(waitTimeoutMillis = 200)
+        public Integer stuck(String key) {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                started.countDown();
+                await(release, 30);
+            }
+            return call;
+        }
+
+        private static void await(CountDownLatch latch, long seconds) {
+            try {
+                latch.await(seconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
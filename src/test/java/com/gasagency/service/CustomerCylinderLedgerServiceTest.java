@@ -0,0 +1,168 @@
+package com.gasagency.service;
+
+import com.gasagency.config.QueryBudget;
+import com.gasagency.config.QueryBudgetExtension;
+import com.gasagency.dto.CustomerCylinderLedgerDTO;
+import com.gasagency.dto.CustomerStatementDTO;
+import com.gasagency.entity.CustomerCylinderLedger;
+import com.gasagency.repository.CustomerCylinderLedgerRepository;
+import com.gasagency.repository.LedgerAppend;
+import com.gasagency.repository.PendingReturnView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A back-dated write lands in the middle of the customer's chain: the stored
+ * balance and due amount of every later entry must match a replay of the
+ * chain, as the statement computes it. An append dated today stays within a
+ * fixed statement budget.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@ExtendWith(QueryBudgetExtension.class)
+class CustomerCylinderLedgerServiceTest {
+
+    private static final long CUSTOMER_ID = 9101;
+    private static final long WAREHOUSE_ID = 9101;
+    private static final long VARIANT_ID = 9101;
+    private static final long OTHER_VARIANT_ID = 9102;
+
+    @Autowired
+    private CustomerCylinderLedgerService ledgerService;
+
+    @Autowired
+    private CustomerStatementService statementService;
+
+    @Autowired
+    private CustomerDueService customerDueService;
+
+    @Autowired
+    private CustomerCylinderLedgerRepository ledgerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void seedCustomer() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO business_info (id, agency_name) VALUES (9101, 'Chain Agency')");
+        jdbcTemplate.update("INSERT INTO warehouse (id, business_id, created_at, updated_at, version, code, status, "
+                + "name) VALUES (?, 9101, ?, ?, 0, 'WH-CH', 'ACTIVE', 'Chain Warehouse')", WAREHOUSE_ID, now, now);
+        jdbcTemplate.update("INSERT INTO cylinder_variant (id, active, weight_kg, name) "
+                + "VALUES (?, true, 14.2, 'CH 14.2kg'), (?, true, 19.0, 'CH 19kg')", VARIANT_ID, OTHER_VARIANT_ID);
+        jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) "
+                + "VALUES (?, true, 0, '9101000000', 'Chain Customer')", CUSTOMER_ID);
+
+        sale(1, VARIANT_ID, today.minusDays(10), 3, 0, "300", "100");
+        sale(2, OTHER_VARIANT_ID, today.minusDays(8), 2, 0, "400", "0");
+        sale(3, VARIANT_ID, today.minusDays(5), 2, 1, "200", "0");
+        sale(4, VARIANT_ID, today, 1, 2, "100", "250");
+        // Start each test like a new transaction: nothing locked or loaded yet
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @QueryBudget(4)
+    void appendTakesFourStatements() {
+        // Register lock, id, insert and the register update
+        sale(5, VARIANT_ID, today, 1, 0, "100", "0");
+        entityManager.flush();
+    }
+
+    @Test
+    void duplicateReferenceIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> sale(3, VARIANT_ID, today, 1, 0, "100", "0"));
+    }
+
+    @Test
+    void backDatedSaleRechainsLaterEntries() {
+        sale(5, VARIANT_ID, today.minusDays(7), 1, 3, "100", "500");
+
+        assertStoredChainMatchesStatement();
+    }
+
+    @Test
+    void backDatedPaymentRechainsLaterEntries() {
+        ledgerService.recordPayment(new CustomerCylinderLedgerService.PaymentRequest(CUSTOMER_ID,
+                new BigDecimal("350"), today.minusDays(9)));
+
+        assertStoredChainMatchesStatement();
+    }
+
+    @Test
+    void pendingBalancesUseChainLatestEntry() {
+        // Highest id, but the earliest entry of the variant's chain
+        sale(5, VARIANT_ID, today.minusDays(12), 2, 0, "100", "0");
+
+        Map<Long, Long> balances = ledgerService.getAllPendingBalances().stream()
+                .filter(dto -> dto.getCustomerId() == CUSTOMER_ID)
+                .collect(Collectors.toMap(CustomerCylinderLedgerDTO::getVariantId, CustomerCylinderLedgerDTO::getBalance));
+        assertEquals(Map.of(VARIANT_ID, 5L, OTHER_VARIANT_ID, 2L), balances);
+    }
+
+    @Test
+    void pendingReturnsSumChainLatestBalances() {
+        sale(5, VARIANT_ID, today.minusDays(12), 2, 0, "100", "0");
+
+        List<PendingReturnView> pending = ledgerRepository.findCustomersWithPendingReturnsAtLeast(7).stream()
+                .filter(view -> view.getCustomerId() == CUSTOMER_ID)
+                .toList();
+        assertEquals(1, pending.size());
+        assertEquals(7L, pending.get(0).getPendingCount());
+    }
+
+    private void sale(long refId, long variantId, LocalDate date, long filledOut, long emptyIn, String total,
+            String received) {
+        ledgerService.append(new LedgerAppend(CUSTOMER_ID, WAREHOUSE_ID, variantId, date,
+                CustomerCylinderLedger.TransactionType.SALE, refId, null, filledOut, emptyIn, new BigDecimal(total),
+                new BigDecimal(received), null, null, null, "SO-CH-" + refId));
+    }
+
+    private void assertStoredChainMatchesStatement() {
+        CustomerStatementDTO statement = statementService.getStatement(CUSTOMER_ID, today.minusDays(30), today);
+        List<Map<String, Object>> stored = jdbcTemplate.queryForList("SELECT id, variant_id, balance, due_amount "
+                + "FROM customer_cylinder_ledger WHERE customer_id = ? ORDER BY transaction_date, id", CUSTOMER_ID);
+
+        assertEquals(stored.size(), statement.getEntries().size());
+        for (int i = 0; i < stored.size(); i++) {
+            Map<String, Object> row = stored.get(i);
+            CustomerStatementDTO.Entry entry = statement.getEntries().get(i);
+            assertEquals(((Number) row.get("id")).longValue(), entry.getId());
+            if (row.get("variant_id") != null) {
+                assertEquals(entry.getRunningBalance().longValue(), ((Number) row.get("balance")).longValue(),
+                        "balance of entry " + entry.getId());
+            }
+            assertEquals(0, entry.getRunningDue().compareTo((BigDecimal) row.get("due_amount")),
+                    "due of entry " + entry.getId() + ": " + row.get("due_amount") + " vs " + entry.getRunningDue());
+        }
+
+        BigDecimal registered = customerDueService.findCurrentDue(CUSTOMER_ID).orElseThrow();
+        assertEquals(0, statement.getEntries().get(stored.size() - 1).getRunningDue().compareTo(registered),
+                "customer_due register");
+    }
+}
@@ -0,0 +1,81 @@
+package com.gasagency.service;
+
+import com.gasagency.entity.CustomerDue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The register row is created by the first ledger write of a customer. Two
+ * first writes at the same time must both end up holding the row, one after
+ * the other, instead of one failing on the primary key.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CustomerDueServiceTest {
+
+    private static final long CUSTOMER_ID = 9201;
+
+    @Autowired
+    private CustomerDueService customerDueService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedCustomer() {
+        jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) "
+                + "VALUES (?, true, 0, '9201000000', 'First Writer')", CUSTOMER_ID);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM customer_due WHERE customer_id = ?", CUSTOMER_ID);
+        jdbcTemplate.update("DELETE FROM customer WHERE id = ?", CUSTOMER_ID);
+    }
+
+    @Test
+    void concurrentFirstWritersShareOneRow() throws Exception {
+        CountDownLatch firstHoldsRow = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                status -> {
+                    CustomerDue due = customerDueService.lock(CUSTOMER_ID);
+                    firstHoldsRow.countDown();
+                    sleep(300);
+                    customerDueService.record(due, new BigDecimal("100"), null);
+                }));
+        assertTrue(firstHoldsRow.await(10, TimeUnit.SECONDS));
+
+        // Blocks on the first writer's uncommitted row, then sees its amount
+        BigDecimal seen = transactionTemplate.execute(status -> customerDueService.lock(CUSTOMER_ID).getDueAmount());
+        first.get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, new BigDecimal("100").compareTo(seen));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_due WHERE customer_id = ?",
+                Integer.class, CUSTOMER_ID));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.gasagency.service;
+
+import com.gasagency.dto.CustomerBalanceDTO;
+import com.gasagency.dto.CustomerPositionDTO;
+import com.gasagency.dto.CustomerStatementDTO;
+import com.gasagency.entity.CustomerCylinderLedger;
+import com.gasagency.repository.LedgerAppend;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Positions and statements are rebuilt from the opening position (a
+ * checkpoint or the start of the ledger) and the entries after it, in chain
+ * order; they must agree with what the ledger stored for each entry.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class CustomerStatementServiceTest {
+
+    private static final long CUSTOMER_ID = 9401;
+    private static final long WAREHOUSE_ID = 9401;
+    private static final long VARIANT_ID = 9401;
+    private static final long OTHER_VARIANT_ID = 9402;
+
+    @Autowired
+    private CustomerCylinderLedgerService ledgerService;
+
+    @Autowired
+    private CustomerStatementService statementService;
+
+    @Autowired
+    private LedgerCheckpointService checkpointService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void seedCustomer() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO business_info (id, agency_name) VALUES (9401, 'Statement Agency')");
+        jdbcTemplate.update("INSERT INTO warehouse (id, business_id, created_at, updated_at, version, code, status, "
+                + "name) VALUES (?, 9401, ?, ?, 0, 'WH-ST', 'ACTIVE', 'Statement Warehouse')", WAREHOUSE_ID, now, now);
+        jdbcTemplate.update("INSERT INTO cylinder_variant (id, active, weight_kg, name) "
+                + "VALUES (?, true, 14.2, 'ST 14.2kg'), (?, true, 19.0, 'ST 19kg')", VARIANT_ID, OTHER_VARIANT_ID);
+        jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) "
+                + "VALUES (?, true, 0, '9401000000', 'Statement Customer')", CUSTOMER_ID);
+
+        // Balances 3/0, 3/2, 2/2; due 300, 400, 500
+        sale(1, VARIANT_ID, today.minusDays(20), 3, 0, "300", "0");
+        sale(2, OTHER_VARIANT_ID, today.minusDays(15), 2, 0, "200", "100");
+        sale(3, VARIANT_ID, today.minusDays(10), 1, 2, "100", "0");
+    }
+
+    @Test
+    void backDatedEntryIsInLaterPositions() {
+        sale(4, VARIANT_ID, today.minusDays(12), 2, 0, "150", "50");
+        flushAndClear();
+
+        assertPosition(statementService.getPositionAsOf(CUSTOMER_ID, today.minusDays(11)), 5, 2, "500");
+
+        CustomerStatementDTO statement = statementService.getStatement(CUSTOMER_ID, today.minusDays(12), today);
+        assertPosition(statement.getOpening(), 3, 2, "400");
+        List<CustomerStatementDTO.Entry> entries = statement.getEntries();
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), 5, "500");
+        assertEntry(entries.get(1), 4, "600");
+        assertPosition(statement.getClosing(), 4, 2, "600");
+        assertStoredDue("600");
+    }
+
+    @Test
+    void overpaymentMidPeriodIsNotCarried() {
+        // Pays 700 on a due of 500: the due stops at zero, the 200 is not credited
+        sale(4, OTHER_VARIANT_ID, today.minusDays(8), 0, 0, "0", "700");
+        sale(5, VARIANT_ID, today.minusDays(5), 1, 0, "100", "0");
+        flushAndClear();
+
+        assertPosition(statementService.getPositionAsOf(CUSTOMER_ID, today.minusDays(6)), 2, 2, "0");
+
+        CustomerStatementDTO statement = statementService.getStatement(CUSTOMER_ID, today.minusDays(9), today);
+        assertPosition(statement.getOpening(), 2, 2, "500");
+        assertEquals(2, statement.getEntries().size());
+        assertEntry(statement.getEntries().get(0), 2, "0");
+        assertEntry(statement.getEntries().get(1), 3, "100");
+        assertPosition(statement.getClosing(), 3, 2, "100");
+        assertStoredDue("100");
+    }
+
+    @Test
+    void positionsStartFromCheckpoint() {
+        LocalDate monthsAgo = YearMonth.now().minusMonths(3).atDay(10);
+        sale(4, VARIANT_ID, monthsAgo, 4, 0, "400", "0");
+        flushAndClear();
+        assertTrue(checkpointService.compact() > 0);
+        LocalDate cut = checkpointService.findLatest(CUSTOMER_ID).orElseThrow().asOfDate();
+
+        // The history the checkpoint covers is no longer read (as after an archive)
+        jdbcTemplate.update("DELETE FROM customer_cylinder_ledger WHERE customer_id = ? AND transaction_date <= ?",
+                CUSTOMER_ID, cut);
+
+        // 4 + 3 + 1 - 2 and 2 cylinders; 400 + 300 + 100 + 100 due
+        assertPosition(statementService.getPositionAsOf(CUSTOMER_ID, today), 6, 2, "900");
+        CustomerStatementDTO statement = statementService.getStatement(CUSTOMER_ID, cut.plusDays(1), today);
+        assertPosition(statement.getClosing(), 6, 2, "900");
+    }
+
+    private void sale(long refId, long variantId, LocalDate date, long filledOut, long emptyIn, String total,
+            String received) {
+        ledgerService.append(new LedgerAppend(CUSTOMER_ID, WAREHOUSE_ID, variantId, date,
+                CustomerCylinderLedger.TransactionType.SALE, refId, null, filledOut, emptyIn, new BigDecimal(total),
+                new BigDecimal(received), null, null, null, "SO-ST-" + refId));
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void assertPosition(CustomerPositionDTO position, long balance, long otherBalance, String due) {
+        Map<Long, Long> balances = position.getVariantBalances().stream()
+                .collect(Collectors.toMap(CustomerBalanceDTO.VariantBalance::getVariantId,
+                        CustomerBalanceDTO.VariantBalance::getBalance));
+        assertEquals(Map.of(VARIANT_ID, balance, OTHER_VARIANT_ID, otherBalance), balances,
+                "balances as of " + position.getAsOfDate());
+        assertEquals(0, new BigDecimal(due).compareTo(position.getDueAmount()),
+                "due as of " + position.getAsOfDate() + ": " + position.getDueAmount());
+    }
+
+    private static void assertEntry(CustomerStatementDTO.Entry entry, long runningBalance, String runningDue) {
+        assertEquals(runningBalance, entry.getRunningBalance(), "balance of entry " + entry.getId());
+        assertEquals(0, new BigDecimal(runningDue).compareTo(entry.getRunningDue()),
+                "due of entry " + entry.getId() + ": " + entry.getRunningDue());
+    }
+
+    // The ledger's own chain agrees with the statement's closing due
+    private void assertStoredDue(String due) {
+        BigDecimal stored = jdbcTemplate.queryForObject("SELECT due_amount FROM customer_cylinder_ledger "
+                + "WHERE customer_id = ? ORDER BY transaction_date DESC, id DESC LIMIT 1", BigDecimal.class,
+                CUSTOMER_ID);
+        assertEquals(0, new BigDecimal(due).compareTo(stored));
+    }
+}
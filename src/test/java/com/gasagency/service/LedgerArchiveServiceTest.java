@@ -0,0 +1,198 @@
+package com.gasagency.service;
+
+import com.gasagency.config.PostgresTestSupport;
+import com.gasagency.dto.CustomerBalanceDTO;
+import com.gasagency.dto.CustomerPositionDTO;
+import com.gasagency.dto.CustomerStatementDTO;
+import com.gasagency.entity.CustomerCylinderLedger;
+import com.gasagency.exception.InvalidOperationException;
+import com.gasagency.repository.LedgerAppend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Split an old month out of the default partition and archive it: the rows
+ * brought forward carry each key's chain-latest balance and the customer's
+ * due as of the end of the month, positions start from the checkpoint left
+ * at the period end, and the month takes no more writes.
+ */
+@EnabledIf("com.gasagency.config.PostgresTestSupport#available")
+@TestPropertySource(properties = "app.ledger.archive.directory=target/test-ledger-archive")
+class LedgerArchiveServiceTest extends PostgresTestSupport {
+
+    private static final long ACTIVE_CUSTOMER_ID = 9301;
+    private static final long CLOSED_CUSTOMER_ID = 9302;
+    private static final long WAREHOUSE_ID = 9301;
+    private static final long VARIANT_ID = 9301;
+    private static final long OTHER_VARIANT_ID = 9302;
+
+    @Autowired
+    private CustomerCylinderLedgerService ledgerService;
+
+    @Autowired
+    private LedgerPartitionService partitionService;
+
+    @Autowired
+    private LedgerArchiveService archiveService;
+
+    @Autowired
+    private CustomerStatementService statementService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Past the default 36-month horizon
+    private final YearMonth month = YearMonth.now().minusMonths(40);
+
+    @BeforeEach
+    void seedCustomers() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO business_info (id, agency_name) VALUES (9301, 'Archive Agency')");
+        jdbcTemplate.update("INSERT INTO warehouse (id, business_id, created_at, updated_at, version, code, status, "
+                + "name) VALUES (?, 9301, ?, ?, 0, 'WH-AR', 'ACTIVE', 'Archive Warehouse')", WAREHOUSE_ID, now, now);
+        jdbcTemplate.update("INSERT INTO cylinder_variant (id, active, weight_kg, name) "
+                + "VALUES (?, true, 14.2, 'AR 14.2kg'), (?, true, 19.0, 'AR 19kg')", VARIANT_ID, OTHER_VARIANT_ID);
+        jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) "
+                + "VALUES (?, true, 0, '9301000000', 'Active Customer'), "
+                + "(?, true, 0, '9302000000', 'Closed Customer')", ACTIVE_CUSTOMER_ID, CLOSED_CUSTOMER_ID);
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        String partition = LedgerPartitionService.partitionName(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        jdbcTemplate.update("DELETE FROM ledger_archive WHERE period_start = ?", month.atDay(1));
+        jdbcTemplate.update("DELETE FROM customer_cylinder_ledger WHERE customer_id IN (?, ?)",
+                ACTIVE_CUSTOMER_ID, CLOSED_CUSTOMER_ID);
+        jdbcTemplate.update("DELETE FROM customer_due WHERE customer_id IN (?, ?)",
+                ACTIVE_CUSTOMER_ID, CLOSED_CUSTOMER_ID);
+        jdbcTemplate.update("DELETE FROM customer WHERE id IN (?, ?)", ACTIVE_CUSTOMER_ID, CLOSED_CUSTOMER_ID);
+        jdbcTemplate.update("DELETE FROM cylinder_variant WHERE id IN (?, ?)", VARIANT_ID, OTHER_VARIANT_ID);
+        jdbcTemplate.update("DELETE FROM warehouse WHERE id = ?", WAREHOUSE_ID);
+        jdbcTemplate.update("DELETE FROM business_info WHERE id = 9301");
+        Files.deleteIfExists(archiveService.getDirectory().resolve(LedgerArchiveService.fileName(month)));
+    }
+
+    @Test
+    void archiveBringsForwardChainLatestBalanceAndMonthEndDue() {
+        archiveSeededMonth();
+
+        List<Map<String, Object>> carried = jdbcTemplate.queryForList("SELECT customer_id, variant_id, "
+                + "transaction_date, filled_out, balance, total_amount, due_amount FROM customer_cylinder_ledger "
+                + "WHERE ref_type = 'INITIAL_STOCK' AND customer_id IN (?, ?) ORDER BY customer_id, variant_id",
+                ACTIVE_CUSTOMER_ID, CLOSED_CUSTOMER_ID);
+        assertEquals(2, carried.size());
+        // Due at the month end (350), not today's (300); no bill, the customer has later rows
+        assertCarried(carried.get(0), ACTIVE_CUSTOMER_ID, 5, "0", "350");
+        // Nothing after the month: the due is billed on the brought-forward row
+        assertCarried(carried.get(1), CLOSED_CUSTOMER_ID, 1, "250", "250");
+    }
+
+    @Test
+    void positionsStartFromTheArchiveCheckpoint() {
+        archiveSeededMonth();
+        LocalDate periodEnd = month.plusMonths(1).atDay(1);
+
+        // Not replayed from the first row left: the other variant's first cylinder
+        // and the month's due are only in the checkpoint
+        assertPosition(statementService.getPositionAsOf(ACTIVE_CUSTOMER_ID, LocalDate.now()), 5, 2, "300");
+        CustomerStatementDTO statement = statementService.getStatement(ACTIVE_CUSTOMER_ID, periodEnd.plusDays(1),
+                LocalDate.now());
+        assertPosition(statement.getOpening(), 5, 1, "350");
+        assertPosition(statement.getClosing(), 5, 2, "300");
+
+        // A back-dated write after the period end rechains from the checkpoint too
+        sale(ACTIVE_CUSTOMER_ID, 6, OTHER_VARIANT_ID, periodEnd.plusDays(2), 1, "100", "0");
+        Map<String, Object> latest = jdbcTemplate.queryForMap("SELECT balance, due_amount "
+                + "FROM customer_cylinder_ledger WHERE customer_id = ? AND variant_id = ? "
+                + "ORDER BY transaction_date DESC, id DESC LIMIT 1", ACTIVE_CUSTOMER_ID, OTHER_VARIANT_ID);
+        assertEquals(3L, ((Number) latest.get("balance")).longValue());
+        assertEquals(0, new BigDecimal("400").compareTo((BigDecimal) latest.get("due_amount")));
+
+        assertThrows(InvalidOperationException.class,
+                () -> statementService.getPositionAsOf(ACTIVE_CUSTOMER_ID, month.atDay(15)));
+    }
+
+    @Test
+    void archivedMonthTakesNoWrites() {
+        sale(ACTIVE_CUSTOMER_ID, 1, VARIANT_ID, month.atDay(10), 3, "300", "100");
+        partitionService.migrate(1);
+        archiveService.archiveExpired();
+
+        assertThrows(InvalidOperationException.class,
+                () -> sale(ACTIVE_CUSTOMER_ID, 2, VARIANT_ID, month.atDay(15), 1, "100", "0"));
+        // The brought-forward rows' day is covered by the archive's checkpoint
+        assertThrows(InvalidOperationException.class,
+                () -> sale(ACTIVE_CUSTOMER_ID, 3, VARIANT_ID, month.plusMonths(1).atDay(1), 1, "100", "0"));
+        assertThrows(InvalidOperationException.class, () -> ledgerService.recordPayment(
+                new CustomerCylinderLedgerService.PaymentRequest(ACTIVE_CUSTOMER_ID, new BigDecimal("50"),
+                        month.atDay(25))));
+        // Would have gone to the default partition, behind the brought-forward row
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer_cylinder_ledger "
+                + "WHERE customer_id = ? AND transaction_date < ?", Integer.class, ACTIVE_CUSTOMER_ID,
+                month.plusMonths(1).atDay(1)));
+    }
+
+    private void archiveSeededMonth() {
+        sale(ACTIVE_CUSTOMER_ID, 1, VARIANT_ID, month.atDay(10), 3, "300", "100");
+        // Written later, so the highest id of the key, but first in the chain
+        sale(ACTIVE_CUSTOMER_ID, 2, VARIANT_ID, month.atDay(5), 2, "100", "0");
+        sale(ACTIVE_CUSTOMER_ID, 3, OTHER_VARIANT_ID, month.atDay(12), 1, "50", "0");
+        // After the month: the other variant is not brought forward and the due changes
+        sale(ACTIVE_CUSTOMER_ID, 4, OTHER_VARIANT_ID, LocalDate.now(), 1, "0", "50");
+
+        sale(CLOSED_CUSTOMER_ID, 5, VARIANT_ID, month.atDay(3), 1, "500", "100");
+        ledgerService.recordPayment(new CustomerCylinderLedgerService.PaymentRequest(CLOSED_CUSTOMER_ID,
+                new BigDecimal("150"), month.atDay(20)));
+
+        assertEquals(Map.of(month.toString(), 5L), partitionService.migrate(1));
+        assertEquals(Map.of(month.toString(), 5L), archiveService.archiveExpired());
+    }
+
+    private void sale(long customerId, long refId, long variantId, LocalDate date, long filledOut, String total,
+            String received) {
+        ledgerService.append(new LedgerAppend(customerId, WAREHOUSE_ID, variantId, date,
+                CustomerCylinderLedger.TransactionType.SALE, refId, null, filledOut, 0, new BigDecimal(total),
+                new BigDecimal(received), null, null, null, "SO-AR-" + refId));
+    }
+
+    private static void assertPosition(CustomerPositionDTO position, long balance, long otherBalance, String due) {
+        Map<Long, Long> balances = position.getVariantBalances().stream()
+                .collect(Collectors.toMap(CustomerBalanceDTO.VariantBalance::getVariantId,
+                        CustomerBalanceDTO.VariantBalance::getBalance));
+        assertEquals(Map.of(VARIANT_ID, balance, OTHER_VARIANT_ID, otherBalance), balances,
+                "balances as of " + position.getAsOfDate());
+        assertEquals(0, new BigDecimal(due).compareTo(position.getDueAmount()),
+                "due as of " + position.getAsOfDate() + ": " + position.getDueAmount());
+    }
+
+    private void assertCarried(Map<String, Object> row, long customerId, long balance, String total, String due) {
+        assertEquals(customerId, ((Number) row.get("customer_id")).longValue());
+        assertEquals(month.plusMonths(1).atDay(1), ((java.sql.Date) row.get("transaction_date")).toLocalDate());
+        assertEquals(VARIANT_ID, ((Number) row.get("variant_id")).longValue());
+        assertEquals(balance, ((Number) row.get("filled_out")).longValue());
+        assertEquals(balance, ((Number) row.get("balance")).longValue());
+        assertEquals(0, new BigDecimal(total).compareTo((BigDecimal) row.get("total_amount")), "total_amount");
+        assertEquals(0, new BigDecimal(due).compareTo((BigDecimal) row.get("due_amount")), "due_amount");
+    }
+}
@@ -0,0 +1,124 @@
+package com.gasagency.service;
+
+import com.gasagency.config.QueryCounter;
+import com.gasagency.dto.CreateSaleRequestDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statements and round trips of POST /api/sales with a bank payment, under
+ * the prod batching settings. Sale, bank ledger and sale item ids come from
+ * pooled sequences, so their inserts are JDBC-batched: the sale's lines go
+ * out as one batch whatever their number, and each extra line costs only its
+ * own stock and ledger work.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=20",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true" })
+class SaleServiceBatchingTest {
+
+    private static final long CUSTOMER_ID = 9501;
+    private static final long WAREHOUSE_ID = 9501;
+    private static final long BANK_ACCOUNT_ID = 9501;
+    private static final long FIRST_VARIANT_ID = 9501;
+    private static final int VARIANTS = 5;
+
+    // Measured on H2: 13 statements and 5 batches (sale, bank ledger, sale
+    // items, stock and due updates)
+    private static final int ONE_LINE_BUDGET = 18;
+    // Variant, stock and price lookups, the stock update and the ledger
+    // append (id, insert, due update)
+    private static final int PER_LINE_BUDGET = 9;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void seedCatalogue() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO business_info (id, agency_name) VALUES (9501, 'Batch Agency')");
+        jdbcTemplate.update("INSERT INTO warehouse (id, business_id, created_at, updated_at, version, code, status, "
+                + "name) VALUES (?, 9501, ?, ?, 0, 'WHBT', 'ACTIVE', 'Batch Warehouse')", WAREHOUSE_ID, now, now);
+        jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) "
+                + "VALUES (?, true, 0, '9501000000', 'Batch Customer')", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO bank_account (id, is_active, version, code, account_number, "
+                + "account_holder_name, bank_name) VALUES (?, true, 0, 'BKBT', '9501', 'Batch Agency', 'Batch Bank')",
+                BANK_ACCOUNT_ID);
+        for (long variantId = FIRST_VARIANT_ID; variantId < FIRST_VARIANT_ID + VARIANTS; variantId++) {
+            jdbcTemplate.update("INSERT INTO cylinder_variant (id, active, weight_kg, name) VALUES (?, true, 14.2, ?)",
+                    variantId, "BT " + variantId);
+            jdbcTemplate.update("INSERT INTO inventory_stock (id, empty_qty, filled_qty, last_updated, variant_id, "
+                    + "version, warehouse_id) VALUES (?, 0, 100, ?, ?, 0, ?)", variantId, now, variantId, WAREHOUSE_ID);
+            jdbcTemplate.update("INSERT INTO customer_variant_price (id, discount_price, sale_price, customer_id, "
+                    + "variant_id) VALUES (?, 0, 500, ?, ?)", variantId, CUSTOMER_ID, variantId);
+        }
+        // The customer's first sale also opens the due register
+        measureSale(1);
+    }
+
+    @Test
+    void oneLineSaleStaysWithinBudget() {
+        QueryCounter.Counts counts = measureSale(1);
+
+        assertTrue(counts.getTotal() <= ONE_LINE_BUDGET, describe(counts));
+        assertEquals(1, counts.getPrepared("insert into sale_item"), describe(counts));
+    }
+
+    @Test
+    void saleLinesAreInsertedAsOneBatch() {
+        QueryCounter.Counts oneLine = measureSale(1);
+        QueryCounter.Counts fiveLines = measureSale(5);
+
+        assertEquals(1, fiveLines.getPrepared("insert into sale_item"), describe(fiveLines));
+        assertTrue(fiveLines.getTotal() - oneLine.getTotal() <= 4 * PER_LINE_BUDGET,
+                describe(oneLine) + " vs " + describe(fiveLines));
+    }
+
+    private QueryCounter.Counts measureSale(int lines) {
+        List<CreateSaleRequestDTO.SaleItemRequestDTO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(new CreateSaleRequestDTO.SaleItemRequestDTO(FIRST_VARIANT_ID + i, 1L, 0L, BigDecimal.ZERO));
+        }
+        QueryCounter.Counts counts = QueryCounter.start();
+        try {
+            saleService.createSale(new CreateSaleRequestDTO(CUSTOMER_ID, WAREHOUSE_ID, new BigDecimal("100"), "UPI",
+                    BANK_ACCOUNT_ID, items));
+            // The test transaction never commits: flush what the commit would
+            entityManager.flush();
+        } finally {
+            QueryCounter.stop();
+            entityManager.clear();
+        }
+        return counts;
+    }
+
+    private static String describe(QueryCounter.Counts counts) {
+        return counts.getStatements() + " statements, " + counts.getBatches() + " batches";
+    }
+}
@@ -0,0 +1,123 @@
+package com.gasagency.service;
+
+import com.gasagency.config.QueryBudget;
+import com.gasagency.config.QueryBudgetExtension;
+import com.gasagency.dto.SaleDTO;
+import com.gasagency.entity.Sale;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sale search used to fetch-join items under a row limit and load customer,
+ * warehouse and bank account per sale. A page now costs the id query, the
+ * count and one entity-graph fetch, whatever its size; a slice or a short last
+ * page skips the count. The limit is applied in SQL, so a page loads its own
+ * sales only, however many match.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@ExtendWith(QueryBudgetExtension.class)
+class SaleServiceQueryBudgetTest {
+
+    private static final int SALES = 20;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void seedSales() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO business_info (id, agency_name) VALUES (9001, 'Budget Agency')");
+        jdbcTemplate.update("INSERT INTO warehouse (id, business_id, created_at, updated_at, version, code, status, "
+                + "name) VALUES (9001, 9001, ?, ?, 0, 'WH-QB', 'ACTIVE', 'Budget Warehouse')", now, now);
+        jdbcTemplate.update("INSERT INTO cylinder_variant (id, active, weight_kg, name) "
+                + "VALUES (9001, true, 14.2, 'QB 14.2kg'), (9002, true, 19.0, 'QB 19kg')");
+        for (int i = 1; i <= SALES; i++) {
+            long customerId = 9000 + i;
+            long saleId = 90000 + i;
+            jdbcTemplate.update("INSERT INTO customer (id, active, version, mobile, name) VALUES (?, true, 0, ?, ?)",
+                    customerId, "90000000" + String.format("%02d", i), "Budget Customer " + i);
+            jdbcTemplate.update("INSERT INTO sale (id, sale_date, total_amount, created_at, customer_id, version, "
+                    + "warehouse_id, reference_number) VALUES (?, ?, 1000, ?, ?, 0, 9001, ?)",
+                    saleId, LocalDate.now().minusDays(i), now, customerId, String.format("SO-QB-202610-%06d", i));
+            for (long variantId = 9001; variantId <= 9002; variantId++) {
+                jdbcTemplate.update("INSERT INTO sale_item (id, base_price, discount, final_price, qty_empty_received, "
+                        + "qty_issued, sale_id, variant_id, version, warehouse_id) "
+                        + "VALUES (?, 500, 0, 500, 1, 1, ?, ?, 0, 9001)",
+                        saleId * 10 + variantId - 9000, saleId, variantId);
+            }
+        }
+    }
+
+    @Test
+    @QueryBudget(3)
+    void salePageIsNotNPlusOne() {
+        Page<SaleDTO> page = saleService.getAllSales(PageRequest.of(0, SALES, Sort.by("saleDate")),
+                null, null, null, null, null, null, "SO-QB-");
+        assertEquals(SALES, page.getContent().size());
+        assertEquals(2, page.getContent().get(0).getSaleItems().size());
+    }
+
+    @Test
+    @QueryBudget(3)
+    void pageLoadsOnlyItsOwnSales() {
+        // Newest first: sale i is dated i days ago
+        Page<SaleDTO> page = saleService.getAllSales(PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "saleDate")),
+                null, null, null, null, null, null, "SO-QB-");
+
+        assertEquals(SALES, page.getTotalElements());
+        assertEquals(List.of(90006L, 90007L, 90008L, 90009L, 90010L),
+                page.getContent().stream().map(SaleDTO::getId).toList());
+        // In-memory pagination would have loaded every matching sale
+        long loaded = entityManager.unwrap(Session.class).getStatistics().getEntityKeys().stream()
+                .filter(key -> ((EntityKey) key).getEntityName().equals(Sale.class.getName()))
+                .count();
+        assertEquals(5, loaded);
+    }
+
+    @Test
+    @QueryBudget(2)
+    void sliceSkipsTheCount() {
+        Slice<SaleDTO> slice = saleService.getAllSalesSlice(PageRequest.of(0, 5, Sort.by("saleDate")),
+                null, null, null, null, null, null, "SO-QB-");
+        assertEquals(5, slice.getContent().size());
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    @QueryBudget(2)
+    void shortLastPageSkipsTheCount() {
+        Page<SaleDTO> page = saleService.getAllSales(PageRequest.of(1, 15, Sort.by("saleDate")),
+                null, null, null, null, null, null, "SO-QB-");
+        assertEquals(5, page.getContent().size());
+        assertEquals(SALES, page.getTotalElements());
+    }
+}
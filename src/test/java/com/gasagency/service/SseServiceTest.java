@@ -0,0 +1,168 @@
+package com.gasagency.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streams opened through GET /api/alerts/stream. Thousands of open
+ * connections share the hub's fixed sender and heartbeat threads and do not
+ * hold admission permits; a user can have several; a reconnect with
+ * Last-Event-ID gets what it missed, or a resync once that has left the
+ * replay buffer.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "app.sse.heartbeat-interval=200ms",
+        "app.sse.replay-capacity=16",
+        "app.sse.max-connections-per-user=3" })
+// Closes the streams (and the heartbeat) with the context
+@DirtiesContext
+class SseServiceTest {
+
+    private static final int CONNECTIONS = 2000;
+    // Sender pool, heartbeat and whatever the container starts on the way
+    private static final int MAX_NEW_THREADS = 32;
+
+    // Far above the outbox ids the poller could publish in this context
+    private static final AtomicLong EVENT_IDS = new AtomicLong(1_000_000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SseService sseService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void thousandsOfStreamsShareTheHubThreads() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        int openBefore = sseService.getActiveConnections();
+
+        List<MvcResult> streams = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            streams.add(open(stream("load-" + i)));
+        }
+        assertEquals(openBefore + CONNECTIONS, sseService.getActiveConnections());
+
+        long first = publish("alert");
+        long second = publish("alert-dismissed");
+        awaitUntil(() -> streams.stream().allMatch(stream -> received(stream, first) && received(stream, second)),
+                "every stream receives both events");
+        awaitUntil(() -> streams.stream().allMatch(stream -> content(stream).contains("event:keep-alive")),
+                "every stream receives a heartbeat");
+
+        int newThreads = Thread.activeCount() - threadsBefore;
+        assertTrue(newThreads <= MAX_NEW_THREADS, newThreads + " threads for " + CONNECTIONS + " streams");
+
+        // Open streams hold no INTERACTIVE permit: screen reads still go through
+        mockMvc.perform(get("/api/alerts").with(user("reader").roles("STAFF"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void userKeepsSeveralStreamsUpToTheLimit() throws Exception {
+        double closedBefore = closed("user_limit");
+        List<MvcResult> tabs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tabs.add(open(stream("tabs")));
+        }
+
+        // The fourth tab closed the first
+        assertEquals(closedBefore + 1, closed("user_limit"));
+        long id = publish("alert");
+        awaitUntil(() -> tabs.subList(1, 4).stream().allMatch(tab -> received(tab, id)),
+                "the three open tabs receive the event");
+        assertFalse(received(tabs.get(0), id));
+    }
+
+    @Test
+    void reconnectReplaysMissedEvents() throws Exception {
+        long seen = publish("alert");
+        long missed = publish("alert");
+        long alsoMissed = publish("alert-dismissed");
+
+        MvcResult reconnect = open(stream("replay").header("Last-Event-ID", Long.toString(seen)));
+
+        String content = content(reconnect);
+        assertFalse(received(reconnect, seen));
+        assertTrue(received(reconnect, missed), content);
+        assertTrue(received(reconnect, alsoMissed), content);
+        assertFalse(content.contains("event:resync"), content);
+    }
+
+    @Test
+    void reconnectBeyondTheBufferResyncs() throws Exception {
+        long seen = publish("alert");
+        for (int i = 0; i <= 16; i++) {
+            publish("alert");
+        }
+
+        MvcResult reconnect = open(stream("resync").header("Last-Event-ID", Long.toString(seen)));
+
+        assertTrue(content(reconnect).contains("event:resync"), content(reconnect));
+    }
+
+    private MockHttpServletRequestBuilder stream(String username) {
+        return get("/api/alerts/stream").with(user(username).roles("STAFF"));
+    }
+
+    private MvcResult open(MockHttpServletRequestBuilder stream) throws Exception {
+        return mockMvc.perform(stream).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private long publish(String name) {
+        long id = EVENT_IDS.incrementAndGet();
+        sseService.publish(id, name, "{\"event\":" + id + "}");
+        return id;
+    }
+
+    private double closed(String reason) {
+        return meterRegistry.counter("sse.connections.closed", "reason", reason).count();
+    }
+
+    private static boolean received(MvcResult stream, long id) {
+        return content(stream).contains("id:" + id + "\n");
+    }
+
+    private static String content(MvcResult stream) {
+        try {
+            return stream.getResponse().getContentAsString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting until " + description);
+            Thread.sleep(50);
+        }
+    }
+}
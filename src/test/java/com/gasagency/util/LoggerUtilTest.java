@@ -0,0 +1,95 @@
+package com.gasagency.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * LoggerUtil runs several times per sale and ledger entry. A call whose level
+ * is off must not allocate once warmed up (the old StringBuilder version took
+ * about 470 bytes per logDatabaseOperation); an enabled call still renders
+ * "EVENT | key=value | ..." for the text appenders.
+ */
+class LoggerUtilTest {
+
+    private static final int WARM_UP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 100_000;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LoggerUtilTest.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void disabledCallsDoNotAllocate() {
+        Logger audit = (Logger) LoggerFactory.getLogger("com.gasagency.audit");
+        Level auditLevel = audit.getLevel();
+        audit.setLevel(Level.WARN);
+        try {
+            measureDisabledCalls();
+        } finally {
+            audit.setLevel(auditLevel);
+        }
+    }
+
+    private void measureDisabledCalls() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        logger.setLevel(Level.WARN);
+
+        logDisabled(WARM_UP_CALLS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        logDisabled(MEASURED_CALLS);
+        long perRound = (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED_CALLS;
+
+        assertEquals(0, perRound, perRound + " bytes per round of disabled calls");
+        assertEquals(0, appender.list.size());
+    }
+
+    @Test
+    void enabledCallsRenderKeyValuePairs() {
+        logger.setLevel(Level.DEBUG);
+
+        LoggerUtil.logDatabaseOperation(logger, "UPDATE", "Customer", "customerId", 42L, "balance", 7);
+        LoggerUtil.logBusinessEntry(logger, "CREATE_SALE", "customerId", 42L, "trailing");
+
+        assertEquals(2, appender.list.size());
+        assertEquals("DB_OPERATION | operation=UPDATE | entity=Customer | customerId=42 | balance=7",
+                appender.list.get(0).getFormattedMessage());
+        assertEquals("OPERATION_START | operation=CREATE_SALE | customerId=42 | trailing",
+                appender.list.get(1).getFormattedMessage());
+    }
+
+    // The details array is built once: a call site's varargs array is the
+    // caller's allocation (the JIT usually removes it), not LoggerUtil's
+    private void logDisabled(int calls) {
+        Object[] saleDetails = { "saleId", 42L, "status", "OK" };
+        Object[] customerDetails = { "customerId", 42L, "warehouseId", 7L };
+        for (int i = 0; i < calls; i++) {
+            LoggerUtil.logDatabaseOperation(logger, "SELECT", "Sale", saleDetails);
+            LoggerUtil.logBusinessEntry(logger, "CREATE_SALE", customerDetails);
+            LoggerUtil.logAudit("SALE_CREATED", "Sale", saleDetails);
+        }
+    }
+}